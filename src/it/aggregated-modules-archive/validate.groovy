@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+def base = new File(basedir, 'target/jboss-modules')
+
+def jgroupsFile = new File(base, 'org/jgroups/main/jgroups-3.2.7.Final.jar')
+assert jgroupsFile.exists()
+
+/* The artifacts of the projects have been packaged before. */
+def moduleA = new File(base, 'de/smartics/sandbox/aggregated-module-a/main')
+assert new File(moduleA, 'aggregated-module-a-testing.jar').exists()
+assert new File(moduleA, 'module.xml').exists()
+
+def moduleB = new File(base, 'de/smartics/sandbox/aggregated-module-b/main')
+assert new File(moduleB, 'aggregated-module-b-testing.jar').exists()
+
+def module = new XmlSlurper().parse(new File(moduleB, 'module.xml'))
+assert 'de.smartics.sandbox.aggregated-module-b' == module.@name.text()
+
+def names = module.dependencies.module.collect { it.@name.text() }
+assert names.sort() == ['de.smartics.sandbox.aggregated-module-a', 'org.jgroups']
+
+/* The archive is created once for the reactor, not per project. */
+assert !new File(basedir, 'module-a/target/jboss-modules').exists()
+assert !new File(basedir, 'module-b/target/jboss-modules').exists()
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.security.MessageDigest
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+import java.util.zip.ZipEntry
+
+/*
+ * Generates a Maven repository with a directed acyclic graph of artifacts.
+ * The root artifact de.smartics.synthetic.level0:root depends on 'fanOut'
+ * artifacts of level 1, each artifact of level n on 'fanOut' artifacts of
+ * level n + 1. Dependencies are selected with a fixed seed, so the repository
+ * is the same on every run.
+ */
+def config = new Properties()
+new File(basedir, 'synthetic.properties').withInputStream { config.load(it) }
+def setting = { String key ->
+  Integer.parseInt(System.getProperty('synthetic.' + key, config.getProperty(key)).trim())
+}
+def depth = setting('depth')
+def width = setting('width')
+def fanOut = Math.min(setting('fanOut'), width)
+def random = new Random(setting('seed'))
+
+def repository = new File(basedir, 'synthetic-repo')
+repository.deleteDir()
+
+// Remove artifacts resolved by earlier runs to measure the resolution.
+if (binding.variables.containsKey('localRepositoryPath'))
+{
+  new File(localRepositoryPath, 'de/smartics/synthetic').deleteDir()
+}
+
+def writeWithChecksum = { File file, byte[] content ->
+  file.parentFile.mkdirs()
+  file.bytes = content
+  def sha1 = MessageDigest.getInstance('SHA-1').digest(content)
+  new File(file.path + '.sha1').text = sha1.collect { String.format('%02x', it) }.join()
+}
+
+def createPom = { String groupId, String artifactId, List dependencies ->
+  def xml = new StringBuilder()
+  xml << '<?xml version="1.0"?>\n'
+  xml << '<project xmlns="http://maven.apache.org/POM/4.0.0">\n'
+  xml << '  <modelVersion>4.0.0</modelVersion>\n'
+  xml << "  <groupId>${groupId}</groupId>\n"
+  xml << "  <artifactId>${artifactId}</artifactId>\n"
+  xml << '  <version>1.0</version>\n'
+  if (dependencies)
+  {
+    xml << '  <dependencies>\n'
+    dependencies.each { dependency ->
+      xml << '    <dependency>\n'
+      xml << "      <groupId>${dependency[0]}</groupId>\n"
+      xml << "      <artifactId>${dependency[1]}</artifactId>\n"
+      xml << '      <version>1.0</version>\n'
+      xml << '    </dependency>\n'
+    }
+    xml << '  </dependencies>\n'
+  }
+  xml << '</project>\n'
+  return xml.toString().getBytes('UTF-8')
+}
+
+def createJar = { String groupId, String artifactId ->
+  def manifest = new Manifest()
+  manifest.mainAttributes.putValue('Manifest-Version', '1.0')
+  def bytes = new ByteArrayOutputStream()
+  def jar = new JarOutputStream(bytes, manifest)
+  def packageName = (groupId + '.' + artifactId).replace('.', '/')
+  jar.putNextEntry(new ZipEntry(packageName + '/'))
+  jar.closeEntry()
+  jar.putNextEntry(new ZipEntry(packageName + '/artifact.properties'))
+  jar << "artifact=${groupId}:${artifactId}\n".getBytes('UTF-8')
+  jar.closeEntry()
+  jar.close()
+  return bytes.toByteArray()
+}
+
+def writeArtifact = { String groupId, String artifactId, List dependencies ->
+  def folder = new File(repository, groupId.replace('.', '/') + '/' + artifactId + '/1.0')
+  def base = artifactId + '-1.0'
+  writeWithChecksum(new File(folder, base + '.pom'), createPom(groupId, artifactId, dependencies))
+  writeWithChecksum(new File(folder, base + '.jar'), createJar(groupId, artifactId))
+}
+
+def selectDependencies = { int level ->
+  if (level > depth)
+  {
+    return []
+  }
+  def indices = (0..<width).toList()
+  Collections.shuffle(indices, random)
+  return indices.take(fanOut).sort().collect { ['de.smartics.synthetic.level' + level, 'node' + it] }
+}
+
+writeArtifact('de.smartics.synthetic.level0', 'root', selectDependencies(1))
+for (level in 1..depth)
+{
+  for (index in 0..<width)
+  {
+    writeArtifact('de.smartics.synthetic.level' + level, 'node' + index, selectDependencies(level + 1))
+  }
+}
+
+println "Generated synthetic repository with ${1 + depth * width} artifacts" +
+        " (depth=${depth}, width=${width}, fanOut=${fanOut})."
+return true
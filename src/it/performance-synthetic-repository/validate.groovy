@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import groovy.json.JsonSlurper
+
+def config = new Properties()
+new File(basedir, 'synthetic.properties').withInputStream { config.load(it) }
+def setting = { String key ->
+  System.getProperty('synthetic.' + key, config.getProperty(key))?.trim()
+}
+def depth = Integer.parseInt(setting('depth'))
+
+// Modules of all levels have been written and archived.
+def base = new File(basedir, 'target/jboss-modules/de/smartics/synthetic')
+assert new File(base, 'level0/main/module.xml').exists()
+for (level in 1..depth)
+{
+  def levelFolder = new File(base, 'level' + level)
+  assert levelFolder.isDirectory()
+}
+assert new File(basedir, 'target/performance-synthetic-repository-testing-jboss-modules.jar').exists()
+
+// The recorded phases stay within the configured thresholds.
+def reportFile = new File(basedir, 'target/jboss-modules-reports/performance.json')
+assert reportFile.exists()
+def report = new JsonSlurper().parse(reportFile.newReader('UTF-8'))
+
+def exceeded = []
+def measured = [totalMillis: report.totalMillis]
+report.phases.each { phase, time -> measured[phase] = time.millis }
+measured.each { phase, millis ->
+  def threshold = setting('threshold.' + phase)
+  println String.format('%-20s %8d ms%s', phase, millis, threshold ? ' (threshold ' + threshold + ' ms)' : '')
+  if (threshold && millis > Long.parseLong(threshold))
+  {
+    exceeded << "${phase}: ${millis} ms > ${threshold} ms"
+  }
+}
+assert exceeded.isEmpty() : 'Performance regression: ' + exceeded.join(', ')
+
+// Every resolved artifact except the root is part of a written module.
+assert report.counters.'resolved-artifacts' > depth
+assert report.counters.'modules-written' > depth
+assert report.counters.'bytes-copied' > 0
+assert report.counters.'aether-calls' > 0
+
+return true
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package bench.de.smartics.maven.plugin.jboss.modules.domain;
+
+import help.de.smartics.maven.plugin.jboss.modules.ArtifactBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.ClusionBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.ModuleDescriptorBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.graph.Dependency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleMap;
+
+/**
+ * Measures populating a {@link ModuleMap} and looking up modules in it.
+ * <p>
+ * Each configured module includes the artifacts of one group, either by a
+ * literal group identifier or by a regular expression. Every tenth artifact
+ * matches no configured module and gets a module of its own.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ModuleMapBenchmark
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The prefix of group identifiers of artifacts matched by modules.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String GROUP_PREFIX = "bench.group";
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The number of configured modules.
+   */
+  @Param({ "10", "100", "1000" })
+  private int moduleCount;
+
+  /**
+   * The kind of clusions of the configured modules, either
+   * <code>literal</code> or <code>regex</code>.
+   */
+  @Param({ "literal", "regex" })
+  private String clusion;
+
+  /**
+   * The number of dependencies to add to the map.
+   */
+  @Param({ "1000", "10000" })
+  private int artifactCount;
+
+  /**
+   * The configured modules.
+   */
+  private List<ModuleDescriptor> modules;
+
+  /**
+   * The dependencies to add to the map.
+   */
+  private List<Dependency> dependencies;
+
+  /**
+   * The map populated with all dependencies for lookups.
+   */
+  private ModuleMap populatedMap;
+
+  /**
+   * The index of the next dependency to look up.
+   */
+  private int cursor;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  /**
+   * Creates the configured modules and the dependencies.
+   */
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    modules = createModules(moduleCount, "regex".equals(clusion));
+    dependencies = createDependencies(moduleCount, artifactCount);
+    populatedMap = populate();
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private static List<ModuleDescriptor> createModules(final int count,
+      final boolean regex)
+  {
+    final List<ModuleDescriptor> modules =
+        new ArrayList<ModuleDescriptor>(count);
+    for (int i = 0; i < count; i++)
+    {
+      final ModuleDescriptorBuilder builder = ModuleDescriptorBuilder.a();
+      builder.withName("bench.module" + i);
+      final ClusionBuilder clusionBuilder = ClusionBuilder.a();
+      clusionBuilder.withGroupId(regex ? "bench\\.group" + i + "(\\..+)?"
+          : GROUP_PREFIX + i);
+      builder.withInclude(clusionBuilder.build());
+      modules.add(builder.build());
+    }
+    return modules;
+  }
+
+  private static List<Dependency> createDependencies(final int moduleCount,
+      final int count)
+  {
+    final List<Dependency> dependencies = new ArrayList<Dependency>(count);
+    final ArtifactBuilder builder = ArtifactBuilder.a();
+    builder.withVersion("1.0");
+    for (int i = 0; i < count; i++)
+    {
+      final String groupId =
+          i % 10 == 9 ? "bench.unmatched" + i : GROUP_PREFIX
+                                               + (i % moduleCount);
+      builder.withGroupId(groupId);
+      builder.withArtifactId("artifact" + i);
+      dependencies.add(new Dependency(builder.build(), "compile"));
+    }
+    return dependencies;
+  }
+
+  // --- benchmarks -----------------------------------------------------------
+
+  /**
+   * Adds all dependencies to an empty map.
+   *
+   * @return the populated map.
+   */
+  @Benchmark
+  public ModuleMap populate()
+  {
+    final ModuleMap map = new ModuleMap(modules);
+    for (final Dependency dependency : dependencies)
+    {
+      map.add(dependency);
+    }
+    return map;
+  }
+
+  /**
+   * Looks up the module of a dependency already added to the map.
+   *
+   * @return the module of the dependency.
+   */
+  @Benchmark
+  public ModuleDescriptor getModule()
+  {
+    final Dependency dependency = dependencies.get(cursor);
+    cursor = (cursor + 1) % dependencies.size();
+    return populatedMap.getModule(dependency);
+  }
+
+  /**
+   * Creates the map of modules to their dependencies.
+   *
+   * @return the map of modules to their dependencies.
+   */
+  @Benchmark
+  public Map<ModuleDescriptor, List<Dependency>> toMap()
+  {
+    return populatedMap.toMap();
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package bench.de.smartics.maven.plugin.jboss.modules.xml;
+
+import help.de.smartics.maven.plugin.jboss.modules.ArtifactBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.ClusionBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+import org.jdom2.Document;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.smartics.maven.plugin.jboss.modules.aether.DependencySink;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToDependencies;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToModule;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ArtifactMatcher;
+import de.smartics.maven.plugin.jboss.modules.descriptor.DependenciesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleClusion;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleMatcher;
+import de.smartics.maven.plugin.jboss.modules.domain.ExecutionContext;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleMap;
+import de.smartics.maven.plugin.jboss.modules.domain.SlotStrategy;
+import de.smartics.maven.plugin.jboss.modules.domain.TransitiveDependencyResolver;
+import de.smartics.maven.plugin.jboss.modules.xml.ModuleXmlBuilder;
+
+/**
+ * Measures the creation of a <code>module.xml</code> document by
+ * {@link ModuleXmlBuilder} and its serialization by {@link XMLOutputter}.
+ * <p>
+ * Run with <code>-prof gc</code> (the default of the <code>jmh</code> profile)
+ * to report the allocation rate next to the execution time.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ModuleXmlBenchmark
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The name of the module to create.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String MODULE_NAME = "bench.module";
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The number of artifacts that are part of the module.
+   */
+  @Param({ "1", "10", "50" })
+  private int resourceCount;
+
+  /**
+   * The number of resolved dependencies to other modules.
+   */
+  @Param({ "10", "100", "500" })
+  private int dependencyCount;
+
+  /**
+   * The number of dependencies configured as XML fragments.
+   */
+  @Param({ "0", "10", "50" })
+  private int staticDependencyCount;
+
+  /**
+   * The number of descriptors applied to the resolved dependencies.
+   */
+  @Param({ "0", "10", "50" })
+  private int descriptorCount;
+
+  /**
+   * The context to create the module with.
+   */
+  private ExecutionContext context;
+
+  /**
+   * The module to create.
+   */
+  private ModuleDescriptor module;
+
+  /**
+   * The artifacts that are part of the module.
+   */
+  private List<Dependency> resources;
+
+  /**
+   * The document created once for measuring the serialization.
+   */
+  private Document document;
+
+  /**
+   * The outputter to serialize the document.
+   */
+  private XMLOutputter outputter;
+
+  /**
+   * The stream to write the serialized document to. Reset before each write
+   * to reuse its buffer.
+   */
+  private ByteArrayOutputStream out;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * Resolves every dependency to the same list of dependencies without
+   * accessing a repository.
+   */
+  private static final class FixedResolver implements
+      TransitiveDependencyResolver
+  {
+    /**
+     * The dependencies returned for every request.
+     */
+    private final List<Dependency> dependencies;
+
+    private FixedResolver(final List<Dependency> dependencies)
+    {
+      this.dependencies = dependencies;
+    }
+
+    @Override
+    public List<Dependency> resolve(final Dependency dependency)
+    {
+      return dependencies;
+    }
+
+    @Override
+    public List<Dependency> resolveDirect(final Dependency dependency)
+    {
+      return dependencies;
+    }
+
+    @Override
+    public List<Dependency> resolve(final List<Dependency> dependencies)
+    {
+      return this.dependencies;
+    }
+
+    @Override
+    public void resolveDirect(final Dependency dependency,
+        final DependencySink sink)
+    {
+      accept(sink);
+    }
+
+    @Override
+    public void resolve(final List<Dependency> dependencies,
+        final DependencySink sink)
+    {
+      accept(sink);
+    }
+
+    private void accept(final DependencySink sink)
+    {
+      for (final Dependency dependency : dependencies)
+      {
+        sink.accept(dependency);
+      }
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  /**
+   * Creates the module, its dependencies and the execution context.
+   */
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    module = createModule(staticDependencyCount, descriptorCount);
+    resources = createResources(resourceCount);
+    final List<Dependency> resolved = createResolved(dependencyCount);
+
+    final List<ModuleDescriptor> modules = new ArrayList<ModuleDescriptor>();
+    modules.add(module);
+    final ModuleMap moduleMap = new ModuleMap(modules);
+    for (final Dependency dependency : resources)
+    {
+      moduleMap.add(dependency);
+    }
+    for (final Dependency dependency : resolved)
+    {
+      moduleMap.add(dependency);
+    }
+
+    context =
+        new ExecutionContext.Builder().with(new SystemStreamLog())
+            .withTargetFolder(new File("target/jmh-modules"))
+            .with(new FixedResolver(resolved)).with(SlotStrategy.MAIN)
+            .withDefaultSlot(SlotStrategy.MAIN_SLOT).with(moduleMap).build();
+
+    document = build();
+    outputter = new XMLOutputter();
+    outputter.setFormat(Format.getPrettyFormat());
+    out = new ByteArrayOutputStream(64 * 1024);
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private static ModuleDescriptor createModule(final int staticCount,
+      final int descriptorCount)
+  {
+    final ArtifactMatcher.Builder matcher = new ArtifactMatcher.Builder();
+    matcher.addInclude(ClusionBuilder.a().withGroupId(MODULE_NAME).build());
+
+    final ApplyToModule.Builder applyToModule = new ApplyToModule.Builder();
+    for (int i = 0; i < staticCount; i++)
+    {
+      final String name = "bench.static" + i;
+      applyToModule.addDependencyXml(name,
+          "<module xmlns=\"urn:jboss:module:1.1\" name=\"" + name
+              + "\" export=\"true\"/>");
+    }
+
+    final ApplyToDependencies.Builder applyToDependencies =
+        new ApplyToDependencies.Builder();
+    for (int i = 0; i < descriptorCount; i++)
+    {
+      final ModuleMatcher.Builder moduleMatcher = new ModuleMatcher.Builder();
+      moduleMatcher.addInclude(new ModuleClusion("bench\\.dep" + i + "\\..*"));
+      final DependenciesDescriptor.Builder descriptor =
+          new DependenciesDescriptor.Builder();
+      descriptor.with(moduleMatcher.build()).withExport("true");
+      applyToDependencies.add(descriptor.build());
+    }
+
+    return new ModuleDescriptor.Builder().withName(MODULE_NAME)
+        .with(matcher.build()).with(applyToModule.build())
+        .with(applyToDependencies.build()).build();
+  }
+
+  private static List<Dependency> createResources(final int count)
+  {
+    final List<Dependency> dependencies = new ArrayList<Dependency>(count);
+    final ArtifactBuilder builder = ArtifactBuilder.a();
+    builder.withGroupId(MODULE_NAME).withVersion("1.0");
+    for (int i = 0; i < count; i++)
+    {
+      final String artifactId = "resource" + i;
+      final Artifact artifact =
+          builder.withArtifactId(artifactId).build()
+              .setFile(new File(artifactId + "-1.0.jar"));
+      dependencies.add(new Dependency(artifact, "compile"));
+    }
+    return dependencies;
+  }
+
+  private static List<Dependency> createResolved(final int count)
+  {
+    final List<Dependency> dependencies = new ArrayList<Dependency>(count);
+    final ArtifactBuilder builder = ArtifactBuilder.a();
+    builder.withArtifactId("artifact").withVersion("1.0");
+    for (int i = 0; i < count; i++)
+    {
+      builder.withGroupId("bench.dep" + i);
+      dependencies.add(new Dependency(builder.build(), "compile"));
+    }
+    return dependencies;
+  }
+
+  // --- benchmarks -----------------------------------------------------------
+
+  /**
+   * Creates the document including the parsing of XML fragments and the
+   * calculation of module dependencies.
+   *
+   * @return the created document.
+   */
+  @Benchmark
+  public Document build()
+  {
+    return new ModuleXmlBuilder(context, module, resources).build();
+  }
+
+  /**
+   * Serializes a document created in advance.
+   *
+   * @throws IOException never, since the output is written to memory.
+   */
+  @Benchmark
+  public void output() throws IOException
+  {
+    out.reset();
+    outputter.output(document, out);
+  }
+
+  /**
+   * Creates and serializes the document as done for each generated module.
+   *
+   * @throws IOException never, since the output is written to memory.
+   */
+  @Benchmark
+  public void buildAndOutput() throws IOException
+  {
+    out.reset();
+    outputter.output(build(), out);
+  }
+}
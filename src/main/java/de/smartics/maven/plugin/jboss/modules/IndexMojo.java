@@ -16,6 +16,7 @@
 package de.smartics.maven.plugin.jboss.modules;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
@@ -29,6 +30,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.codehaus.plexus.util.DirectoryScanner;
 
 import de.smartics.maven.plugin.jboss.modules.index.Indexer;
+import de.smartics.maven.plugin.jboss.modules.index.ModulePackageIndexer;
+import de.smartics.maven.plugin.jboss.modules.index.PackageIndexCache;
 
 /**
  * Generates an index of packages and folders within a project's classpath.
@@ -103,6 +106,54 @@ public class IndexMojo extends AbstractMojo
   @Parameter(property = "smartics-index.verbose", defaultValue = "false")
   private boolean verbose;
 
+  /**
+   * If set to <code>true</code>, a package index is written for each module
+   * of the module tree found in <code>modulesDirectory</code> instead of
+   * indexing the project's output directory. The index file
+   * <code>INDEX.LIST</code> is stored next to the <code>module.xml</code> and
+   * lists the packages of each resource root of the module. If set on the
+   * command line use <code>-Dsmartics-index.modules</code>.
+   * <p>
+   * This is a standalone option to index an existing module tree. The
+   * <code>create-modules-archive</code> goal writes and archives its modules
+   * in one execution, so use its <code>indexPackages</code> parameter to
+   * include the index in the archive.
+   * </p>
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-index.modules", defaultValue = "false")
+  private boolean indexModules;
+
+  /**
+   * The root folder of the generated module tree to index if
+   * <code>indexModules</code> is set to <code>true</code>.
+   *
+   * @since 1.1
+   */
+  @Parameter(defaultValue = "${project.build.directory}/jboss-modules")
+  private File modulesDirectory;
+
+  /**
+   * The number of threads to scan the resource roots of modules in parallel.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-index.threads", defaultValue = "4")
+  private int threads;
+
+  /**
+   * The file to cache the packages of scanned archives by their checksum.
+   * Unchanged archives are not scanned again on subsequent builds. Archives
+   * whose size and time of last modification are unchanged are not read at
+   * all.
+   *
+   * @since 1.1
+   */
+  @Parameter(
+      defaultValue = "${project.build.directory}/jboss-modules-index.cache")
+  private File indexCacheFile;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -128,7 +179,58 @@ public class IndexMojo extends AbstractMojo
       return;
     }
 
-    runIndexing();
+    if (indexModules)
+    {
+      runModuleIndexing();
+    }
+    else
+    {
+      runIndexing();
+    }
+  }
+
+  private void runModuleIndexing() throws MojoExecutionException
+  {
+    if (!modulesDirectory.isDirectory())
+    {
+      getLog().info(
+          String.format("Skipping generation of module index since"
+                        + " no modules directory found: %s",
+              modulesDirectory.getAbsolutePath()));
+      return;
+    }
+
+    final PackageIndexCache cache = new PackageIndexCache();
+    try
+    {
+      cache.load(indexCacheFile);
+    }
+    catch (final IOException e)
+    {
+      getLog().warn(
+          String.format("Cannot read index cache '%s', rescanning archives.",
+              indexCacheFile.getAbsolutePath()));
+    }
+
+    final ModulePackageIndexer indexer =
+        new ModulePackageIndexer(cache, threads);
+    final int count = indexer.index(modulesDirectory);
+    if (verbose)
+    {
+      getLog().info(
+          String.format("Wrote package index for %d modules.", count));
+    }
+
+    try
+    {
+      cache.store(indexCacheFile);
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot write index cache '%s'.", indexCacheFile.getAbsolutePath()),
+          e);
+    }
   }
 
   private void runIndexing() throws MojoExecutionException
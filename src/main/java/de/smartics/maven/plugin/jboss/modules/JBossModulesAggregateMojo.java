@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules;
+
+import java.util.List;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Generates one archive containing the modules of all projects of the
+ * reactor.
+ * <p>
+ * The dependencies of all projects are resolved in one request and mapped to
+ * modules by a single module map. The artifacts of the projects are added as
+ * modules and replace resolved artifacts with the same coordinates. The
+ * configuration, including the location of the modules descriptors, is taken
+ * from the current project only: the top-level project of the reactor if the
+ * goal is invoked on the command line, otherwise the project binding the
+ * goal.
+ * </p>
+ * <p>
+ * The artifacts of the projects must have been packaged before the goal is
+ * run, otherwise the execution fails. Since the goal runs only once per
+ * reactor, it is either invoked on the command line after the lifecycle
+ * phase
+ * </p>
+ *
+ * <pre>
+ * mvn package smartics-jboss-modules:create-aggregated-modules-archive
+ * </pre>
+ * <p>
+ * or bound to the <code>package</code> phase of a project that is built after
+ * all other projects of the reactor, e.g. a distribution project depending on
+ * them. Binding the goal in a parent POM runs it before its modules are
+ * packaged.
+ * </p>
+ *
+ * @since 1.1
+ * @description Generates one archive containing the modules of all projects
+ *              of the reactor.
+ */
+@Mojo(name = "create-aggregated-modules-archive", aggregator = true,
+    threadSafe = true, requiresProject = true,
+    requiresDependencyResolution = ResolutionScope.TEST,
+    defaultPhase = LifecyclePhase.PACKAGE)
+public final class JBossModulesAggregateMojo extends JBossModulesArchiveMojo
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The projects of the reactor.
+   */
+  @Parameter(defaultValue = "${reactorProjects}", readonly = true,
+      required = true)
+  private List<MavenProject> reactorProjects;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  @Override
+  protected List<MavenProject> getProjects()
+  {
+    return reactorProjects;
+  }
+
+  @Override
+  protected boolean isProjectFileRequired()
+  {
+    return true;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  // --- object basics --------------------------------------------------------
+
+}
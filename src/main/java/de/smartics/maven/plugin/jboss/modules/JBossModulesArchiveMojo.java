@@ -15,16 +15,30 @@
  */
 package de.smartics.maven.plugin.jboss.modules;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.archiver.MavenArchiveConfiguration;
 import org.apache.maven.archiver.MavenArchiver;
 import org.apache.maven.execution.MavenSession;
@@ -42,6 +56,7 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.jar.JarArchiver;
+import org.eclipse.aether.RepositoryListener;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
@@ -59,20 +74,40 @@ import org.eclipse.aether.util.graph.selector.ScopeDependencySelector;
 import de.smartics.maven.plugin.jboss.modules.aether.Mapper;
 import de.smartics.maven.plugin.jboss.modules.aether.MavenRepository;
 import de.smartics.maven.plugin.jboss.modules.aether.MojoRepositoryBuilder;
+import de.smartics.maven.plugin.jboss.modules.aether.RepositoryLogListener;
+import de.smartics.maven.plugin.jboss.modules.aether.ResolutionMetrics;
 import de.smartics.maven.plugin.jboss.modules.aether.filter.DefaultTransitiveDependencyResolver;
 import de.smartics.maven.plugin.jboss.modules.aether.filter.ExclusionFilter;
 import de.smartics.maven.plugin.jboss.modules.aether.filter.GaExclusionFilter;
 import de.smartics.maven.plugin.jboss.modules.aether.filter.TestScopeFilter;
+import de.smartics.maven.plugin.jboss.modules.analysis.ResourceAnalysis;
+import de.smartics.maven.plugin.jboss.modules.analysis.ResourceAnalyzer;
+import de.smartics.maven.plugin.jboss.modules.analysis.UnusedDependencyAnalyzer;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ArtifactClusion;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModulesDescriptor;
 import de.smartics.maven.plugin.jboss.modules.domain.ExecutionContext;
 import de.smartics.maven.plugin.jboss.modules.domain.ModuleBuilder;
 import de.smartics.maven.plugin.jboss.modules.domain.ModuleMap;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleMatchCache;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleSlotStrategy;
 import de.smartics.maven.plugin.jboss.modules.domain.PrunerGenerator;
-import de.smartics.maven.plugin.jboss.modules.domain.SlotStrategy;
+import de.smartics.maven.plugin.jboss.modules.domain.SlotTable;
 import de.smartics.maven.plugin.jboss.modules.domain.TransitiveDependencyResolver;
+import de.smartics.maven.plugin.jboss.modules.graph.CycleDetector;
+import de.smartics.maven.plugin.jboss.modules.graph.GraphSnapshotWriter;
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraph;
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraphBuilder;
+import de.smartics.maven.plugin.jboss.modules.graph.ModulePlan;
+import de.smartics.maven.plugin.jboss.modules.graph.TransitiveReducer;
+import de.smartics.maven.plugin.jboss.modules.index.ModulePackageIndexer;
+import de.smartics.maven.plugin.jboss.modules.index.PackageIndexCache;
+import de.smartics.maven.plugin.jboss.modules.parser.DescriptorCache;
 import de.smartics.maven.plugin.jboss.modules.parser.ModulesXmlLocator;
+import de.smartics.maven.plugin.jboss.modules.perf.Counter;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEvent;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEventType;
+import de.smartics.maven.plugin.jboss.modules.perf.PerformanceRecorder;
 
 /**
  * Generates a archive containing modules from a BOM project.
@@ -84,7 +119,7 @@ import de.smartics.maven.plugin.jboss.modules.parser.ModulesXmlLocator;
     requiresProject = true,
     requiresDependencyResolution = ResolutionScope.TEST,
     defaultPhase = LifecyclePhase.PACKAGE)
-public final class JBossModulesArchiveMojo extends AbstractMojo
+public class JBossModulesArchiveMojo extends AbstractMojo
 {
   // ********************************* Fields *********************************
 
@@ -249,10 +284,28 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
    * be named prodx1.</td>
    * </tr>
    * <tr>
+   * <td>version-minor</td>
+   * <td>The slot has the major and minor number of the version (e.g. 1.2).
+   * The <code>defaultSlot</code> is prepended as with
+   * <code>version-major</code>. Since 1.1.</td>
+   * </tr>
+   * <tr>
+   * <td>version-full</td>
+   * <td>The slot has the full version (e.g. 1.2.3). The
+   * <code>defaultSlot</code> is prepended as with <code>version-major</code>.
+   * Since 1.1.</td>
+   * </tr>
+   * <tr>
    * <td>main</td>
    * <td>The slot has the name as given with <code>defaultSlot</code>.</td>
    * </tr>
    * </table>
+   * <p>
+   * Additional strategies are provided by implementations of
+   * {@link de.smartics.maven.plugin.jboss.modules.domain.ModuleSlotStrategy}
+   * registered as services in a dependency of the plugin and are selected by
+   * their identifier.
+   * </p>
    *
    * @since 1.0
    */
@@ -347,6 +400,314 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
   @Parameter(defaultValue = "false")
   private boolean excludeDependencyManagementDependenciesInPomProject;
 
+  /**
+   * Removes dependencies between modules that are already implied by
+   * re-exported dependencies (<code>export="true"</code>) of other
+   * dependencies of the same module. This reduces the number of dependencies
+   * the module linker has to process at boot time without changing the
+   * visibility of classes. Dependencies that are re-exported themselves or
+   * import services are never removed.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.reduceModuleDependencies",
+      defaultValue = "false")
+  private boolean reduceModuleDependencies;
+
+  /**
+   * The folder to write analysis reports on the generated modules to.
+   *
+   * @since 1.1
+   */
+  @Parameter(defaultValue = "${project.build.directory}/jboss-modules-reports")
+  private File reportsFolder;
+
+  /**
+   * Fails the build if the generated modules depend on each other in cycles.
+   * Cycles are reported in the file <code>module-cycles.txt</code> within the
+   * <code>reportsFolder</code>. The plan goal logs the cycles instead.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.failOnModuleCycles",
+      defaultValue = "false")
+  private boolean failOnModuleCycles;
+
+  /**
+   * Writes the file <code>module-cycles.txt</code> within the
+   * <code>reportsFolder</code> even if no cycles between modules are found.
+   * By default the report is only written if there are cycles.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.reportModuleCycles",
+      defaultValue = "false")
+  private boolean reportModuleCycles;
+
+  /**
+   * Scans the resource roots of all generated modules for packages split over
+   * several modules and for classes contained in more than one module. Both
+   * are reported in the file <code>resource-analysis.xml</code> within the
+   * <code>reportsFolder</code>.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.analyzeResources",
+      defaultValue = "false")
+  private boolean analyzeResources;
+
+  /**
+   * The number of threads to scan the resource roots of modules in parallel.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.analysisThreads",
+      defaultValue = "4")
+  private int analysisThreads;
+
+  /**
+   * The number of threads to write modules in parallel. By default modules
+   * are written one after another.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.moduleThreads",
+      defaultValue = "1")
+  private int moduleThreads;
+
+  /**
+   * Writes a package index for each generated module before the modules are
+   * archived. The index file <code>INDEX.LIST</code> is stored next to the
+   * <code>module.xml</code> and lists the packages of each resource root of
+   * the module.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.indexPackages",
+      defaultValue = "false")
+  private boolean indexPackages;
+
+  /**
+   * The number of threads to scan the resource roots of modules for the
+   * package index in parallel.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.indexThreads",
+      defaultValue = "4")
+  private int indexThreads;
+
+  /**
+   * The file to cache the packages of scanned archives by their checksum, if
+   * <code>indexPackages</code> is set. Unchanged archives are not scanned
+   * again on subsequent builds.
+   *
+   * @since 1.1
+   */
+  @Parameter(
+      defaultValue = "${project.build.directory}/jboss-modules-index.cache")
+  private File indexCacheFile;
+
+  /**
+   * The number of threads to parse module descriptors in parallel. The
+   * descriptors are applied in the order of their discovery, regardless of
+   * the number of threads.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.descriptorThreads",
+      defaultValue = "4")
+  private int descriptorThreads;
+
+  /**
+   * Controls the caching of parsed module descriptors in a binary file. The
+   * cache is keyed by the content of the descriptor files and is shared by the
+   * modules of a reactor build. When only planning, the cache is read, but not
+   * written.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.cacheDescriptors",
+      defaultValue = "true")
+  private boolean cacheDescriptors;
+
+  /**
+   * The file to cache parsed module descriptors in, if
+   * <code>cacheDescriptors</code> is set.
+   *
+   * @since 1.1
+   */
+  @Parameter(
+      property = "smartics-jboss-modules.descriptorCacheFile",
+      defaultValue = "${session.executionRootDirectory}/target/smartics-jboss-modules/descriptors.cache")
+  private File descriptorCacheFile;
+
+  /**
+   * Controls the parser of module descriptors. If set, descriptors are parsed
+   * in a single pass with a StAX pull parser instead of building a JDOM
+   * document first.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.streamingDescriptorParser",
+      defaultValue = "false")
+  private boolean streamingDescriptorParser;
+
+  /**
+   * Controls the analysis of dependencies between generated modules that are
+   * not referenced by the bytecode of the depending module.
+   * <p>
+   * Possible values are:
+   * </p>
+   * <table>
+   * <tr>
+   * <th>value</th>
+   * <th>description</th>
+   * </tr>
+   * <tr>
+   * <td>none</td>
+   * <td>No analysis is run.</td>
+   * </tr>
+   * <tr>
+   * <td>report</td>
+   * <td>Unused dependencies are reported in the file
+   * <code>unused-dependencies.xml</code> within the <code>reportsFolder</code>.
+   * </td>
+   * </tr>
+   * <tr>
+   * <td>prune</td>
+   * <td>Unused dependencies are reported and not written to the
+   * <code>module.xml</code> files.</td>
+   * </tr>
+   * </table>
+   * <p>
+   * Dependencies that are loaded by reflection only cannot be detected. Add
+   * the names of the referenced modules to <code>usedDependencies</code> to
+   * keep them.
+   * </p>
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.unusedDependencies",
+      defaultValue = "none")
+  private String unusedDependencies;
+
+  /**
+   * The regular expressions on names of modules that are always kept as
+   * dependencies, regardless of the result of the analysis controlled by
+   * <code>unusedDependencies</code>.
+   *
+   * <pre>
+   * &lt;usedDependencies&gt;
+   *   &lt;module&gt;org\.hibernate.*&lt;/module&gt;
+   * &lt;/usedDependencies&gt;
+   * </pre>
+   *
+   * @since 1.1
+   */
+  @Parameter
+  private List<String> usedDependencies;
+
+  /**
+   * Controls writing a snapshot of the dependency graph to the
+   * <code>reportsFolder</code>. The snapshot contains the generated modules
+   * with their slots, the artifacts with their scope and assigned module, and
+   * the dependencies between modules. Snapshots of different builds may be
+   * compared to track changes of the graph.
+   * <p>
+   * Possible values are:
+   * </p>
+   * <table>
+   * <tr>
+   * <th>value</th>
+   * <th>description</th>
+   * </tr>
+   * <tr>
+   * <td>none</td>
+   * <td>No snapshot is written.</td>
+   * </tr>
+   * <tr>
+   * <td>binary</td>
+   * <td>The snapshot is written in a compact binary format to the file
+   * <code>dependency-graph.bin</code>.</td>
+   * </tr>
+   * <tr>
+   * <td>json</td>
+   * <td>The snapshot is written as JSON to the file
+   * <code>dependency-graph.json</code>.</td>
+   * </tr>
+   * <tr>
+   * <td>all</td>
+   * <td>The snapshot is written in both formats.</td>
+   * </tr>
+   * </table>
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.graphSnapshot",
+      defaultValue = "none")
+  private String graphSnapshot;
+
+  /**
+   * Records the wall time of each phase of the execution together with
+   * counters of resolved artifacts, repository requests, regular expression
+   * evaluations, copied bytes and written modules. The time and bytes of
+   * resolving metadata, descriptors and artifacts are recorded per repository
+   * and per artifact. The data is written to the file
+   * <code>performance.json</code> within the <code>reportsFolder</code> and
+   * logged as a summary table.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.recordPerformance",
+      defaultValue = "false")
+  private boolean recordPerformance;
+
+  /**
+   * The number of artifacts with the longest resolution time to list in the
+   * performance report, if <code>recordPerformance</code> is set.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.slowestArtifacts",
+      defaultValue = "10")
+  private int slowestArtifacts;
+
+  /**
+   * Controls sharing work between the executions in the projects of a reactor
+   * build. If set, executions with the same configuration reuse the located
+   * modules descriptors, the resolved dependencies and the matching of
+   * artifacts against modules of the execution that ran first, also if the
+   * projects are built in parallel.
+   *
+   * @since 1.1
+   */
+  @Parameter(property = "smartics-jboss-modules.reactorCache",
+      defaultValue = "true")
+  private boolean reactorCache;
+
+  /**
+   * The recorder of the wall time of the phases of the execution.
+   */
+  private PerformanceRecorder performance;
+
+  /**
+   * The listener to record resolution metrics. May be <code>null</code>.
+   */
+  private RepositoryListener repositoryListener;
+
+  /**
+   * The cache shared by the executions in the projects of the reactor build.
+   * May be <code>null</code>.
+   */
+  private SessionCache sessionCache;
+
+  /**
+   * The key of the configuration of the modules descriptors in the
+   * <code>sessionCache</code>.
+   */
+  private Object descriptorsKey;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -359,6 +720,46 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
 
   // --- get&set --------------------------------------------------------------
 
+  /**
+   * Returns the projects whose dependencies and artifacts are written as
+   * modules.
+   *
+   * @return the project of this execution.
+   * @since 1.1
+   */
+  protected List<MavenProject> getProjects()
+  {
+    return Collections.singletonList(project);
+  }
+
+  /**
+   * Checks if the artifacts of the projects are required to have a file when
+   * modules are written. If not required, modules are written without the
+   * missing files of project artifacts.
+   *
+   * @return <code>true</code> if a missing file of a project artifact fails
+   *         the execution, <code>false</code> otherwise.
+   * @since 1.1
+   */
+  protected boolean isProjectFileRequired()
+  {
+    return false;
+  }
+
+  /**
+   * Checks if only the plan of the modules is calculated. In this case the
+   * files of artifacts are not resolved and neither modules, the archive nor
+   * the descriptor cache are written.
+   *
+   * @return <code>true</code> if only the plan of the modules is calculated,
+   *         <code>false</code> if the modules are written.
+   * @since 1.1
+   */
+  protected boolean isPlanOnly()
+  {
+    return false;
+  }
+
   // --- business -------------------------------------------------------------
 
   @Override
@@ -372,16 +773,75 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
       return;
     }
 
-    this.modulesDescriptors = initModulesDescriptors();
-    this.allModules = initModules();
-    this.repositorySession = adjustSession();
+    this.performance = PerformanceRecorder.NONE;
+    if (recordPerformance)
+    {
+      this.performance = new PerformanceRecorder();
+      final ResolutionMetrics metrics = new ResolutionMetrics(slowestArtifacts);
+      performance.addSection(metrics);
+      this.repositoryListener = new RepositoryLogListener(metrics);
+    }
+    this.sessionCache = reactorCache ? SessionCache.of(session) : null;
+    performance.bind();
+    try
+    {
+      performance.start("locate-descriptors");
+      this.modulesDescriptors = initModulesDescriptors();
+      this.allModules = initModules();
+      performance.start("adjust-session");
+      this.repositorySession = adjustSession();
+
+      performance.start("root-dependencies");
+      final List<Dependency> rootDependencies = calcRootDependencies();
+      performance.start("resolve");
+      final List<Dependency> dependencies = resolve(rootDependencies);
+      performance.add(Counter.RESOLVED_ARTIFACTS, dependencies.size());
+
+      logDependencies(rootDependencies, dependencies);
+      if (isPlanOnly())
+      {
+        runModulePlanning(rootDependencies, dependencies);
+      }
+      else
+      {
+        runModuleCreation(rootDependencies, dependencies);
+        if (indexPackages)
+        {
+          performance.start("index");
+          writePackageIndex();
+        }
+        performance.start("archive");
+        attach();
+      }
+      performance.stop();
+      reportPerformance();
+    }
+    finally
+    {
+      PerformanceRecorder.unbind();
+    }
+  }
 
-    final List<Dependency> rootDependencies = calcRootDependencies();
-    final List<Dependency> dependencies = resolve(rootDependencies);
+  private void reportPerformance() throws MojoExecutionException
+  {
+    if (!recordPerformance)
+    {
+      return;
+    }
 
-    logDependencies(rootDependencies, dependencies);
-    runModuleCreation(dependencies);
-    attach();
+    final File reportFile = new File(reportsFolder, "performance.json");
+    try
+    {
+      performance.writeReport(reportFile);
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot write report '%s'.", reportFile.getAbsolutePath()), e);
+    }
+    getLog().info(
+        String.format("Performance (see '%s'):%n%s",
+            reportFile.getAbsolutePath(), performance.createSummary()));
   }
 
   private List<ModuleDescriptor> initModules()
@@ -397,15 +857,58 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
 
   private List<ModulesDescriptor> initModulesDescriptors()
     throws MojoExecutionException
+  {
+    final ClassLoader parentClassLoader =
+        Thread.currentThread().getContextClassLoader();
+    final List<File> rootDirectories = calcModulesRootDirectories();
+    if (sessionCache == null)
+    {
+      return locateModulesDescriptors(parentClassLoader, rootDirectories);
+    }
+
+    descriptorsKey =
+        Arrays.<Object> asList(parentClassLoader, defaultSlot, rootDirectories);
+    try
+    {
+      return sessionCache.getDescriptors(descriptorsKey,
+          new Callable<List<ModulesDescriptor>>()
+          {
+            @Override
+            public List<ModulesDescriptor> call() throws Exception
+            {
+              return locateModulesDescriptors(parentClassLoader,
+                  rootDirectories);
+            }
+          });
+    }
+    catch (final MojoExecutionException e)
+    {
+      throw e;
+    }
+    catch (final Exception e)
+    {
+      throw new MojoExecutionException("Cannot read modules from class path.",
+          e);
+    }
+  }
+
+  private List<ModulesDescriptor> locateModulesDescriptors(
+      final ClassLoader parentClassLoader, final List<File> rootDirectories)
+    throws MojoExecutionException
   {
     try
     {
-      final ModulesXmlLocator locator = new ModulesXmlLocator(defaultSlot);
-      final ClassLoader parentClassLoader =
-          Thread.currentThread().getContextClassLoader();
-      final List<File> rootDirectories = calcModulesRootDirectories();
+      final DescriptorCache cache =
+          cacheDescriptors ? DescriptorCache.load(descriptorCacheFile) : null;
+      final ModulesXmlLocator locator =
+          new ModulesXmlLocator(defaultSlot, descriptorThreads, cache,
+              streamingDescriptorParser);
       final List<ModulesDescriptor> descriptors =
           locator.discover(parentClassLoader, rootDirectories);
+      if (cache != null)
+      {
+        storeDescriptorCache(cache);
+      }
       return descriptors;
     }
     catch (final IOException e)
@@ -415,6 +918,31 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
     }
   }
 
+  private void storeDescriptorCache(final DescriptorCache cache)
+  {
+    final Log log = getLog();
+    if (log.isDebugEnabled())
+    {
+      log.debug(String.format(
+          "Descriptor cache '%s': %d descriptors loaded, %d parsed.",
+          descriptorCacheFile.getAbsolutePath(), cache.getHits(),
+          cache.getMisses()));
+    }
+    if (isPlanOnly())
+    {
+      return;
+    }
+    try
+    {
+      cache.store();
+    }
+    catch (final IOException e)
+    {
+      log.warn(String.format("Cannot store descriptor cache '%s': %s",
+          descriptorCacheFile.getAbsolutePath(), e.getMessage()));
+    }
+  }
+
   private List<File> calcModulesRootDirectories()
   {
     if (modules == null)
@@ -462,40 +990,327 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
     }
   }
 
-  private void runModuleCreation(final List<Dependency> dependencies)
-    throws MojoExecutionException
+  private void runModuleCreation(final List<Dependency> rootDependencies,
+      final List<Dependency> dependencies) throws MojoExecutionException,
+    MojoFailureException
   {
-    final boolean isPomProject = "pom".equals(project.getPackaging());
-    if (!isPomProject || excludeDependencyManagementDependenciesInPomProject)
+    addProjectArtifacts(dependencies, isProjectFileRequired());
+
+    performance.start("module-map");
+    final ExecutionContext context = createContext(dependencies);
+    final ModuleGraph graph = context.getModuleGraph();
+    performance.start("analysis");
+    analyzeResources(graph);
+    analyzeCycles(graph, true);
+    final Map<ModuleDescriptor, List<Dependency>> moduleMap =
+        context.getModuleMap().toMap();
+    writeGraphSnapshot(graph, moduleMap, rootDependencies);
+    performance.start("write-modules");
+    final List<ModuleBuilder> builders = new ArrayList<ModuleBuilder>();
+    for (final Entry<ModuleDescriptor, List<Dependency>> entry : moduleMap
+        .entrySet())
     {
-      final Mapper mapper = new Mapper();
-      final Artifact projectArtifact = mapper.map(project.getArtifact());
-      final Dependency projectAsDependency =
-          new Dependency(projectArtifact, "compile");
-      dependencies.add(0, projectAsDependency);
+      final ModuleDescriptor module = entry.getKey();
+      final Collection<Dependency> moduleDependencies = entry.getValue();
+      builders.add(new ModuleBuilder(context, module, moduleDependencies));
+    }
+    if (moduleThreads > 1 && builders.size() > 1)
+    {
+      writeModulesParallel(builders);
+    }
+    else
+    {
+      for (final ModuleBuilder builder : builders)
+      {
+        writeModule(builder);
+      }
     }
+  }
+
+  private void runModulePlanning(final List<Dependency> rootDependencies,
+      final List<Dependency> dependencies) throws MojoExecutionException,
+    MojoFailureException
+  {
+    addProjectArtifacts(dependencies, false);
 
+    performance.start("module-map");
     final ExecutionContext context = createContext(dependencies);
-    for (final Entry<ModuleDescriptor, List<Dependency>> entry : context
-        .getModuleMap().toMap().entrySet())
+    final ModuleGraph graph = context.getModuleGraph();
+    performance.start("plan");
+    analyzeCycles(graph, false);
+    final Map<ModuleDescriptor, List<Dependency>> moduleMap =
+        context.getModuleMap().toMap();
+    writeGraphSnapshot(graph, moduleMap, rootDependencies);
+
+    final String plan = new ModulePlan(graph, moduleMap).createReport();
+    final File planFile = new File(reportsFolder, "module-plan.txt");
+    try
     {
-      final ModuleDescriptor module = entry.getKey();
-      final Collection<Dependency> moduleDependencies =
-          new HashSet<Dependency>(entry.getValue());
-      final ModuleBuilder builder =
-          new ModuleBuilder(context, module, moduleDependencies);
+      FileUtils.writeStringToFile(planFile, plan, "UTF-8");
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot write module plan '%s'.", planFile.getAbsolutePath()), e);
+    }
+    getLog().info(
+        String.format("Module plan (see '%s'):%n%s",
+            planFile.getAbsolutePath(), plan));
+  }
+
+  private void addProjectArtifacts(final List<Dependency> dependencies,
+      final boolean requireFiles) throws MojoExecutionException
+  {
+    final Mapper mapper = new Mapper();
+    final List<Dependency> projectDependencies = new ArrayList<Dependency>();
+    final Set<String> projectIds = new HashSet<String>();
+    for (final MavenProject mavenProject : getProjects())
+    {
+      final boolean isPomProject = "pom".equals(mavenProject.getPackaging());
+      if (!isPomProject || excludeDependencyManagementDependenciesInPomProject)
+      {
+        final Artifact projectArtifact =
+            mapper.map(mavenProject.getArtifact());
+        if (requireFiles && !isPomProject && projectArtifact.getFile() == null)
+        {
+          throw new MojoExecutionException(String.format(
+              "The artifact of project '%s' has no file."
+                  + " Package the project before creating its modules.",
+              mavenProject.getId()));
+        }
+        projectDependencies.add(new Dependency(projectArtifact, "compile"));
+        projectIds.add(projectArtifact.toString());
+      }
+    }
+
+    if (projectDependencies.size() > 1)
+    {
+      for (final Iterator<Dependency> i = dependencies.iterator(); i
+          .hasNext();)
+      {
+        if (projectIds.contains(i.next().getArtifact().toString()))
+        {
+          i.remove();
+        }
+      }
+    }
+    dependencies.addAll(0, projectDependencies);
+  }
+
+  private void writeModulesParallel(final List<ModuleBuilder> builders)
+    throws MojoExecutionException
+  {
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(moduleThreads, builders.size()));
+    try
+    {
+      final List<Future<Void>> futures =
+          new ArrayList<Future<Void>>(builders.size());
+      for (final ModuleBuilder builder : builders)
+      {
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws MojoExecutionException
+          {
+            performance.bind();
+            try
+            {
+              writeModule(builder);
+              return null;
+            }
+            finally
+            {
+              PerformanceRecorder.unbind();
+            }
+          }
+        }));
+      }
+
+      for (final Future<Void> future : futures)
+      {
+        get(future);
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void get(final Future<Void> future)
+    throws MojoExecutionException
+  {
+    try
+    {
+      future.get();
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while writing modules.",
+          e);
+    }
+    catch (final ExecutionException e)
+    {
+      final Throwable cause = e.getCause();
+      if (cause instanceof MojoExecutionException)
+      {
+        throw (MojoExecutionException) cause;
+      }
+      throw new MojoExecutionException("Cannot write modules.", cause);
+    }
+  }
+
+  private static void writeModule(final ModuleBuilder builder)
+    throws MojoExecutionException
+  {
+    try
+    {
+      builder.create();
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException("Cannot write module '"
+                                       + builder.getModule().getName() + "'.",
+          e);
+    }
+  }
+
+  private void writeGraphSnapshot(final ModuleGraph graph,
+      final Map<ModuleDescriptor, List<Dependency>> moduleMap,
+      final List<Dependency> rootDependencies) throws MojoExecutionException
+  {
+    final boolean all = "all".equals(graphSnapshot);
+    final boolean binary = all || "binary".equals(graphSnapshot);
+    final boolean json = all || "json".equals(graphSnapshot);
+    if (!(binary || json))
+    {
+      if (!"none".equals(graphSnapshot))
+      {
+        throw new MojoExecutionException(String.format(
+            "Unknown value '%s' for graphSnapshot."
+                + " Use one of 'none', 'binary', 'json', or 'all'.",
+            graphSnapshot));
+      }
+      return;
+    }
+
+    performance.start("graph-snapshot");
+    final GraphSnapshotWriter writer =
+        new GraphSnapshotWriter(graph, moduleMap, rootDependencies);
+    if (binary)
+    {
+      final File file = new File(reportsFolder, "dependency-graph.bin");
+      try
+      {
+        writer.writeBinary(file);
+      }
+      catch (final IOException e)
+      {
+        throw new MojoExecutionException(String.format(
+            "Cannot write graph snapshot '%s'.", file.getAbsolutePath()), e);
+      }
+    }
+    if (json)
+    {
+      final File file = new File(reportsFolder, "dependency-graph.json");
       try
       {
-        builder.create();
+        writer.writeJson(file);
       }
       catch (final IOException e)
       {
-        throw new MojoExecutionException("Cannot write module '"
-                                         + entry.getKey().getName() + "'.", e);
+        throw new MojoExecutionException(String.format(
+            "Cannot write graph snapshot '%s'.", file.getAbsolutePath()), e);
       }
     }
   }
 
+  private void analyzeResources(final ModuleGraph graph)
+    throws MojoExecutionException
+  {
+    final boolean analyzeUnused = !"none".equals(unusedDependencies);
+    if (!(analyzeResources || analyzeUnused))
+    {
+      return;
+    }
+
+    final ResourceAnalyzer analyzer =
+        new ResourceAnalyzer(graph, analysisThreads);
+    final ResourceAnalysis analysis = analyzer.analyze();
+    if (analyzeResources)
+    {
+      reportResources(analysis);
+    }
+    if (analyzeUnused)
+    {
+      analyzeUnusedDependencies(graph, analysis);
+    }
+  }
+
+  private void analyzeUnusedDependencies(final ModuleGraph graph,
+      final ResourceAnalysis analysis) throws MojoExecutionException
+  {
+    final boolean prune = "prune".equals(unusedDependencies);
+    if (!prune && !"report".equals(unusedDependencies))
+    {
+      throw new MojoExecutionException(String.format(
+          "Unknown value '%s' for unusedDependencies."
+              + " Use one of 'none', 'report', or 'prune'.",
+          unusedDependencies));
+    }
+
+    final UnusedDependencyAnalyzer analyzer =
+        new UnusedDependencyAnalyzer(graph, analysis.getPackageIndex(),
+            usedDependencies, analysisThreads);
+    final List<ModuleGraph.Edge> unused = analyzer.analyze(prune);
+
+    final File reportFile = new File(reportsFolder, "unused-dependencies.xml");
+    try
+    {
+      analyzer.writeReport(unused, prune, reportFile);
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot write report '%s'.", reportFile.getAbsolutePath()), e);
+    }
+
+    if (!unused.isEmpty())
+    {
+      getLog().info(
+          String.format("%s %d module dependencies not referenced by"
+                        + " bytecode. See report '%s'.", prune ? "Pruned"
+              : "Found", unused.size(), reportFile.getAbsolutePath()));
+    }
+  }
+
+  private void reportResources(final ResourceAnalysis analysis)
+    throws MojoExecutionException
+  {
+    final File reportFile = new File(reportsFolder, "resource-analysis.xml");
+    try
+    {
+      analysis.writeReport(reportFile);
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot write report '%s'.", reportFile.getAbsolutePath()), e);
+    }
+
+    final int splitPackages = analysis.getSplitPackages().size();
+    final int duplicateClasses = analysis.getDuplicateClasses().size();
+    if (splitPackages > 0 || duplicateClasses > 0)
+    {
+      getLog().warn(
+          String.format("Found %d split packages and %d duplicate classes"
+                        + " in modules. See report '%s'.", splitPackages,
+              duplicateClasses, reportFile.getAbsolutePath()));
+    }
+  }
+
   private void logDependencies(final Collection<Dependency> rootDependencies,
       final Collection<Dependency> dependencies) throws MojoExecutionException
   {
@@ -503,10 +1318,10 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
     {
       try
       {
-        FileUtils.writeStringToFile(new File(project.getBasedir(),
-            "target/root-dependencies.txt"), rootDependencies.toString());
-        FileUtils.writeStringToFile(new File(project.getBasedir(),
-            "target/resolved-dependencies.txt"), dependencies.toString());
+        writeDependencies(new File(project.getBasedir(),
+            "target/root-dependencies.txt"), rootDependencies);
+        writeDependencies(new File(project.getBasedir(),
+            "target/resolved-dependencies.txt"), dependencies);
       }
       catch (final IOException e)
       {
@@ -515,6 +1330,27 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
     }
   }
 
+  private static void writeDependencies(final File file,
+      final Collection<Dependency> dependencies) throws IOException
+  {
+    final Writer writer =
+        new BufferedWriter(new OutputStreamWriter(
+            FileUtils.openOutputStream(file), "UTF-8"));
+    try
+    {
+      for (final Dependency dependency : dependencies)
+      {
+        writer.write(String.valueOf(dependency));
+        writer.write('\n');
+      }
+      writer.flush();
+    }
+    finally
+    {
+      IOUtils.closeQuietly(writer);
+    }
+  }
+
   private DefaultRepositorySystemSession adjustSession()
   {
     final DefaultRepositorySystemSession session =
@@ -533,6 +1369,46 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
     return session;
   }
 
+  private void writePackageIndex() throws MojoExecutionException
+  {
+    if (!targetFolder.isDirectory())
+    {
+      return;
+    }
+
+    final PackageIndexCache cache = new PackageIndexCache();
+    try
+    {
+      cache.load(indexCacheFile);
+    }
+    catch (final IOException e)
+    {
+      getLog().warn(
+          String.format("Cannot read index cache '%s', rescanning archives.",
+              indexCacheFile.getAbsolutePath()));
+    }
+
+    final ModulePackageIndexer indexer =
+        new ModulePackageIndexer(cache, indexThreads);
+    final int count = indexer.index(targetFolder);
+    if (verbose)
+    {
+      getLog().info(
+          String.format("Wrote package index for %d modules.", count));
+    }
+
+    try
+    {
+      cache.store(indexCacheFile);
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot write index cache '%s'.", indexCacheFile.getAbsolutePath()),
+          e);
+    }
+  }
+
   private void attach() throws MojoExecutionException
   {
     if (!attach)
@@ -545,6 +1421,7 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
       return;
     }
 
+    final FlightEvent event = FlightEvent.begin(FlightEventType.ARCHIVE);
     try
     {
       jarArchiver.addDirectory(targetFolder);
@@ -555,6 +1432,8 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
       archiver.createArchive(session, project, archive);
       projectHelper.attachArtifact(project, "jar", "jboss-modules",
           modulesArchive);
+      event.set("file", modulesArchive.getPath())
+          .set("bytes", modulesArchive.length()).commit();
     }
     catch (final Exception e)
     {
@@ -574,12 +1453,18 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
     final TransitiveDependencyResolver resolver = createResolver(dependencies);
     builder.with(resolver);
 
-    final SlotStrategy slotStrategy =
-        SlotStrategy.fromString(this.slotStrategy);
-    builder.with(slotStrategy);
+    final ModuleSlotStrategy slotStrategy =
+        SlotTable.findStrategy(this.slotStrategy, Thread.currentThread()
+            .getContextClassLoader());
+    final SlotTable slotTable = new SlotTable(slotStrategy);
+    slotTable.addAll(dependencies);
+    builder.with(slotTable);
     builder.withDefaultSlot(defaultSlot);
 
-    final ModuleMap moduleMap = new ModuleMap(allModules, dependencies);
+    final ModuleMatchCache matchCache =
+        sessionCache != null ? sessionCache.getMatches(descriptorsKey) : null;
+    final ModuleMap moduleMap =
+        new ModuleMap(allModules, dependencies, matchCache);
     builder.with(moduleMap);
 
     if (verbose)
@@ -587,39 +1472,118 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
       getLog().info("Modules:\n" + moduleMap.toString());
     }
 
+    final ExecutionContext context = builder.build();
+    final ModuleGraph graph = new ModuleGraphBuilder(context).build();
+    if (reduceModuleDependencies)
+    {
+      reduce(graph);
+    }
+    builder.with(graph);
     return builder.build();
   }
 
+  private void reduce(final ModuleGraph graph)
+  {
+    final int edgesBefore = graph.getEdgeCount();
+    final TransitiveReducer reducer = new TransitiveReducer(graph);
+    reducer.reduce();
+    final int edgesAfter = graph.getEdgeCount();
+    getLog().info(
+        String.format("Reduced module dependencies from %d to %d.",
+            edgesBefore, edgesAfter));
+    if (verbose)
+    {
+      getLog().info("Module graph:\n" + graph.toString());
+    }
+  }
+
+  /**
+   * Detects cycles between modules. If <code>writeReport</code> is
+   * <code>false</code>, cycles are only logged and no file is touched.
+   */
+  private void analyzeCycles(final ModuleGraph graph, final boolean writeReport)
+    throws MojoExecutionException, MojoFailureException
+  {
+    final CycleDetector detector = new CycleDetector(graph);
+    final List<int[]> cycles = detector.findCycles();
+    if (!writeReport)
+    {
+      if (!cycles.isEmpty())
+      {
+        handleCycles(String.format("Found %d cycles between modules:%n%s",
+            cycles.size(), detector.createReport(cycles)));
+      }
+      return;
+    }
+
+    final File reportFile = new File(reportsFolder, "module-cycles.txt");
+    if (cycles.isEmpty() && !reportModuleCycles)
+    {
+      FileUtils.deleteQuietly(reportFile);
+      return;
+    }
+
+    try
+    {
+      FileUtils.writeStringToFile(reportFile, detector.createReport(cycles),
+          "UTF-8");
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot write report '%s'.", reportFile.getAbsolutePath()), e);
+    }
+
+    if (!cycles.isEmpty())
+    {
+      handleCycles(String.format(
+          "Found %d cycles between modules. See report '%s'.", cycles.size(),
+          reportFile.getAbsolutePath()));
+    }
+  }
+
+  private void handleCycles(final String message) throws MojoFailureException
+  {
+    if (failOnModuleCycles)
+    {
+      throw new MojoFailureException(message);
+    }
+    getLog().warn(message);
+  }
+
   @SuppressWarnings("unchecked")
   private List<Dependency> calcRootDependencies() throws MojoExecutionException
   {
-    final List<Dependency> rootDependencies = new ArrayList<Dependency>();
+    final Set<Dependency> rootDependencies = new LinkedHashSet<Dependency>();
 
-    final List<org.apache.maven.model.Dependency> projectDependencies =
-        project.getDependencies();
-    addMappedDependencies(rootDependencies, projectDependencies);
-
-    final boolean isPomProject = "pom".equals(project.getPackaging());
-    if (isPomProject)
+    for (final MavenProject mavenProject : getProjects())
     {
-      if (!excludeDependencyManagementDependenciesInPomProject)
+      final List<org.apache.maven.model.Dependency> projectDependencies =
+          mavenProject.getDependencies();
+      addMappedDependencies(rootDependencies, projectDependencies);
+
+      final boolean isPomProject = "pom".equals(mavenProject.getPackaging());
+      if (isPomProject)
       {
-        final DependencyManagement management =
-            project.getDependencyManagement();
-        if (management != null)
+        if (!excludeDependencyManagementDependenciesInPomProject)
         {
-          final List<org.apache.maven.model.Dependency> managedDependencies =
-              management.getDependencies();
-          addMappedDependencies(rootDependencies, managedDependencies);
+          final DependencyManagement management =
+              mavenProject.getDependencyManagement();
+          if (management != null)
+          {
+            final List<org.apache.maven.model.Dependency> managedDependencies =
+                management.getDependencies();
+            addMappedDependencies(rootDependencies, managedDependencies);
+          }
         }
       }
     }
 
-    return rootDependencies;
+    return new ArrayList<Dependency>(rootDependencies);
   }
 
   private static void addMappedDependencies(
-      final List<Dependency> rootDependencies,
+      final Collection<Dependency> rootDependencies,
       final List<org.apache.maven.model.Dependency> newDependencies)
   {
     if (newDependencies != null && !newDependencies.isEmpty())
@@ -635,6 +1599,40 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
 
   private List<Dependency> resolve(final List<Dependency> rootDependencies)
     throws MojoExecutionException
+  {
+    if (sessionCache == null)
+    {
+      return resolveDependencies(rootDependencies);
+    }
+
+    final Object key =
+        Arrays.<Object> asList(descriptorsKey, rootDependencies,
+            String.valueOf(dependencyExcludes), ignoreDependencyExclusions,
+            followOptionalDependencies, offline, updatePolicy, remoteRepos,
+            isPlanOnly());
+    try
+    {
+      return sessionCache.getResolution(key, new Callable<List<Dependency>>()
+      {
+        @Override
+        public List<Dependency> call() throws Exception
+        {
+          return resolveDependencies(rootDependencies);
+        }
+      });
+    }
+    catch (final MojoExecutionException e)
+    {
+      throw e;
+    }
+    catch (final Exception e)
+    {
+      throw new MojoExecutionException("Cannot resolve dependencies.", e);
+    }
+  }
+
+  private List<Dependency> resolveDependencies(
+      final List<Dependency> rootDependencies) throws MojoExecutionException
   {
     final TransitiveDependencyResolver resolver = createResolver(null);
     try
@@ -663,7 +1661,9 @@ public final class JBossModulesArchiveMojo extends AbstractMojo
     builder.with(repositorySystem).with(repositorySession).with(remoteRepos)
         .withDependencyFilters(dependencyFilters)
         .withManagedDependencies(managedDependencies).withOffline(offline)
-        .withTraverserGenerator(prunerGenerator).build();
+        .withTraverserGenerator(prunerGenerator)
+        .withRepositoryListener(repositoryListener)
+        .withCollectOnly(isPlanOnly()).build();
     final MavenRepository repository = builder.build();
 
     return new DefaultTransitiveDependencyResolver(repository);
@@ -13,21 +13,31 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package de.smartics.maven.plugin.jboss.modules.xml;
+package de.smartics.maven.plugin.jboss.modules;
 
-import java.io.IOException;
-import java.io.InputStream;
-
-import org.apache.commons.io.IOUtils;
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.JDOMException;
-import org.jdom2.input.SAXBuilder;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 
 /**
- * Helper to parse XML fragments to be added to the main document.
+ * Calculates the modules, their slots and the dependencies between them
+ * without writing any module. Dependency graphs are collected without
+ * resolving the files of artifacts. The plan is logged and written to the
+ * file <code>module-plan.txt</code> within the <code>reportsFolder</code>.
+ * Cycles between modules are logged, but no cycles report is written. Cached
+ * module descriptors are read, but the cache is not updated.
+ * <p>
+ * Running this goal is considerably faster than creating the modules archive
+ * and allows to check the effect of changes to the modules descriptors, for
+ * instance in pre-commit hooks.
+ * </p>
+ *
+ * @since 1.1
+ * @description Calculates the modules, their slots and the dependencies
+ *              between them without writing any module.
  */
-final class XmlFragmentParser
+@Mojo(name = "plan", threadSafe = true, requiresProject = true,
+    requiresDependencyResolution = ResolutionScope.NONE)
+public final class JBossModulesPlanMojo extends JBossModulesArchiveMojo
 {
   // ********************************* Fields *********************************
 
@@ -35,23 +45,10 @@ final class XmlFragmentParser
 
   // --- members --------------------------------------------------------------
 
-  /**
-   * The document builder.
-   */
-  private final SAXBuilder builder;
-
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
 
-  /**
-   * Default constructor.
-   */
-  public XmlFragmentParser()
-  {
-    builder = new SAXBuilder();
-  }
-
   // ****************************** Inner Classes *****************************
 
   // ********************************* Methods ********************************
@@ -60,37 +57,14 @@ final class XmlFragmentParser
 
   // --- get&set --------------------------------------------------------------
 
-  // --- business -------------------------------------------------------------
-
-  /**
-   * Parses the given XML fragment.
-   *
-   * @param xmlFragment the fragment to be parsed in UTF-8 encoding.
-   * @return the parsed root element.
-   * @throws IllegalArgumentException on any parsing problem.
-   */
-  public Element parse(final String xmlFragment)
-    throws IllegalArgumentException
+  @Override
+  protected boolean isPlanOnly()
   {
-    try
-    {
-      final InputStream input = IOUtils.toInputStream(xmlFragment, "UTF-8");
-      final Document document = builder.build(input);
-      final Element root = document.getRootElement();
-      return root.detach();
-    }
-    catch (final IOException e)
-    {
-      throw new IllegalStateException(
-          "UTF-8 encoding not supported on this platform.");
-    }
-    catch (final JDOMException e)
-    {
-      throw new IllegalArgumentException("Cannot parse XML fragment: "
-                                         + xmlFragment, e);
-    }
+    return true;
   }
 
+  // --- business -------------------------------------------------------------
+
   // --- object basics --------------------------------------------------------
 
 }
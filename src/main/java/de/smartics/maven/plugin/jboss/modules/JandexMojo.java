@@ -37,6 +37,9 @@ import org.jboss.jandex.Index;
 import org.jboss.jandex.IndexWriter;
 import org.jboss.jandex.Indexer;
 
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEvent;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEventType;
+
 /**
  * Generates an index of annotations for JBoss modules.
  *
@@ -208,11 +211,14 @@ public class JandexMojo extends AbstractMojo
       }
 
       final File file = new File(scanner.getBasedir(), fileName);
+      final FlightEvent event = FlightEvent.begin(FlightEventType.INDEX);
       InputStream input = null;
       try
       {
         input = FileUtils.openInputStream(file);
         final ClassInfo info = indexer.index(input);
+        event.set("file", fileName)
+            .set("annotations", info.annotations().size()).commit();
 
         if (verbose)
         {
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.graph.Dependency;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModulesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleMatchCache;
+
+/**
+ * Shares the work of executions of the plugin in the projects of a reactor
+ * build: the located modules descriptors, the resolved dependencies and the
+ * matching of artifacts against modules.
+ * <p>
+ * There is one cache per Maven session. Parallel builds clone the session for
+ * each project, therefore the cache is bound to the execution request that
+ * all clones share. Each value is calculated by the first
+ * execution that requests it, while executions requesting it in parallel wait
+ * for the result. Executions with a different configuration use different
+ * keys and do not share values.
+ * </p>
+ * <p>
+ * Resolutions are reused only for requests that are equal as a whole. Parts
+ * of the dependency graph shared by different requests are resolved again,
+ * since the result of resolving a sub-graph depends on the conflict
+ * resolution of the entire request.
+ * </p>
+ */
+final class SessionCache
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The caches by the execution request of the session. The cache of a
+   * session is released on the first access after its request has been
+   * garbage collected.
+   */
+  private static final Map<MavenExecutionRequest, SessionCache> CACHES =
+      new WeakHashMap<MavenExecutionRequest, SessionCache>();
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The serialized modules descriptors by the key of their configuration.
+   * Descriptors are merged while building modules, therefore each execution
+   * works on a copy of its own.
+   */
+  private final ConcurrentMap<Object, FutureTask<byte[]>> descriptors =
+      new ConcurrentHashMap<Object, FutureTask<byte[]>>();
+
+  /**
+   * The resolved dependencies by the key of their resolution request.
+   */
+  private final ConcurrentMap<Object, FutureTask<List<Dependency>>>
+      resolutions =
+          new ConcurrentHashMap<Object, FutureTask<List<Dependency>>>();
+
+  /**
+   * The results of matching artifacts by the key of the configuration of the
+   * modules descriptors.
+   */
+  private final ConcurrentMap<Object, ModuleMatchCache> matches =
+      new ConcurrentHashMap<Object, ModuleMatchCache>();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private SessionCache()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  /**
+   * Returns the cache of the given session. Clones of a session share its
+   * cache.
+   *
+   * @param session the session whose cache is requested.
+   * @return the cache of the session.
+   */
+  static SessionCache of(final MavenSession session)
+  {
+    final MavenExecutionRequest request = session.getRequest();
+    synchronized (CACHES)
+    {
+      SessionCache cache = CACHES.get(request);
+      if (cache == null)
+      {
+        cache = new SessionCache();
+        CACHES.put(request, cache);
+      }
+      return cache;
+    }
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Returns a copy of the modules descriptors with the given key. The
+   * descriptors are located by the given task, if they are not cached.
+   *
+   * @param key the key of the configuration of the descriptors.
+   * @param task the task to locate the descriptors.
+   * @return a copy of the descriptors.
+   * @throws Exception on any problem locating the descriptors.
+   */
+  @SuppressWarnings("unchecked")
+  List<ModulesDescriptor> getDescriptors(final Object key,
+      final Callable<List<ModulesDescriptor>> task) throws Exception
+  {
+    final byte[] data = get(descriptors, key, new Callable<byte[]>()
+    {
+      @Override
+      public byte[] call() throws Exception
+      {
+        return serialize(new ArrayList<ModulesDescriptor>(task.call()));
+      }
+    });
+    final ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(data));
+    return (List<ModulesDescriptor>) in.readObject();
+  }
+
+  /**
+   * Returns a copy of the dependencies resolved for the given key. The
+   * dependencies are resolved by the given task, if they are not cached.
+   *
+   * @param key the key of the resolution request.
+   * @param task the task to resolve the dependencies.
+   * @return a copy of the list of resolved dependencies.
+   * @throws Exception on any problem resolving the dependencies.
+   */
+  List<Dependency> getResolution(final Object key,
+      final Callable<List<Dependency>> task) throws Exception
+  {
+    return new ArrayList<Dependency>(get(resolutions, key, task));
+  }
+
+  /**
+   * Returns the results of matching artifacts against the modules descriptors
+   * with the given key.
+   *
+   * @param key the key of the configuration of the descriptors.
+   * @return the results of matching artifacts.
+   */
+  ModuleMatchCache getMatches(final Object key)
+  {
+    ModuleMatchCache cache = matches.get(key);
+    if (cache == null)
+    {
+      final ModuleMatchCache newCache = new ModuleMatchCache();
+      cache = matches.putIfAbsent(key, newCache);
+      if (cache == null)
+      {
+        cache = newCache;
+      }
+    }
+    return cache;
+  }
+
+  private static <T> T get(final ConcurrentMap<Object, FutureTask<T>> map,
+      final Object key, final Callable<T> task) throws Exception
+  {
+    FutureTask<T> future = map.get(key);
+    if (future == null)
+    {
+      final FutureTask<T> newFuture = new FutureTask<T>(task);
+      future = map.putIfAbsent(key, newFuture);
+      if (future == null)
+      {
+        future = newFuture;
+        future.run();
+      }
+    }
+
+    try
+    {
+      return future.get();
+    }
+    catch (final ExecutionException e)
+    {
+      map.remove(key, future);
+      final Throwable cause = e.getCause();
+      if (cause instanceof Exception)
+      {
+        throw (Exception) cause;
+      }
+      throw e;
+    }
+  }
+
+  private static byte[] serialize(final Object object) throws IOException
+  {
+    final ByteArrayOutputStream data = new ByteArrayOutputStream(16 * 1024);
+    final ObjectOutputStream out = new ObjectOutputStream(data);
+    out.writeObject(object);
+    out.close();
+    return data.toByteArray();
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
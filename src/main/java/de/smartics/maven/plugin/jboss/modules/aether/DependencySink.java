@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.aether;
+
+import org.eclipse.aether.graph.Dependency;
+
+/**
+ * Receives the resolved dependencies while the resolved dependency graph is
+ * visited, so that no intermediate list of dependencies is created.
+ *
+ * @since 1.1
+ */
+public interface DependencySink
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Receives a resolved dependency. Dependencies are received in preorder of
+   * the dependency graph and each node of the graph is received once.
+   *
+   * @param dependency the resolved dependency.
+   */
+  void accept(Dependency dependency);
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -17,6 +17,8 @@ package de.smartics.maven.plugin.jboss.modules.aether;
 
 import org.eclipse.aether.collection.DependencyTraverser;
 
+import de.smartics.maven.plugin.jboss.modules.aether.filter.SkippedModuleFilter;
+
 /**
  * Generates dependency traversers.
  */
@@ -57,6 +59,15 @@ public interface DependencyTraverserGenerator
   DependencyTraverser createDependencyTraverser(DependencyTraverser delegate)
     throws NullPointerException;
 
+  /**
+   * Returns the filter to reject the resolution of the files of artifacts
+   * that belong to skipped modules.
+   *
+   * @return the filter or <code>null</code> if no module is skipped.
+   * @since 1.1
+   */
+  SkippedModuleFilter getSkippedModuleFilter();
+
   // --- object basics --------------------------------------------------------
 
 }
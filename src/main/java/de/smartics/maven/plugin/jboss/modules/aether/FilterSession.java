@@ -15,11 +15,13 @@
  */
 package de.smartics.maven.plugin.jboss.modules.aether;
 
+import org.eclipse.aether.RepositoryListener;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.collection.DependencySelector;
 import org.eclipse.aether.collection.DependencyTraverser;
 import org.eclipse.aether.AbstractForwardingRepositorySystemSession;
 import org.eclipse.aether.util.graph.selector.AndDependencySelector;
+import org.eclipse.aether.util.listener.ChainedRepositoryListener;
 import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
 import org.eclipse.aether.util.graph.selector.ScopeDependencySelector;
 
@@ -52,6 +54,12 @@ public class FilterSession extends AbstractForwardingRepositorySystemSession
    */
   private final RepositorySystemSession session;
 
+  /**
+   * The listener to inform about repository events, including the listener of
+   * the wrapped session.
+   */
+  private final RepositoryListener repositoryListener;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -77,14 +85,57 @@ public class FilterSession extends AbstractForwardingRepositorySystemSession
   public FilterSession(final RepositorySystemSession session,
       final DependencyTraverser traverser,
       final boolean ignoreDependencyExclusions) throws NullPointerException
+  {
+    this(session, traverser, ignoreDependencyExclusions, null);
+  }
+
+  /**
+   * Creates a new repository system session that wraps the specified session
+   * and informs an additional listener about repository events.
+   *
+   * @param session the repository system session to forward calls to.
+   * @param traverser the traverser to prune.
+   * @param ignoreDependencyExclusions the flag that allows to globally ignore
+   *          exclusions declared in Maven dependencies.
+   * @param repositoryListener the listener to inform in addition to the
+   *          listener of the session. May be <code>null</code>.
+   * @throws NullPointerException if {@code session} or {@code traverser} is
+   *           <code>null</code>.
+   */
+  public FilterSession(final RepositorySystemSession session,
+      final DependencyTraverser traverser,
+      final boolean ignoreDependencyExclusions,
+      final RepositoryListener repositoryListener) throws NullPointerException
   {
     this.session = Arg.checkNotNull("session", session);
     this.traverser = Arg.checkNotNull("traverser", traverser);
     this.ignoreDependencyExclusions = ignoreDependencyExclusions;
+    this.repositoryListener =
+        chain(session.getRepositoryListener(), repositoryListener);
+  }
+
+  private static RepositoryListener chain(final RepositoryListener first,
+      final RepositoryListener second)
+  {
+    if (second == null)
+    {
+      return first;
+    }
+    if (first == null)
+    {
+      return second;
+    }
+    return new ChainedRepositoryListener(first, second);
   }
 
   // --- business -------------------------------------------------------------
 
+  @Override
+  public RepositoryListener getRepositoryListener()
+  {
+    return repositoryListener;
+  }
+
   @Override
   public DependencyTraverser getDependencyTraverser()
   {
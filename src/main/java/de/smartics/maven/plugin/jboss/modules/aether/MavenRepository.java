@@ -16,25 +16,36 @@
 package de.smartics.maven.plugin.jboss.modules.aether;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.aether.RepositoryListener;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
 import org.eclipse.aether.collection.DependencyTraverser;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.DependencyVisitor;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
 import org.eclipse.aether.resolution.DependencyResult;
 import org.eclipse.aether.util.filter.AndDependencyFilter;
-import org.eclipse.aether.util.graph.visitor.PreorderNodeListGenerator;
+import org.eclipse.aether.util.graph.visitor.FilteringDependencyVisitor;
 
 import de.smartics.maven.plugin.jboss.modules.aether.filter.DependencyFlagger;
 import de.smartics.maven.plugin.jboss.modules.aether.filter.DirectDependenciesOnlyFilter;
+import de.smartics.maven.plugin.jboss.modules.aether.filter.SkippedModuleFilter;
+import de.smartics.maven.plugin.jboss.modules.perf.Counter;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEvent;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEventType;
+import de.smartics.maven.plugin.jboss.modules.perf.PerformanceRecorder;
 
 /**
  * The repository to access artifacts to resolve for property descriptor
@@ -87,6 +98,18 @@ public final class MavenRepository
    */
   private final DependencyTraverserGenerator traverserGenerator;
 
+  /**
+   * The listener to be informed about repository events in addition to the
+   * listener of the session. May be <code>null</code>.
+   */
+  private final RepositoryListener repositoryListener;
+
+  /**
+   * The flag to collect dependency graphs without resolving the files of
+   * artifacts.
+   */
+  private final boolean collectOnly;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -100,10 +123,113 @@ public final class MavenRepository
     this.managedDependencies = builder.getManagedDependencies();
     this.offline = builder.isOffline();
     this.traverserGenerator = builder.getTraverserGenerator();
+    this.repositoryListener = builder.getRepositoryListener();
+    this.collectOnly = builder.isCollectOnly();
   }
 
   // ****************************** Inner Classes *****************************
 
+  /**
+   * Passes the dependencies of the nodes of a resolved graph in preorder to a
+   * sink, visiting each node once.
+   * <p>
+   * This is a kind of workaround: We should limit the collect request, but
+   * have not enough information with the DependencySelector interface (we
+   * need the parents!). Therefore we use the DependencyFilter interface (which
+   * has access to the parents) to resolve only those that meet our
+   * constraints. Afterwards we skip all unresolved dependencies (which are
+   * those that do not reference a file). Artifacts of skipped modules are not
+   * resolved, but kept, since modules refer to them. Only nodes flagged as
+   * skipped by the {@link SkippedModuleFilter} are kept without a file.
+   * </p>
+   * <p>
+   * If the graph has only been collected, no artifact references a file and
+   * all dependencies not flagged are passed to the sink.
+   * </p>
+   */
+  private static final class ResultVisitor implements DependencyVisitor
+  {
+    /**
+     * The sink to pass the accepted dependencies to.
+     */
+    private final DependencySink sink;
+
+    /**
+     * The flagger of nodes rejected by filters.
+     */
+    private final DependencyFlagger flagger;
+
+    /**
+     * The flag to pass only dependencies whose artifact references a file.
+     */
+    private final boolean requireFile;
+
+    /**
+     * The nodes already visited.
+     */
+    private final Map<DependencyNode, Boolean> visited =
+        new IdentityHashMap<DependencyNode, Boolean>();
+
+    /**
+     * The number of nodes visited.
+     */
+    private int nodes;
+
+    /**
+     * The number of accepted artifacts of skipped modules without a file.
+     */
+    private long skippedFiles;
+
+    private ResultVisitor(final DependencySink sink,
+        final DependencyFlagger flagger, final boolean requireFile)
+    {
+      this.sink = sink;
+      this.flagger = flagger;
+      this.requireFile = requireFile;
+    }
+
+    @Override
+    public boolean visitEnter(final DependencyNode node)
+    {
+      if (visited.put(node, Boolean.TRUE) != null)
+      {
+        return false;
+      }
+
+      final Dependency dependency = node.getDependency();
+      if (dependency != null)
+      {
+        nodes++;
+        if (!flagger.isFlagged(node))
+        {
+          accept(node, dependency);
+        }
+      }
+      return true;
+    }
+
+    private void accept(final DependencyNode node,
+        final Dependency dependency)
+    {
+      final Artifact artifact = dependency.getArtifact();
+      if (!requireFile || artifact.getFile() != null)
+      {
+        sink.accept(dependency);
+      }
+      else if (flagger.isSkipped(node))
+      {
+        sink.accept(dependency);
+        skippedFiles++;
+      }
+    }
+
+    @Override
+    public boolean visitLeave(final DependencyNode node)
+    {
+      return true;
+    }
+  }
+
   // ********************************* Methods ********************************
 
   // --- init -----------------------------------------------------------------
@@ -123,9 +249,28 @@ public final class MavenRepository
    */
   public MavenResponse resolve(final Dependency dependency)
     throws DependencyResolutionException
+  {
+    final MavenResponse response = new MavenResponse();
+    resolve(dependency, response);
+    return response;
+  }
+
+  /**
+   * Resolves the dependency so that it is locally accessible and passes the
+   * resolved dependencies to the given sink while visiting the dependency
+   * graph.
+   *
+   * @param dependency the dependency to resolve.
+   * @param sink the sink to receive the resolved dependencies.
+   * @throws DependencyResolutionException if the dependency tree could not be
+   *           built or any dependency artifact could not be resolved.
+   * @since 1.1
+   */
+  public void resolve(final Dependency dependency, final DependencySink sink)
+    throws DependencyResolutionException
   {
     final DependencyRequest dependencyRequest = createRequest(dependency, true);
-    return configureRequest(dependencyRequest);
+    configureRequest(dependencyRequest, sink);
   }
 
   /**
@@ -140,10 +285,29 @@ public final class MavenRepository
    */
   public MavenResponse resolveDirect(final Dependency dependency)
     throws DependencyResolutionException
+  {
+    final MavenResponse response = new MavenResponse();
+    resolveDirect(dependency, response);
+    return response;
+  }
+
+  /**
+   * Resolves direct dependencies of the dependency so that they are locally
+   * accessible and passes the resolved dependencies to the given sink while
+   * visiting the dependency graph.
+   *
+   * @param dependency the dependency to resolve.
+   * @param sink the sink to receive the resolved dependencies.
+   * @throws DependencyResolutionException if the dependency tree could not be
+   *           built or any dependency artifact could not be resolved.
+   * @since 1.1
+   */
+  public void resolveDirect(final Dependency dependency,
+      final DependencySink sink) throws DependencyResolutionException
   {
     final DependencyRequest dependencyRequest =
         createRequest(dependency, false);
-    return configureRequest(dependencyRequest);
+    configureRequest(dependencyRequest, sink);
   }
 
   private DependencyRequest createRequest(final Dependency dependency,
@@ -155,31 +319,6 @@ public final class MavenRepository
     return configureRequest(collectRequest, transitive);
   }
 
-  private static MavenResponse createResult(
-      final PreorderNodeListGenerator generator)
-  {
-    final MavenResponse response = new MavenResponse();
-    final List<DependencyNode> nodes = generator.getNodes();
-
-    // This is a kind of workaround: We should limit the collect request, but
-    // have not enough information with the DependencySelector interface
-    // (we need the parents!). Therefore we use the DependencyFilter interface
-    // (which has access to the parents) to resolve only those that meet our
-    // constraints. Afterwards we skip all unresolved dependencies (which are
-    // those that do not reference a file).
-    for (final DependencyNode node : nodes)
-    {
-      final Dependency dependency = node.getDependency();
-      final Artifact artifact = dependency.getArtifact();
-      if (!(artifact.getFile() == null || DependencyFlagger.INSTANCE
-          .isFlagged(dependency)))
-      {
-        response.add(dependency);
-      }
-    }
-    return response;
-  }
-
   /**
    * Resolves the dependencies so that it is locally accessible.
    *
@@ -191,16 +330,42 @@ public final class MavenRepository
    */
   public MavenResponse resolve(final List<Dependency> dependencies)
     throws DependencyResolutionException
+  {
+    final MavenResponse response = new MavenResponse();
+    resolve(dependencies, response);
+    return response;
+  }
+
+  /**
+   * Resolves the dependencies so that they are locally accessible and passes
+   * the resolved dependencies to the given sink while visiting the dependency
+   * graph.
+   *
+   * @param dependencies the root dependencies to resolve.
+   * @param sink the sink to receive the resolved dependencies.
+   * @throws DependencyResolutionException if the dependency tree could not be
+   *           built or any dependency artifact could not be resolved.
+   * @since 1.1
+   */
+  public void resolve(final List<Dependency> dependencies,
+      final DependencySink sink) throws DependencyResolutionException
   {
     final DependencyRequest dependencyRequest =
         createRequest(dependencies, true);
-    return configureRequest(dependencyRequest);
+    configureRequest(dependencyRequest, sink);
   }
 
-  private MavenResponse configureRequest(
-      final DependencyRequest dependencyRequest)
-    throws DependencyResolutionException
+  private void configureRequest(final DependencyRequest dependencyRequest,
+      final DependencySink sink) throws DependencyResolutionException
   {
+    PerformanceRecorder.count(Counter.AETHER_CALLS);
+    final FlightEvent event = FlightEvent.begin(FlightEventType.RESOLVE);
+    if (event.isEnabled())
+    {
+      event.set("root", calcRoot(dependencyRequest.getCollectRequest()));
+    }
+    final DependencyFlagger flagger = new DependencyFlagger();
+    flagger.bind();
     try
     {
       final DependencyTraverser traverser =
@@ -208,17 +373,23 @@ public final class MavenRepository
               .getDependencyTraverser());
       final FilterSession filterSession =
           new FilterSession(session, traverser,
-              traverserGenerator.isIgnoreDependencyExclusions());
-      final DependencyResult result =
-          repositorySystem
-              .resolveDependencies(filterSession, dependencyRequest);
-      final DependencyNode rootNode = result.getRoot();
-      final PreorderNodeListGenerator generator =
-          new PreorderNodeListGenerator();
-      rootNode.accept(generator);
-
-      final MavenResponse response = createResult(generator);
-      return response;
+              traverserGenerator.isIgnoreDependencyExclusions(),
+              repositoryListener);
+      final ResultVisitor visitor =
+          new ResultVisitor(sink, flagger, !collectOnly);
+      if (collectOnly)
+      {
+        collect(filterSession, dependencyRequest, visitor);
+      }
+      else
+      {
+        final DependencyResult result =
+            repositorySystem.resolveDependencies(filterSession,
+                dependencyRequest);
+        result.getRoot().accept(visitor);
+      }
+      event.set("nodes", visitor.nodes);
+      PerformanceRecorder.count(Counter.SKIPPED_FILES, visitor.skippedFiles);
     }
     catch (final NullPointerException e) // NOPMD aether problem
     {
@@ -226,6 +397,42 @@ public final class MavenRepository
       throw new DependencyResolutionException(new DependencyResult(
           dependencyRequest), e);
     }
+    finally
+    {
+      DependencyFlagger.unbind();
+      event.commit();
+    }
+  }
+
+  private void collect(final RepositorySystemSession filterSession,
+      final DependencyRequest dependencyRequest, final ResultVisitor visitor)
+    throws DependencyResolutionException
+  {
+    try
+    {
+      final CollectResult result =
+          repositorySystem.collectDependencies(filterSession,
+              dependencyRequest.getCollectRequest());
+      final DependencyFilter filter = dependencyRequest.getFilter();
+      result.getRoot().accept(
+          filter != null ? new FilteringDependencyVisitor(visitor, filter)
+              : visitor);
+    }
+    catch (final DependencyCollectionException e)
+    {
+      throw new DependencyResolutionException(new DependencyResult(
+          dependencyRequest), e);
+    }
+  }
+
+  private static String calcRoot(final CollectRequest collectRequest)
+  {
+    final Dependency root = collectRequest.getRoot();
+    if (root != null)
+    {
+      return String.valueOf(root.getArtifact());
+    }
+    return collectRequest.getDependencies().size() + " dependencies";
   }
 
   private DependencyRequest createRequest(final List<Dependency> dependencies,
@@ -263,6 +470,14 @@ public final class MavenRepository
     {
       filters.add(DirectDependenciesOnlyFilter.INSTANCE);
     }
+    final SkippedModuleFilter skippedModuleFilter =
+        traverserGenerator.getSkippedModuleFilter();
+    // Nothing is resolved if collecting only, so artifacts of skipped modules
+    // do not have to be rejected.
+    if (skippedModuleFilter != null && !collectOnly)
+    {
+      filters.add(skippedModuleFilter);
+    }
     if (!filters.isEmpty())
     {
       final AndDependencyFilter dependencyFilter =
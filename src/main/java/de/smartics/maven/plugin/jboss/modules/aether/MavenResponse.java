@@ -23,7 +23,7 @@ import org.eclipse.aether.graph.Dependency;
 /**
  * The Maven response with calculated dependencies.
  */
-public final class MavenResponse
+public final class MavenResponse implements DependencySink
 {
   // ********************************* Fields *********************************
 
@@ -57,6 +57,12 @@ public final class MavenResponse
 
   // --- business -------------------------------------------------------------
 
+  @Override
+  public void accept(final Dependency dependency)
+  {
+    dependencies.add(dependency);
+  }
+
   /**
    * Adds a dependency.
    *
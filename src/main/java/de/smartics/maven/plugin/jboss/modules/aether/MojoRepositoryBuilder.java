@@ -17,6 +17,7 @@ package de.smartics.maven.plugin.jboss.modules.aether;
 
 import java.util.List;
 
+import org.eclipse.aether.RepositoryListener;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.graph.Dependency;
@@ -71,6 +72,18 @@ public final class MojoRepositoryBuilder implements RepositoryBuilder
    */
   private DependencyTraverserGenerator traverserGenerator;
 
+  /**
+   * The listener to be informed about repository events in addition to the
+   * listener of the session.
+   */
+  private RepositoryListener repositoryListener;
+
+  /**
+   * The flag to collect dependency graphs without resolving the files of
+   * artifacts.
+   */
+  private boolean collectOnly;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -223,6 +236,48 @@ public final class MojoRepositoryBuilder implements RepositoryBuilder
     return this;
   }
 
+  @Override
+  public RepositoryListener getRepositoryListener()
+  {
+    return repositoryListener;
+  }
+
+  /**
+   * Sets the listener to be informed about repository events in addition to
+   * the listener of the session.
+   *
+   * @param repositoryListener the additional listener. May be
+   *          <code>null</code>.
+   * @return a reference to this builder.
+   */
+  public MojoRepositoryBuilder withRepositoryListener(
+      final RepositoryListener repositoryListener)
+  {
+    this.repositoryListener = repositoryListener;
+    return this;
+  }
+
+  @Override
+  public boolean isCollectOnly()
+  {
+    return collectOnly;
+  }
+
+  /**
+   * Sets the flag to collect dependency graphs without resolving the files of
+   * artifacts.
+   *
+   * @param collectOnly <code>true</code> if only the dependency graph is
+   *          collected, <code>false</code> if artifact files are resolved.
+   * @return a reference to this builder.
+   * @since 1.1
+   */
+  public MojoRepositoryBuilder withCollectOnly(final boolean collectOnly)
+  {
+    this.collectOnly = collectOnly;
+    return this;
+  }
+
   // --- business -------------------------------------------------------------
 
   /**
@@ -16,6 +16,8 @@
 package de.smartics.maven.plugin.jboss.modules.aether;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.collection.DependencyTraverser;
@@ -23,10 +25,15 @@ import org.eclipse.aether.graph.Dependency;
 
 import de.smartics.maven.plugin.jboss.modules.descriptor.ArtifactClusion;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ArtifactKey;
 
 /**
  * Prunes the dependency tree upon information on excluded artifacts and skipped
  * modules.
+ * <p>
+ * The decision is calculated once per artifact, since an artifact is usually
+ * encountered at many nodes of the dependency graph.
+ * </p>
  */
 public class PruningDependencyTraverser extends DelegateDependencyTraverser
 {
@@ -46,6 +53,12 @@ public class PruningDependencyTraverser extends DelegateDependencyTraverser
    */
   private final List<ModuleDescriptor> skipModules;
 
+  /**
+   * The decisions to traverse the dependencies of artifacts.
+   */
+  private final ConcurrentMap<ArtifactKey, Boolean> decisions =
+      new ConcurrentHashMap<ArtifactKey, Boolean>();
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -82,6 +95,18 @@ public class PruningDependencyTraverser extends DelegateDependencyTraverser
   protected boolean doTraverseDependency(final Dependency dependency)
   {
     final Artifact artifact = dependency.getArtifact();
+    final ArtifactKey key = ArtifactKey.of(artifact);
+    Boolean decision = decisions.get(key);
+    if (decision == null)
+    {
+      decision = calcTraverse(artifact);
+      decisions.putIfAbsent(key, decision);
+    }
+    return decision;
+  }
+
+  private boolean calcTraverse(final Artifact artifact)
+  {
     for (final ArtifactClusion exclusion : exclusions)
     {
       final boolean exclude = exclusion.matches(artifact).isMatched();
@@ -17,6 +17,7 @@ package de.smartics.maven.plugin.jboss.modules.aether;
 
 import java.util.List;
 
+import org.eclipse.aether.RepositoryListener;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.graph.Dependency;
@@ -92,6 +93,24 @@ public interface RepositoryBuilder
    */
   DependencyTraverserGenerator getTraverserGenerator();
 
+  /**
+   * Returns the listener to be informed about repository events in addition
+   * to the listener of the session.
+   *
+   * @return the additional listener. May be <code>null</code>.
+   */
+  RepositoryListener getRepositoryListener();
+
+  /**
+   * Returns the flag to collect dependency graphs without resolving the files
+   * of artifacts.
+   *
+   * @return <code>true</code> if only the dependency graph is collected,
+   *         <code>false</code> if artifact files are resolved.
+   * @since 1.1
+   */
+  boolean isCollectOnly();
+
   // --- business -------------------------------------------------------------
 
   // --- object basics --------------------------------------------------------
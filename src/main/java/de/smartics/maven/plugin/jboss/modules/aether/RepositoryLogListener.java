@@ -15,15 +15,24 @@
  */
 package de.smartics.maven.plugin.jboss.modules.aether;
 
+import java.io.File;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.eclipse.aether.AbstractRepositoryListener;
 import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import de.smartics.maven.plugin.jboss.modules.aether.ResolutionMetrics.Kind;
+import de.smartics.util.lang.Arg;
 
 /**
- * Uses the underlying logger to report on repository events.
+ * Uses the underlying logger to report on repository events and records the
+ * time and bytes of resolving metadata, descriptors and artifacts.
  */
-class RepositoryLogListener extends AbstractRepositoryListener
+public final class RepositoryLogListener extends AbstractRepositoryListener
 {
   // ********************************* Fields *********************************
 
@@ -36,6 +45,11 @@ class RepositoryLogListener extends AbstractRepositoryListener
    */
   private final Logger log;
 
+  /**
+   * The metrics to record resolution times to.
+   */
+  private final ResolutionMetrics metrics;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -43,18 +57,27 @@ class RepositoryLogListener extends AbstractRepositoryListener
   /**
    * Convenience constructor to use an internally created logger with the name
    * of this class.
+   *
+   * @param metrics the metrics to record resolution times to.
    */
-  public RepositoryLogListener()
+  public RepositoryLogListener(final ResolutionMetrics metrics)
   {
-    this(LoggerFactory.getLogger(RepositoryLogListener.class));
+    this(LoggerFactory.getLogger(RepositoryLogListener.class), metrics);
   }
 
   /**
    * Default constructor.
+   *
+   * @param log the logger to log to.
+   * @param metrics the metrics to record resolution times to.
+   * @throws NullPointerException if {@code log} or {@code metrics} is
+   *           <code>null</code>.
    */
-  public RepositoryLogListener(final Logger log)
+  public RepositoryLogListener(final Logger log,
+      final ResolutionMetrics metrics) throws NullPointerException
   {
-    this.log = log;
+    this.log = Arg.checkNotNull("log", log);
+    this.metrics = Arg.checkNotNull("metrics", metrics);
   }
 
   // ****************************** Inner Classes *****************************
@@ -67,6 +90,30 @@ class RepositoryLogListener extends AbstractRepositoryListener
 
   // --- business -------------------------------------------------------------
 
+  private static String getRepositoryId(final RepositoryEvent event)
+  {
+    final ArtifactRepository repository = event.getRepository();
+    return repository != null ? repository.getId() : null;
+  }
+
+  private static String createArtifactKey(final Artifact artifact)
+  {
+    return artifact.getGroupId() + ':' + artifact.getArtifactId() + ':'
+           + artifact.getBaseVersion();
+  }
+
+  private static Kind getResolveKind(final Artifact artifact)
+  {
+    return "pom".equals(artifact.getExtension()) ? Kind.DESCRIPTOR
+        : Kind.ARTIFACT;
+  }
+
+  private static long getTransferredBytes(final RepositoryEvent event)
+  {
+    final File file = event.getFile();
+    return event.getException() == null && file != null ? file.length() : 0L;
+  }
+
   // ... descriptor handling ..................................................
 
   /**
@@ -77,6 +124,7 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#artifactDescriptorMissing(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void artifactDescriptorMissing(final RepositoryEvent event)
   {
     log.warn("Missing descriptor for artifact '{}'.", event.getArtifact());
@@ -90,6 +138,7 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#artifactDescriptorInvalid(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void artifactDescriptorInvalid(final RepositoryEvent event)
   {
     log.warn("Invalid descriptor for artifact '{}': {}", event.getArtifact(),
@@ -106,6 +155,7 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#metadataInvalid(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void metadataInvalid(final RepositoryEvent event)
   {
     log.warn("Invalid metadata: {}", event.getMetadata());
@@ -119,10 +169,13 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#metadataResolving(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void metadataResolving(final RepositoryEvent event)
   {
     log.debug("Resolving metadata '{}' from '{}'.", event.getMetadata(),
         event.getRepository());
+    metrics.start("metadata:" + event.getMetadata() + '@'
+                  + getRepositoryId(event));
   }
 
   /**
@@ -133,10 +186,51 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#metadataResolved(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void metadataResolved(final RepositoryEvent event)
   {
     log.debug("Resolved metadata '{}' from '{}'.", event.getMetadata(),
         event.getRepository());
+    final String repositoryId = getRepositoryId(event);
+    metrics.finish("metadata:" + event.getMetadata() + '@' + repositoryId,
+        Kind.METADATA, repositoryId, null, 0L);
+  }
+
+  // ... meta data downloading ................................................
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Logs at debug level.
+   * </p>
+   *
+   * @see org.eclipse.aether.AbstractRepositoryListener#metadataDownloading(org.eclipse.aether.RepositoryEvent)
+   */
+  @Override
+  public void metadataDownloading(final RepositoryEvent event)
+  {
+    log.debug("Downloading metadata '{}' from '{}'.", event.getMetadata(),
+        event.getRepository());
+    metrics.start("download:" + event.getMetadata() + '@'
+                  + getRepositoryId(event));
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Logs at debug level.
+   * </p>
+   *
+   * @see org.eclipse.aether.AbstractRepositoryListener#metadataDownloaded(org.eclipse.aether.RepositoryEvent)
+   */
+  @Override
+  public void metadataDownloaded(final RepositoryEvent event)
+  {
+    log.debug("Downloaded metadata '{}' from '{}'.", event.getMetadata(),
+        event.getRepository());
+    final String repositoryId = getRepositoryId(event);
+    metrics.finish("download:" + event.getMetadata() + '@' + repositoryId,
+        Kind.DOWNLOAD, repositoryId, null, getTransferredBytes(event));
   }
 
   // ... artifact resolving ...................................................
@@ -149,9 +243,11 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#artifactResolving(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void artifactResolving(final RepositoryEvent event)
   {
-    log.debug("Resolving artifact '{}'." + event.getArtifact());
+    log.debug("Resolving artifact '{}'.", event.getArtifact());
+    metrics.start("resolve:" + event.getArtifact());
   }
 
   /**
@@ -162,10 +258,18 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#artifactResolved(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void artifactResolved(final RepositoryEvent event)
   {
-    log.debug("Resolved artifact '{}' from '{}'.", event.getArtifact(),
+    final Artifact artifact = event.getArtifact();
+    log.debug("Resolved artifact '{}' from '{}'.", artifact,
         event.getRepository());
+    metrics.finish("resolve:" + artifact, getResolveKind(artifact),
+        getRepositoryId(event), createArtifactKey(artifact), 0L);
+    if (event.getFile() != null)
+    {
+      metrics.resolved(!(event.getRepository() instanceof RemoteRepository));
+    }
   }
 
   // ... artifact downloading .................................................
@@ -178,10 +282,13 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#artifactDownloading(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void artifactDownloading(final RepositoryEvent event)
   {
     log.debug("Downloading artifact '{}' from '{}'.", event.getArtifact(),
         event.getRepository());
+    metrics.start("download:" + event.getArtifact() + '@'
+                  + getRepositoryId(event));
   }
 
   /**
@@ -192,10 +299,14 @@ class RepositoryLogListener extends AbstractRepositoryListener
    *
    * @see org.eclipse.aether.AbstractRepositoryListener#artifactDownloaded(org.eclipse.aether.RepositoryEvent)
    */
+  @Override
   public void artifactDownloaded(final RepositoryEvent event)
   {
     log.debug("Downloaded artifact '{}' from '{}'.", event.getArtifact(),
         event.getRepository());
+    final String repositoryId = getRepositoryId(event);
+    metrics.finish("download:" + event.getArtifact() + '@' + repositoryId,
+        Kind.DOWNLOAD, repositoryId, null, getTransferredBytes(event));
   }
 
   // --- object basics --------------------------------------------------------
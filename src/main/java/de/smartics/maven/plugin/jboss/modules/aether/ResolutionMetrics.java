@@ -0,0 +1,429 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.aether;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.smartics.maven.plugin.jboss.modules.perf.ReportSection;
+
+/**
+ * Collects the time spent and the bytes transferred while resolving artifacts
+ * and metadata. The data is collected per artifact and per repository and is
+ * added as section <code>resolution</code> to the performance report.
+ * <p>
+ * Instances are thread-safe, since repository events may be fired by
+ * several threads in parallel.
+ * </p>
+ */
+public final class ResolutionMetrics implements ReportSection
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The number of nanoseconds per millisecond.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The number of artifacts with the longest resolution time to report.
+   */
+  private final int slowestCount;
+
+  /**
+   * The times of operations started, but not yet finished, by the key of the
+   * operation.
+   */
+  private final ConcurrentMap<String, Long> started =
+      new ConcurrentHashMap<String, Long>();
+
+  /**
+   * The statistics per kind of operation.
+   */
+  private final ConcurrentMap<Kind, Stats> kinds =
+      new ConcurrentHashMap<Kind, Stats>();
+
+  /**
+   * The statistics per kind of operation and repository identifier, joined
+   * by <code>@</code>.
+   */
+  private final ConcurrentMap<String, Stats> repositories =
+      new ConcurrentHashMap<String, Stats>();
+
+  /**
+   * The resolution time per artifact coordinates without extension.
+   */
+  private final ConcurrentMap<String, AtomicLong> artifacts =
+      new ConcurrentHashMap<String, AtomicLong>();
+
+  /**
+   * The number of artifacts found in the local repository.
+   */
+  private final AtomicLong localHits = new AtomicLong();
+
+  /**
+   * The number of artifacts fetched from remote repositories.
+   */
+  private final AtomicLong remoteHits = new AtomicLong();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param slowestCount the number of artifacts with the longest resolution
+   *          time to report.
+   */
+  public ResolutionMetrics(final int slowestCount)
+  {
+    this.slowestCount = Math.max(0, slowestCount);
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * The kinds of operations measured.
+   */
+  enum Kind
+  {
+    /**
+     * Resolving metadata from a repository.
+     */
+    METADATA("metadata"),
+
+    /**
+     * Resolving the POM of an artifact.
+     */
+    DESCRIPTOR("descriptor"),
+
+    /**
+     * Resolving an artifact that is not a POM.
+     */
+    ARTIFACT("artifact"),
+
+    /**
+     * Downloading an artifact or metadata from a remote repository.
+     */
+    DOWNLOAD("download");
+
+    /**
+     * The identifier of the kind in reports.
+     */
+    private final String id;
+
+    private Kind(final String id)
+    {
+      this.id = id;
+    }
+
+    @Override
+    public String toString()
+    {
+      return id;
+    }
+  }
+
+  /**
+   * Accumulates the number, the time and the bytes of operations.
+   */
+  private static final class Stats
+  {
+    /**
+     * The number of operations.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The accumulated time of operations in nanoseconds.
+     */
+    private final AtomicLong nanos = new AtomicLong();
+
+    /**
+     * The accumulated bytes transferred.
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+    private void add(final long nanos, final long bytes)
+    {
+      this.count.incrementAndGet();
+      this.nanos.addAndGet(nanos);
+      this.bytes.addAndGet(bytes);
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  @Override
+  public String getName()
+  {
+    return "resolution";
+  }
+
+  /**
+   * Returns the number of artifacts found in the local repository.
+   *
+   * @return the number of artifacts found in the local repository.
+   */
+  public long getLocalHits()
+  {
+    return localHits.get();
+  }
+
+  /**
+   * Returns the number of artifacts fetched from remote repositories.
+   *
+   * @return the number of artifacts fetched from remote repositories.
+   */
+  public long getRemoteHits()
+  {
+    return remoteHits.get();
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Records the start of an operation.
+   *
+   * @param key the key of the operation to match its end.
+   */
+  void start(final String key)
+  {
+    started.put(key, System.nanoTime());
+  }
+
+  /**
+   * Records the end of an operation. Ends without a recorded start are
+   * ignored.
+   *
+   * @param key the key of the operation to match its start.
+   * @param kind the kind of the operation.
+   * @param repositoryId the identifier of the repository involved. May be
+   *          <code>null</code>.
+   * @param artifactKey the coordinates of the artifact involved without
+   *          extension. May be <code>null</code>.
+   * @param bytes the number of bytes transferred.
+   */
+  void finish(final String key, final Kind kind, final String repositoryId,
+      final String artifactKey, final long bytes)
+  {
+    final Long start = started.remove(key);
+    if (start == null)
+    {
+      return;
+    }
+
+    final long nanos = System.nanoTime() - start;
+    getStats(kinds, kind).add(nanos, bytes);
+    if (repositoryId != null)
+    {
+      getStats(repositories, kind + "@" + repositoryId).add(nanos, bytes);
+    }
+    if (artifactKey != null && kind != Kind.DOWNLOAD)
+    {
+      AtomicLong time = artifacts.get(artifactKey);
+      if (time == null)
+      {
+        final AtomicLong newTime = new AtomicLong();
+        time = artifacts.putIfAbsent(artifactKey, newTime);
+        if (time == null)
+        {
+          time = newTime;
+        }
+      }
+      time.addAndGet(nanos);
+    }
+  }
+
+  /**
+   * Records the resolution of an artifact.
+   *
+   * @param local <code>true</code> if the artifact has been found in the local
+   *          repository, <code>false</code> if it has been fetched from a
+   *          remote repository.
+   */
+  void resolved(final boolean local)
+  {
+    (local ? localHits : remoteHits).incrementAndGet();
+  }
+
+  private static <K> Stats getStats(final ConcurrentMap<K, Stats> map,
+      final K key)
+  {
+    Stats stats = map.get(key);
+    if (stats == null)
+    {
+      final Stats newStats = new Stats();
+      stats = map.putIfAbsent(key, newStats);
+      if (stats == null)
+      {
+        stats = newStats;
+      }
+    }
+    return stats;
+  }
+
+  /**
+   * Returns the artifacts with the longest resolution time, the slowest
+   * first. The time includes resolving the POM and the artifact files.
+   *
+   * @return the coordinates of the artifacts with their time in nanoseconds.
+   */
+  public List<Entry<String, Long>> getSlowestArtifacts()
+  {
+    final List<Entry<String, Long>> entries =
+        new ArrayList<Entry<String, Long>>(artifacts.size());
+    for (final Entry<String, AtomicLong> entry : artifacts.entrySet())
+    {
+      entries.add(new SimpleImmutableEntry<String, Long>(entry.getKey(), entry
+          .getValue().get()));
+    }
+    Collections.sort(entries, new Comparator<Entry<String, Long>>()
+    {
+      @Override
+      public int compare(final Entry<String, Long> o1,
+          final Entry<String, Long> o2)
+      {
+        final int result = o2.getValue().compareTo(o1.getValue());
+        return result != 0 ? result : o1.getKey().compareTo(o2.getKey());
+      }
+    });
+    return entries.subList(0, Math.min(slowestCount, entries.size()));
+  }
+
+  @Override
+  public void appendJson(final StringBuilder buffer, final String indent)
+  {
+    final String inner = indent + "  ";
+    buffer.append("{\n").append(inner).append("\"localHits\": ")
+        .append(localHits.get()).append(",\n").append(inner)
+        .append("\"remoteHits\": ").append(remoteHits.get()).append(",\n")
+        .append(inner).append("\"kinds\": ");
+    appendJson(buffer, inner, sort(kinds));
+    buffer.append(",\n").append(inner).append("\"repositories\": ");
+    appendJson(buffer, inner, sort(repositories));
+    buffer.append(",\n").append(inner).append("\"slowestArtifacts\": [");
+    boolean first = true;
+    for (final Entry<String, Long> entry : getSlowestArtifacts())
+    {
+      buffer.append(first ? "\n" : ",\n");
+      first = false;
+      buffer.append(inner).append("  { \"artifact\": \"")
+          .append(escape(entry.getKey())).append("\", \"millis\": ")
+          .append(toMillis(entry.getValue())).append(" }");
+    }
+    buffer.append(first ? "]\n" : "\n" + inner + "]\n").append(indent)
+        .append('}');
+  }
+
+  private static void appendJson(final StringBuilder buffer,
+      final String indent, final Map<String, Stats> stats)
+  {
+    buffer.append('{');
+    boolean first = true;
+    for (final Entry<String, Stats> entry : stats.entrySet())
+    {
+      final Stats value = entry.getValue();
+      buffer.append(first ? "\n" : ",\n");
+      first = false;
+      buffer.append(indent).append("  \"").append(escape(entry.getKey()))
+          .append("\": { \"count\": ").append(value.count.get())
+          .append(", \"millis\": ").append(toMillis(value.nanos.get()))
+          .append(", \"bytes\": ").append(value.bytes.get()).append(" }");
+    }
+    buffer.append(first ? "}" : "\n" + indent + "}");
+  }
+
+  @Override
+  public void appendSummary(final StringBuilder buffer)
+  {
+    buffer.append(String.format("%-24s %12s %12s %14s%n", "Resolution",
+        "Count", "Time [ms]", "Bytes"));
+    for (final Entry<String, Stats> entry : sort(kinds).entrySet())
+    {
+      appendSummary(buffer, entry.getKey(), entry.getValue());
+    }
+    for (final Entry<String, Stats> entry : sort(repositories).entrySet())
+    {
+      appendSummary(buffer, entry.getKey(), entry.getValue());
+    }
+    buffer.append(String.format("%-24s %12d%n", "local-hits", localHits.get()));
+    buffer.append(String.format("%-24s %12d%n", "remote-hits",
+        remoteHits.get()));
+
+    final List<Entry<String, Long>> slowest = getSlowestArtifacts();
+    if (!slowest.isEmpty())
+    {
+      buffer.append(String.format("%nSlowest artifacts %19s%n", "Time [ms]"));
+      for (final Entry<String, Long> entry : slowest)
+      {
+        buffer.append(String.format("%12d  %s%n", toMillis(entry.getValue()),
+            entry.getKey()));
+      }
+    }
+  }
+
+  private static void appendSummary(final StringBuilder buffer,
+      final String name, final Stats stats)
+  {
+    buffer.append(String.format("%-24s %12d %12d %14d%n", name,
+        stats.count.get(), toMillis(stats.nanos.get()), stats.bytes.get()));
+  }
+
+  private static <K> Map<String, Stats> sort(final Map<K, Stats> stats)
+  {
+    final Map<String, Stats> sorted = new TreeMap<String, Stats>();
+    for (final Entry<K, Stats> entry : stats.entrySet())
+    {
+      sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+    }
+    return sorted;
+  }
+
+  private static String escape(final String string)
+  {
+    return string.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private static long toMillis(final long nanos)
+  {
+    return nanos / NANOS_PER_MILLI;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
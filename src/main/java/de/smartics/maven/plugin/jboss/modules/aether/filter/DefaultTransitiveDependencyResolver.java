@@ -20,6 +20,7 @@ import java.util.List;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.resolution.DependencyResolutionException;
 
+import de.smartics.maven.plugin.jboss.modules.aether.DependencySink;
 import de.smartics.maven.plugin.jboss.modules.aether.MavenRepository;
 import de.smartics.maven.plugin.jboss.modules.aether.MavenResponse;
 import de.smartics.maven.plugin.jboss.modules.domain.TransitiveDependencyResolver;
@@ -89,6 +90,20 @@ public class DefaultTransitiveDependencyResolver implements
     return response.getDependencies();
   }
 
+  @Override
+  public void resolveDirect(final Dependency dependency,
+      final DependencySink sink) throws DependencyResolutionException
+  {
+    repository.resolveDirect(dependency, sink);
+  }
+
+  @Override
+  public void resolve(final List<Dependency> dependencies,
+      final DependencySink sink) throws DependencyResolutionException
+  {
+    repository.resolve(dependencies, sink);
+  }
+
   // --- object basics --------------------------------------------------------
 
 }
@@ -15,15 +15,26 @@
  */
 package de.smartics.maven.plugin.jboss.modules.aether.filter;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
-import org.eclipse.aether.artifact.Artifact;
-import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyNode;
 
 /**
- * Adds properties to artifacts of a dependency.
+ * Tracks the nodes of a dependency request whose artifacts are rejected.
+ * <p>
+ * An instance is created for each request and bound to the thread that sends
+ * the request by {@link #bind()}. Filters flag rejected nodes via
+ * {@link #flagRejected(DependencyNode)}, since they are applied in the thread
+ * that resolves the dependencies. Nodes are tracked by identity, so that no
+ * artifacts need to be copied to carry the flag.
+ * </p>
+ * <p>
+ * Nodes whose artifacts are not resolved only because they belong to a
+ * skipped module are flagged via {@link #flagSkipped(DependencyNode)}. They
+ * are kept without a file, since modules refer to skipped modules.
+ * </p>
  */
 public final class DependencyFlagger
 {
@@ -32,16 +43,39 @@ public final class DependencyFlagger
   // --- constants ------------------------------------------------------------
 
   /**
-   * The name of the reject flag.
+   * The flagger bound to the current thread.
    */
-  private static final String REJECT_FLAG = "smartics.collect.reject";
+  private static final ThreadLocal<DependencyFlagger> CURRENT =
+      new ThreadLocal<DependencyFlagger>();
+
+  /**
+   * A singleton that delegates to the flagger bound to the current thread.
+   *
+   * @deprecated filters call {@link #flagRejected(DependencyNode)} and a
+   *             flagger is created and bound for each request.
+   */
+  @Deprecated
+  public static final DependencyFlagger INSTANCE = new DependencyFlagger(true);
 
   // --- members --------------------------------------------------------------
 
   /**
-   * A singleton to reuse.
+   * The flag signals that this instance delegates to the flagger bound to
+   * the current thread instead of tracking nodes itself.
    */
-  public static final DependencyFlagger INSTANCE = new DependencyFlagger();
+  private final boolean delegating;
+
+  /**
+   * The nodes flagged as being rejected.
+   */
+  private final Set<DependencyNode> rejected = Collections
+      .newSetFromMap(new IdentityHashMap<DependencyNode, Boolean>());
+
+  /**
+   * The nodes flagged as belonging to a skipped module.
+   */
+  private final Set<DependencyNode> skipped = Collections
+      .newSetFromMap(new IdentityHashMap<DependencyNode, Boolean>());
 
   // ****************************** Initializer *******************************
 
@@ -52,6 +86,12 @@ public final class DependencyFlagger
    */
   public DependencyFlagger()
   {
+    this(false);
+  }
+
+  private DependencyFlagger(final boolean delegating)
+  {
+    this.delegating = delegating;
   }
 
   // ****************************** Inner Classes *****************************
@@ -60,43 +100,117 @@ public final class DependencyFlagger
 
   // --- init -----------------------------------------------------------------
 
+  /**
+   * Binds this flagger to the current thread. Nodes rejected by filters in
+   * this thread are flagged by this instance until {@link #unbind()} is
+   * called.
+   *
+   * @throws IllegalStateException if called on {@link #INSTANCE}.
+   */
+  public void bind() throws IllegalStateException
+  {
+    if (delegating)
+    {
+      throw new IllegalStateException(
+          "The shared flagger delegates to the bound flagger"
+              + " and cannot be bound itself.");
+    }
+    CURRENT.set(this);
+  }
+
+  /**
+   * Removes the binding of any flagger to the current thread.
+   */
+  public static void unbind()
+  {
+    CURRENT.remove();
+  }
+
   // --- get&set --------------------------------------------------------------
 
   // --- business -------------------------------------------------------------
 
   /**
-   * Flags the artifact as being rejects.
+   * Flags the node as being rejected.
    *
    * @param node the node of the dependency to flag.
    */
   public void flag(final DependencyNode node)
   {
-    final Dependency dependency = node.getDependency();
-    final Artifact artifact = dependency.getArtifact();
-    node.setArtifact(flagRejection(artifact));
+    if (delegating)
+    {
+      flagRejected(node);
+    }
+    else
+    {
+      rejected.add(node);
+    }
   }
 
   /**
-   * Checks if the given dependency is flagged as its artifact being rejected.
+   * Flags the node as being rejected by the flagger bound to the current
+   * thread. Does nothing, if no flagger is bound.
    *
-   * @param dependency the dependency to check.
-   * @return <code>true</code> of the artifact of this dependency is rejected,
-   *         <code>false</code> otherwise.
+   * @param node the node of the dependency to flag.
+   */
+  public static void flagRejected(final DependencyNode node)
+  {
+    final DependencyFlagger flagger = CURRENT.get();
+    if (flagger != null)
+    {
+      flagger.flag(node);
+    }
+  }
+
+  /**
+   * Flags the node as belonging to a skipped module by the flagger bound to
+   * the current thread. Does nothing, if no flagger is bound.
+   *
+   * @param node the node of the dependency to flag.
+   * @since 1.1
    */
-  public boolean isFlagged(final Dependency dependency)
+  public static void flagSkipped(final DependencyNode node)
   {
-    final Artifact artifact = dependency.getArtifact();
-    final boolean flagged =
-        "true".equals(artifact.getProperty(REJECT_FLAG, null));
-    return flagged;
+    final DependencyFlagger flagger = CURRENT.get();
+    if (flagger != null)
+    {
+      flagger.skipped.add(node);
+    }
   }
 
-  private Artifact flagRejection(final Artifact artifact)
+  /**
+   * Checks if the given node is flagged as being rejected.
+   *
+   * @param node the node to check.
+   * @return <code>true</code> if the node is rejected, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isFlagged(final DependencyNode node)
+  {
+    if (delegating)
+    {
+      final DependencyFlagger flagger = CURRENT.get();
+      return flagger != null && flagger.isFlagged(node);
+    }
+    return rejected.contains(node);
+  }
+
+  /**
+   * Checks if the given node is flagged as belonging to a skipped module.
+   *
+   * @param node the node to check.
+   * @return <code>true</code> if the node belongs to a skipped module,
+   *         <code>false</code> otherwise.
+   * @since 1.1
+   */
+  public boolean isSkipped(final DependencyNode node)
   {
-    final Map<String, String> properties =
-        new HashMap<String, String>(artifact.getProperties());
-    properties.put(REJECT_FLAG, "true");
-    return artifact.setProperties(properties);
+    if (delegating)
+    {
+      final DependencyFlagger flagger = CURRENT.get();
+      return flagger != null && flagger.isSkipped(node);
+    }
+    return skipped.contains(node);
   }
 
   // --- object basics --------------------------------------------------------
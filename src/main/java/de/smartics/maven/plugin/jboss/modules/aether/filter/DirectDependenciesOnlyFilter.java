@@ -72,7 +72,7 @@ public final class DirectDependenciesOnlyFilter implements Serializable,
     final boolean isDirect = parents.size() <= 1;
     if (!isDirect)
     {
-      DependencyFlagger.INSTANCE.flag(node);
+      DependencyFlagger.flagRejected(node);
     }
     return isDirect;
   }
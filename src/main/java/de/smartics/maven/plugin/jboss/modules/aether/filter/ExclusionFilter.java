@@ -81,6 +81,7 @@ public final class ExclusionFilter implements DependencyFilter
         if (artifactId.equals(exclusion.getArtifactId())
             && groupId.equals(exclusion.getGroupId()))
         {
+          DependencyFlagger.flagRejected(node);
           return false;
         }
       }
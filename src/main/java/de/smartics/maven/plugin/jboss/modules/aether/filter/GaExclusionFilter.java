@@ -80,7 +80,7 @@ public final class GaExclusionFilter implements DependencyFilter
       final boolean exclude = exclusion.matches(artifact).isMatched();
       if (exclude)
       {
-        DependencyFlagger.INSTANCE.flag(node);
+        DependencyFlagger.flagRejected(node);
         return false;
       }
     }
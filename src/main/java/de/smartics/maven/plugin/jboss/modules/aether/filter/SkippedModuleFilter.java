@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.aether.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ArtifactKey;
+
+/**
+ * Rejects the resolution of artifacts that belong to skipped modules. The
+ * dependencies of rejected artifacts remain part of the result without a
+ * file, since modules still refer to skipped modules. Therefore rejected
+ * nodes are flagged via {@link DependencyFlagger#flagSkipped(DependencyNode)}
+ * so that they can be told apart from nodes rejected by other filters.
+ * <p>
+ * An artifact belongs to the first module that matches it, as it does when
+ * mapping artifacts to modules.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class SkippedModuleFilter implements DependencyFilter
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The configured modules in the order they are matched.
+   */
+  private final List<ModuleDescriptor> modules;
+
+  /**
+   * The decisions by the key of the artifact. The value is
+   * <code>true</code>, if the artifact belongs to a skipped module.
+   */
+  private final ConcurrentMap<ArtifactKey, Boolean> skipped =
+      new ConcurrentHashMap<ArtifactKey, Boolean>();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param modules the configured modules in the order they are matched.
+   */
+  public SkippedModuleFilter(final List<ModuleDescriptor> modules)
+  {
+    this.modules =
+        modules != null ? new ArrayList<ModuleDescriptor>(modules)
+            : new ArrayList<ModuleDescriptor>();
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  @Override
+  public boolean accept(final DependencyNode node,
+      final List<DependencyNode> parents)
+  {
+    final Dependency dependency = node.getDependency();
+    if (dependency == null)
+    {
+      return true;
+    }
+
+    if (isSkipped(dependency.getArtifact()))
+    {
+      DependencyFlagger.flagSkipped(node);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Checks if the given artifact belongs to a skipped module.
+   *
+   * @param artifact the artifact to check.
+   * @return <code>true</code> if the artifact belongs to a skipped module,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isSkipped(final Artifact artifact)
+  {
+    final ArtifactKey key = ArtifactKey.of(artifact);
+    Boolean decision = skipped.get(key);
+    if (decision == null)
+    {
+      decision = calcSkipped(artifact);
+      skipped.putIfAbsent(key, decision);
+    }
+    return decision;
+  }
+
+  private boolean calcSkipped(final Artifact artifact)
+  {
+    for (final ModuleDescriptor module : modules)
+    {
+      if (module.match(artifact).isMatched())
+      {
+        return module.getDirectives().getSkip();
+      }
+    }
+    return false;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
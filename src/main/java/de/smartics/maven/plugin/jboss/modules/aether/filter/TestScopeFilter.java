@@ -65,7 +65,7 @@ public final class TestScopeFilter implements DependencyFilter
     final boolean accept = !("test".equals(scope));
     if (!accept)
     {
-      DependencyFlagger.INSTANCE.flag(node);
+      DependencyFlagger.flagRejected(node);
     }
     return accept;
   }
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Determines the packages referenced by the classes of an archive. Only the
+ * constant pool of each class file is read.
+ * <p>
+ * The result is an over-approximation: the names of classes referenced by
+ * class constants are taken as well as every class name found in type
+ * descriptors or signatures of any string constant. References by reflection
+ * are not detected.
+ * </p>
+ */
+public final class ClassReferenceScanner
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The magic number of class files.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int MAGIC = 0xCAFEBABE;
+
+  // ... constant pool tags ...................................................
+
+  private static final int UTF8 = 1;
+
+  private static final int INTEGER = 3;
+
+  private static final int FLOAT = 4;
+
+  private static final int LONG = 5;
+
+  private static final int DOUBLE = 6;
+
+  private static final int CLASS = 7;
+
+  private static final int STRING = 8;
+
+  private static final int FIELD_REF = 9;
+
+  private static final int METHOD_REF = 10;
+
+  private static final int INTERFACE_METHOD_REF = 11;
+
+  private static final int NAME_AND_TYPE = 12;
+
+  private static final int METHOD_HANDLE = 15;
+
+  private static final int METHOD_TYPE = 16;
+
+  private static final int DYNAMIC = 17;
+
+  private static final int INVOKE_DYNAMIC = 18;
+
+  private static final int MODULE = 19;
+
+  private static final int PACKAGE = 20;
+
+  // --- members --------------------------------------------------------------
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   */
+  public ClassReferenceScanner()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Returns the packages referenced by the classes of the given archive.
+   *
+   * @param jarFile the archive to scan.
+   * @return the names of the referenced packages with dots as separators.
+   * @throws IOException if the archive cannot be read or contains an invalid
+   *           class file.
+   */
+  public Set<String> scan(final File jarFile) throws IOException
+  {
+    final Set<String> packages = new HashSet<String>();
+    final ZipFile zip = new ZipFile(jarFile);
+    try
+    {
+      final Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements())
+      {
+        final ZipEntry entry = entries.nextElement();
+        if (!entry.isDirectory() && entry.getName().endsWith(".class"))
+        {
+          final DataInputStream input =
+              new DataInputStream(new BufferedInputStream(
+                  zip.getInputStream(entry)));
+          try
+          {
+            readConstantPool(input, entry.getName(), packages);
+          }
+          finally
+          {
+            IOUtils.closeQuietly(input);
+          }
+        }
+      }
+    }
+    finally
+    {
+      zip.close();
+    }
+    return packages;
+  }
+
+  private static void readConstantPool(final DataInputStream input,
+      final String name, final Set<String> packages) throws IOException
+  {
+    if (input.readInt() != MAGIC)
+    {
+      // Not a class file, e.g. a resource with a misleading name.
+      return;
+    }
+    input.readUnsignedShort();
+    input.readUnsignedShort();
+
+    final int count = input.readUnsignedShort();
+    final String[] strings = new String[count];
+    final int[] classIndices = new int[count];
+    int classCount = 0;
+    for (int index = 1; index < count; index++)
+    {
+      final int tag = input.readUnsignedByte();
+      switch (tag)
+      {
+        case UTF8:
+          strings[index] = input.readUTF();
+          break;
+        case CLASS:
+          classIndices[classCount++] = input.readUnsignedShort();
+          break;
+        case STRING:
+        case METHOD_TYPE:
+        case MODULE:
+        case PACKAGE:
+          input.readUnsignedShort();
+          break;
+        case METHOD_HANDLE:
+          input.readUnsignedByte();
+          input.readUnsignedShort();
+          break;
+        case INTEGER:
+        case FLOAT:
+        case FIELD_REF:
+        case METHOD_REF:
+        case INTERFACE_METHOD_REF:
+        case NAME_AND_TYPE:
+        case DYNAMIC:
+        case INVOKE_DYNAMIC:
+          input.readInt();
+          break;
+        case LONG:
+        case DOUBLE:
+          input.readLong();
+          index++;
+          break;
+        default:
+          throw new IOException(String.format(
+              "Unknown constant pool tag %d in class file '%s'.", tag, name));
+      }
+    }
+
+    for (int i = 0; i < classCount; i++)
+    {
+      final String className = strings[classIndices[i]];
+      if (className != null && className.length() > 0
+          && className.charAt(0) != '[')
+      {
+        addPackage(packages, className);
+      }
+    }
+
+    for (final String string : strings)
+    {
+      if (string != null)
+      {
+        addDescriptorPackages(packages, string);
+      }
+    }
+  }
+
+  private static void addDescriptorPackages(final Set<String> packages,
+      final String string)
+  {
+    int start = string.indexOf('L');
+    while (start >= 0)
+    {
+      int end = start + 1;
+      while (end < string.length() && isNameChar(string.charAt(end)))
+      {
+        end++;
+      }
+      if (end < string.length() && end > start + 1)
+      {
+        final char terminator = string.charAt(end);
+        if (terminator == ';' || terminator == '<')
+        {
+          addPackage(packages, string.substring(start + 1, end));
+        }
+      }
+      start = string.indexOf('L', start + 1);
+    }
+  }
+
+  private static boolean isNameChar(final char c)
+  {
+    return c == '/' || c == '$' || Character.isJavaIdentifierPart(c);
+  }
+
+  private static void addPackage(final Set<String> packages,
+      final String internalName)
+  {
+    final int index = internalName.lastIndexOf('/');
+    if (index > 0)
+    {
+      packages.add(internalName.substring(0, index).replace('/', '.'));
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Maps names (of packages or classes) to the identifiers of the modules
+ * containing them. The identifiers are the node identifiers of the module
+ * graph and are stored as exactly sized primitive arrays, since most names
+ * are contained in a single module only.
+ */
+public final class ModuleIndex
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * Maps a name to the ascending identifiers of the modules containing it.
+   */
+  private final Map<String, int[]> index;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param expectedSize the number of names expected to be added.
+   */
+  public ModuleIndex(final int expectedSize)
+  {
+    this.index = new HashMap<String, int[]>(Math.max(16, expectedSize * 4 / 3));
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the number of names in the index.
+   *
+   * @return the number of names in the index.
+   */
+  public int size()
+  {
+    return index.size();
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Adds the given module to the modules containing the given name.
+   *
+   * @param name the name of the package or class.
+   * @param moduleId the identifier of the module containing the name.
+   */
+  public void add(final String name, final int moduleId)
+  {
+    final int[] modules = index.get(name);
+    if (modules == null)
+    {
+      index.put(name, new int[] { moduleId });
+      return;
+    }
+
+    final int position = Arrays.binarySearch(modules, moduleId);
+    if (position < 0)
+    {
+      final int insert = -position - 1;
+      final int[] extended = new int[modules.length + 1];
+      System.arraycopy(modules, 0, extended, 0, insert);
+      extended[insert] = moduleId;
+      System.arraycopy(modules, insert, extended, insert + 1, modules.length
+                                                             - insert);
+      index.put(name, extended);
+    }
+  }
+
+  /**
+   * Returns the identifiers of the modules containing the given name.
+   *
+   * @param name the name of the package or class.
+   * @return the ascending identifiers of the modules or <code>null</code> if
+   *         no module contains the name. The array must not be modified.
+   */
+  public int[] getModules(final String name)
+  {
+    return index.get(name);
+  }
+
+  /**
+   * Checks if the given name is contained in more than one module.
+   *
+   * @param name the name of the package or class.
+   * @return <code>true</code> if more than one module contains the name,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isShared(final String name)
+  {
+    final int[] modules = index.get(name);
+    return modules != null && modules.length > 1;
+  }
+
+  /**
+   * Returns the names contained in more than one module.
+   *
+   * @return the sorted names contained in more than one module.
+   */
+  public List<String> getSharedNames()
+  {
+    final List<String> names = new ArrayList<String>();
+    for (final Entry<String, int[]> entry : index.entrySet())
+    {
+      if (entry.getValue().length > 1)
+      {
+        names.add(entry.getKey());
+      }
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.analysis;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraph;
+
+/**
+ * The result of analyzing the resources of the generated modules. Provides the
+ * index of packages to modules, the packages split over several modules, and
+ * the classes contained in more than one module.
+ */
+public final class ResourceAnalysis
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The graph of the analyzed modules.
+   */
+  private final ModuleGraph graph;
+
+  /**
+   * The index of packages to the modules containing classes of the package.
+   */
+  private final ModuleIndex packageIndex;
+
+  /**
+   * The index of classes of split packages to the modules containing them.
+   */
+  private final ModuleIndex classIndex;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  ResourceAnalysis(final ModuleGraph graph, final ModuleIndex packageIndex,
+      final ModuleIndex classIndex)
+  {
+    this.graph = graph;
+    this.packageIndex = packageIndex;
+    this.classIndex = classIndex;
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the index of packages to the modules containing classes of the
+   * package.
+   *
+   * @return the index of packages to modules.
+   */
+  public ModuleIndex getPackageIndex()
+  {
+    return packageIndex;
+  }
+
+  /**
+   * Returns the packages whose classes are contained in more than one module.
+   *
+   * @return the sorted names of split packages.
+   */
+  public List<String> getSplitPackages()
+  {
+    return packageIndex.getSharedNames();
+  }
+
+  /**
+   * Returns the classes contained in more than one module.
+   *
+   * @return the sorted names of duplicate classes.
+   */
+  public List<String> getDuplicateClasses()
+  {
+    return classIndex.getSharedNames();
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Writes the split packages and duplicate classes as XML to the given file.
+   *
+   * @param reportFile the file to write to.
+   * @throws IOException on any problem writing the file.
+   */
+  public void writeReport(final File reportFile) throws IOException
+  {
+    final Element root = new Element("resource-analysis");
+    root.addContent(createElement("split-packages", "package",
+        getSplitPackages(), packageIndex));
+    root.addContent(createElement("duplicate-classes", "class",
+        getDuplicateClasses(), classIndex));
+
+    final XMLOutputter outputter = new XMLOutputter();
+    outputter.setFormat(Format.getPrettyFormat());
+    OutputStream out = null;
+    try
+    {
+      out = new BufferedOutputStream(FileUtils.openOutputStream(reportFile));
+      outputter.output(new Document(root), out);
+    }
+    finally
+    {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  private Element createElement(final String groupName,
+      final String elementName, final List<String> names,
+      final ModuleIndex index)
+  {
+    final Element group = new Element(groupName);
+    group.setAttribute("count", String.valueOf(names.size()));
+    for (final String name : names)
+    {
+      final Element element = new Element(elementName);
+      element.setAttribute("name", name);
+      for (final int id : index.getModules(name))
+      {
+        final ModuleGraph.Node node = graph.getNode(id);
+        final Element module = new Element("module");
+        module.setAttribute("name", node.getName());
+        module.setAttribute("slot", node.getSlot());
+        element.addContent(module);
+      }
+      group.addContent(element);
+    }
+    return group;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.analysis;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraph;
+import de.smartics.maven.plugin.jboss.modules.index.JarPackageScanner;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Scans the resource roots of all generated modules and indexes the packages
+ * and classes they contain. Only the central directory of the archives is
+ * read, the archives are scanned in parallel.
+ */
+public final class ResourceAnalyzer
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The suffix of class files.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String CLASS_SUFFIX = ".class";
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The graph of modules whose resources are to be analyzed.
+   */
+  private final ModuleGraph graph;
+
+  /**
+   * The number of threads to scan archives.
+   */
+  private final int threads;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param graph the graph of modules whose resources are to be analyzed.
+   * @param threads the number of threads to scan archives. Values lower than
+   *          one are treated as one.
+   */
+  public ResourceAnalyzer(final ModuleGraph graph, final int threads)
+  {
+    this.graph = Arg.checkNotNull("graph", graph);
+    this.threads = Math.max(1, threads);
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Scans the resources of all generated modules.
+   *
+   * @return the result of the analysis.
+   * @throws MojoExecutionException if an archive cannot be read.
+   */
+  public ResourceAnalysis analyze() throws MojoExecutionException
+  {
+    final List<List<String>> entries = scan();
+
+    int classCount = 0;
+    for (final List<String> moduleEntries : entries)
+    {
+      classCount += moduleEntries.size();
+    }
+
+    final ModuleIndex packageIndex = new ModuleIndex(classCount / 8);
+    for (int id = 0; id < entries.size(); id++)
+    {
+      for (final String entry : entries.get(id))
+      {
+        packageIndex.add(toPackageName(entry), id);
+      }
+    }
+
+    final ModuleIndex classIndex = new ModuleIndex(16);
+    for (int id = 0; id < entries.size(); id++)
+    {
+      for (final String entry : entries.get(id))
+      {
+        if (packageIndex.isShared(toPackageName(entry)))
+        {
+          classIndex.add(toClassName(entry), id);
+        }
+      }
+    }
+
+    return new ResourceAnalysis(graph, packageIndex, classIndex);
+  }
+
+  private List<List<String>> scan() throws MojoExecutionException
+  {
+    final JarPackageScanner scanner = new JarPackageScanner();
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try
+    {
+      final Map<File, Future<List<String>>> futures =
+          new HashMap<File, Future<List<String>>>();
+      for (final ModuleGraph.Node node : graph.getNodes())
+      {
+        if (!node.isGenerated())
+        {
+          continue;
+        }
+
+        for (final File resource : node.getResources())
+        {
+          if (!futures.containsKey(resource))
+          {
+            futures.put(resource,
+                executor.submit(new Callable<List<String>>()
+                {
+                  @Override
+                  public List<String> call() throws Exception
+                  {
+                    return filterClasses(scanner.scanEntries(resource));
+                  }
+                }));
+          }
+        }
+      }
+
+      final List<List<String>> entries =
+          new ArrayList<List<String>>(graph.getNodeCount());
+      for (final ModuleGraph.Node node : graph.getNodes())
+      {
+        final List<String> moduleEntries = new ArrayList<String>();
+        if (node.isGenerated())
+        {
+          for (final File resource : node.getResources())
+          {
+            moduleEntries.addAll(get(futures.get(resource), resource));
+          }
+        }
+        entries.add(moduleEntries);
+      }
+      return entries;
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  private static List<String> filterClasses(final List<String> entries)
+  {
+    final List<String> classes = new ArrayList<String>(entries.size());
+    for (final String entry : entries)
+    {
+      if (entry.endsWith(CLASS_SUFFIX))
+      {
+        classes.add(entry);
+      }
+    }
+    return classes;
+  }
+
+  private static List<String> get(final Future<List<String>> future,
+      final File resource) throws MojoExecutionException
+  {
+    try
+    {
+      return future.get();
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException(String.format(
+          "Interrupted while scanning archive '%s'.",
+          resource.getAbsolutePath()), e);
+    }
+    catch (final ExecutionException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot scan archive '%s'.", resource.getAbsolutePath()),
+          e.getCause());
+    }
+  }
+
+  /**
+   * Returns the name of the package of the given class file entry.
+   *
+   * @param entry the name of the class file within an archive.
+   * @return the name of the package with dots as separators.
+   */
+  static String toPackageName(final String entry)
+  {
+    final int index = entry.lastIndexOf('/');
+    return index > 0 ? entry.substring(0, index).replace('/', '.') : "";
+  }
+
+  /**
+   * Returns the name of the class of the given class file entry.
+   *
+   * @param entry the name of the class file within an archive.
+   * @return the name of the class with dots as separators.
+   */
+  static String toClassName(final String entry)
+  {
+    return entry.substring(0, entry.length() - CLASS_SUFFIX.length()).replace(
+        '/', '.');
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.analysis;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraph;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Finds dependencies between generated modules that are not referenced by the
+ * bytecode of the depending module.
+ * <p>
+ * A dependency of module <code>A</code> to module <code>B</code> is used, if a
+ * class of <code>A</code> references a package contained in <code>B</code> or
+ * in a module re-exported by <code>B</code>. Dependencies that are
+ * re-exported, import services, reference modules not generated by this
+ * build, or reference modules matching the allow-list are always considered
+ * used, since their use cannot be derived from the bytecode. Modules without
+ * resources only aggregate their dependencies and are not analyzed.
+ * </p>
+ */
+public final class UnusedDependencyAnalyzer
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The graph of modules to analyze.
+   */
+  private final ModuleGraph graph;
+
+  /**
+   * The index of packages to the modules containing them.
+   */
+  private final ModuleIndex packageIndex;
+
+  /**
+   * The patterns on names of modules whose dependencies are always kept.
+   */
+  private final List<Pattern> allowList;
+
+  /**
+   * The number of threads to scan archives.
+   */
+  private final int threads;
+
+  /**
+   * The modules re-exported by each module, calculated on demand.
+   */
+  private final BitSet[] exportClosures;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param graph the graph of modules to analyze.
+   * @param packageIndex the index of packages to the modules containing them.
+   * @param allowList the regular expressions on names of modules whose
+   *          dependencies are always kept. May be <code>null</code>.
+   * @param threads the number of threads to scan archives. Values lower than
+   *          one are treated as one.
+   */
+  public UnusedDependencyAnalyzer(final ModuleGraph graph,
+      final ModuleIndex packageIndex, final List<String> allowList,
+      final int threads)
+  {
+    this.graph = Arg.checkNotNull("graph", graph);
+    this.packageIndex = Arg.checkNotNull("packageIndex", packageIndex);
+    this.allowList = compile(allowList);
+    this.threads = Math.max(1, threads);
+    this.exportClosures = new BitSet[graph.getNodeCount()];
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  private static List<Pattern> compile(final List<String> expressions)
+  {
+    final List<Pattern> patterns = new ArrayList<Pattern>();
+    if (expressions != null)
+    {
+      for (final String expression : expressions)
+      {
+        patterns.add(Pattern.compile(expression));
+      }
+    }
+    return patterns;
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Finds the dependencies not referenced by the bytecode of the depending
+   * modules. Dependencies already marked as removed are not considered.
+   *
+   * @return the unused dependencies.
+   * @throws MojoExecutionException if an archive cannot be read.
+   */
+  public List<ModuleGraph.Edge> findUnused() throws MojoExecutionException
+  {
+    final Map<File, Future<Set<String>>> references = scan();
+    final List<ModuleGraph.Edge> unused = new ArrayList<ModuleGraph.Edge>();
+    for (final ModuleGraph.Node node : graph.getNodes())
+    {
+      if (!isAnalyzed(node))
+      {
+        continue;
+      }
+
+      final BitSet usedModules = calcUsedModules(node, references);
+      for (final ModuleGraph.Edge edge : node.getEdges())
+      {
+        if (isCandidate(edge) && !isUsed(edge, usedModules))
+        {
+          unused.add(edge);
+        }
+      }
+    }
+    return unused;
+  }
+
+  /**
+   * Finds the dependencies not referenced by the bytecode of the depending
+   * modules and optionally marks them as removed in the graph.
+   *
+   * @param prune the flag signals that the unused dependencies are marked as
+   *          removed. If <code>false</code> the graph is not modified.
+   * @return the unused dependencies.
+   * @throws MojoExecutionException if an archive cannot be read.
+   */
+  public List<ModuleGraph.Edge> analyze(final boolean prune)
+    throws MojoExecutionException
+  {
+    final List<ModuleGraph.Edge> unused = findUnused();
+    if (prune)
+    {
+      for (final ModuleGraph.Edge edge : unused)
+      {
+        edge.remove();
+      }
+    }
+    return unused;
+  }
+
+  private Map<File, Future<Set<String>>> scan()
+  {
+    final ClassReferenceScanner scanner = new ClassReferenceScanner();
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final Map<File, Future<Set<String>>> futures =
+        new HashMap<File, Future<Set<String>>>();
+    for (final ModuleGraph.Node node : graph.getNodes())
+    {
+      if (!isAnalyzed(node))
+      {
+        continue;
+      }
+
+      for (final File resource : node.getResources())
+      {
+        if (!futures.containsKey(resource))
+        {
+          futures.put(resource, executor.submit(new Callable<Set<String>>()
+          {
+            @Override
+            public Set<String> call() throws IOException
+            {
+              return scanner.scan(resource);
+            }
+          }));
+        }
+      }
+    }
+    executor.shutdown();
+    return futures;
+  }
+
+  private static boolean isAnalyzed(final ModuleGraph.Node node)
+  {
+    return node.isGenerated() && !node.getEdges().isEmpty()
+           && !node.getResources().isEmpty();
+  }
+
+  private BitSet calcUsedModules(final ModuleGraph.Node node,
+      final Map<File, Future<Set<String>>> references)
+    throws MojoExecutionException
+  {
+    final BitSet usedModules = new BitSet(graph.getNodeCount());
+    for (final File resource : node.getResources())
+    {
+      for (final String packageName : get(references.get(resource), resource))
+      {
+        final int[] modules = packageIndex.getModules(packageName);
+        if (modules != null)
+        {
+          for (final int id : modules)
+          {
+            usedModules.set(id);
+          }
+        }
+      }
+    }
+    return usedModules;
+  }
+
+  private boolean isCandidate(final ModuleGraph.Edge edge)
+  {
+    final ModuleDependency dependency = edge.getDependency();
+    final int target = edge.getTarget();
+    return !edge.isRemoved() && target != ModuleGraph.UNKNOWN
+           && graph.getNode(target).isGenerated() && !dependency.isExport()
+           && dependency.getServices() == null
+           && !isAllowed(dependency.getName());
+  }
+
+  private boolean isAllowed(final String moduleName)
+  {
+    for (final Pattern pattern : allowList)
+    {
+      if (pattern.matcher(moduleName).matches())
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isUsed(final ModuleGraph.Edge edge, final BitSet usedModules)
+  {
+    final int target = edge.getTarget();
+    return usedModules.get(target)
+           || getExportClosure(target).intersects(usedModules);
+  }
+
+  private BitSet getExportClosure(final int id)
+  {
+    BitSet closure = exportClosures[id];
+    if (closure == null)
+    {
+      closure = graph.calcExportClosure(id);
+      exportClosures[id] = closure;
+    }
+    return closure;
+  }
+
+  private static Set<String> get(final Future<Set<String>> future,
+      final File resource) throws MojoExecutionException
+  {
+    try
+    {
+      return future.get();
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException(String.format(
+          "Interrupted while reading classes of archive '%s'.",
+          resource.getAbsolutePath()), e);
+    }
+    catch (final ExecutionException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot read classes of archive '%s'.", resource.getAbsolutePath()),
+          e.getCause());
+    }
+  }
+
+  /**
+   * Writes the given unused dependencies as XML to the given file.
+   *
+   * @param unused the unused dependencies.
+   * @param pruned the flag signals that the dependencies have been removed
+   *          from the generated modules.
+   * @param reportFile the file to write to.
+   * @throws IOException on any problem writing the file.
+   */
+  public void writeReport(final List<ModuleGraph.Edge> unused,
+      final boolean pruned, final File reportFile) throws IOException
+  {
+    final Element root = new Element("unused-dependencies");
+    root.setAttribute("count", String.valueOf(unused.size()));
+    root.setAttribute("pruned", String.valueOf(pruned));
+    for (final ModuleGraph.Edge edge : unused)
+    {
+      final ModuleGraph.Node source = graph.getNode(edge.getSource());
+      final ModuleDependency dependency = edge.getDependency();
+      final Element element = new Element("dependency");
+      element.setAttribute("module", source.getName());
+      element.setAttribute("slot", source.getSlot());
+      element.setAttribute("dependency", dependency.getName());
+      element.setAttribute("dependency-slot", dependency.getSlot());
+      root.addContent(element);
+    }
+
+    final XMLOutputter outputter = new XMLOutputter();
+    outputter.setFormat(Format.getPrettyFormat());
+    OutputStream out = null;
+    try
+    {
+      out = new BufferedOutputStream(FileUtils.openOutputStream(reportFile));
+      outputter.output(new Document(root), out);
+    }
+    finally
+    {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
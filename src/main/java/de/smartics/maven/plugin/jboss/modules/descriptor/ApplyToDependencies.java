@@ -15,8 +15,14 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
 
@@ -26,13 +32,26 @@ import edu.emory.mathcs.backport.java.util.Collections;
 /**
  * Stores information that has to be applied to dependencies if the matcher
  * matches the name of a module.
+ * <p>
+ * The merged descriptor is calculated once per module name. Descriptors that
+ * include literal module names only are looked up by name, so that only the
+ * remaining descriptors are matched against each name.
+ * </p>
  */
-public final class ApplyToDependencies
+public final class ApplyToDependencies implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 1L;
+
   // --- members --------------------------------------------------------------
 
   /**
@@ -41,6 +60,20 @@ public final class ApplyToDependencies
    */
   private final List<DependenciesDescriptor> descriptors;
 
+  /**
+   * The merged descriptors by module name. Created on demand and dropped if
+   * descriptors are merged into this instance.
+   */
+  private transient volatile ConcurrentMap<String, DependenciesDescriptor>
+      matches;
+
+  /**
+   * The index of the descriptors to find the descriptors that may match a
+   * module name. Created on demand and dropped if descriptors are merged into
+   * this instance.
+   */
+  private transient volatile Index index;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -52,6 +85,66 @@ public final class ApplyToDependencies
 
   // ****************************** Inner Classes *****************************
 
+  /**
+   * Selects the descriptors that may match a module name.
+   */
+  private static final class Index
+  {
+    /**
+     * The positions of descriptors including literal module names only, by
+     * module name.
+     */
+    private final Map<String, BitSet> literals = new HashMap<String, BitSet>();
+
+    /**
+     * The positions of descriptors that have to be matched against every
+     * module name.
+     */
+    private final BitSet others = new BitSet();
+
+    private Index(final List<DependenciesDescriptor> descriptors)
+    {
+      for (int i = 0; i < descriptors.size(); i++)
+      {
+        final ModuleMatcher matcher = descriptors.get(i).getMatcher();
+        final List<String> names =
+            matcher != null ? matcher.getIncludedLiterals() : null;
+        if (names == null)
+        {
+          others.set(i);
+          continue;
+        }
+
+        for (final String name : names)
+        {
+          BitSet positions = literals.get(name);
+          if (positions == null)
+          {
+            positions = new BitSet();
+            literals.put(name, positions);
+          }
+          positions.set(i);
+        }
+      }
+    }
+
+    /**
+     * Returns the positions of the descriptors that may match the given name
+     * in ascending order.
+     */
+    private BitSet getCandidates(final String name)
+    {
+      final BitSet positions = literals.get(name);
+      if (positions == null)
+      {
+        return others;
+      }
+      final BitSet candidates = (BitSet) others.clone();
+      candidates.or(positions);
+      return candidates;
+    }
+  }
+
   /**
    * Builds instances of {@link ApplyToDependencies}.
    */
@@ -130,18 +223,47 @@ public final class ApplyToDependencies
 
   /**
    * Creates a merged descriptor from all descriptors that matches the given
-   * module name.
+   * module name. The descriptor is created once per name and returned on
+   * subsequent calls until descriptors are merged into this instance.
    *
    * @param name the name of a module to match.
    * @return the merged descriptor.
    */
   public DependenciesDescriptor getDescriptorThatMatches(final String name)
   {
+    ConcurrentMap<String, DependenciesDescriptor> matches = this.matches;
+    if (matches == null)
+    {
+      matches = new ConcurrentHashMap<String, DependenciesDescriptor>();
+      this.matches = matches;
+    }
+
+    DependenciesDescriptor descriptor = matches.get(name);
+    if (descriptor == null)
+    {
+      descriptor = calcDescriptorThatMatches(name);
+      matches.putIfAbsent(name, descriptor);
+    }
+    return descriptor;
+  }
+
+  private DependenciesDescriptor calcDescriptorThatMatches(final String name)
+  {
+    Index index = this.index;
+    if (index == null)
+    {
+      index = new Index(descriptors);
+      this.index = index;
+    }
+
     final DependenciesDescriptor.Builder builder =
         new DependenciesDescriptor.Builder();
 
-    for (final DependenciesDescriptor descriptor : descriptors)
+    final BitSet candidates = index.getCandidates(name);
+    for (int i = candidates.nextSetBit(0); i >= 0; i =
+        candidates.nextSetBit(i + 1))
     {
+      final DependenciesDescriptor descriptor = descriptors.get(i);
       if (descriptor.matches(name))
       {
         builder.merge(name, descriptor);
@@ -163,6 +285,8 @@ public final class ApplyToDependencies
   public void merge(final ApplyToDependencies applyToDependencies)
   {
     descriptors.addAll(applyToDependencies.descriptors);
+    index = null;
+    matches = null;
   }
 
   // --- object basics --------------------------------------------------------
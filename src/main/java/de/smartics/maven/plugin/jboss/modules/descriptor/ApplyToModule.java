@@ -15,6 +15,7 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -26,26 +27,38 @@ import org.apache.commons.lang.builder.ToStringBuilder;
 /**
  * Stores information that has to be applied to a module if the matcher matches
  * the name of a module.
+ * <p>
+ * The XML fragments are stored as parsed {@link XmlFragment}s so that they are
+ * not parsed again for each <code>module.xml</code> they are added to.
+ * </p>
  */
-public final class ApplyToModule
+public final class ApplyToModule implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 2L;
+
   // --- members --------------------------------------------------------------
 
   /**
    * The main class information as XML fragment.
    */
-  private String mainClassXml;
+  private XmlFragment mainClass;
 
   /**
    * Matches the name of a property to its property specification in form of an
    * XML fragment. The fragment is read from module descriptors XML documents
    * and can be added to a JBoss <code>module.xml</code>.
    */
-  private final Map<String, String> propertiesXml;
+  private final Map<String, XmlFragment> properties;
 
   /**
    * Matches the name of a module dependency (that is the name of a module) to
@@ -53,12 +66,12 @@ public final class ApplyToModule
    * read from module descriptors XML documents and can be added to a JBoss
    * <code>module.xml</code>.
    */
-  private final Map<String, String> dependenciesXml;
+  private final Map<String, XmlFragment> dependencies;
 
   /**
    * The exports information as XML fragment.
    */
-  private String exportsXml;
+  private XmlFragment exports;
 
   // ****************************** Initializer *******************************
 
@@ -66,10 +79,10 @@ public final class ApplyToModule
 
   private ApplyToModule(final Builder builder)
   {
-    mainClassXml = builder.mainClassXml;
-    propertiesXml = builder.propertiesXml;
-    dependenciesXml = builder.dependenciesXml;
-    exportsXml = builder.exportsXml;
+    mainClass = builder.mainClass;
+    properties = builder.properties;
+    dependencies = builder.dependencies;
+    exports = builder.exports;
   }
 
   // ****************************** Inner Classes *****************************
@@ -88,15 +101,15 @@ public final class ApplyToModule
     /**
      * The main class information as XML fragment.
      */
-    private String mainClassXml;
+    private XmlFragment mainClass;
 
     /**
      * Matches the name of a property to its property specification in form of
      * an XML fragment. The fragment is read from module descriptors XML
      * documents and can be added to a JBoss <code>module.xml</code>.
      */
-    private final Map<String, String> propertiesXml =
-        new LinkedHashMap<String, String>();
+    private final Map<String, XmlFragment> properties =
+        new LinkedHashMap<String, XmlFragment>();
 
     /**
      * Matches the name of a module dependency (that is the name of a module) to
@@ -104,13 +117,13 @@ public final class ApplyToModule
      * read from module descriptors XML documents and can be added to a JBoss
      * <code>modules.xml</code>.
      */
-    private final Map<String, String> dependenciesXml =
-        new LinkedHashMap<String, String>();
+    private final Map<String, XmlFragment> dependencies =
+        new LinkedHashMap<String, XmlFragment>();
 
     /**
      * The exports information as XML fragment.
      */
-    private String exportsXml;
+    private XmlFragment exports;
 
     // ***************************** Initializer ******************************
 
@@ -129,10 +142,24 @@ public final class ApplyToModule
      *
      * @param fragment the XML fragment.
      * @return a reference to this builder.
+     * @throws IllegalArgumentException if {@code fragment} cannot be parsed.
      */
     public Builder withMainClassXml(final String fragment)
+      throws IllegalArgumentException
     {
-      mainClassXml = fragment;
+      return withMainClass(parse(fragment));
+    }
+
+    /**
+     * Adds the given main class XML fragment.
+     *
+     * @param fragment the XML fragment.
+     * @return a reference to this builder.
+     * @since 1.1
+     */
+    public Builder withMainClass(final XmlFragment fragment)
+    {
+      mainClass = fragment;
       return this;
     }
 
@@ -141,11 +168,25 @@ public final class ApplyToModule
      *
      * @param name the name of the property.
      * @param fragment the XML fragment containing the property information.
+     * @throws IllegalArgumentException if {@code fragment} cannot be parsed.
      */
     public void addPropertyXml(final String name, final String fragment)
+      throws IllegalArgumentException
+    {
+      addProperty(name, parse(fragment));
+    }
+
+    /**
+     * Adds the given property.
+     *
+     * @param name the name of the property.
+     * @param fragment the XML fragment containing the property information.
+     * @since 1.1
+     */
+    public void addProperty(final String name, final XmlFragment fragment)
     {
       // TODO: Warn if element is already stored?
-      propertiesXml.put(name, fragment);
+      properties.put(name, fragment);
     }
 
     /**
@@ -154,12 +195,27 @@ public final class ApplyToModule
      * @param moduleName the name of the module that is the dependency.
      * @param xmlFragment the XML fragment containing the dependency
      *          information.
+     * @throws IllegalArgumentException if {@code xmlFragment} cannot be
+     *           parsed.
      */
     public void addDependencyXml(final String moduleName,
-        final String xmlFragment)
+        final String xmlFragment) throws IllegalArgumentException
+    {
+      addDependency(moduleName, parse(xmlFragment));
+    }
+
+    /**
+     * Adds the given module dependency.
+     *
+     * @param moduleName the name of the module that is the dependency.
+     * @param fragment the XML fragment containing the dependency information.
+     * @since 1.1
+     */
+    public void addDependency(final String moduleName,
+        final XmlFragment fragment)
     {
       // TODO: Warn if element is already stored?
-      dependenciesXml.put(moduleName, xmlFragment);
+      dependencies.put(moduleName, fragment);
     }
 
     /**
@@ -167,10 +223,24 @@ public final class ApplyToModule
      *
      * @param fragment the XML fragment.
      * @return a reference to this builder.
+     * @throws IllegalArgumentException if {@code fragment} cannot be parsed.
      */
     public Builder withExportsXml(final String fragment)
+      throws IllegalArgumentException
     {
-      exportsXml = fragment;
+      return withExports(parse(fragment));
+    }
+
+    /**
+     * Adds the given exports XML fragment.
+     *
+     * @param fragment the XML fragment.
+     * @return a reference to this builder.
+     * @since 1.1
+     */
+    public Builder withExports(final XmlFragment fragment)
+    {
+      exports = fragment;
       return this;
     }
 
@@ -186,6 +256,11 @@ public final class ApplyToModule
       return new ApplyToModule(this);
     }
 
+    private static XmlFragment parse(final String fragment)
+    {
+      return fragment != null ? XmlFragment.parse(fragment) : null;
+    }
+
     // --- object basics ------------------------------------------------------
   }
 
@@ -202,7 +277,18 @@ public final class ApplyToModule
    */
   public String getMainClassXml()
   {
-    return mainClassXml;
+    return toXml(mainClass);
+  }
+
+  /**
+   * Returns the main class XML fragment.
+   *
+   * @return the main class XML fragment. May be <code>null</code>.
+   * @since 1.1
+   */
+  public XmlFragment getMainClass()
+  {
+    return mainClass;
   }
 
   /**
@@ -212,7 +298,18 @@ public final class ApplyToModule
    */
   public List<String> getPropertiesXml()
   {
-    return new ArrayList<String>(propertiesXml.values());
+    return toXml(properties);
+  }
+
+  /**
+   * Returns the list of property XML fragments.
+   *
+   * @return the list of property XML fragments.
+   * @since 1.1
+   */
+  public List<XmlFragment> getProperties()
+  {
+    return new ArrayList<XmlFragment>(properties.values());
   }
 
   /**
@@ -222,7 +319,18 @@ public final class ApplyToModule
    */
   public List<String> getDependenciesXml()
   {
-    return new ArrayList<String>(dependenciesXml.values());
+    return toXml(dependencies);
+  }
+
+  /**
+   * Returns the list of dependency XML fragments.
+   *
+   * @return the list of dependency XML fragments.
+   * @since 1.1
+   */
+  public List<XmlFragment> getDependencies()
+  {
+    return new ArrayList<XmlFragment>(dependencies.values());
   }
 
   /**
@@ -232,7 +340,33 @@ public final class ApplyToModule
    */
   public String getExportsXml()
   {
-    return exportsXml;
+    return toXml(exports);
+  }
+
+  /**
+   * Returns the exports XML fragment.
+   *
+   * @return the exports XML fragment. May be <code>null</code>.
+   * @since 1.1
+   */
+  public XmlFragment getExports()
+  {
+    return exports;
+  }
+
+  private static String toXml(final XmlFragment fragment)
+  {
+    return fragment != null ? fragment.toXml() : null;
+  }
+
+  private static List<String> toXml(final Map<String, XmlFragment> fragments)
+  {
+    final List<String> xmls = new ArrayList<String>(fragments.size());
+    for (final XmlFragment fragment : fragments.values())
+    {
+      xmls.add(fragment.toXml());
+    }
+    return xmls;
   }
 
   // --- business -------------------------------------------------------------
@@ -246,48 +380,48 @@ public final class ApplyToModule
   {
     mergeMainClass(applyToModule);
     mergeExports(applyToModule);
-    merge("properties", propertiesXml, applyToModule.propertiesXml);
-    merge("dependencies", dependenciesXml, applyToModule.dependenciesXml);
+    merge("properties", properties, applyToModule.properties);
+    merge("dependencies", dependencies, applyToModule.dependencies);
   }
 
   private void mergeMainClass(final ApplyToModule applyToModule)
   {
-    if (mainClassXml != null && applyToModule.mainClassXml != null
-        && !mainClassXml.equals(applyToModule.mainClassXml))
+    if (mainClass != null && applyToModule.mainClass != null
+        && !mainClass.equals(applyToModule.mainClass))
     {
       throw new IllegalStateException(String.format(
           "Cannot merge differen main class information: %s differs from %s.",
-          mainClassXml, applyToModule.mainClassXml));
+          mainClass, applyToModule.mainClass));
     }
-    if (mainClassXml == null)
+    if (mainClass == null)
     {
-      mainClassXml = applyToModule.mainClassXml;
+      mainClass = applyToModule.mainClass;
     }
   }
 
   private void mergeExports(final ApplyToModule applyToModule)
   {
-    if (exportsXml != null && applyToModule.exportsXml != null
-        && !exportsXml.equals(applyToModule.exportsXml))
+    if (exports != null && applyToModule.exports != null
+        && !exports.equals(applyToModule.exports))
     {
       throw new IllegalStateException(String.format(
           "Cannot merge differen main class information: %s differs from %s.",
-          exportsXml, applyToModule.exportsXml));
+          exports, applyToModule.exports));
     }
-    if (exportsXml == null)
+    if (exports == null)
     {
-      exportsXml = applyToModule.exportsXml;
+      exports = applyToModule.exports;
     }
   }
 
-  private void merge(final String id, final Map<String, String> targetMap,
-      final Map<String, String> sourceAap)
+  private void merge(final String id, final Map<String, XmlFragment> targetMap,
+      final Map<String, XmlFragment> sourceAap)
   {
-    for (final Entry<String, String> entry : sourceAap.entrySet())
+    for (final Entry<String, XmlFragment> entry : sourceAap.entrySet())
     {
       final String name = entry.getKey();
-      final String xml = entry.getValue();
-      final String storedXml = targetMap.get(name);
+      final XmlFragment xml = entry.getValue();
+      final XmlFragment storedXml = targetMap.get(name);
       if (storedXml == null)
       {
         targetMap.put(name, xml);
@@ -15,6 +15,7 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -26,17 +27,27 @@ import org.eclipse.aether.artifact.Artifact;
 import de.smartics.maven.plugin.jboss.modules.domain.MatchContext;
 import de.smartics.maven.plugin.jboss.modules.domain.matching.DoubleMatchContext;
 import de.smartics.maven.plugin.jboss.modules.domain.matching.SingleMatchContext;
+import de.smartics.maven.plugin.jboss.modules.perf.Counter;
+import de.smartics.maven.plugin.jboss.modules.perf.PerformanceRecorder;
 
 /**
  * Models an inclusion or exclusion. An include/exclude matches if all given
  * information matches (that is: <code>and</code>ed).
  */
-public class ArtifactClusion
+public class ArtifactClusion implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 1L;
+
   // --- members --------------------------------------------------------------
 
   /**
@@ -197,6 +208,7 @@ public class ArtifactClusion
   {
     if (pattern != null)
     {
+      PerformanceRecorder.count(Counter.REGEX_EVALUATIONS);
       final Matcher matcher = pattern.matcher(inputId);
       return new SingleMatchContext(matcher);
     }
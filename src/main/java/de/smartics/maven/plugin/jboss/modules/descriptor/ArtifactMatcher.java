@@ -15,6 +15,7 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,12 +31,20 @@ import de.smartics.util.lang.Arg;
  * Descriptor to define the rules for matching artifacts to be included as
  * resources to a module.
  */
-public final class ArtifactMatcher
+public final class ArtifactMatcher implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 1L;
+
   // --- members --------------------------------------------------------------
 
   /**
@@ -15,6 +15,8 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
+
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
@@ -25,12 +27,20 @@ import org.apache.commons.lang.builder.ToStringBuilder;
  * These module names are matched to check if the information of a dependencies
  * descriptor is to be applied.
  */
-public final class DependenciesDescriptor
+public final class DependenciesDescriptor implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 1L;
+
   // --- members --------------------------------------------------------------
 
   /**
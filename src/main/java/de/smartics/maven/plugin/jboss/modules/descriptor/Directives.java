@@ -15,6 +15,8 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
+
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
@@ -22,12 +24,20 @@ import org.apache.commons.lang.builder.ToStringBuilder;
  * Provides directives for a given {@link ModuleDescriptor module descriptor}.
  * Directives control the building process of a single module.
  */
-public final class Directives
+public final class Directives implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 1L;
+
   // --- members --------------------------------------------------------------
 
   /**
@@ -15,23 +15,34 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.lang.StringUtils;
 
+import de.smartics.maven.plugin.jboss.modules.perf.Counter;
+import de.smartics.maven.plugin.jboss.modules.perf.PerformanceRecorder;
 import de.smartics.util.lang.Arg;
 
 /**
  * Clusion information for including and excluding on a module name.
  */
-public final class ModuleClusion
+public final class ModuleClusion implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 2L;
+
   // --- members --------------------------------------------------------------
 
   /**
@@ -44,6 +55,13 @@ public final class ModuleClusion
    */
   private final Pattern namePattern;
 
+  /**
+   * The only module name matched by the clusion, if the name contains no
+   * regular expression constructs other than escaped characters. May be
+   * <code>null</code>.
+   */
+  private final String literal;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -59,6 +77,7 @@ public final class ModuleClusion
   {
     this.name = Arg.checkNotBlankExceptNull("name", name);
     this.namePattern = compilePattern(name);
+    this.literal = namePattern != null ? calcLiteral(name) : name;
   }
 
   // ****************************** Inner Classes *****************************
@@ -83,6 +102,33 @@ public final class ModuleClusion
     return null;
   }
 
+  private static String calcLiteral(final String pattern)
+  {
+    final StringBuilder buffer = new StringBuilder(pattern.length());
+    final int length = pattern.length();
+    for (int i = 0; i < length; i++)
+    {
+      final char c = pattern.charAt(i);
+      if (c == '\\')
+      {
+        if (++i == length || Character.isLetterOrDigit(pattern.charAt(i)))
+        {
+          return null;
+        }
+        buffer.append(pattern.charAt(i));
+      }
+      else if ("[](){}.*+?^$|".indexOf(c) != -1)
+      {
+        return null;
+      }
+      else
+      {
+        buffer.append(c);
+      }
+    }
+    return buffer.toString();
+  }
+
   // --- get&set --------------------------------------------------------------
 
   /**
@@ -95,6 +141,19 @@ public final class ModuleClusion
     return name;
   }
 
+  /**
+   * Returns the only module name matched by the clusion, if the name of the
+   * clusion contains no regular expression constructs other than escaped
+   * characters.
+   *
+   * @return the only module name matched or <code>null</code> if the name of
+   *         the clusion is a regular expression that may match several names.
+   */
+  String getLiteral()
+  {
+    return literal;
+  }
+
   // --- business -------------------------------------------------------------
 
   /**
@@ -110,15 +169,14 @@ public final class ModuleClusion
       return true;
     }
 
-    if (namePattern != null)
+    if (literal != null)
     {
-      final Matcher matcher = namePattern.matcher(moduleName);
-      return matcher.matches();
-    }
-    else
-    {
-      return name.equals(moduleName);
+      return literal.equals(moduleName);
     }
+
+    PerformanceRecorder.count(Counter.REGEX_EVALUATIONS);
+    final Matcher matcher = namePattern.matcher(moduleName);
+    return matcher.matches();
   }
 
   // --- object basics --------------------------------------------------------
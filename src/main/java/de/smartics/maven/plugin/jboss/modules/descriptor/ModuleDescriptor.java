@@ -15,6 +15,8 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
+
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.eclipse.aether.artifact.Artifact;
@@ -26,12 +28,20 @@ import de.smartics.util.lang.Arg;
  * Holds the information of one module descriptor. The descriptor controls the
  * process of generating JBoss modules in a folder.
  */
-public final class ModuleDescriptor
+public final class ModuleDescriptor implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 1L;
+
   // --- members --------------------------------------------------------------
 
   /**
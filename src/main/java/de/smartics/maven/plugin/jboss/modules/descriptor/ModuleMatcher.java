@@ -15,6 +15,7 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,12 +27,20 @@ import de.smartics.util.lang.Arg;
  * Descriptor to define the rules for matching modules to be matched to have
  * additional information applied.
  */
-public final class ModuleMatcher
+public final class ModuleMatcher implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 1L;
+
   // --- members --------------------------------------------------------------
 
   /**
@@ -154,6 +163,34 @@ public final class ModuleMatcher
     return excludes;
   }
 
+  /**
+   * Returns the module names matched by the inclusions, if each inclusion
+   * matches a single name only.
+   *
+   * @return the module names matched by the inclusions or <code>null</code>
+   *         if there are no inclusions or an inclusion may match several
+   *         names.
+   */
+  List<String> getIncludedLiterals()
+  {
+    if (includes.isEmpty())
+    {
+      return null;
+    }
+
+    final List<String> literals = new ArrayList<String>(includes.size());
+    for (final ModuleClusion include : includes)
+    {
+      final String literal = include.getLiteral();
+      if (literal == null)
+      {
+        return null;
+      }
+      literals.add(literal);
+    }
+    return literals;
+  }
+
   // --- business -------------------------------------------------------------
 
   /**
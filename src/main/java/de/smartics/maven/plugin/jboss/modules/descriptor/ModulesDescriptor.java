@@ -15,6 +15,7 @@
  */
 package de.smartics.maven.plugin.jboss.modules.descriptor;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,12 +31,20 @@ import edu.emory.mathcs.backport.java.util.Collections;
  * It basically contains module descriptors, but may also contain any meta data.
  * </p>
  */
-public final class ModulesDescriptor
+public final class ModulesDescriptor implements Serializable
 {
   // ********************************* Fields *********************************
 
   // --- constants ------------------------------------------------------------
 
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 1L;
+
   // --- members --------------------------------------------------------------
 
   /**
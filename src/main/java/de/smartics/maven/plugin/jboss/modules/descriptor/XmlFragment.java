@@ -0,0 +1,526 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.descriptor;
+
+import java.io.Serializable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang.StringUtils;
+
+import de.smartics.util.lang.Arg;
+
+/**
+ * An XML element read from a module descriptor to be added to a
+ * <code>module.xml</code>. The element is stored as an immutable tree of its
+ * name, namespace, attributes and content, so that it can be copied to each
+ * generated document without being parsed again.
+ * <p>
+ * Text is normalized and comments and processing instructions are dropped,
+ * as done by the compact format of JDOM. Attributes without namespace are
+ * stored by their local name, attributes in a namespace by their prefixed
+ * name together with the namespace URI of the prefix.
+ * </p>
+ */
+public final class XmlFragment implements Serializable
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The class version identifier.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long serialVersionUID = 2L;
+
+  /**
+   * The factories to parse fragments given as strings, one per thread.
+   */
+  private static final ThreadLocal<XMLInputFactory> FACTORY =
+      new ThreadLocal<XMLInputFactory>()
+      {
+        @Override
+        protected XMLInputFactory initialValue()
+        {
+          return createInputFactory();
+        }
+      };
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The namespace URI of the element. The empty string if the element has no
+   * namespace.
+   */
+  private final String namespace;
+
+  /**
+   * The local name of the element.
+   */
+  private final String name;
+
+  /**
+   * The attribute values by attribute name in document order.
+   */
+  private final Map<String, String> attributes;
+
+  /**
+   * The namespace URIs of the prefixes of attributes in a namespace.
+   */
+  private final Map<String, String> attributeNamespaces;
+
+  /**
+   * The content of the element. Each item is either a {@link String} or an
+   * {@link XmlFragment}.
+   */
+  private final List<Object> content;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private XmlFragment(final String namespace, final String name,
+      final Map<String, String> attributes,
+      final Map<String, String> attributeNamespaces, final List<Object> content)
+  {
+    this.namespace = namespace;
+    this.name = name;
+    this.attributes = attributes;
+    this.attributeNamespaces = attributeNamespaces;
+    this.content = content;
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  /**
+   * Creates a factory for stream readers that does not resolve DTDs or
+   * external entities and reports text in one piece.
+   *
+   * @return the new factory.
+   */
+  public static XMLInputFactory createInputFactory()
+  {
+    final XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+        Boolean.FALSE);
+    return factory;
+  }
+
+  /**
+   * Parses the given XML fragment.
+   *
+   * @param xml the fragment with a single root element.
+   * @return the parsed fragment.
+   * @throws NullPointerException if {@code xml} is <code>null</code>.
+   * @throws IllegalArgumentException if {@code xml} cannot be parsed.
+   */
+  public static XmlFragment parse(final String xml)
+    throws NullPointerException, IllegalArgumentException
+  {
+    Arg.checkNotNull("xml", xml);
+    try
+    {
+      final XMLStreamReader reader =
+          FACTORY.get().createXMLStreamReader(new StringReader(xml));
+      try
+      {
+        reader.nextTag();
+        return read(reader, null);
+      }
+      finally
+      {
+        reader.close();
+      }
+    }
+    catch (final XMLStreamException e)
+    {
+      throw new IllegalArgumentException("Cannot parse XML fragment: " + xml,
+          e);
+    }
+  }
+
+  /**
+   * Reads the element the given reader is positioned at. On return the reader
+   * is positioned at the end of the element.
+   *
+   * @param reader the reader positioned at the start of an element.
+   * @param namespace the namespace URI to put the element and all its
+   *          descendants in. If <code>null</code>, the namespaces of the
+   *          document are kept.
+   * @return the read fragment.
+   * @throws XMLStreamException on any problem reading the element.
+   */
+  public static XmlFragment read(final XMLStreamReader reader,
+      final String namespace) throws XMLStreamException
+  {
+    final String elementNamespace =
+        namespace != null ? namespace : StringUtils.defaultString(reader
+            .getNamespaceURI());
+    final String elementName = reader.getLocalName();
+
+    final int attributeCount = reader.getAttributeCount();
+    final Map<String, String> attributes =
+        attributeCount == 0 ? Collections.<String, String> emptyMap()
+            : new LinkedHashMap<String, String>(attributeCount * 2);
+    Map<String, String> attributeNamespaces =
+        Collections.<String, String> emptyMap();
+    for (int i = 0; i < attributeCount; i++)
+    {
+      final String attributeNamespace = reader.getAttributeNamespace(i);
+      final String attributeName = reader.getAttributeLocalName(i);
+      if (StringUtils.isEmpty(attributeNamespace))
+      {
+        attributes.put(attributeName, reader.getAttributeValue(i));
+      }
+      else
+      {
+        final String prefix = reader.getAttributePrefix(i);
+        if (attributeNamespaces.isEmpty())
+        {
+          attributeNamespaces = new LinkedHashMap<String, String>(4);
+        }
+        attributeNamespaces.put(prefix, attributeNamespace);
+        attributes.put(prefix + ':' + attributeName,
+            reader.getAttributeValue(i));
+      }
+    }
+
+    final List<Object> content = new ArrayList<Object>(2);
+    final StringBuilder text = new StringBuilder();
+    while (true)
+    {
+      final int event = reader.next();
+      switch (event)
+      {
+        case XMLStreamConstants.START_ELEMENT:
+          addText(content, text);
+          content.add(read(reader, namespace));
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          text.append(reader.getText());
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          addText(content, text);
+          return new XmlFragment(elementNamespace, elementName, attributes,
+              attributeNamespaces, content.isEmpty() ? Collections
+                  .emptyList() : content);
+        default:
+          break;
+      }
+    }
+  }
+
+  private static void addText(final List<Object> content,
+      final StringBuilder text)
+  {
+    if (text.length() > 0)
+    {
+      final String normalized = normalize(text);
+      if (normalized.length() > 0)
+      {
+        content.add(normalized);
+      }
+      text.setLength(0);
+    }
+  }
+
+  /**
+   * Trims the given text and replaces each sequence of whitespace by a single
+   * space, as done by <code>Text.normalizeString</code> of JDOM.
+   *
+   * @param text the text to normalize.
+   * @return the normalized text.
+   */
+  public static String normalize(final CharSequence text)
+  {
+    final StringBuilder buffer = new StringBuilder(text.length());
+    boolean space = false;
+    for (int i = 0; i < text.length(); i++)
+    {
+      final char c = text.charAt(i);
+      if (c == ' ' || c == '\t' || c == '\n' || c == '\r')
+      {
+        space = buffer.length() > 0;
+      }
+      else
+      {
+        if (space)
+        {
+          buffer.append(' ');
+          space = false;
+        }
+        buffer.append(c);
+      }
+    }
+    return buffer.toString();
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the namespace URI of the element.
+   *
+   * @return the namespace URI of the element. The empty string if the element
+   *         has no namespace.
+   */
+  public String getNamespace()
+  {
+    return namespace;
+  }
+
+  /**
+   * Returns the local name of the element.
+   *
+   * @return the local name of the element.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Returns the attribute values by attribute name in document order.
+   * Attributes in a namespace are stored by their prefixed name.
+   *
+   * @return the attribute values by attribute name.
+   */
+  public Map<String, String> getAttributes()
+  {
+    return Collections.unmodifiableMap(attributes);
+  }
+
+  /**
+   * Returns the namespace URIs of the prefixes of attributes in a namespace.
+   *
+   * @return the namespace URIs by prefix.
+   * @since 1.1
+   */
+  public Map<String, String> getAttributeNamespaces()
+  {
+    return Collections.unmodifiableMap(attributeNamespaces);
+  }
+
+  /**
+   * Returns the value of the given attribute.
+   *
+   * @param attributeName the local name of an attribute without namespace or
+   *          the prefixed name of an attribute in a namespace.
+   * @return the value of the attribute or <code>null</code> if the element has
+   *         no such attribute.
+   */
+  public String getAttribute(final String attributeName)
+  {
+    return attributes.get(attributeName);
+  }
+
+  /**
+   * Returns the content of the element. Each item is either a {@link String}
+   * or an {@link XmlFragment}.
+   *
+   * @return the content of the element.
+   */
+  public List<Object> getContent()
+  {
+    return Collections.unmodifiableList(content);
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Returns the fragment as XML string in compact format. The namespace is
+   * declared on the root element and on each element whose namespace differs
+   * from the namespace of its parent. The prefixes of attributes are declared
+   * on the first element using them.
+   *
+   * @return the fragment as XML string.
+   */
+  public String toXml()
+  {
+    final StringBuilder buffer = new StringBuilder(128);
+    append(buffer, "", Collections.<String, String> emptyMap());
+    return buffer.toString();
+  }
+
+  private void append(final StringBuilder buffer,
+      final String parentNamespace, final Map<String, String> parentPrefixes)
+  {
+    buffer.append('<').append(name);
+    if (!namespace.equals(parentNamespace))
+    {
+      buffer.append(" xmlns=\"");
+      escape(buffer, namespace, true);
+      buffer.append('"');
+    }
+    Map<String, String> prefixes = parentPrefixes;
+    for (final Map.Entry<String, String> prefix : attributeNamespaces
+        .entrySet())
+    {
+      final String uri = prefix.getValue();
+      if (!"xml".equals(prefix.getKey())
+          && !uri.equals(prefixes.get(prefix.getKey())))
+      {
+        if (prefixes == parentPrefixes)
+        {
+          prefixes = new LinkedHashMap<String, String>(parentPrefixes);
+        }
+        prefixes.put(prefix.getKey(), uri);
+        buffer.append(" xmlns:").append(prefix.getKey()).append("=\"");
+        escape(buffer, uri, true);
+        buffer.append('"');
+      }
+    }
+    for (final Map.Entry<String, String> attribute : attributes.entrySet())
+    {
+      buffer.append(' ').append(attribute.getKey()).append("=\"");
+      escape(buffer, attribute.getValue(), true);
+      buffer.append('"');
+    }
+
+    if (content.isEmpty())
+    {
+      buffer.append(" />");
+      return;
+    }
+
+    buffer.append('>');
+    for (final Object item : content)
+    {
+      if (item instanceof XmlFragment)
+      {
+        ((XmlFragment) item).append(buffer, namespace, prefixes);
+      }
+      else
+      {
+        escape(buffer, (String) item, false);
+      }
+    }
+    buffer.append("</").append(name).append('>');
+  }
+
+  private static void escape(final StringBuilder buffer, final String value,
+      final boolean attribute)
+  {
+    for (int i = 0; i < value.length(); i++)
+    {
+      final char c = value.charAt(i);
+      switch (c)
+      {
+        case '&':
+          buffer.append("&amp;");
+          break;
+        case '<':
+          buffer.append("&lt;");
+          break;
+        case '>':
+          buffer.append("&gt;");
+          break;
+        case '"':
+          buffer.append(attribute ? "&quot;" : "\"");
+          break;
+        case '\r':
+          buffer.append("&#xD;");
+          break;
+        case '\n':
+          buffer.append(attribute ? "&#xA;" : "\n");
+          break;
+        case '\t':
+          buffer.append(attribute ? "&#x9;" : "\t");
+          break;
+        default:
+          buffer.append(c);
+          break;
+      }
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+  /**
+   * Returns the hash code of the object.
+   *
+   * @return the hash code.
+   */
+  @Override
+  public int hashCode()
+  {
+    int result = 17;
+    result = result * 37 + namespace.hashCode();
+    result = result * 37 + name.hashCode();
+    result = result * 37 + attributes.hashCode();
+    result = result * 37 + attributeNamespaces.hashCode();
+    result = result * 37 + content.hashCode();
+    return result;
+  }
+
+  /**
+   * Returns <code>true</code> if the given object is semantically equal to
+   * the given object, <code>false</code> otherwise.
+   *
+   * @param object the instance to compare to.
+   * @return <code>true</code> if the given object is semantically equal to
+   *         the given object, <code>false</code> otherwise.
+   */
+  @Override
+  public boolean equals(final Object object)
+  {
+    if (this == object)
+    {
+      return true;
+    }
+    else if (object == null || getClass() != object.getClass())
+    {
+      return false;
+    }
+
+    final XmlFragment other = (XmlFragment) object;
+    return namespace.equals(other.namespace) && name.equals(other.name)
+           && attributes.equals(other.attributes)
+           && attributeNamespaces.equals(other.attributeNamespaces)
+           && content.equals(other.content);
+  }
+
+  /**
+   * Returns the string representation of the object.
+   *
+   * @return the string representation of the object.
+   */
+  @Override
+  public String toString()
+  {
+    return toXml();
+  }
+}
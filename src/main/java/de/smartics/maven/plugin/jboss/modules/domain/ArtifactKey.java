@@ -0,0 +1,250 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.domain;
+
+import java.io.File;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.eclipse.aether.artifact.Artifact;
+
+import de.smartics.util.lang.Arg;
+
+/**
+ * Identifies an artifact by its coordinates and its file, ignoring its
+ * properties.
+ * <p>
+ * Keys are immutable values. The hash code is calculated once on
+ * construction, so repeated lookups in hash based maps do not hash the
+ * coordinates again. Creating a key takes no lock.
+ * </p>
+ */
+public final class ArtifactKey
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The group identifier of the artifact.
+   */
+  private final String groupId;
+
+  /**
+   * The artifact identifier of the artifact.
+   */
+  private final String artifactId;
+
+  /**
+   * The version of the artifact.
+   */
+  private final String version;
+
+  /**
+   * The extension of the artifact.
+   */
+  private final String extension;
+
+  /**
+   * The classifier of the artifact.
+   */
+  private final String classifier;
+
+  /**
+   * The file of the artifact. May be <code>null</code>.
+   */
+  private final File file;
+
+  /**
+   * The hash code calculated on construction.
+   */
+  private final int hashCode;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private ArtifactKey(final Artifact artifact)
+  {
+    this.groupId = artifact.getGroupId();
+    this.artifactId = artifact.getArtifactId();
+    this.version = artifact.getVersion();
+    this.extension = artifact.getExtension();
+    this.classifier = artifact.getClassifier();
+    this.file = artifact.getFile();
+    this.hashCode = calcHashCode();
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  /**
+   * Returns the key of the given artifact.
+   *
+   * @param artifact the artifact whose key is requested.
+   * @return the key of the artifact.
+   * @throws NullPointerException if {@code artifact} is <code>null</code>.
+   */
+  public static ArtifactKey of(final Artifact artifact)
+    throws NullPointerException
+  {
+    return new ArtifactKey(Arg.checkNotNull("artifact", artifact));
+  }
+
+  private int calcHashCode()
+  {
+    int result = 17;
+    result = 37 * result + ObjectUtils.hashCode(groupId);
+    result = 37 * result + ObjectUtils.hashCode(artifactId);
+    result = 37 * result + ObjectUtils.hashCode(version);
+    result = 37 * result + ObjectUtils.hashCode(extension);
+    result = 37 * result + ObjectUtils.hashCode(classifier);
+    result = 37 * result + ObjectUtils.hashCode(file);
+    return result;
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the group identifier of the artifact.
+   *
+   * @return the group identifier of the artifact.
+   */
+  public String getGroupId()
+  {
+    return groupId;
+  }
+
+  /**
+   * Returns the artifact identifier of the artifact.
+   *
+   * @return the artifact identifier of the artifact.
+   */
+  public String getArtifactId()
+  {
+    return artifactId;
+  }
+
+  /**
+   * Returns the version of the artifact.
+   *
+   * @return the version of the artifact.
+   */
+  public String getVersion()
+  {
+    return version;
+  }
+
+  /**
+   * Returns the extension of the artifact.
+   *
+   * @return the extension of the artifact.
+   */
+  public String getExtension()
+  {
+    return extension;
+  }
+
+  /**
+   * Returns the classifier of the artifact.
+   *
+   * @return the classifier of the artifact.
+   */
+  public String getClassifier()
+  {
+    return classifier;
+  }
+
+  /**
+   * Returns the file of the artifact.
+   *
+   * @return the file of the artifact. May be <code>null</code>.
+   */
+  public File getFile()
+  {
+    return file;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  // --- object basics --------------------------------------------------------
+
+  /**
+   * Returns the hash code calculated on construction.
+   *
+   * @return the hash code of the key.
+   */
+  @Override
+  public int hashCode()
+  {
+    return hashCode;
+  }
+
+  /**
+   * Returns <code>true</code> if the given object is semantically equal to
+   * the given object, <code>false</code> otherwise. Keys with different hash
+   * codes are rejected without comparing their coordinates.
+   *
+   * @param object the instance to compare to.
+   * @return <code>true</code> if the given object is semantically equal to
+   *         the given object, <code>false</code> otherwise.
+   */
+  @Override
+  public boolean equals(final Object object)
+  {
+    if (this == object)
+    {
+      return true;
+    }
+    else if (object == null || getClass() != object.getClass())
+    {
+      return false;
+    }
+
+    final ArtifactKey other = (ArtifactKey) object;
+    return hashCode == other.hashCode
+           && ObjectUtils.equals(artifactId, other.artifactId)
+           && ObjectUtils.equals(groupId, other.groupId)
+           && ObjectUtils.equals(version, other.version)
+           && ObjectUtils.equals(extension, other.extension)
+           && ObjectUtils.equals(classifier, other.classifier)
+           && ObjectUtils.equals(file, other.file);
+  }
+
+  /**
+   * Returns the coordinates of the artifact in the format
+   * <code>groupId:artifactId:extension[:classifier]:version</code>.
+   *
+   * @return the coordinates of the artifact.
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder buffer = new StringBuilder(128);
+    buffer.append(groupId).append(':').append(artifactId).append(':')
+        .append(extension);
+    if (classifier != null && classifier.length() > 0)
+    {
+      buffer.append(':').append(classifier);
+    }
+    buffer.append(':').append(version);
+    return buffer.toString();
+  }
+}
@@ -22,7 +22,9 @@ import org.apache.maven.plugin.logging.Log;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.resolution.DependencyResolutionException;
 
+import de.smartics.maven.plugin.jboss.modules.aether.DependencySink;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraph;
 import de.smartics.util.lang.Arg;
 import edu.emory.mathcs.backport.java.util.Collections;
 
@@ -53,9 +55,9 @@ public final class ExecutionContext
   private final TransitiveDependencyResolver resolver;
 
   /**
-   * The slot strategy for modules.
+   * The slots of the artifacts calculated by the slot strategy for modules.
    */
-  private final SlotStrategy slotStrategy;
+  private final SlotTable slotTable;
 
   /**
    * The name of the default slot to write to.
@@ -67,6 +69,12 @@ public final class ExecutionContext
    */
   private final ModuleMap moduleMap;
 
+  /**
+   * The optimized graph of modules. May be <code>null</code>, if the
+   * dependencies of modules are calculated while writing the modules.
+   */
+  private final ModuleGraph moduleGraph;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -76,9 +84,10 @@ public final class ExecutionContext
     this.log = builder.log;
     this.targetFolder = builder.targetFolder;
     this.resolver = builder.resolver;
-    this.slotStrategy = builder.slotStrategy;
+    this.slotTable = builder.slotTable;
     this.defaultSlot = builder.defaultSlot;
     this.moduleMap = builder.moduleMap;
+    this.moduleGraph = builder.moduleGraph;
   }
 
   // ****************************** Inner Classes *****************************
@@ -112,7 +121,12 @@ public final class ExecutionContext
     /**
      * The slot strategy for modules.
      */
-    private SlotStrategy slotStrategy;
+    private ModuleSlotStrategy slotStrategy;
+
+    /**
+     * The slots of the artifacts calculated by the slot strategy for modules.
+     */
+    private SlotTable slotTable;
 
     /**
      * The name of the default slot to write to.
@@ -124,6 +138,11 @@ public final class ExecutionContext
      */
     private ModuleMap moduleMap;
 
+    /**
+     * The optimized graph of modules.
+     */
+    private ModuleGraph moduleGraph;
+
     // ***************************** Initializer ******************************
 
     // ***************************** Constructors *****************************
@@ -178,9 +197,25 @@ public final class ExecutionContext
      * @param slotStrategy the slot strategy for modules.
      * @return a reference to this builder.
      */
-    public Builder with(final SlotStrategy slotStrategy)
+    public Builder with(final ModuleSlotStrategy slotStrategy)
     {
       this.slotStrategy = slotStrategy;
+      this.slotTable = null;
+      return this;
+    }
+
+    /**
+     * Sets the slots of the artifacts calculated in advance. The slot strategy
+     * for modules is the strategy of the table.
+     *
+     * @param slotTable the slots of the artifacts.
+     * @return a reference to this builder.
+     * @since 1.1
+     */
+    public Builder with(final SlotTable slotTable)
+    {
+      this.slotStrategy = slotTable != null ? slotTable.getStrategy() : null;
+      this.slotTable = slotTable;
       return this;
     }
 
@@ -208,6 +243,18 @@ public final class ExecutionContext
       return this;
     }
 
+    /**
+     * Sets the optimized graph of modules.
+     *
+     * @param moduleGraph the optimized graph of modules.
+     * @return a reference to this builder.
+     */
+    public Builder with(final ModuleGraph moduleGraph)
+    {
+      this.moduleGraph = moduleGraph;
+      return this;
+    }
+
     // --- business -----------------------------------------------------------
 
     /**
@@ -224,6 +271,10 @@ public final class ExecutionContext
       Arg.checkNotNull("slotStrategy", slotStrategy);
       Arg.checkNotNull("moduleMap", moduleMap);
 
+      if (slotTable == null)
+      {
+        slotTable = new SlotTable(slotStrategy);
+      }
       return new ExecutionContext(this);
     }
 
@@ -271,9 +322,21 @@ public final class ExecutionContext
    *
    * @return the slot strategy for modules.
    */
-  public SlotStrategy getSlotStrategy()
+  public ModuleSlotStrategy getSlotStrategy()
+  {
+    return slotTable.getStrategy();
+  }
+
+  /**
+   * Returns the slots of the artifacts calculated by the slot strategy for
+   * modules.
+   *
+   * @return the slots of the artifacts.
+   * @since 1.1
+   */
+  public SlotTable getSlotTable()
   {
-    return slotStrategy;
+    return slotTable;
   }
 
   /**
@@ -296,6 +359,17 @@ public final class ExecutionContext
     return moduleMap;
   }
 
+  /**
+   * Returns the optimized graph of modules.
+   *
+   * @return the optimized graph of modules. May be <code>null</code>, if the
+   *         dependencies of modules are calculated while writing the modules.
+   */
+  public ModuleGraph getModuleGraph()
+  {
+    return moduleGraph;
+  }
+
   // --- business -------------------------------------------------------------
 
   /**
@@ -321,6 +395,29 @@ public final class ExecutionContext
     }
   }
 
+  /**
+   * Resolves the direct dependencies of the given dependency and passes them
+   * to the given sink. Errors are logged and result in no dependencies being
+   * passed.
+   *
+   * @param dependency the dependency whose direct dependencies are requested.
+   * @param sink the sink to receive the direct dependencies.
+   * @since 1.1
+   */
+  public void resolve(final Dependency dependency, final DependencySink sink)
+  {
+    try
+    {
+      resolver.resolveDirect(dependency, sink);
+    }
+    catch (final DependencyResolutionException e)
+    {
+      log.error("Cannot resolve dependency '"
+                + dependency.getArtifact().getArtifactId() + "': "
+                + e.getMessage());
+    }
+  }
+
   /**
    * Returns the module for the given dependency.
    *
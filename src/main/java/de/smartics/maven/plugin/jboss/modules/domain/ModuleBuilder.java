@@ -33,6 +33,10 @@ import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.graph.Dependency;
 
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.perf.Counter;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEvent;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEventType;
+import de.smartics.maven.plugin.jboss.modules.perf.PerformanceRecorder;
 import de.smartics.maven.plugin.jboss.modules.xml.ModuleXmlBuilder;
 
 /**
@@ -89,6 +93,17 @@ public final class ModuleBuilder
 
   // --- get&set --------------------------------------------------------------
 
+  /**
+   * Returns the descriptor of the module to build.
+   *
+   * @return the descriptor of the module to build.
+   * @since 1.1
+   */
+  public ModuleDescriptor getModule()
+  {
+    return module;
+  }
+
   // --- business -------------------------------------------------------------
 
   /**
@@ -101,9 +116,12 @@ public final class ModuleBuilder
   {
     if (!module.getDirectives().getSkip())
     {
+      final FlightEvent event = FlightEvent.begin(FlightEventType.MODULE_WRITE);
       final File moduleFolder = createModuleFolder();
       createModuleXml(moduleFolder);
-      copyResources(moduleFolder);
+      final long bytes = copyResources(moduleFolder);
+      PerformanceRecorder.count(Counter.MODULES_WRITTEN);
+      event.set("module", module.getName()).set("bytes", bytes).commit();
     }
   }
 
@@ -125,14 +143,14 @@ public final class ModuleBuilder
 
   private String calcSlot()
   {
-    final SlotStrategy strategy = context.getSlotStrategy();
+    final SlotTable slotTable = context.getSlotTable();
 
     final Artifact artifact =
         (dependencies.isEmpty() ? null : dependencies.get(0).getArtifact());
 
     final String moduleSlot = module.getSlot();
     final String defaultSlot = context.getDefaultSlot();
-    final String slot = strategy.calcSlot(defaultSlot, moduleSlot, artifact);
+    final String slot = slotTable.calcSlot(defaultSlot, moduleSlot, artifact);
     return slot;
   }
 
@@ -178,8 +196,9 @@ public final class ModuleBuilder
     }
   }
 
-  private void copyResources(final File moduleFolder) throws IOException
+  private long copyResources(final File moduleFolder) throws IOException
   {
+    long bytes = 0L;
     for (final Dependency dependency : dependencies)
     {
       final Artifact artifact = dependency.getArtifact();
@@ -188,6 +207,9 @@ public final class ModuleBuilder
       {
         final File localFile = new File(moduleFolder, remoteFile.getName());
         FileUtils.copyFile(remoteFile, localFile);
+        final long length = localFile.length();
+        PerformanceRecorder.count(Counter.BYTES_COPIED, length);
+        bytes += length;
       }
       else
       {
@@ -197,6 +219,7 @@ public final class ModuleBuilder
                 dependency.getArtifact()));
       }
     }
+    return bytes;
   }
 
   // --- object basics --------------------------------------------------------
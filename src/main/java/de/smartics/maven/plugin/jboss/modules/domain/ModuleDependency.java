@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.domain;
+
+import org.eclipse.aether.graph.Dependency;
+
+/**
+ * A resolved dependency of one module to another module, as it is written to
+ * the <code>dependencies</code> element of a <code>module.xml</code>.
+ */
+public final class ModuleDependency
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The name of the referenced module.
+   */
+  private final String name;
+
+  /**
+   * The slot of the referenced module.
+   */
+  private final String slot;
+
+  /**
+   * The flag to mark the dependency as optional.
+   */
+  private final boolean optional;
+
+  /**
+   * The flag to re-export the referenced module.
+   */
+  private final boolean export;
+
+  /**
+   * The services attribute of the dependency. May be <code>null</code>.
+   */
+  private final String services;
+
+  /**
+   * The Maven dependency that caused the reference.
+   */
+  private final Dependency dependency;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param name the name of the referenced module.
+   * @param slot the slot of the referenced module.
+   * @param optional the flag to mark the dependency as optional.
+   * @param export the flag to re-export the referenced module.
+   * @param services the services attribute of the dependency. May be
+   *          <code>null</code>.
+   * @param dependency the Maven dependency that caused the reference.
+   */
+  public ModuleDependency(final String name, final String slot,
+      final boolean optional, final boolean export, final String services,
+      final Dependency dependency)
+  {
+    this.name = name;
+    this.slot = slot;
+    this.optional = optional;
+    this.export = export;
+    this.services = services;
+    this.dependency = dependency;
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the name of the referenced module.
+   *
+   * @return the name of the referenced module.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Returns the slot of the referenced module.
+   *
+   * @return the slot of the referenced module.
+   */
+  public String getSlot()
+  {
+    return slot;
+  }
+
+  /**
+   * Returns the flag to mark the dependency as optional.
+   *
+   * @return the flag to mark the dependency as optional.
+   */
+  public boolean isOptional()
+  {
+    return optional;
+  }
+
+  /**
+   * Returns the flag to re-export the referenced module.
+   *
+   * @return the flag to re-export the referenced module.
+   */
+  public boolean isExport()
+  {
+    return export;
+  }
+
+  /**
+   * Returns the services attribute of the dependency.
+   *
+   * @return the services attribute of the dependency. May be
+   *         <code>null</code>.
+   */
+  public String getServices()
+  {
+    return services;
+  }
+
+  /**
+   * Returns the Maven dependency that caused the reference.
+   *
+   * @return the Maven dependency that caused the reference.
+   */
+  public Dependency getDependency()
+  {
+    return dependency;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  // --- object basics --------------------------------------------------------
+
+  /**
+   * Returns the string representation of the object.
+   *
+   * @return the string representation of the object.
+   */
+  @Override
+  public String toString()
+  {
+    return name + ':' + slot + (optional ? " optional" : "")
+           + (export ? " export" : "")
+           + (services != null ? " services=" + services : "");
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+
+import de.smartics.maven.plugin.jboss.modules.aether.DependencySink;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToDependencies;
+import de.smartics.maven.plugin.jboss.modules.descriptor.DependenciesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Calculates the slot of a module and the module dependencies derived from the
+ * Maven dependencies of the artifacts that are part of the module.
+ */
+public final class ModuleDependencyCalculator
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The context and configuration to control the building of modules.
+   */
+  private final ExecutionContext context;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param context the context and configuration to control the building of
+   *          modules.
+   */
+  public ModuleDependencyCalculator(final ExecutionContext context)
+  {
+    this.context = Arg.checkNotNull("context", context);
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Calculates the slot of the given module.
+   *
+   * @param module the module whose slot is requested.
+   * @param dependencies the dependencies that are part of the module.
+   * @return the slot of the module.
+   */
+  public String calcSlot(final ModuleDescriptor module,
+      final Collection<Dependency> dependencies)
+  {
+    final SlotTable slotTable = context.getSlotTable();
+    final String moduleSlot = module.getSlot();
+    final String defaultSlot = context.getDefaultSlot();
+    final Artifact artifact = calcArtifact(dependencies);
+    final String slot = slotTable.calcSlot(defaultSlot, moduleSlot, artifact);
+    return slot;
+  }
+
+  private static Artifact calcArtifact(final Collection<Dependency> dependencies)
+  {
+    if (dependencies != null && !dependencies.isEmpty())
+    {
+      final Dependency dependency = dependencies.iterator().next();
+      final Artifact artifact = dependency.getArtifact();
+      return artifact;
+    }
+    return null;
+  }
+
+  /**
+   * Calculates the dependencies of the given module to other modules, sorted by
+   * the name of the referenced module. Dependencies marked to be skipped by
+   * the module's descriptor are not part of the result.
+   *
+   * @param module the module whose dependencies are requested.
+   * @param dependencies the dependencies that are part of the module.
+   * @return the dependencies to other modules.
+   */
+  public List<ModuleDependency> calcDependencies(final ModuleDescriptor module,
+      final Collection<Dependency> dependencies)
+  {
+    final Map<String, Dependency> sorted =
+        createSortedDependencies(module, dependencies);
+    final ApplyToDependencies apply = module.getApplyToDependencies();
+
+    final List<ModuleDependency> moduleDependencies =
+        new ArrayList<ModuleDependency>(sorted.size());
+    for (final Entry<String, Dependency> entry : sorted.entrySet())
+    {
+      final String name = entry.getKey();
+      final Dependency dependency = entry.getValue();
+      final DependenciesDescriptor dd = apply.getDescriptorThatMatches(name);
+      if (dd.getSkip() != null && dd.getSkip())
+      {
+        continue;
+      }
+
+      final boolean optional = calcOptional(dependency, dd);
+      final boolean export = calcExport(dd);
+      final String services = calcServices(dd);
+      final String slot = calcSlot(module, dependency);
+      moduleDependencies.add(new ModuleDependency(name, slot, optional,
+          export, services, dependency));
+    }
+    return moduleDependencies;
+  }
+
+  private static boolean calcOptional(final Dependency dependency,
+      final DependenciesDescriptor dd)
+  {
+    final Boolean ddOptional = dd.getOptional();
+    return (ddOptional != null && ddOptional)
+           || (ddOptional == null || dependency.isOptional());
+  }
+
+  private static boolean calcExport(final DependenciesDescriptor dd)
+  {
+    final Boolean ddExport = dd.getExport();
+    return ddExport != null && ddExport;
+  }
+
+  private static String calcServices(final DependenciesDescriptor dd)
+  {
+    final String services = dd.getServices();
+    if (services != null && !"none".equals(services))
+    {
+      return services;
+    }
+    return null;
+  }
+
+  private String calcSlot(final ModuleDescriptor module,
+      final Dependency dependency)
+  {
+    final SlotTable slotTable = context.getSlotTable();
+    final String defaultSlot = calcDefaultSlot(module, dependency);
+    return slotTable.calcSlot(dependency.getArtifact(), defaultSlot);
+  }
+
+  private String calcDefaultSlot(final ModuleDescriptor module,
+      final Dependency dependency)
+  {
+    final ModuleDescriptor depModule = context.getModule(dependency);
+    final String depModuleSlot = depModule.getSlot();
+    if (StringUtils.isNotBlank(depModuleSlot))
+    {
+      return depModuleSlot;
+    }
+
+    final boolean inheritSlot = module.getDirectives().getInheritSlot();
+    if (inheritSlot)
+    {
+      final String moduleSlot = module.getSlot();
+      if (StringUtils.isNotBlank(moduleSlot))
+      {
+        return moduleSlot;
+      }
+    }
+
+    final String defaultSlot = context.getDefaultSlot();
+    return defaultSlot;
+  }
+
+  private Map<String, Dependency> createSortedDependencies(
+      final ModuleDescriptor module, final Collection<Dependency> dependencies)
+  {
+    final Map<String, Dependency> sorted = new TreeMap<String, Dependency>();
+    final DependencySink sink = new DependencySink()
+    {
+      @Override
+      public void accept(final Dependency dependency)
+      {
+        addSortedDependency(sorted, module, dependency);
+      }
+    };
+    for (final Dependency dependency : dependencies)
+    {
+      context.resolve(dependency, sink);
+    }
+    return sorted;
+  }
+
+  private void addSortedDependency(final Map<String, Dependency> sorted,
+      final ModuleDescriptor owningModule, final Dependency dependency)
+  {
+    try
+    {
+      final ModuleDescriptor module = context.getModule(dependency);
+      final String name = module.getName();
+      if (!name.equals(owningModule.getName()) && !sorted.containsKey(name))
+      {
+        sorted.put(name, dependency);
+      }
+    }
+    catch (final IllegalArgumentException e)
+    {
+      context.getLog().error(
+          String.format("Skipping '%s' referenced from module '%s'.",
+              dependency.getArtifact().getArtifactId(),
+              owningModule.getName()));
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
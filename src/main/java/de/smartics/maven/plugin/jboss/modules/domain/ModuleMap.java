@@ -25,7 +25,6 @@ import java.util.Map.Entry;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
-import org.apache.commons.lang.ObjectUtils;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.graph.Dependency;
 
@@ -33,6 +32,8 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEvent;
+import de.smartics.maven.plugin.jboss.modules.perf.FlightEventType;
 import de.smartics.util.lang.Arg;
 
 /**
@@ -59,10 +60,16 @@ public final class ModuleMap
       HashMultimap.create();
 
   /**
-   * Maps a dependency to its module.
+   * Maps the key of the artifact of a dependency to its module.
    */
-  private final Map<DependencyKey, ModuleDescriptor> dependency2Module =
-      new HashMap<DependencyKey, ModuleDescriptor>();
+  private final Map<ArtifactKey, ModuleDescriptor> dependency2Module =
+      new HashMap<ArtifactKey, ModuleDescriptor>();
+
+  /**
+   * The results of matching artifacts shared with other module maps of the
+   * same configured modules. May be <code>null</code>.
+   */
+  private final ModuleMatchCache matchCache;
 
   // ****************************** Initializer *******************************
 
@@ -84,6 +91,7 @@ public final class ModuleMap
   public ModuleMap(final List<ModuleDescriptor> modules)
   {
     this.modules = modules;
+    this.matchCache = null;
   }
 
   /**
@@ -94,97 +102,34 @@ public final class ModuleMap
    */
   public ModuleMap(final List<ModuleDescriptor> modulesDescriptors,
       final Collection<Dependency> dependencies)
+  {
+    this(modulesDescriptors, dependencies, null);
+  }
+
+  /**
+   * Convenience constructor to initialize with values and to share the
+   * matching of artifacts with other module maps.
+   *
+   * @param modulesDescriptors the configured modules.
+   * @param dependencies the dependencies to add.
+   * @param matchCache the results of matching artifacts against the
+   *          configured modules. May be <code>null</code>.
+   * @since 1.1
+   */
+  public ModuleMap(final List<ModuleDescriptor> modulesDescriptors,
+      final Collection<Dependency> dependencies,
+      final ModuleMatchCache matchCache)
   {
     this.modules =
         new ArrayList<ModuleDescriptor>(modulesDescriptors != null
             ? modulesDescriptors : new ArrayList<ModuleDescriptor>());
+    this.matchCache = matchCache;
 
     initDependencies(dependencies);
   }
 
   // ****************************** Inner Classes *****************************
 
-  /**
-   * Makes dependencies equal according to the referenced artifact.
-   */
-  private static final class DependencyKey
-  {
-    // ******************************** Fields ********************************
-
-    // --- constants ----------------------------------------------------------
-
-    // --- members ------------------------------------------------------------
-
-    /**
-     * The wrapped dependency.
-     */
-    private final Dependency dependency;
-
-    // ***************************** Initializer ******************************
-
-    // ***************************** Constructors *****************************
-
-    private DependencyKey(final Dependency dependency)
-    {
-      this.dependency = dependency;
-    }
-
-    // ***************************** Inner Classes ****************************
-
-    // ******************************** Methods *******************************
-
-    // --- init ---------------------------------------------------------------
-
-    // --- get&set ------------------------------------------------------------
-
-    // --- business -----------------------------------------------------------
-
-    // --- object basics ------------------------------------------------------
-
-    @Override
-    public int hashCode()
-    {
-      return dependency.getArtifact().hashCode();
-    }
-
-    @Override
-    public boolean equals(final Object object)
-    {
-      if (this == object)
-      {
-        return true;
-      }
-      else if (object == null || getClass() != object.getClass())
-      {
-        return false;
-      }
-
-      final ModuleMap.DependencyKey other = (ModuleMap.DependencyKey) object;
-
-      final Artifact artifact = dependency.getArtifact();
-      final Artifact otherArtifact = other.dependency.getArtifact();
-
-      return checkArtifactsWithoutProperties(artifact, otherArtifact);
-    }
-
-    private boolean checkArtifactsWithoutProperties(final Artifact artifact,
-        final Artifact otherArtifact)
-    {
-      return (artifact.getArtifactId().equals(otherArtifact.getArtifactId())
-              && artifact.getGroupId().equals(otherArtifact.getGroupId())
-              && artifact.getVersion().equals(otherArtifact.getVersion())
-              && artifact.getExtension().equals(otherArtifact.getExtension())
-              && artifact.getClassifier().equals(otherArtifact.getClassifier()) && ObjectUtils
-          .equals(artifact.getFile(), otherArtifact.getFile()));
-    }
-
-    @Override
-    public String toString()
-    {
-      return dependency.toString();
-    }
-  }
-
   // ********************************* Methods ********************************
 
   // --- init -----------------------------------------------------------------
@@ -229,50 +174,85 @@ public final class ModuleMap
    */
   public synchronized ModuleDescriptor add(final Dependency dependency)
   {
-    final DependencyKey key = new DependencyKey(dependency);
+    final ArtifactKey key = ArtifactKey.of(dependency.getArtifact());
     final ModuleDescriptor alreadyStoredModule = dependency2Module.get(key);
     if (alreadyStoredModule != null)
     {
       return alreadyStoredModule;
     }
 
-    final ModuleDescriptor module = calcModule(key);
-    storeArtifact(module, dependency);
+    final ModuleDescriptor module = calcModule(key, dependency);
+    storeArtifact(module, key, dependency);
     return module;
   }
 
-  private ModuleDescriptor calcModule(final DependencyKey key)
+  private ModuleDescriptor calcModule(final ArtifactKey key,
+      final Dependency dependency)
   {
+    final FlightEvent event = FlightEvent.begin(FlightEventType.MODULE_MATCH);
     final ModuleDescriptor alreadyStoredModule = dependency2Module.get(key);
     if (alreadyStoredModule != null)
     {
-      return alreadyStoredModule;
+      return commit(event, key, alreadyStoredModule, "cached");
+    }
+    if (matchCache != null)
+    {
+      final ModuleDescriptor sharedModule = matchCache.get(key, modules);
+      if (sharedModule != null)
+      {
+        return commit(event, key, sharedModule, "shared");
+      }
     }
 
-    for (final ModuleDescriptor module : modules)
+    for (int i = 0, size = modules.size(); i < size; i++)
     {
+      final ModuleDescriptor module = modules.get(i);
       final MatchContext matchContext =
-          module.match(key.dependency.getArtifact());
+          module.match(dependency.getArtifact());
       if (matchContext.isMatched())
       {
         if (matchContext.hasGroupMatch())
         {
           final ModuleDescriptor newModule = createModule(matchContext, module);
-          return newModule;
+          if (matchCache != null)
+          {
+            matchCache.putMatched(key, i, newModule.getName());
+          }
+          return commit(event, key, newModule, "group-match");
         }
         else
         {
-          return module;
+          if (matchCache != null)
+          {
+            matchCache.putMatched(key, i, null);
+          }
+          return commit(event, key, module, "matched");
         }
       }
     }
 
-    final ModuleDescriptor module = createModule(key.dependency);
+    final ModuleDescriptor module = createModule(dependency);
+    if (matchCache != null)
+    {
+      matchCache.putUnmatched(key, module.getName());
+    }
+    return commit(event, key, module, "unmatched");
+  }
+
+  private static ModuleDescriptor commit(final FlightEvent event,
+      final ArtifactKey key, final ModuleDescriptor module,
+      final String outcome)
+  {
+    if (event.isEnabled())
+    {
+      event.set("artifact", key.toString())
+          .set("module", module.getName()).set("outcome", outcome).commit();
+    }
     return module;
   }
 
   private void storeArtifact(final ModuleDescriptor module,
-      final Dependency dependency)
+      final ArtifactKey key, final Dependency dependency)
   {
     if (!module.getDirectives().getSkip())
     {
@@ -287,7 +267,7 @@ public final class ModuleMap
         }
       }
       module2Dependencies.put(module, dependency);
-      dependency2Module.put(new DependencyKey(dependency), module);
+      dependency2Module.put(key, module);
     }
   }
 
@@ -350,12 +330,12 @@ public final class ModuleMap
    */
   public synchronized ModuleDescriptor getModule(final Dependency dependency)
   {
-    final DependencyKey key = new DependencyKey(dependency);
+    final ArtifactKey key = ArtifactKey.of(dependency.getArtifact());
     ModuleDescriptor module = dependency2Module.get(key);
 
     if (module == null)
     {
-      module = calcModule(key);
+      module = calcModule(key, dependency);
     }
     return module;
   }
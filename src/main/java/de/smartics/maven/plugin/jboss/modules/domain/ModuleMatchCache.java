@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.domain;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+
+/**
+ * Stores the results of matching artifacts against a list of configured
+ * modules, so that module maps of several executions with the same configured
+ * modules share the matching.
+ * <p>
+ * A result refers to a configured module by its index in the list and not by
+ * its instance, since executions work on their own copies of the configured
+ * modules. Modules created for a match are created by each module map.
+ * </p>
+ *
+ * @since 1.1
+ */
+@ThreadSafe
+public final class ModuleMatchCache
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The index signals that no configured module matched.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int UNMATCHED = -1;
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The match results by the key of the matched artifact.
+   */
+  private final ConcurrentMap<ArtifactKey, Match> matches =
+      new ConcurrentHashMap<ArtifactKey, Match>();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * The result of matching an artifact.
+   */
+  private static final class Match
+  {
+    /**
+     * The index of the matched configured module or {@link #UNMATCHED}.
+     */
+    private final int index;
+
+    /**
+     * The name of the module created for the artifact. <code>null</code> if
+     * the configured module is used as it is.
+     */
+    private final String name;
+
+    private Match(final int index, final String name)
+    {
+      this.index = index;
+      this.name = name;
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the number of cached match results.
+   *
+   * @return the number of cached match results.
+   */
+  public int size()
+  {
+    return matches.size();
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Returns the module for the artifact with the given key from the cached
+   * match result.
+   *
+   * @param key the key of the artifact.
+   * @param modules the configured modules the result refers to.
+   * @return the module of the artifact or <code>null</code> if no result is
+   *         cached for the artifact.
+   */
+  ModuleDescriptor get(final ArtifactKey key,
+      final List<ModuleDescriptor> modules)
+  {
+    final Match match = matches.get(key);
+    if (match == null)
+    {
+      return null;
+    }
+
+    if (match.index == UNMATCHED)
+    {
+      return ModuleDescriptor.create(match.name);
+    }
+    final ModuleDescriptor module = modules.get(match.index);
+    return match.name == null ? module : ModuleDescriptor.copy(match.name,
+        module);
+  }
+
+  /**
+   * Stores that the artifact with the given key matches a configured module.
+   *
+   * @param key the key of the artifact.
+   * @param index the index of the matched configured module.
+   * @param name the name of the module created for the artifact or
+   *          <code>null</code> if the configured module is used as it is.
+   */
+  void putMatched(final ArtifactKey key, final int index, final String name)
+  {
+    matches.putIfAbsent(key, new Match(index, name));
+  }
+
+  /**
+   * Stores that the artifact with the given key matches no configured module.
+   *
+   * @param key the key of the artifact.
+   * @param name the name of the module created for the artifact.
+   */
+  void putUnmatched(final ArtifactKey key, final String name)
+  {
+    matches.putIfAbsent(key, new Match(UNMATCHED, name));
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.domain;
+
+import org.eclipse.aether.artifact.Artifact;
+
+/**
+ * The naming strategy for module slots.
+ * <p>
+ * Strategies other than those of {@link SlotStrategy} are provided as services
+ * via a file
+ * <code>META-INF/services/de.smartics.maven.plugin.jboss.modules.domain.ModuleSlotStrategy</code>
+ * in a dependency of the plugin and are selected by their identifier. The slot
+ * of an artifact is calculated once and read from the {@link SlotTable}
+ * afterwards.
+ * </p>
+ *
+ * @since 1.1
+ */
+public interface ModuleSlotStrategy
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the identifier of the strategy to select it in the configuration
+   * of the plugin.
+   *
+   * @return the identifier of the strategy.
+   */
+  String getId();
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Calculates the part of the slot name that depends on the given artifact.
+   * The part is appended to the default slot, unless the default slot is
+   * <code>main</code>.
+   *
+   * @param artifact the artifact with additional information. If
+   *          <code>null</code>: a static prefix will be assumed.
+   * @return the artifact dependent part of the slot name or <code>null</code>
+   *         if the module is written to the default slot.
+   */
+  String calcArtifactSlot(Artifact artifact);
+}
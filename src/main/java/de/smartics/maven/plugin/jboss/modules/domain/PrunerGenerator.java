@@ -22,6 +22,7 @@ import org.eclipse.aether.collection.DependencyTraverser;
 
 import de.smartics.maven.plugin.jboss.modules.aether.DependencyTraverserGenerator;
 import de.smartics.maven.plugin.jboss.modules.aether.PruningDependencyTraverser;
+import de.smartics.maven.plugin.jboss.modules.aether.filter.SkippedModuleFilter;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ArtifactClusion;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
 
@@ -53,6 +54,12 @@ public class PrunerGenerator implements DependencyTraverserGenerator
    */
   private final boolean ignoreDependencyExclusions;
 
+  /**
+   * The filter to reject the resolution of the files of artifacts that belong
+   * to skipped modules. <code>null</code> if no module is skipped.
+   */
+  private final SkippedModuleFilter skippedModuleFilter;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
@@ -80,6 +87,8 @@ public class PrunerGenerator implements DependencyTraverserGenerator
         dependencyExcludes != null ? dependencyExcludes
             : new ArrayList<ArtifactClusion>();
     this.skipModules = calcSkipModules(modules);
+    this.skippedModuleFilter =
+        skipModules.isEmpty() ? null : new SkippedModuleFilter(modules);
     this.ignoreDependencyExclusions = ignoreDependencyExclusions;
   }
 
@@ -128,6 +137,12 @@ public class PrunerGenerator implements DependencyTraverserGenerator
         skipModules);
   }
 
+  @Override
+  public SkippedModuleFilter getSkippedModuleFilter()
+  {
+    return skippedModuleFilter;
+  }
+
   // --- object basics --------------------------------------------------------
 
 }
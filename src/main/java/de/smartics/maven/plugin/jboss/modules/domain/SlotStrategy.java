@@ -23,9 +23,9 @@ import org.eclipse.aether.artifact.Artifact;
 import edu.emory.mathcs.backport.java.util.Arrays;
 
 /**
- * The naming strategy for module slots.
+ * The naming strategies for module slots provided by the plugin.
  */
-public enum SlotStrategy
+public enum SlotStrategy implements ModuleSlotStrategy
 {
   // ***************************** Enumeration ******************************
 
@@ -41,7 +41,21 @@ public enum SlotStrategy
   /**
    * The module is set to the major artifact version slot.
    */
-  VERSION_MAJOR("version-major");
+  VERSION_MAJOR("version-major"),
+
+  /**
+   * The module is set to the major and minor artifact version slot.
+   *
+   * @since 1.1
+   */
+  VERSION_MINOR("version-minor"),
+
+  /**
+   * The module is set to the full artifact version slot.
+   *
+   * @since 1.1
+   */
+  VERSION_FULL("version-full");
 
   /**
    * The main slot.
@@ -68,6 +82,12 @@ public enum SlotStrategy
 
   // --- get&set ------------------------------------------------------------
 
+  @Override
+  public String getId()
+  {
+    return id;
+  }
+
   // --- business -----------------------------------------------------------
 
   /**
@@ -112,24 +132,30 @@ public enum SlotStrategy
    */
   public String calcSlot(final Artifact artifact, final String defaultSlot)
   {
-    if (this == VERSION_MAJOR)
+    return SlotTable.combine(defaultSlot, calcArtifactSlot(artifact));
+  }
+
+  @Override
+  public String calcArtifactSlot(final Artifact artifact)
+  {
+    if (this == MAIN)
     {
-      final String versionString = calcVersion(artifact);
-      final ArtifactVersion version = new DefaultArtifactVersion(versionString);
-      final int majorVersion = version.getMajorVersion();
-      final String slot;
-      if (!(StringUtils.isBlank(defaultSlot) || MAIN_SLOT.equals(defaultSlot)))
-      {
-        slot = defaultSlot + majorVersion;
-      }
-      else
-      {
-        slot = String.valueOf(majorVersion);
-      }
-      return slot;
+      return null;
+    }
+
+    final String versionString = calcVersion(artifact);
+    if (this == VERSION_FULL)
+    {
+      return versionString;
     }
 
-    return StringUtils.isBlank(defaultSlot) ? MAIN_SLOT : defaultSlot;
+    final ArtifactVersion version = new DefaultArtifactVersion(versionString);
+    final int majorVersion = version.getMajorVersion();
+    if (this == VERSION_MINOR)
+    {
+      return majorVersion + "." + version.getMinorVersion();
+    }
+    return String.valueOf(majorVersion);
   }
 
   /**
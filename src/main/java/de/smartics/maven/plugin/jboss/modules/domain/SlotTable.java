@@ -0,0 +1,230 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+
+import de.smartics.util.lang.Arg;
+
+/**
+ * Stores the artifact dependent part of the slot name of each artifact, as
+ * calculated by a {@link ModuleSlotStrategy}.
+ * <p>
+ * The table is filled with the resolved artifacts by
+ * {@link #addAll(Collection)}. Artifacts not added in advance are added on
+ * their first lookup. Instances are thread-safe.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class SlotTable
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The value stored for artifacts whose modules are written to the default
+   * slot.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String NO_ARTIFACT_SLOT = "";
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The strategy to calculate the slots.
+   */
+  private final ModuleSlotStrategy strategy;
+
+  /**
+   * The artifact dependent parts of slot names by artifact.
+   */
+  private final ConcurrentMap<ArtifactKey, String> artifactSlots =
+      new ConcurrentHashMap<ArtifactKey, String>();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param strategy the strategy to calculate the slots.
+   * @throws NullPointerException if {@code strategy} is <code>null</code>.
+   */
+  public SlotTable(final ModuleSlotStrategy strategy)
+    throws NullPointerException
+  {
+    this.strategy = Arg.checkNotNull("strategy", strategy);
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  /**
+   * Returns the slot strategy identified by the given {@code id}. The
+   * strategies of {@link SlotStrategy} are checked first, followed by the
+   * strategies provided as services.
+   *
+   * @param id the identifier of the requested slot strategy.
+   * @param classLoader the class loader to load provided strategies from.
+   * @return the requested slot strategy.
+   * @throws IllegalArgumentException if {@code id} is not a valid slot
+   *           strategy.
+   */
+  public static ModuleSlotStrategy findStrategy(final String id,
+      final ClassLoader classLoader) throws IllegalArgumentException
+  {
+    final List<String> ids = new ArrayList<String>();
+    for (final SlotStrategy strategy : SlotStrategy.values())
+    {
+      if (strategy.getId().equals(id))
+      {
+        return strategy;
+      }
+      ids.add(strategy.getId());
+    }
+
+    for (final ModuleSlotStrategy strategy : ServiceLoader.load(
+        ModuleSlotStrategy.class, classLoader))
+    {
+      if (strategy.getId().equals(id))
+      {
+        return strategy;
+      }
+      ids.add(strategy.getId());
+    }
+
+    throw new IllegalArgumentException(String.format(
+        "Invalid slot strategy '%s'. Allowed values are: %s", id, ids));
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the strategy to calculate the slots.
+   *
+   * @return the strategy to calculate the slots.
+   */
+  public ModuleSlotStrategy getStrategy()
+  {
+    return strategy;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Calculates the artifact dependent parts of the slot names of the artifacts
+   * of the given dependencies.
+   *
+   * @param dependencies the dependencies whose artifacts are to be added.
+   */
+  public void addAll(final Collection<Dependency> dependencies)
+  {
+    for (final Dependency dependency : dependencies)
+    {
+      getArtifactSlot(dependency.getArtifact());
+    }
+  }
+
+  /**
+   * Calculates the name for the slot.
+   *
+   * @param artifact the artifact with additional information. If
+   *          <code>null</code>: a static prefix will be assumed.
+   * @param defaultSlot the name of the default slot to use.
+   * @return the name of the slot.
+   */
+  public String calcSlot(final Artifact artifact, final String defaultSlot)
+  {
+    return combine(defaultSlot, getArtifactSlot(artifact));
+  }
+
+  /**
+   * Calculates the name for the slot.
+   *
+   * @param defaultSlot the name of the default slot. May be blank.
+   * @param moduleSlot the name of the module slot. May be blank.
+   * @param artifact the artifact with additional information. If
+   *          <code>null</code>: a static prefix will be assumed.
+   * @return the name of the slot.
+   */
+  public String calcSlot(final String defaultSlot, final String moduleSlot,
+      final Artifact artifact)
+  {
+    final String fallBackSlot =
+        StringUtils.isBlank(moduleSlot) ? defaultSlot : moduleSlot;
+    return calcSlot(artifact, fallBackSlot);
+  }
+
+  private String getArtifactSlot(final Artifact artifact)
+  {
+    if (artifact == null)
+    {
+      return strategy.calcArtifactSlot(null);
+    }
+
+    final ArtifactKey key = ArtifactKey.of(artifact);
+    String artifactSlot = artifactSlots.get(key);
+    if (artifactSlot == null)
+    {
+      final String calculated = strategy.calcArtifactSlot(artifact);
+      artifactSlot = calculated != null ? calculated : NO_ARTIFACT_SLOT;
+      artifactSlots.putIfAbsent(key, artifactSlot);
+    }
+    return artifactSlot.length() > 0 ? artifactSlot : null;
+  }
+
+  /**
+   * Combines the default slot with the artifact dependent part of the slot
+   * name.
+   *
+   * @param defaultSlot the name of the default slot. May be blank.
+   * @param artifactSlot the artifact dependent part of the slot name. May be
+   *          <code>null</code>.
+   * @return the name of the slot.
+   */
+  static String combine(final String defaultSlot, final String artifactSlot)
+  {
+    final boolean blankDefault =
+        StringUtils.isBlank(defaultSlot)
+            || SlotStrategy.MAIN_SLOT.equals(defaultSlot);
+    if (artifactSlot == null)
+    {
+      return StringUtils.isBlank(defaultSlot) ? SlotStrategy.MAIN_SLOT
+          : defaultSlot;
+    }
+    return blankDefault ? artifactSlot : defaultSlot + artifactSlot;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -20,6 +20,8 @@ import java.util.List;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.resolution.DependencyResolutionException;
 
+import de.smartics.maven.plugin.jboss.modules.aether.DependencySink;
+
 /**
  * Resolves the transitive dependencies for a given artifact.
  */
@@ -72,6 +74,32 @@ public interface TransitiveDependencyResolver
   List<Dependency> resolve(List<Dependency> dependencies)
     throws DependencyResolutionException;
 
+  /**
+   * Resolves the direct dependencies for the given dependency and passes them
+   * to the given sink.
+   *
+   * @param dependency the dependency whose calculation of direct dependencies
+   *          is requested.
+   * @param sink the sink to receive the direct dependencies.
+   * @throws DependencyResolutionException if the dependency cannot be resolved.
+   * @since 1.1
+   */
+  void resolveDirect(Dependency dependency, DependencySink sink)
+    throws DependencyResolutionException;
+
+  /**
+   * Resolves the transitive dependencies for the given dependencies and passes
+   * them to the given sink.
+   *
+   * @param dependencies the dependencies whose calculation of transitive
+   *          dependencies is requested.
+   * @param sink the sink to receive the transitive dependencies.
+   * @throws DependencyResolutionException if any dependency cannot be resolved.
+   * @since 1.1
+   */
+  void resolve(List<Dependency> dependencies, DependencySink sink)
+    throws DependencyResolutionException;
+
   // --- object basics --------------------------------------------------------
 
 }
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.smartics.util.lang.Arg;
+
+/**
+ * Detects cycles in the module graph by calculating its strongly connected
+ * components with Tarjan's algorithm.
+ * <p>
+ * The edges not marked as removed are copied into a compressed adjacency
+ * array of node identifiers. The algorithm is implemented iteratively so that
+ * deep graphs do not exhaust the call stack. Time and space are linear in the
+ * number of nodes and edges.
+ * </p>
+ */
+public final class CycleDetector
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The marker for nodes not visited yet.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int UNVISITED = -1;
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The graph to analyze.
+   */
+  private final ModuleGraph graph;
+
+  /**
+   * The start offset of the targets of each node in {@link #targets}. The
+   * targets of node <code>i</code> are stored from
+   * <code>offsets[i]</code> to <code>offsets[i + 1]</code> (exclusive).
+   */
+  private final int[] offsets;
+
+  /**
+   * The targets of all edges, grouped by source node.
+   */
+  private final int[] targets;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param graph the graph to analyze.
+   */
+  public CycleDetector(final ModuleGraph graph)
+  {
+    this.graph = Arg.checkNotNull("graph", graph);
+
+    final int nodeCount = graph.getNodeCount();
+    this.offsets = new int[nodeCount + 1];
+    this.targets = new int[graph.getEdgeCount()];
+    int index = 0;
+    for (int id = 0; id < nodeCount; id++)
+    {
+      offsets[id] = index;
+      for (final ModuleGraph.Edge edge : graph.getNode(id).getEdges())
+      {
+        if (!edge.isRemoved() && edge.getTarget() != ModuleGraph.UNKNOWN)
+        {
+          targets[index++] = edge.getTarget();
+        }
+      }
+    }
+    offsets[nodeCount] = index;
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Calculates the strongly connected components of the graph that contain a
+   * cycle. These are all components with more than one node and components
+   * with a single node that depends on itself.
+   *
+   * @return the node identifiers of each component containing a cycle, sorted
+   *         ascending within each component.
+   */
+  public List<int[]> findCycles()
+  {
+    final int nodeCount = offsets.length - 1;
+    final int[] index = new int[nodeCount];
+    final int[] lowLink = new int[nodeCount];
+    final boolean[] onStack = new boolean[nodeCount];
+    final int[] stack = new int[nodeCount];
+    final int[] callNodes = new int[nodeCount];
+    final int[] callEdges = new int[nodeCount];
+    Arrays.fill(index, UNVISITED);
+
+    final List<int[]> cycles = new ArrayList<int[]>();
+    int counter = 0;
+    int stackTop = 0;
+
+    for (int root = 0; root < nodeCount; root++)
+    {
+      if (index[root] != UNVISITED)
+      {
+        continue;
+      }
+
+      int callTop = 0;
+      callNodes[callTop] = root;
+      callEdges[callTop] = offsets[root];
+      callTop++;
+      index[root] = lowLink[root] = counter++;
+      stack[stackTop++] = root;
+      onStack[root] = true;
+
+      while (callTop > 0)
+      {
+        final int node = callNodes[callTop - 1];
+        final int edge = callEdges[callTop - 1];
+        if (edge < offsets[node + 1])
+        {
+          callEdges[callTop - 1] = edge + 1;
+          final int target = targets[edge];
+          if (index[target] == UNVISITED)
+          {
+            index[target] = lowLink[target] = counter++;
+            stack[stackTop++] = target;
+            onStack[target] = true;
+            callNodes[callTop] = target;
+            callEdges[callTop] = offsets[target];
+            callTop++;
+          }
+          else if (onStack[target])
+          {
+            lowLink[node] = Math.min(lowLink[node], index[target]);
+          }
+          continue;
+        }
+
+        callTop--;
+        if (callTop > 0)
+        {
+          final int parent = callNodes[callTop - 1];
+          lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+        }
+
+        if (lowLink[node] == index[node])
+        {
+          int start = stackTop;
+          do
+          {
+            start--;
+            onStack[stack[start]] = false;
+          }
+          while (stack[start] != node);
+
+          final int[] component = Arrays.copyOfRange(stack, start, stackTop);
+          stackTop = start;
+          if (component.length > 1 || hasSelfLoop(node))
+          {
+            Arrays.sort(component);
+            cycles.add(component);
+          }
+        }
+      }
+    }
+
+    return cycles;
+  }
+
+  private boolean hasSelfLoop(final int node)
+  {
+    for (int edge = offsets[node]; edge < offsets[node + 1]; edge++)
+    {
+      if (targets[edge] == node)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Renders a report of the given cycles. For each cycle the modules and the
+   * dependencies between them are listed.
+   *
+   * @param cycles the cycles as returned by {@link #findCycles()}.
+   * @return the report.
+   */
+  public String createReport(final List<int[]> cycles)
+  {
+    final StringBuilder buffer = new StringBuilder(256);
+    buffer.append("Module cycles: ").append(cycles.size()).append('\n');
+    int number = 1;
+    for (final int[] component : cycles)
+    {
+      buffer.append('\n').append("Cycle ").append(number++).append(" (")
+          .append(component.length).append(" modules):\n");
+      for (final int id : component)
+      {
+        final ModuleGraph.Node node = graph.getNode(id);
+        buffer.append("  ").append(node).append('\n');
+        for (int edge = offsets[id]; edge < offsets[id + 1]; edge++)
+        {
+          final int target = targets[edge];
+          if (Arrays.binarySearch(component, target) >= 0)
+          {
+            buffer.append("    -> ").append(graph.getNode(target))
+                .append('\n');
+          }
+        }
+      }
+    }
+    return buffer.toString();
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,583 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Writes a snapshot of the dependency graph of a build to allow comparing the
+ * graphs of different builds and processing them by other tools. The snapshot
+ * contains the modules of the graph, the artifacts with their scope and the
+ * module they are assigned to, and the dependencies between modules together
+ * with the artifact that caused them.
+ * <p>
+ * The snapshot is written while traversing the graph, without creating an
+ * intermediate representation. It is available in two formats:
+ * </p>
+ * <ul>
+ * <li>A compact binary format written by {@link #writeBinary(File)}.</li>
+ * <li>A JSON document written by {@link #writeJson(File)}.</li>
+ * </ul>
+ * <p>
+ * The binary format starts with the integer {@link #MAGIC} and the integer
+ * {@link #FORMAT_VERSION}, followed by records. Each record starts with a tag
+ * byte, integers are written as variable length quantities of seven bits per
+ * byte, least significant group first:
+ * </p>
+ * <ul>
+ * <li><code>1</code> string: the string in modified UTF-8 as written by
+ * {@link DataOutputStream#writeUTF(String)}. Strings are numbered from zero in
+ * the order of their records and are referenced by this number.</li>
+ * <li><code>2</code> module: the name, the slot and a flag byte with bit 0 set
+ * for generated modules. Modules are numbered from zero in the order of their
+ * records.</li>
+ * <li><code>3</code> artifact: the identifier, the scope, the number of the
+ * module and a flag byte with bit 0 set for root dependencies and bit 1 set
+ * for optional dependencies.</li>
+ * <li><code>4</code> edge: the number of the source module, the name and slot
+ * of the referenced module, the number of the referenced module plus one
+ * (zero if the module is not part of the graph), the identifier of the
+ * causing artifact and a flag byte with bit 0 set for optional, bit 1 for
+ * exported and bit 2 for removed edges.</li>
+ * <li><code>0</code> end of the snapshot.</li>
+ * </ul>
+ * <p>
+ * Artifacts are identified by
+ * <code>groupId:artifactId:extension[:classifier]:version</code>. Artifacts
+ * are written ordered by their identifier within their module to allow
+ * snapshots to be compared textually.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class GraphSnapshotWriter
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The first integer of a binary snapshot.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  public static final int MAGIC = 0x4A4D4753;
+
+  /**
+   * The version of the binary format.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  /**
+   * The tag of the record ending a binary snapshot.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  static final int TAG_END = 0;
+
+  /**
+   * The tag of a string record.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  static final int TAG_STRING = 1;
+
+  /**
+   * The tag of a module record.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  static final int TAG_MODULE = 2;
+
+  /**
+   * The tag of an artifact record.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  static final int TAG_ARTIFACT = 3;
+
+  /**
+   * The tag of an edge record.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  static final int TAG_EDGE = 4;
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The graph of modules.
+   */
+  private final ModuleGraph graph;
+
+  /**
+   * The artifacts assigned to each module of the graph.
+   */
+  private final Map<ModuleDescriptor, List<Dependency>> modules;
+
+  /**
+   * The identifiers of the root dependencies.
+   */
+  private final Set<String> rootIds;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param graph the graph of modules.
+   * @param modules the artifacts assigned to each module of the graph.
+   * @param rootDependencies the root dependencies of the build.
+   * @throws NullPointerException if any argument is <code>null</code>.
+   */
+  public GraphSnapshotWriter(final ModuleGraph graph,
+      final Map<ModuleDescriptor, List<Dependency>> modules,
+      final Collection<Dependency> rootDependencies)
+    throws NullPointerException
+  {
+    this.graph = Arg.checkNotNull("graph", graph);
+    this.modules = Arg.checkNotNull("modules", modules);
+    Arg.checkNotNull("rootDependencies", rootDependencies);
+    this.rootIds = new HashSet<String>(rootDependencies.size() * 2);
+    for (final Dependency dependency : rootDependencies)
+    {
+      rootIds.add(ArtifactIdUtils.toId(dependency.getArtifact()));
+    }
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * Receives the elements of the graph in the order of traversal.
+   */
+  private interface Sink
+  {
+    void section(String name) throws IOException;
+
+    void module(ModuleGraph.Node node) throws IOException;
+
+    void artifact(String id, String scope, int module, boolean root,
+        boolean optional) throws IOException;
+
+    void edge(ModuleGraph.Edge edge, String via) throws IOException;
+
+    void end() throws IOException;
+  }
+
+  /**
+   * Writes the binary format with interned strings.
+   */
+  private static final class BinarySink implements Sink
+  {
+    /**
+     * The stream to write to.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Maps the strings already written to their number.
+     */
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    private BinarySink(final DataOutputStream out) throws IOException
+    {
+      this.out = out;
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+    }
+
+    @Override
+    public void section(final String name)
+    {
+    }
+
+    private int intern(final String string) throws IOException
+    {
+      final Integer id = strings.get(string);
+      if (id != null)
+      {
+        return id;
+      }
+      final int newId = strings.size();
+      strings.put(string, newId);
+      out.writeByte(TAG_STRING);
+      out.writeUTF(string);
+      return newId;
+    }
+
+    private void writeVarInt(final int value) throws IOException
+    {
+      int remaining = value;
+      while ((remaining & ~0x7F) != 0)
+      {
+        out.writeByte((remaining & 0x7F) | 0x80);
+        remaining >>>= 7;
+      }
+      out.writeByte(remaining);
+    }
+
+    @Override
+    public void module(final ModuleGraph.Node node) throws IOException
+    {
+      final int name = intern(node.getName());
+      final int slot = intern(node.getSlot());
+      out.writeByte(TAG_MODULE);
+      writeVarInt(name);
+      writeVarInt(slot);
+      out.writeByte(node.isGenerated() ? 1 : 0);
+    }
+
+    @Override
+    public void artifact(final String id, final String scope,
+        final int module, final boolean root, final boolean optional)
+      throws IOException
+    {
+      final int idIndex = intern(id);
+      final int scopeIndex = intern(scope);
+      out.writeByte(TAG_ARTIFACT);
+      writeVarInt(idIndex);
+      writeVarInt(scopeIndex);
+      writeVarInt(module);
+      out.writeByte((root ? 1 : 0) | (optional ? 2 : 0));
+    }
+
+    @Override
+    public void edge(final ModuleGraph.Edge edge, final String via)
+      throws IOException
+    {
+      final ModuleDependency dependency = edge.getDependency();
+      final int name = intern(dependency.getName());
+      final int slot = intern(dependency.getSlot());
+      final int viaIndex = intern(via);
+      out.writeByte(TAG_EDGE);
+      writeVarInt(edge.getSource());
+      writeVarInt(name);
+      writeVarInt(slot);
+      writeVarInt(edge.getTarget() + 1);
+      writeVarInt(viaIndex);
+      out.writeByte((dependency.isOptional() ? 1 : 0)
+                    | (dependency.isExport() ? 2 : 0)
+                    | (edge.isRemoved() ? 4 : 0));
+    }
+
+    @Override
+    public void end() throws IOException
+    {
+      out.writeByte(TAG_END);
+    }
+  }
+
+  /**
+   * Writes a JSON document with the arrays <code>modules</code>,
+   * <code>artifacts</code> and <code>edges</code>.
+   */
+  private static final class JsonSink implements Sink
+  {
+    /**
+     * The writer to write to.
+     */
+    private final Writer out;
+
+    /**
+     * The flag signals that an array has been opened.
+     */
+    private boolean open;
+
+    /**
+     * The flag signals that no element has been written to the current array.
+     */
+    private boolean first;
+
+    private JsonSink(final Writer out) throws IOException
+    {
+      this.out = out;
+      out.write('{');
+    }
+
+    @Override
+    public void section(final String name) throws IOException
+    {
+      closeArray();
+      out.write(open ? ",\n  \"" : "\n  \"");
+      out.write(name);
+      out.write("\": [");
+      open = true;
+      first = true;
+    }
+
+    private void element() throws IOException
+    {
+      out.write(first ? "\n    { " : ",\n    { ");
+      first = false;
+    }
+
+    private void closeArray() throws IOException
+    {
+      if (open)
+      {
+        out.write(first ? "]" : "\n  ]");
+      }
+    }
+
+    private void property(final String name, final String value,
+        final boolean last) throws IOException
+    {
+      out.write('"');
+      out.write(name);
+      out.write("\": \"");
+      out.write(escape(value));
+      out.write(last ? "\" }" : "\", ");
+    }
+
+    private void property(final String name, final Object value,
+        final boolean last) throws IOException
+    {
+      out.write('"');
+      out.write(name);
+      out.write("\": ");
+      out.write(String.valueOf(value));
+      out.write(last ? " }" : ", ");
+    }
+
+    @Override
+    public void module(final ModuleGraph.Node node) throws IOException
+    {
+      element();
+      property("id", node.getId(), false);
+      property("name", node.getName(), false);
+      property("slot", node.getSlot(), false);
+      property("generated", node.isGenerated(), true);
+    }
+
+    @Override
+    public void artifact(final String id, final String scope,
+        final int module, final boolean root, final boolean optional)
+      throws IOException
+    {
+      element();
+      property("id", id, false);
+      property("scope", scope, false);
+      property("module", module, false);
+      property("root", root, false);
+      property("optional", optional, true);
+    }
+
+    @Override
+    public void edge(final ModuleGraph.Edge edge, final String via)
+      throws IOException
+    {
+      final ModuleDependency dependency = edge.getDependency();
+      element();
+      property("source", edge.getSource(), false);
+      property("name", dependency.getName(), false);
+      property("slot", dependency.getSlot(), false);
+      property("target", edge.getTarget(), false);
+      property("via", via, false);
+      property("optional", dependency.isOptional(), false);
+      property("export", dependency.isExport(), false);
+      property("removed", edge.isRemoved(), true);
+    }
+
+    @Override
+    public void end() throws IOException
+    {
+      closeArray();
+      out.write("\n}\n");
+    }
+
+    private static String escape(final String string)
+    {
+      final StringBuilder buffer = new StringBuilder(string.length() + 8);
+      for (int i = 0, length = string.length(); i < length; i++)
+      {
+        final char c = string.charAt(i);
+        switch (c)
+        {
+          case '"':
+            buffer.append("\\\"");
+            break;
+          case '\\':
+            buffer.append("\\\\");
+            break;
+          case '\b':
+            buffer.append("\\b");
+            break;
+          case '\f':
+            buffer.append("\\f");
+            break;
+          case '\n':
+            buffer.append("\\n");
+            break;
+          case '\r':
+            buffer.append("\\r");
+            break;
+          case '\t':
+            buffer.append("\\t");
+            break;
+          default:
+            if (c < 0x20)
+            {
+              buffer.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+              buffer.append(c);
+            }
+            break;
+        }
+      }
+      return buffer.toString();
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Writes the snapshot in the binary format to the given file.
+   *
+   * @param file the file to write to.
+   * @throws IOException on any problem writing the file.
+   */
+  public void writeBinary(final File file) throws IOException
+  {
+    final DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(
+            FileUtils.openOutputStream(file)));
+    try
+    {
+      write(new BinarySink(out));
+      out.flush();
+    }
+    finally
+    {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  /**
+   * Writes the snapshot as a JSON document to the given file.
+   *
+   * @param file the file to write to.
+   * @throws IOException on any problem writing the file.
+   */
+  public void writeJson(final File file) throws IOException
+  {
+    final Writer out =
+        new BufferedWriter(new OutputStreamWriter(
+            FileUtils.openOutputStream(file), "UTF-8"));
+    try
+    {
+      write(new JsonSink(out));
+      out.flush();
+    }
+    finally
+    {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  private void write(final Sink sink) throws IOException
+  {
+    final List<ModuleGraph.Node> nodes = graph.getNodes();
+    sink.section("modules");
+    for (final ModuleGraph.Node node : nodes)
+    {
+      sink.module(node);
+    }
+    sink.section("artifacts");
+    for (final ModuleGraph.Node node : nodes)
+    {
+      final List<Dependency> dependencies = modules.get(node.getModule());
+      if (dependencies != null)
+      {
+        writeArtifacts(sink, node.getId(), dependencies);
+      }
+    }
+    sink.section("edges");
+    for (final ModuleGraph.Node node : nodes)
+    {
+      for (final ModuleGraph.Edge edge : node.getEdges())
+      {
+        final Dependency via = edge.getDependency().getDependency();
+        sink.edge(edge,
+            via != null ? ArtifactIdUtils.toId(via.getArtifact()) : "");
+      }
+    }
+    sink.end();
+  }
+
+  private void writeArtifacts(final Sink sink, final int module,
+      final List<Dependency> dependencies) throws IOException
+  {
+    final Map<String, Dependency> byId =
+        new HashMap<String, Dependency>(dependencies.size() * 2);
+    for (final Dependency dependency : dependencies)
+    {
+      byId.put(ArtifactIdUtils.toId(dependency.getArtifact()), dependency);
+    }
+    final List<String> ids = new ArrayList<String>(byId.keySet());
+    Collections.sort(ids);
+    for (final String id : ids)
+    {
+      final Dependency dependency = byId.get(id);
+      sink.artifact(id, dependency.getScope(), module, rootIds.contains(id),
+          dependency.isOptional());
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
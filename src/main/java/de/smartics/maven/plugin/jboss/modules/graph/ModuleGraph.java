@@ -0,0 +1,500 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+
+/**
+ * The graph of modules to be generated. Each node is a module identified by
+ * its name and slot, each edge is a dependency of one module to another as it
+ * is written to the <code>module.xml</code> of the source module.
+ * <p>
+ * Nodes are identified by their index in the graph. Edges are never deleted,
+ * but marked as removed by optimization passes.
+ * </p>
+ */
+public final class ModuleGraph
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The identifier of edge targets that are not part of the graph.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  public static final int UNKNOWN = -1;
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The nodes of the graph in the order of their identifiers.
+   */
+  private final List<Node> nodes = new ArrayList<Node>();
+
+  /**
+   * Maps the key of a module (name and slot) to its identifier.
+   */
+  private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  ModuleGraph()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * A module within the graph.
+   */
+  public static final class Node
+  {
+    /**
+     * The identifier of the node within the graph.
+     */
+    private final int id;
+
+    /**
+     * The descriptor of the module.
+     */
+    private final ModuleDescriptor module;
+
+    /**
+     * The slot of the module.
+     */
+    private final String slot;
+
+    /**
+     * The flag signals that the module is written by this build. Modules that
+     * are skipped are provided otherwise and their dependencies are unknown.
+     */
+    private final boolean generated;
+
+    /**
+     * The archives that are the resource roots of the module.
+     */
+    private final List<File> resources;
+
+    /**
+     * The dependencies of the module.
+     */
+    private final List<Edge> edges = new ArrayList<Edge>();
+
+    private Node(final int id, final ModuleDescriptor module,
+        final String slot, final boolean generated, final List<File> resources)
+    {
+      this.id = id;
+      this.module = module;
+      this.slot = slot;
+      this.generated = generated;
+      this.resources = resources;
+    }
+
+    /**
+     * Returns the identifier of the node within the graph.
+     *
+     * @return the identifier of the node within the graph.
+     */
+    public int getId()
+    {
+      return id;
+    }
+
+    /**
+     * Returns the descriptor of the module.
+     *
+     * @return the descriptor of the module.
+     */
+    public ModuleDescriptor getModule()
+    {
+      return module;
+    }
+
+    /**
+     * Returns the name of the module.
+     *
+     * @return the name of the module.
+     */
+    public String getName()
+    {
+      return module.getName();
+    }
+
+    /**
+     * Returns the slot of the module.
+     *
+     * @return the slot of the module.
+     */
+    public String getSlot()
+    {
+      return slot;
+    }
+
+    /**
+     * Checks if the module is written by this build.
+     *
+     * @return <code>true</code> if the module is written by this build,
+     *         <code>false</code> if it is skipped.
+     */
+    public boolean isGenerated()
+    {
+      return generated;
+    }
+
+    /**
+     * Returns the archives that are the resource roots of the module.
+     *
+     * @return the archives that are the resource roots of the module.
+     */
+    public List<File> getResources()
+    {
+      return resources;
+    }
+
+    /**
+     * Returns the dependencies of the module, including those marked as
+     * removed.
+     *
+     * @return the dependencies of the module.
+     */
+    public List<Edge> getEdges()
+    {
+      return edges;
+    }
+
+    @Override
+    public String toString()
+    {
+      return createKey(module.getName(), slot);
+    }
+  }
+
+  /**
+   * A dependency of one module to another.
+   */
+  public static final class Edge
+  {
+    /**
+     * The identifier of the module that declares the dependency.
+     */
+    private final int source;
+
+    /**
+     * The identifier of the referenced module or {@link ModuleGraph#UNKNOWN}
+     * if the referenced module is not part of the graph.
+     */
+    private int target = UNKNOWN;
+
+    /**
+     * The dependency as it is written to the descriptor.
+     */
+    private final ModuleDependency dependency;
+
+    /**
+     * The flag signals that the edge has been removed by an optimization.
+     */
+    private boolean removed;
+
+    private Edge(final int source, final ModuleDependency dependency)
+    {
+      this.source = source;
+      this.dependency = dependency;
+    }
+
+    /**
+     * Returns the identifier of the module that declares the dependency.
+     *
+     * @return the identifier of the module that declares the dependency.
+     */
+    public int getSource()
+    {
+      return source;
+    }
+
+    /**
+     * Returns the identifier of the referenced module.
+     *
+     * @return the identifier of the referenced module or
+     *         {@link ModuleGraph#UNKNOWN} if the referenced module is not part
+     *         of the graph.
+     */
+    public int getTarget()
+    {
+      return target;
+    }
+
+    /**
+     * Returns the dependency as it is written to the descriptor.
+     *
+     * @return the dependency as it is written to the descriptor.
+     */
+    public ModuleDependency getDependency()
+    {
+      return dependency;
+    }
+
+    /**
+     * Checks if the edge has been removed by an optimization.
+     *
+     * @return <code>true</code> if the edge has been removed,
+     *         <code>false</code> otherwise.
+     */
+    public boolean isRemoved()
+    {
+      return removed;
+    }
+
+    /**
+     * Marks the edge as removed.
+     */
+    public void remove()
+    {
+      this.removed = true;
+    }
+
+    @Override
+    public String toString()
+    {
+      return source + " -> " + target + ": " + dependency
+             + (removed ? " (removed)" : "");
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  static String createKey(final String name, final String slot)
+  {
+    return name + ':' + slot;
+  }
+
+  Node addNode(final ModuleDescriptor module, final String slot,
+      final boolean generated, final List<File> resources)
+  {
+    final Node node =
+        new Node(nodes.size(), module, slot, generated, resources);
+    nodes.add(node);
+    ids.put(createKey(module.getName(), slot), node.id);
+    return node;
+  }
+
+  static Edge addEdge(final Node node, final ModuleDependency dependency)
+  {
+    final Edge edge = new Edge(node.id, dependency);
+    node.edges.add(edge);
+    return edge;
+  }
+
+  void link()
+  {
+    for (final Node node : nodes)
+    {
+      for (final Edge edge : node.edges)
+      {
+        final ModuleDependency dependency = edge.dependency;
+        edge.target = getNodeId(dependency.getName(), dependency.getSlot());
+      }
+    }
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the number of nodes in the graph.
+   *
+   * @return the number of nodes in the graph.
+   */
+  public int getNodeCount()
+  {
+    return nodes.size();
+  }
+
+  /**
+   * Returns the node with the given identifier.
+   *
+   * @param id the identifier of the requested node.
+   * @return the requested node.
+   * @throws IndexOutOfBoundsException if there is no node with the given
+   *           identifier.
+   */
+  public Node getNode(final int id) throws IndexOutOfBoundsException
+  {
+    return nodes.get(id);
+  }
+
+  /**
+   * Returns the nodes of the graph in the order of their identifiers.
+   *
+   * @return the nodes of the graph.
+   */
+  public List<Node> getNodes()
+  {
+    return nodes;
+  }
+
+  /**
+   * Returns the identifier of the module with the given name and slot.
+   *
+   * @param name the name of the module.
+   * @param slot the slot of the module.
+   * @return the identifier of the module or {@link #UNKNOWN} if the module is
+   *         not part of the graph.
+   */
+  public int getNodeId(final String name, final String slot)
+  {
+    final Integer id = ids.get(createKey(name, slot));
+    return id != null ? id : UNKNOWN;
+  }
+
+  /**
+   * Returns the number of edges not marked as removed.
+   *
+   * @return the number of edges not marked as removed.
+   */
+  public int getEdgeCount()
+  {
+    int count = 0;
+    for (final Node node : nodes)
+    {
+      for (final Edge edge : node.edges)
+      {
+        if (!edge.removed)
+        {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Returns the dependencies of the module with the given name and slot that
+   * are not marked as removed.
+   *
+   * @param name the name of the module.
+   * @param slot the slot of the module.
+   * @return the dependencies of the module or <code>null</code> if the module
+   *         is not part of the graph.
+   */
+  public List<ModuleDependency> getDependencies(final String name,
+      final String slot)
+  {
+    final int id = getNodeId(name, slot);
+    if (id == UNKNOWN)
+    {
+      return null;
+    }
+
+    final List<Edge> edges = nodes.get(id).edges;
+    final List<ModuleDependency> dependencies =
+        new ArrayList<ModuleDependency>(edges.size());
+    for (final Edge edge : edges)
+    {
+      if (!edge.removed)
+      {
+        dependencies.add(edge.dependency);
+      }
+    }
+    return dependencies;
+  }
+
+  /**
+   * Calculates the modules re-exported by the given module, either directly or
+   * via a chain of re-exported dependencies. Optional dependencies are only
+   * followed if the referenced module is generated by this build, since
+   * otherwise it is not known to be present at runtime. Dependencies marked as
+   * removed are followed, since removing a dependency never affects a
+   * re-exported dependency.
+   *
+   * @param id the identifier of the module.
+   * @return the identifiers of the re-exported modules.
+   */
+  public BitSet calcExportClosure(final int id)
+  {
+    final int nodeCount = nodes.size();
+    final BitSet closure = new BitSet(nodeCount);
+    final BitSet visited = new BitSet(nodeCount);
+    final int[] stack = new int[nodeCount];
+    int top = 0;
+    stack[top++] = id;
+    visited.set(id);
+    while (top > 0)
+    {
+      final int current = stack[--top];
+      for (final Edge edge : nodes.get(current).edges)
+      {
+        final int target = edge.target;
+        if (target == UNKNOWN || !isReExported(edge))
+        {
+          continue;
+        }
+
+        closure.set(target);
+        if (!visited.get(target))
+        {
+          visited.set(target);
+          stack[top++] = target;
+        }
+      }
+    }
+    return closure;
+  }
+
+  private boolean isReExported(final Edge edge)
+  {
+    final ModuleDependency dependency = edge.dependency;
+    return dependency.isExport()
+           && (!dependency.isOptional() || nodes.get(edge.target).generated);
+  }
+
+  // --- object basics --------------------------------------------------------
+
+  /**
+   * Returns the string representation of the object.
+   *
+   * @return the string representation of the object.
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    for (final Node node : nodes)
+    {
+      buffer.append(node.id).append(' ').append(node).append('\n');
+      for (final Edge edge : node.edges)
+      {
+        buffer.append("  ").append(edge).append('\n');
+      }
+    }
+    return buffer.toString();
+  }
+}
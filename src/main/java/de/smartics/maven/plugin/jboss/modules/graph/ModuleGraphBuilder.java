@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.eclipse.aether.graph.Dependency;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ExecutionContext;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependencyCalculator;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Builds the {@link ModuleGraph} of the modules registered in the module map
+ * of an execution context.
+ */
+public final class ModuleGraphBuilder
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The context providing the modules and the resolver for dependencies.
+   */
+  private final ExecutionContext context;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param context the context providing the modules and the resolver for
+   *          dependencies.
+   */
+  public ModuleGraphBuilder(final ExecutionContext context)
+  {
+    this.context = Arg.checkNotNull("context", context);
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Builds the graph of modules. The dependencies of skipped modules are not
+   * calculated since these modules are not written. The dependencies of each
+   * module are collected the same way as for writing the module so that
+   * slots are calculated consistently.
+   *
+   * @return the graph of modules.
+   */
+  public ModuleGraph build()
+  {
+    final ModuleDependencyCalculator calculator =
+        new ModuleDependencyCalculator(context);
+    final ModuleGraph graph = new ModuleGraph();
+    for (final Entry<ModuleDescriptor, List<Dependency>> entry : context
+        .getModuleMap().toMap().entrySet())
+    {
+      final ModuleDescriptor module = entry.getKey();
+      final Collection<Dependency> dependencies = entry.getValue();
+      final boolean generated = !module.getDirectives().getSkip();
+      final String slot = calculator.calcSlot(module, dependencies);
+      final ModuleGraph.Node node =
+          graph.addNode(module, slot, generated, calcResources(dependencies));
+      if (generated)
+      {
+        for (final ModuleDependency dependency : calculator.calcDependencies(
+            module, dependencies))
+        {
+          ModuleGraph.addEdge(node, dependency);
+        }
+      }
+    }
+    graph.link();
+    return graph;
+  }
+
+  private static List<File> calcResources(
+      final Collection<Dependency> dependencies)
+  {
+    final List<File> resources = new ArrayList<File>(dependencies.size());
+    for (final Dependency dependency : dependencies)
+    {
+      final File file = dependency.getArtifact().getFile();
+      if (file != null)
+      {
+        resources.add(file);
+      }
+    }
+    return resources;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
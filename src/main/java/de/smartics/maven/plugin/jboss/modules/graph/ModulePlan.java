@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Renders the modules of a graph with their slots, artifacts and
+ * dependencies as they would be written by a build. Dependencies removed by
+ * optimizations are not listed. Artifacts are listed ordered by their
+ * identifier so that plans of different builds may be compared textually.
+ *
+ * @since 1.1
+ */
+public final class ModulePlan
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The graph of modules.
+   */
+  private final ModuleGraph graph;
+
+  /**
+   * The artifacts assigned to each module of the graph.
+   */
+  private final Map<ModuleDescriptor, List<Dependency>> modules;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param graph the graph of modules.
+   * @param modules the artifacts assigned to each module of the graph.
+   * @throws NullPointerException if any argument is <code>null</code>.
+   */
+  public ModulePlan(final ModuleGraph graph,
+      final Map<ModuleDescriptor, List<Dependency>> modules)
+    throws NullPointerException
+  {
+    this.graph = Arg.checkNotNull("graph", graph);
+    this.modules = Arg.checkNotNull("modules", modules);
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Creates the textual plan of the modules.
+   *
+   * @return the plan of the modules.
+   */
+  public String createReport()
+  {
+    final StringBuilder buffer = new StringBuilder(1024);
+    int generated = 0;
+    int artifacts = 0;
+    for (final ModuleGraph.Node node : graph.getNodes())
+    {
+      if (node.isGenerated())
+      {
+        generated++;
+      }
+      final List<String> ids = calcArtifactIds(node);
+      artifacts += ids.size();
+
+      buffer.append("module ").append(node);
+      if (!node.isGenerated())
+      {
+        buffer.append(" (skipped)");
+      }
+      buffer.append('\n');
+      for (final String id : ids)
+      {
+        buffer.append("  artifact ").append(id).append('\n');
+      }
+      for (final ModuleGraph.Edge edge : node.getEdges())
+      {
+        if (!edge.isRemoved())
+        {
+          appendDependency(buffer, edge);
+        }
+      }
+    }
+
+    final String summary =
+        String.format("%d modules (%d generated), %d artifacts,"
+                      + " %d dependencies\n", graph.getNodeCount(), generated,
+            artifacts, graph.getEdgeCount());
+    return buffer.insert(0, summary).toString();
+  }
+
+  private List<String> calcArtifactIds(final ModuleGraph.Node node)
+  {
+    final List<Dependency> dependencies = modules.get(node.getModule());
+    if (dependencies == null)
+    {
+      return Collections.emptyList();
+    }
+
+    final List<String> ids = new ArrayList<String>(dependencies.size());
+    for (final Dependency dependency : dependencies)
+    {
+      ids.add(ArtifactIdUtils.toId(dependency.getArtifact()) + " ("
+              + dependency.getScope() + ')');
+    }
+    Collections.sort(ids);
+    return ids;
+  }
+
+  private static void appendDependency(final StringBuilder buffer,
+      final ModuleGraph.Edge edge)
+  {
+    final ModuleDependency dependency = edge.getDependency();
+    buffer.append("  dependency ")
+        .append(ModuleGraph.createKey(dependency.getName(),
+            dependency.getSlot()));
+    final List<String> flags = new ArrayList<String>(3);
+    if (dependency.isOptional())
+    {
+      flags.add("optional");
+    }
+    if (dependency.isExport())
+    {
+      flags.add("export");
+    }
+    if (edge.getTarget() == ModuleGraph.UNKNOWN)
+    {
+      flags.add("external");
+    }
+    if (!flags.isEmpty())
+    {
+      buffer.append(' ').append(flags);
+    }
+    buffer.append('\n');
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import java.util.BitSet;
+import java.util.List;
+
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Removes dependencies from the module graph that are already implied by
+ * re-exported dependencies.
+ * <p>
+ * A dependency of module <code>A</code> to module <code>C</code> is removed, if
+ * <code>A</code> depends on another generated module <code>B</code> that
+ * re-exports <code>C</code>, either directly or via a chain of re-exported
+ * dependencies. Dependencies that are re-exported themselves or import
+ * services are never removed, since removing them would change what is
+ * visible to the importers of <code>A</code> or to the service loader.
+ * Optional dependencies only imply visibility if the referenced module is
+ * generated by this build.
+ * </p>
+ */
+public final class TransitiveReducer
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The graph to reduce.
+   */
+  private final ModuleGraph graph;
+
+  /**
+   * The modules re-exported by each module, calculated on demand.
+   */
+  private final BitSet[] exportClosures;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param graph the graph to reduce.
+   */
+  public TransitiveReducer(final ModuleGraph graph)
+  {
+    this.graph = Arg.checkNotNull("graph", graph);
+    this.exportClosures = new BitSet[graph.getNodeCount()];
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Marks all dependencies as removed that are implied by re-exported
+   * dependencies.
+   *
+   * @return the number of dependencies marked as removed.
+   */
+  public int reduce()
+  {
+    int removedCount = 0;
+    for (final ModuleGraph.Node node : graph.getNodes())
+    {
+      final List<ModuleGraph.Edge> edges = node.getEdges();
+      for (final ModuleGraph.Edge edge : edges)
+      {
+        if (isRemovable(edge) && isImplied(edge, edges))
+        {
+          edge.remove();
+          removedCount++;
+        }
+      }
+    }
+    return removedCount;
+  }
+
+  private static boolean isRemovable(final ModuleGraph.Edge edge)
+  {
+    final ModuleDependency dependency = edge.getDependency();
+    return !edge.isRemoved() && edge.getTarget() != ModuleGraph.UNKNOWN
+           && !dependency.isExport() && dependency.getServices() == null;
+  }
+
+  private boolean isImplied(final ModuleGraph.Edge edge,
+      final List<ModuleGraph.Edge> siblings)
+  {
+    final int target = edge.getTarget();
+    for (final ModuleGraph.Edge sibling : siblings)
+    {
+      final int via = sibling.getTarget();
+      if (sibling == edge || sibling.isRemoved() || via == target
+          || via == ModuleGraph.UNKNOWN || !graph.getNode(via).isGenerated())
+      {
+        continue;
+      }
+
+      if (getExportClosure(via).get(target))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private BitSet getExportClosure(final int id)
+  {
+    BitSet closure = exportClosures[id];
+    if (closure == null)
+    {
+      closure = graph.calcExportClosure(id);
+      exportClosures[id] = closure;
+    }
+    return closure;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Determines the packages contained in a JAR file. Only the central directory
+ * of the archive is read, no entry is ever inflated.
+ */
+public final class JarPackageScanner
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The folder of meta information that is never part of a package index.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String META_INF = "META-INF";
+
+  // --- members --------------------------------------------------------------
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   */
+  public JarPackageScanner()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Returns the sorted list of folders of the given archive that contain at
+   * least one file. The names are separated by slashes as required by the
+   * <code>INDEX.LIST</code> format.
+   *
+   * @param jarFile the archive to scan.
+   * @return the folders containing files.
+   * @throws IOException if the archive cannot be read.
+   */
+  public List<String> scan(final File jarFile) throws IOException
+  {
+    final Set<String> packages = new TreeSet<String>();
+    for (final String name : scanEntries(jarFile))
+    {
+      final int index = name.lastIndexOf('/');
+      if (index > 0)
+      {
+        packages.add(name.substring(0, index));
+      }
+    }
+
+    return new ArrayList<String>(packages);
+  }
+
+  /**
+   * Returns the names of all files of the given archive, except those in the
+   * <code>META-INF</code> folder. The names are separated by slashes.
+   *
+   * @param jarFile the archive to scan.
+   * @return the names of the files in the order of the central directory.
+   * @throws IOException if the archive cannot be read.
+   */
+  public List<String> scanEntries(final File jarFile) throws IOException
+  {
+    final ZipFile zip = new ZipFile(jarFile);
+    try
+    {
+      final List<String> names = new ArrayList<String>(zip.size());
+      final Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements())
+      {
+        final ZipEntry entry = entries.nextElement();
+        final String name = entry.getName();
+        if (!entry.isDirectory() && !isMetaInf(name))
+        {
+          names.add(name);
+        }
+      }
+      return names;
+    }
+    finally
+    {
+      zip.close();
+    }
+  }
+
+  private static boolean isMetaInf(final String name)
+  {
+    return name.startsWith(META_INF + '/');
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
+import org.jdom2.input.SAXBuilder;
+
+import de.smartics.util.lang.Arg;
+
+/**
+ * Writes a package index for every module of a generated module tree. The
+ * index is stored as <code>INDEX.LIST</code> next to the
+ * <code>module.xml</code> and lists for each resource root of the module the
+ * packages it contains, following the format of the JAR index.
+ */
+public final class ModulePackageIndexer
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The name of the module descriptor file.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String MODULE_XML = "module.xml";
+
+  /**
+   * The name of the index file written next to the module descriptor.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  public static final String INDEX_FILE_NAME = "INDEX.LIST";
+
+  /**
+   * The header line of the index file.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String INDEX_HEADER = "JarIndex-Version: 1.0";
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The cache of package lists by archive checksum.
+   */
+  private final PackageIndexCache cache;
+
+  /**
+   * The number of threads to scan archives.
+   */
+  private final int threads;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param cache the cache of package lists by archive checksum.
+   * @param threads the number of threads to scan archives. Values lower than
+   *          one are treated as one.
+   */
+  public ModulePackageIndexer(final PackageIndexCache cache, final int threads)
+  {
+    this.cache = Arg.checkNotNull("cache", cache);
+    this.threads = Math.max(1, threads);
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Writes an index file for each module found in the given module tree.
+   *
+   * @param modulesDirectory the root folder of the module tree.
+   * @return the number of index files written.
+   * @throws MojoExecutionException on any problem reading the module
+   *           descriptors, scanning the archives or writing the index files.
+   */
+  public int index(final File modulesDirectory) throws MojoExecutionException
+  {
+    final List<File> moduleFolders = new ArrayList<File>();
+    findModuleFolders(modulesDirectory, moduleFolders);
+    if (moduleFolders.isEmpty())
+    {
+      return 0;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try
+    {
+      final Map<File, Map<String, Future<List<String>>>> scans =
+          new LinkedHashMap<File, Map<String, Future<List<String>>>>();
+      for (final File moduleFolder : moduleFolders)
+      {
+        scans.put(moduleFolder, submitScans(executor, moduleFolder));
+      }
+
+      for (final Entry<File, Map<String, Future<List<String>>>> entry : scans
+          .entrySet())
+      {
+        writeIndex(entry.getKey(), entry.getValue());
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+
+    return moduleFolders.size();
+  }
+
+  private static void findModuleFolders(final File folder,
+      final List<File> moduleFolders)
+  {
+    final File[] files = folder.listFiles();
+    if (files == null)
+    {
+      return;
+    }
+
+    for (final File file : files)
+    {
+      if (file.isDirectory())
+      {
+        findModuleFolders(file, moduleFolders);
+      }
+      else if (MODULE_XML.equals(file.getName()))
+      {
+        moduleFolders.add(folder);
+      }
+    }
+  }
+
+  private Map<String, Future<List<String>>> submitScans(
+      final ExecutorService executor, final File moduleFolder)
+    throws MojoExecutionException
+  {
+    final Map<String, Future<List<String>>> futures =
+        new LinkedHashMap<String, Future<List<String>>>();
+    for (final String path : readResourceRoots(moduleFolder))
+    {
+      final File jarFile = new File(moduleFolder, path);
+      if (jarFile.isFile())
+      {
+        futures.put(path, executor.submit(new Callable<List<String>>()
+        {
+          @Override
+          public List<String> call() throws IOException
+          {
+            return cache.getPackages(jarFile);
+          }
+        }));
+      }
+    }
+    return futures;
+  }
+
+  private static List<String> readResourceRoots(final File moduleFolder)
+    throws MojoExecutionException
+  {
+    final File moduleXml = new File(moduleFolder, MODULE_XML);
+    final List<String> paths = new ArrayList<String>();
+    try
+    {
+      final Document document = new SAXBuilder().build(moduleXml);
+      final Element root = document.getRootElement();
+      final Namespace ns = root.getNamespace();
+      final Element resources = root.getChild("resources", ns);
+      if (resources != null)
+      {
+        for (final Element resourceRoot : resources.getChildren(
+            "resource-root", ns))
+        {
+          final String path = resourceRoot.getAttributeValue("path");
+          if (StringUtils.isNotBlank(path))
+          {
+            paths.add(path);
+          }
+        }
+      }
+    }
+    catch (final JDOMException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot parse module descriptor '%s'.",
+          moduleXml.getAbsolutePath()), e);
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot read module descriptor '%s'.",
+          moduleXml.getAbsolutePath()), e);
+    }
+    return paths;
+  }
+
+  private static void writeIndex(final File moduleFolder,
+      final Map<String, Future<List<String>>> futures)
+    throws MojoExecutionException
+  {
+    final File indexFile = new File(moduleFolder, INDEX_FILE_NAME);
+    PrintWriter writer = null;
+    try
+    {
+      writer =
+          new PrintWriter(new OutputStreamWriter(
+              FileUtils.openOutputStream(indexFile), "UTF-8"));
+      writer.append(INDEX_HEADER).append('\n');
+      for (final Entry<String, Future<List<String>>> entry : futures
+          .entrySet())
+      {
+        writer.append('\n').append(entry.getKey()).append('\n');
+        for (final String packageName : get(entry.getValue(), moduleFolder))
+        {
+          writer.append(packageName).append('\n');
+        }
+      }
+      writer.close();
+      if (writer.checkError())
+      {
+        throw new IOException("Write failed.");
+      }
+      writer = null;
+    }
+    catch (final IOException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot write index file '%s'.", indexFile.getAbsoluteFile()), e);
+    }
+    finally
+    {
+      IOUtils.closeQuietly(writer);
+    }
+  }
+
+  private static List<String> get(final Future<List<String>> future,
+      final File moduleFolder) throws MojoExecutionException
+  {
+    try
+    {
+      return future.get();
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException(String.format(
+          "Interrupted while scanning resources of module '%s'.",
+          moduleFolder.getAbsolutePath()), e);
+    }
+    catch (final ExecutionException e)
+    {
+      throw new MojoExecutionException(String.format(
+          "Cannot scan resources of module '%s'.",
+          moduleFolder.getAbsolutePath()), e.getCause());
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
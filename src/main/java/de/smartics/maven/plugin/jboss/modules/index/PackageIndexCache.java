@@ -0,0 +1,411 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Caches the package lists of archives by the checksum of the archive's
+ * content. The cache may be stored to and loaded from a file so that
+ * subsequent builds do not have to scan unchanged archives again.
+ * <p>
+ * The checksum of an archive is only calculated if its size or time of last
+ * modification differs from the values recorded for its path. When the cache
+ * is stored, archives that have not been requested since the cache has been
+ * created are only kept up to a total of {@link #MAX_ENTRIES} archives.
+ * </p>
+ * <p>
+ * Instances are thread-safe.
+ * </p>
+ */
+public final class PackageIndexCache
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The version of the format of the cache file.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int FORMAT_VERSION = 2;
+
+  /**
+   * The maximum number of archives stored in the cache file.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  public static final int MAX_ENTRIES = 4096;
+
+  /**
+   * The size of the buffer to read archives for checksum calculation.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  /**
+   * The characters to render checksums.
+   */
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * Maps the checksum of an archive to its list of packages.
+   */
+  private final ConcurrentMap<String, List<String>> packages =
+      new ConcurrentHashMap<String, List<String>>();
+
+  /**
+   * Maps the absolute path of an archive to the stamp it has been scanned
+   * with.
+   */
+  private final ConcurrentMap<String, Stamp> stamps =
+      new ConcurrentHashMap<String, Stamp>();
+
+  /**
+   * The absolute paths of the archives requested since the cache has been
+   * created.
+   */
+  private final ConcurrentMap<String, Boolean> used =
+      new ConcurrentHashMap<String, Boolean>();
+
+  /**
+   * The scanner to determine packages of archives not found in the cache.
+   */
+  private final JarPackageScanner scanner = new JarPackageScanner();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   */
+  public PackageIndexCache()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * The size, time of last modification and checksum of an archive.
+   */
+  private static final class Stamp
+  {
+    /**
+     * The size of the archive in bytes.
+     */
+    private final long size;
+
+    /**
+     * The time of the last modification of the archive.
+     */
+    private final long lastModified;
+
+    /**
+     * The checksum of the content of the archive.
+     */
+    private final String checksum;
+
+    private Stamp(final long size, final long lastModified,
+        final String checksum)
+    {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.checksum = checksum;
+    }
+
+    private boolean matches(final File file)
+    {
+      return size == file.length() && lastModified == file.lastModified();
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the number of archives stored in the cache.
+   *
+   * @return the number of archives stored in the cache.
+   */
+  public int size()
+  {
+    return packages.size();
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Returns the packages of the given archive. If the archive has not changed
+   * since it has been scanned, or another archive with the same checksum has
+   * been scanned, the archive is not scanned again.
+   *
+   * @param jarFile the archive whose packages are requested.
+   * @return the packages of the archive.
+   * @throws IOException if the archive cannot be read.
+   */
+  public List<String> getPackages(final File jarFile) throws IOException
+  {
+    final String path = jarFile.getAbsolutePath();
+    used.put(path, Boolean.TRUE);
+
+    final Stamp stamp = stamps.get(path);
+    if (stamp != null && stamp.matches(jarFile))
+    {
+      final List<String> jarPackages = packages.get(stamp.checksum);
+      if (jarPackages != null)
+      {
+        return jarPackages;
+      }
+    }
+
+    final long size = jarFile.length();
+    final long lastModified = jarFile.lastModified();
+    final String checksum = calcChecksum(jarFile);
+    List<String> jarPackages = packages.get(checksum);
+    if (jarPackages == null)
+    {
+      jarPackages = scanner.scan(jarFile);
+      packages.put(checksum, jarPackages);
+    }
+    stamps.put(path, new Stamp(size, lastModified, checksum));
+    return jarPackages;
+  }
+
+  /**
+   * Calculates the SHA-1 checksum of the given file.
+   *
+   * @param file the file whose checksum is requested.
+   * @return the checksum in hexadecimal form.
+   * @throws IOException if the file cannot be read.
+   */
+  public static String calcChecksum(final File file) throws IOException
+  {
+    final MessageDigest digest = createDigest();
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    final InputStream input = FileUtils.openInputStream(file);
+    try
+    {
+      int count;
+      while ((count = input.read(buffer)) != -1)
+      {
+        digest.update(buffer, 0, count);
+      }
+    }
+    finally
+    {
+      IOUtils.closeQuietly(input);
+    }
+    return toHex(digest.digest());
+  }
+
+  private static MessageDigest createDigest()
+  {
+    try
+    {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (final NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException(
+          "SHA-1 not supported on this platform.", e);
+    }
+  }
+
+  private static String toHex(final byte[] bytes)
+  {
+    final char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++)
+    {
+      final int value = bytes[i] & 0xFF;
+      chars[i * 2] = HEX[value >>> 4];
+      chars[i * 2 + 1] = HEX[value & 0x0F];
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Loads the entries of the given cache file. If the file does not exist or
+   * is not in the expected format, the cache is left unchanged.
+   *
+   * @param cacheFile the file to read.
+   * @throws IOException on any problem reading the file.
+   */
+  public void load(final File cacheFile) throws IOException
+  {
+    if (!cacheFile.isFile())
+    {
+      return;
+    }
+
+    final DataInputStream input =
+        new DataInputStream(new BufferedInputStream(
+            FileUtils.openInputStream(cacheFile)));
+    try
+    {
+      if (input.readInt() != FORMAT_VERSION)
+      {
+        return;
+      }
+      final int entryCount = input.readInt();
+      for (int i = 0; i < entryCount; i++)
+      {
+        final String path = input.readUTF();
+        final long size = input.readLong();
+        final long lastModified = input.readLong();
+        final String checksum = input.readUTF();
+        final int packageCount = input.readInt();
+        final List<String> jarPackages = new ArrayList<String>(packageCount);
+        for (int j = 0; j < packageCount; j++)
+        {
+          jarPackages.add(input.readUTF());
+        }
+        stamps.put(path, new Stamp(size, lastModified, checksum));
+        packages.put(checksum, jarPackages);
+      }
+    }
+    finally
+    {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  /**
+   * Stores the entries of this cache to the given file. The archives
+   * requested since the cache has been created are stored first, followed by
+   * the others up to {@link #MAX_ENTRIES} archives. The file is written to a
+   * temporary file first and replaces the given file only if it has been
+   * written completely.
+   *
+   * @param cacheFile the file to write to.
+   * @throws IOException on any problem writing the file.
+   */
+  public void store(final File cacheFile) throws IOException
+  {
+    final Map<String, Stamp> entries = selectEntries();
+
+    final File folder = cacheFile.getAbsoluteFile().getParentFile();
+    FileUtils.forceMkdir(folder);
+    final File tempFile =
+        File.createTempFile(cacheFile.getName(), ".tmp", folder);
+    DataOutputStream output = null;
+    try
+    {
+      output =
+          new DataOutputStream(new BufferedOutputStream(
+              FileUtils.openOutputStream(tempFile)));
+      output.writeInt(FORMAT_VERSION);
+      output.writeInt(entries.size());
+      for (final Entry<String, Stamp> entry : entries.entrySet())
+      {
+        final Stamp stamp = entry.getValue();
+        output.writeUTF(entry.getKey());
+        output.writeLong(stamp.size);
+        output.writeLong(stamp.lastModified);
+        output.writeUTF(stamp.checksum);
+        final List<String> jarPackages = packages.get(stamp.checksum);
+        output.writeInt(jarPackages.size());
+        for (final String packageName : jarPackages)
+        {
+          output.writeUTF(packageName);
+        }
+      }
+      output.close();
+      output = null;
+    }
+    catch (final IOException e)
+    {
+      FileUtils.deleteQuietly(tempFile);
+      throw e;
+    }
+    finally
+    {
+      IOUtils.closeQuietly(output);
+    }
+
+    if (!tempFile.renameTo(cacheFile))
+    {
+      FileUtils.deleteQuietly(cacheFile);
+      if (!tempFile.renameTo(cacheFile))
+      {
+        FileUtils.deleteQuietly(tempFile);
+        throw new IOException(String.format(
+            "Cannot store index cache to '%s'.", cacheFile.getAbsolutePath()));
+      }
+    }
+  }
+
+  private Map<String, Stamp> selectEntries()
+  {
+    final Map<String, Stamp> entries = new LinkedHashMap<String, Stamp>();
+    for (final String path : used.keySet())
+    {
+      addEntry(entries, path, stamps.get(path));
+    }
+    final Iterator<Entry<String, Stamp>> iterator =
+        stamps.entrySet().iterator();
+    while (entries.size() < MAX_ENTRIES && iterator.hasNext())
+    {
+      final Entry<String, Stamp> entry = iterator.next();
+      if (!entries.containsKey(entry.getKey()))
+      {
+        addEntry(entries, entry.getKey(), entry.getValue());
+      }
+    }
+    return entries;
+  }
+
+  private void addEntry(final Map<String, Stamp> entries, final String path,
+      final Stamp stamp)
+  {
+    if (stamp != null && packages.containsKey(stamp.checksum))
+    {
+      entries.put(path, stamp);
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
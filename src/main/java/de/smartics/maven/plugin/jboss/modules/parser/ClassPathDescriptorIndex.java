@@ -0,0 +1,273 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+
+import de.smartics.util.lang.Arg;
+import de.smartics.util.lang.classpath.ClassPathContext;
+import de.smartics.util.lang.classpath.JarAndFileClassPathListing;
+
+/**
+ * Lists the descriptor files in a folder on the class path in one pass.
+ * <p>
+ * Each root of the folder on the class path is visited exactly once. A root
+ * in a directory is listed, a root in a jar is found by reading the central
+ * directory of the jar a single time. The content of descriptors in jars is
+ * loaded while the jar is open, so the jar is not opened again for parsing.
+ * Every descriptor is mapped to the root it has been found in.
+ * </p>
+ * <p>
+ * Roots with other protocols than <code>file</code> and <code>jar</code> are
+ * listed with a {@link JarAndFileClassPathListing}. This listing is done once
+ * for all such roots.
+ * </p>
+ */
+final class ClassPathDescriptorIndex
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The extension of descriptor files.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String EXTENSION = ".xml";
+
+  /**
+   * The separator of the jar URL and the entry name in a <code>jar</code> URL.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String JAR_SEPARATOR = "!/";
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The path of the folder on the class path that contains the descriptors.
+   */
+  private final String path;
+
+  /**
+   * The external form of the URLs of the roots already visited.
+   */
+  private final Set<String> visitedRoots = new HashSet<String>();
+
+  /**
+   * The names of the files found by the class path listing. Listed on
+   * demand.
+   */
+  private List<String> listedFiles;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   *
+   * @param path the path of the folder on the class path that contains the
+   *          descriptors.
+   * @throws IllegalArgumentException if {@code path} is blank.
+   */
+  ClassPathDescriptorIndex(final String path) throws IllegalArgumentException
+  {
+    this.path = Arg.checkNotBlank("path", path);
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Lists the descriptors in all roots of the folder on the class path of the
+   * given class loader. The descriptors are returned in the order of their
+   * roots on the class path and sorted by name within each root.
+   *
+   * @param classLoader the class loader whose class path is searched.
+   * @return the sources of the descriptors.
+   * @throws IOException if the class path cannot be read.
+   */
+  List<DescriptorSource> index(final ClassLoader classLoader)
+    throws IOException
+  {
+    final List<DescriptorSource> sources = new ArrayList<DescriptorSource>();
+    final Enumeration<URL> urls = classLoader.getResources(path);
+    while (urls.hasMoreElements())
+    {
+      final URL url = urls.nextElement();
+      if (visitedRoots.add(url.toExternalForm()))
+      {
+        addRoot(sources, classLoader, url);
+      }
+    }
+    return sources;
+  }
+
+  private void addRoot(final List<DescriptorSource> sources,
+      final ClassLoader classLoader, final URL url) throws IOException
+  {
+    final String protocol = url.getProtocol();
+    if ("file".equals(protocol))
+    {
+      addDirectory(sources, toFile(url));
+      return;
+    }
+
+    if ("jar".equals(protocol))
+    {
+      final String spec = url.getPath();
+      final int separator = spec.indexOf(JAR_SEPARATOR);
+      if (separator != -1)
+      {
+        final URL jarUrl = new URL(spec.substring(0, separator));
+        if ("file".equals(jarUrl.getProtocol()))
+        {
+          addJar(sources, jarUrl,
+              spec.substring(separator + JAR_SEPARATOR.length()));
+          return;
+        }
+      }
+    }
+
+    addListed(sources, classLoader, url);
+  }
+
+  private static void addDirectory(final List<DescriptorSource> sources,
+      final File directory)
+  {
+    final File[] files = directory.listFiles();
+    if (files == null)
+    {
+      return;
+    }
+
+    Arrays.sort(files);
+    for (final File file : files)
+    {
+      if (file.isFile() && file.getName().endsWith(EXTENSION))
+      {
+        sources.add(DescriptorSource.fromFile(file));
+      }
+    }
+  }
+
+  private static void addJar(final List<DescriptorSource> sources,
+      final URL jarUrl, final String folder) throws IOException
+  {
+    final String prefix = folder.endsWith("/") ? folder : folder + '/';
+    final String base = "jar:" + jarUrl.toExternalForm() + JAR_SEPARATOR;
+    final TreeMap<String, byte[]> descriptors = new TreeMap<String, byte[]>();
+    final ZipFile jar = new ZipFile(toFile(jarUrl));
+    try
+    {
+      final Enumeration<? extends ZipEntry> entries = jar.entries();
+      while (entries.hasMoreElements())
+      {
+        final ZipEntry entry = entries.nextElement();
+        final String name = entry.getName();
+        if (!entry.isDirectory() && name.startsWith(prefix)
+            && name.endsWith(EXTENSION)
+            && name.indexOf('/', prefix.length()) == -1)
+        {
+          final InputStream input = jar.getInputStream(entry);
+          try
+          {
+            descriptors.put(name, IOUtils.toByteArray(input));
+          }
+          finally
+          {
+            IOUtils.closeQuietly(input);
+          }
+        }
+      }
+    }
+    finally
+    {
+      jar.close();
+    }
+
+    for (final Entry<String, byte[]> descriptor : descriptors.entrySet())
+    {
+      sources.add(DescriptorSource.fromContent(base + descriptor.getKey(),
+          descriptor.getValue()));
+    }
+  }
+
+  private void addListed(final List<DescriptorSource> sources,
+      final ClassLoader classLoader, final URL url) throws IOException
+  {
+    if (listedFiles == null)
+    {
+      final ClassPathContext context = new ClassPathContext(classLoader, null);
+      listedFiles = new JarAndFileClassPathListing().list(context, path);
+    }
+
+    for (final String file : listedFiles)
+    {
+      if (file.endsWith(EXTENSION))
+      {
+        sources.add(DescriptorSource.fromUrl(new URL(url.toExternalForm()
+                                                      + '/' + file)));
+      }
+    }
+  }
+
+  private static File toFile(final URL url)
+  {
+    try
+    {
+      return new File(url.toURI());
+    }
+    catch (final URISyntaxException e)
+    {
+      return new File(url.getPath());
+    }
+    catch (final IllegalArgumentException e)
+    {
+      return new File(url.getPath());
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
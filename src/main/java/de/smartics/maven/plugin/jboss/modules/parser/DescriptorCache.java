@@ -0,0 +1,378 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModulesDescriptor;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Caches parsed modules descriptors in a binary file.
+ * <p>
+ * Each entry is keyed by the SHA-1 hash of the content of the XML document it
+ * has been parsed from and holds the serialized descriptor. A changed
+ * document has a different hash and therefore invalidates only its own entry.
+ * Entries that cannot be read, for instance after a change of the descriptor
+ * classes, are treated as missing.
+ * </p>
+ * <p>
+ * Instances are thread-safe, since descriptors are parsed in parallel.
+ * </p>
+ */
+public final class DescriptorCache
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The identifier of the file format.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int MAGIC = 0x4A424D44;
+
+  /**
+   * The version of the file format.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int VERSION = 4;
+
+  /**
+   * The maximum number of entries stored. Entries used by the current build
+   * are stored first.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int MAX_ENTRIES = 1024;
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The file the cache is read from and stored to.
+   */
+  private final File file;
+
+  /**
+   * The entries read from the file, by content hash.
+   */
+  private final Map<String, Entry<String, byte[]>> stored;
+
+  /**
+   * The entries used or added by the current build, by content hash.
+   */
+  private final ConcurrentMap<String, Entry<String, byte[]>> used =
+      new ConcurrentHashMap<String, Entry<String, byte[]>>();
+
+  /**
+   * The number of descriptors loaded from the cache.
+   */
+  private final AtomicInteger hits = new AtomicInteger();
+
+  /**
+   * The flag signals that entries have been added to the cache.
+   */
+  private volatile boolean modified;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private DescriptorCache(final File file,
+      final Map<String, Entry<String, byte[]>> stored)
+  {
+    this.file = file;
+    this.stored = stored;
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  /**
+   * Loads the cache from the given file. If the file does not exist or cannot
+   * be read, the cache is empty.
+   *
+   * @param file the file to read the cache from and store it to.
+   * @return the loaded cache.
+   * @throws NullPointerException if {@code file} is <code>null</code>.
+   */
+  public static DescriptorCache load(final File file)
+    throws NullPointerException
+  {
+    Arg.checkNotNull("file", file);
+    final Map<String, Entry<String, byte[]>> stored =
+        new LinkedHashMap<String, Entry<String, byte[]>>();
+    if (file.isFile())
+    {
+      DataInputStream in = null;
+      try
+      {
+        in =
+            new DataInputStream(new BufferedInputStream(
+                FileUtils.openInputStream(file)));
+        if (in.readInt() == MAGIC && in.readInt() == VERSION)
+        {
+          final int count = in.readInt();
+          for (int i = 0; i < count; i++)
+          {
+            final String hash = in.readUTF();
+            final String systemId = in.readUTF();
+            final byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            stored.put(hash, new SimpleImmutableEntry<String, byte[]>(
+                systemId, data));
+          }
+        }
+      }
+      catch (final IOException e)
+      {
+        stored.clear();
+      }
+      finally
+      {
+        IOUtils.closeQuietly(in);
+      }
+    }
+    return new DescriptorCache(file, stored);
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the number of descriptors loaded from the cache.
+   *
+   * @return the number of descriptors loaded from the cache.
+   */
+  public int getHits()
+  {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of descriptors added to the cache.
+   *
+   * @return the number of descriptors added to the cache.
+   */
+  public int getMisses()
+  {
+    return used.size() - hits.get();
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Calculates the key of a document with the given content.
+   *
+   * @param content the content of the document.
+   * @return the key of the document.
+   */
+  static String hash(final byte[] content)
+  {
+    try
+    {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+      final StringBuilder buffer = new StringBuilder(digest.length * 2);
+      for (final byte b : digest)
+      {
+        buffer.append(Character.forDigit((b >> 4) & 0xF, 16)).append(
+            Character.forDigit(b & 0xF, 16));
+      }
+      return buffer.toString();
+    }
+    catch (final NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException("SHA-1 is not supported.", e);
+    }
+  }
+
+  /**
+   * Returns a copy of the descriptor cached for the given document.
+   *
+   * @param hash the key of the document.
+   * @param systemId the identifier of the document.
+   * @return the cached descriptor or <code>null</code> if the document is not
+   *         cached.
+   */
+  ModulesDescriptor get(final String hash, final String systemId)
+  {
+    final Entry<String, byte[]> entry = stored.get(hash);
+    if (entry == null || !systemId.equals(entry.getKey()))
+    {
+      return null;
+    }
+
+    final ModulesDescriptor descriptor = deserialize(entry.getValue());
+    if (descriptor != null)
+    {
+      used.put(hash, entry);
+      hits.incrementAndGet();
+    }
+    return descriptor;
+  }
+
+  /**
+   * Adds the descriptor parsed from a document to the cache. The descriptor
+   * is serialized immediately, so later changes to it are not cached.
+   *
+   * @param hash the key of the document.
+   * @param systemId the identifier of the document.
+   * @param descriptor the descriptor parsed from the document.
+   * @throws IOException if the descriptor cannot be serialized.
+   */
+  void put(final String hash, final String systemId,
+      final ModulesDescriptor descriptor) throws IOException
+  {
+    final ByteArrayOutputStream data = new ByteArrayOutputStream(4096);
+    final ObjectOutputStream out = new ObjectOutputStream(data);
+    out.writeObject(descriptor);
+    out.close();
+    used.put(hash, new SimpleImmutableEntry<String, byte[]>(systemId, data
+        .toByteArray()));
+    modified = true;
+  }
+
+  private static ModulesDescriptor deserialize(final byte[] data)
+  {
+    try
+    {
+      final ObjectInputStream in =
+          new ObjectInputStream(new ByteArrayInputStream(data));
+      return (ModulesDescriptor) in.readObject();
+    }
+    catch (final Exception e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Stores the cache to its file, if entries have been added. The entries
+   * used by the current build are stored first, followed by the entries read
+   * from the file, up to a maximum number of entries.
+   * <p>
+   * The cache is written to a temporary file that replaces the file by
+   * renaming. If the file system does not allow to replace an existing file
+   * by renaming, the file is deleted first. Builds loading the cache at this
+   * moment find no file and parse their descriptors again.
+   * </p>
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  public void store() throws IOException
+  {
+    if (!modified)
+    {
+      return;
+    }
+
+    final Map<String, Entry<String, byte[]>> entries =
+        new LinkedHashMap<String, Entry<String, byte[]>>(used);
+    final Iterator<Map.Entry<String, Entry<String, byte[]>>> iterator =
+        stored.entrySet().iterator();
+    while (entries.size() < MAX_ENTRIES && iterator.hasNext())
+    {
+      final Map.Entry<String, Entry<String, byte[]>> entry = iterator.next();
+      if (!entries.containsKey(entry.getKey()))
+      {
+        entries.put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    final File folder = file.getAbsoluteFile().getParentFile();
+    FileUtils.forceMkdir(folder);
+    final File tempFile = File.createTempFile(file.getName(), ".tmp", folder);
+    DataOutputStream out = null;
+    try
+    {
+      out =
+          new DataOutputStream(new BufferedOutputStream(
+              FileUtils.openOutputStream(tempFile)));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(Math.min(entries.size(), MAX_ENTRIES));
+      int count = 0;
+      for (final Map.Entry<String, Entry<String, byte[]>> entry : entries
+          .entrySet())
+      {
+        if (count++ == MAX_ENTRIES)
+        {
+          break;
+        }
+        final byte[] data = entry.getValue().getValue();
+        out.writeUTF(entry.getKey());
+        out.writeUTF(entry.getValue().getKey());
+        out.writeInt(data.length);
+        out.write(data);
+      }
+      out.close();
+      out = null;
+    }
+    catch (final IOException e)
+    {
+      IOUtils.closeQuietly(out);
+      FileUtils.deleteQuietly(tempFile);
+      throw e;
+    }
+    finally
+    {
+      IOUtils.closeQuietly(out);
+    }
+
+    if (!tempFile.renameTo(file))
+    {
+      FileUtils.deleteQuietly(file);
+      if (!tempFile.renameTo(file))
+      {
+        FileUtils.deleteQuietly(tempFile);
+        throw new IOException(String.format(
+            "Cannot store descriptor cache to '%s'.", file.getAbsolutePath()));
+      }
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
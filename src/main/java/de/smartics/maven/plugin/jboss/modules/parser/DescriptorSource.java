@@ -0,0 +1,192 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.parser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import de.smartics.util.lang.Arg;
+
+/**
+ * The source of a modules XML document. The document is read from a file, a
+ * URL or from content already loaded into memory.
+ */
+final class DescriptorSource
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The identifier of the document for error handling and link resolution.
+   */
+  private final String systemId;
+
+  /**
+   * The file to read. May be <code>null</code>.
+   */
+  private final File file;
+
+  /**
+   * The URL to read. May be <code>null</code>.
+   */
+  private final URL url;
+
+  /**
+   * The content of the document. May be <code>null</code>.
+   */
+  private final byte[] content;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private DescriptorSource(final String systemId, final File file,
+      final URL url, final byte[] content)
+  {
+    this.systemId = systemId;
+    this.file = file;
+    this.url = url;
+    this.content = content;
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  /**
+   * Creates a source to read the given file.
+   *
+   * @param file the file to read.
+   * @return the source.
+   * @throws NullPointerException if {@code file} is <code>null</code>.
+   */
+  static DescriptorSource fromFile(final File file) throws NullPointerException
+  {
+    Arg.checkNotNull("file", file);
+    return new DescriptorSource(file.getAbsolutePath(), file, null, null);
+  }
+
+  /**
+   * Creates a source to read the given URL.
+   *
+   * @param url the URL to read.
+   * @return the source.
+   * @throws NullPointerException if {@code url} is <code>null</code>.
+   */
+  static DescriptorSource fromUrl(final URL url) throws NullPointerException
+  {
+    Arg.checkNotNull("url", url);
+    return new DescriptorSource(url.toExternalForm(), null, url, null);
+  }
+
+  /**
+   * Creates a source for content already loaded into memory.
+   *
+   * @param systemId the identifier of the document.
+   * @param content the content of the document.
+   * @return the source.
+   * @throws NullPointerException if {@code systemId} or {@code content} is
+   *           <code>null</code>.
+   */
+  static DescriptorSource fromContent(final String systemId,
+      final byte[] content) throws NullPointerException
+  {
+    Arg.checkNotNull("systemId", systemId);
+    Arg.checkNotNull("content", content);
+    return new DescriptorSource(systemId, null, null, content);
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the identifier of the document for error handling and link
+   * resolution.
+   *
+   * @return the identifier of the document.
+   */
+  String getSystemId()
+  {
+    return systemId;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Opens a stream to read the document.
+   *
+   * @return the stream to read the document. The caller is responsible to
+   *         close it.
+   * @throws IOException if the document cannot be opened.
+   */
+  InputStream open() throws IOException
+  {
+    if (content != null)
+    {
+      return new ByteArrayInputStream(content);
+    }
+    return new BufferedInputStream(file != null ? FileUtils
+        .openInputStream(file) : url.openStream());
+  }
+
+  /**
+   * Reads the content of the document.
+   *
+   * @return the content of the document.
+   * @throws IOException if the document cannot be read.
+   */
+  byte[] read() throws IOException
+  {
+    if (content != null)
+    {
+      return content;
+    }
+
+    final InputStream input = open();
+    try
+    {
+      return IOUtils.toByteArray(input);
+    }
+    finally
+    {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+  /**
+   * Returns the string representation of the object.
+   *
+   * @return the string representation of the object.
+   */
+  @Override
+  public String toString()
+  {
+    return systemId;
+  }
+}
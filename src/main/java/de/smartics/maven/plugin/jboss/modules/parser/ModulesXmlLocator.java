@@ -15,27 +15,42 @@
  */
 package de.smartics.maven.plugin.jboss.modules.parser;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jdom2.JDOMException;
 
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModulesDescriptor;
-import de.smartics.util.lang.classpath.ClassPathContext;
-import de.smartics.util.lang.classpath.ClassPathListing;
-import de.smartics.util.lang.classpath.JarAndFileClassPathListing;
 
 /**
  * Discovers all module descriptors on the class path.
+ * <p>
+ * The sources of the descriptors are listed first and parsed afterwards,
+ * optionally in parallel. Each thread uses a parser of its own. The
+ * descriptors are returned in the order of their sources, regardless of the
+ * order they have been parsed in, since the first matching module wins.
+ * </p>
+ * <p>
+ * If a {@link DescriptorCache} is provided, descriptors whose content has been
+ * parsed before are loaded from the cache instead of being parsed.
+ * </p>
+ * <p>
+ * Descriptors are parsed by {@link ModulesXmlParser} or, if requested, by
+ * {@link StaxModulesXmlParser} in a single pass without building a document.
+ * </p>
  */
 public final class ModulesXmlLocator
 {
@@ -46,29 +61,112 @@ public final class ModulesXmlLocator
   // --- members --------------------------------------------------------------
 
   /**
-   * The parser of external modules XML documents.
+   * The parsers of external modules XML documents, one per thread.
    */
-  private final ModulesXmlParser parser = new ModulesXmlParser();
+  private final ThreadLocal<ModulesXmlParser> parser =
+      new ThreadLocal<ModulesXmlParser>()
+      {
+        @Override
+        protected ModulesXmlParser initialValue()
+        {
+          return new ModulesXmlParser();
+        }
+      };
+
+  /**
+   * The streaming parsers of external modules XML documents, one per thread.
+   */
+  private final ThreadLocal<StaxModulesXmlParser> streamingParser =
+      new ThreadLocal<StaxModulesXmlParser>()
+      {
+        @Override
+        protected StaxModulesXmlParser initialValue()
+        {
+          return new StaxModulesXmlParser();
+        }
+      };
 
   /**
    * The name of the slot to map modules without slot to.
    */
   private final String targetSlot;
 
+  /**
+   * The number of threads to parse descriptors.
+   */
+  private final int threads;
+
+  /**
+   * The cache of parsed descriptors. May be <code>null</code>.
+   */
+  private final DescriptorCache cache;
+
+  /**
+   * The flag to parse descriptors with {@link StaxModulesXmlParser}.
+   */
+  private final boolean streaming;
+
   // ****************************** Initializer *******************************
 
   // ****************************** Constructors ******************************
 
   /**
-   * Default constructor.
+   * Default constructor to parse descriptors sequentially.
    *
    * @param targetSlot the name of the slot to map modules without slot to.
    */
   public ModulesXmlLocator(final String targetSlot)
+  {
+    this(targetSlot, 1);
+  }
+
+  /**
+   * Constructor to parse descriptors in parallel.
+   *
+   * @param targetSlot the name of the slot to map modules without slot to.
+   * @param threads the number of threads to parse descriptors. Values lower
+   *          than two parse the descriptors in the calling thread.
+   */
+  public ModulesXmlLocator(final String targetSlot, final int threads)
+  {
+    this(targetSlot, threads, null);
+  }
+
+  /**
+   * Constructor to parse descriptors in parallel and to use a cache of parsed
+   * descriptors.
+   *
+   * @param targetSlot the name of the slot to map modules without slot to.
+   * @param threads the number of threads to parse descriptors. Values lower
+   *          than two parse the descriptors in the calling thread.
+   * @param cache the cache of parsed descriptors. May be <code>null</code>.
+   */
+  public ModulesXmlLocator(final String targetSlot, final int threads,
+      final DescriptorCache cache)
+  {
+    this(targetSlot, threads, cache, false);
+  }
+
+  /**
+   * Constructor to select the parser of descriptors.
+   *
+   * @param targetSlot the name of the slot to map modules without slot to.
+   * @param threads the number of threads to parse descriptors. Values lower
+   *          than two parse the descriptors in the calling thread.
+   * @param cache the cache of parsed descriptors. May be <code>null</code>.
+   * @param streaming <code>true</code> to parse descriptors with
+   *          {@link StaxModulesXmlParser}, <code>false</code> to parse them
+   *          with {@link ModulesXmlParser}.
+   */
+  public ModulesXmlLocator(final String targetSlot, final int threads,
+      final DescriptorCache cache, final boolean streaming)
   {
     this.targetSlot =
         StringUtils.isNotBlank(targetSlot) && !"main".equals(targetSlot)
             ? targetSlot : null;
+    this.threads = Math.max(1, threads);
+    this.cache = cache;
+    this.streaming = streaming;
   }
 
   // ****************************** Inner Classes *****************************
@@ -82,7 +180,8 @@ public final class ModulesXmlLocator
   // --- business -------------------------------------------------------------
 
   /**
-   * Discovers all module descriptors on the class path.
+   * Discovers all module descriptors on the class path. Each root of the
+   * folder <code>jboss-modules</code> on the class path is listed once.
    *
    * @param classLoader the class loader whose class path is searched.
    * @param rootDirectories additional root directories to check first.
@@ -92,22 +191,20 @@ public final class ModulesXmlLocator
   public List<ModulesDescriptor> discover(final ClassLoader classLoader,
       final List<File> rootDirectories) throws IOException
   {
-    final List<ModulesDescriptor> modules = new ArrayList<ModulesDescriptor>();
+    final List<DescriptorSource> sources = new ArrayList<DescriptorSource>();
 
     for (final File rootDirectory : rootDirectories)
     {
-      loadModules(modules, rootDirectory);
+      addSources(sources, rootDirectory);
     }
 
-    final ClassPathListing listing = new JarAndFileClassPathListing();
-    final ClassPathContext context = new ClassPathContext(classLoader, null);
-    final Enumeration<URL> urls = classLoader.getResources("jboss-modules");
-    while (urls.hasMoreElements())
-    {
-      final List<String> fileList = listing.list(context, "jboss-modules");
-      final URL url = urls.nextElement();
-      loadModules(modules, url, fileList);
-    }
+    final ClassPathDescriptorIndex index =
+        new ClassPathDescriptorIndex("jboss-modules");
+    sources.addAll(index.index(classLoader));
+
+    final List<ModulesDescriptor> modules =
+        threads > 1 && sources.size() > 1 ? parseParallel(sources)
+            : parse(sources);
 
     if (targetSlot != null)
     {
@@ -120,62 +217,132 @@ public final class ModulesXmlLocator
     return modules;
   }
 
-  private void loadModules(final List<ModulesDescriptor> modules,
-      final URL url, final List<String> fileList) throws IOException
+  private static void addSources(final List<DescriptorSource> sources,
+      final File rootDirectory)
   {
-    for (final String file : fileList)
+    final File[] fileList = rootDirectory.listFiles();
+    Arrays.sort(fileList);
+    for (final File file : fileList)
     {
-      if (!file.endsWith(".xml"))
+      if (!file.getName().endsWith(".xml"))
       {
         continue;
       }
 
-      final URL fileUrl = new URL(url.toExternalForm() + '/' + file);
-      final InputStream input = new BufferedInputStream(fileUrl.openStream());
-      final String urlString = fileUrl.toExternalForm();
-      try
-      {
-        final ModulesDescriptor descriptor = parser.parse(urlString, input);
-        modules.add(descriptor);
-      }
-      catch (final JDOMException e)
-      {
-        throw new IOException("Cannot parse XML file: " + urlString, e);
-      }
-      finally
-      {
-        IOUtils.closeQuietly(input);
-      }
+      sources.add(DescriptorSource.fromFile(file));
     }
   }
 
-  private void loadModules(final List<ModulesDescriptor> modules,
-      final File rootDirectory) throws IOException
+  private List<ModulesDescriptor> parse(final List<DescriptorSource> sources)
+    throws IOException
   {
-    final File[] fileList = rootDirectory.listFiles();
-    for (final File file : fileList)
+    final List<ModulesDescriptor> modules =
+        new ArrayList<ModulesDescriptor>(sources.size());
+    for (final DescriptorSource source : sources)
     {
-      if (!file.getName().endsWith(".xml"))
+      modules.add(parse(source));
+    }
+    return modules;
+  }
+
+  private List<ModulesDescriptor> parseParallel(
+      final List<DescriptorSource> sources) throws IOException
+  {
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(threads, sources.size()));
+    try
+    {
+      final List<Future<ModulesDescriptor>> futures =
+          new ArrayList<Future<ModulesDescriptor>>(sources.size());
+      for (final DescriptorSource source : sources)
       {
-        continue;
+        futures.add(executor.submit(new Callable<ModulesDescriptor>()
+        {
+          @Override
+          public ModulesDescriptor call() throws IOException
+          {
+            return parse(source);
+          }
+        }));
       }
 
-      final InputStream input =
-          new BufferedInputStream(FileUtils.openInputStream(file));
-      final String fileId = file.getAbsolutePath();
-      try
+      final List<ModulesDescriptor> modules =
+          new ArrayList<ModulesDescriptor>(sources.size());
+      for (int i = 0; i < futures.size(); i++)
       {
-        final ModulesDescriptor descriptor = parser.parse(fileId, input);
-        modules.add(descriptor);
+        modules.add(get(futures.get(i), sources.get(i)));
       }
-      catch (final JDOMException e)
+      return modules;
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  private static ModulesDescriptor get(final Future<ModulesDescriptor> future,
+      final DescriptorSource source) throws IOException
+  {
+    try
+    {
+      return future.get();
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while parsing XML file: "
+                                       + source.getSystemId());
+    }
+    catch (final ExecutionException e)
+    {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException)
       {
-        throw new IOException("Cannot parse XML file: " + fileId, e);
+        throw (IOException) cause;
       }
-      finally
+      throw new IOException("Cannot parse XML file: " + source.getSystemId(),
+          cause);
+    }
+  }
+
+  private ModulesDescriptor parse(final DescriptorSource source)
+    throws IOException
+  {
+    final String systemId = source.getSystemId();
+    if (cache == null)
+    {
+      return parse(systemId, source.open());
+    }
+
+    final byte[] content = source.read();
+    final String hash = DescriptorCache.hash(content);
+    ModulesDescriptor descriptor = cache.get(hash, systemId);
+    if (descriptor == null)
+    {
+      descriptor = parse(systemId, new ByteArrayInputStream(content));
+      cache.put(hash, systemId, descriptor);
+    }
+    return descriptor;
+  }
+
+  private ModulesDescriptor parse(final String systemId,
+      final InputStream input) throws IOException
+  {
+    try
+    {
+      if (streaming)
       {
-        IOUtils.closeQuietly(input);
+        return streamingParser.get().parse(systemId, input);
       }
+      return parser.get().parse(systemId, input);
+    }
+    catch (final JDOMException e)
+    {
+      throw new IOException("Cannot parse XML file: " + systemId, e);
+    }
+    finally
+    {
+      IOUtils.closeQuietly(input);
     }
   }
 
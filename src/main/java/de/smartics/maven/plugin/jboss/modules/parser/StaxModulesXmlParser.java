@@ -0,0 +1,640 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToDependencies;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToModule;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ArtifactClusion;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ArtifactMatcher;
+import de.smartics.maven.plugin.jboss.modules.descriptor.DependenciesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.Directives;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleClusion;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleMatcher;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModulesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.XmlFragment;
+import de.smartics.util.lang.Arg;
+
+/**
+ * Parses a modules XML document with a pull parser in a single pass.
+ * <p>
+ * Creates the same descriptors as {@link ModulesXmlParser} without building a
+ * document tree first. The XML fragments to be added to the
+ * <code>module.xml</code> are read as {@link XmlFragment}s in the namespace of
+ * JBoss modules. For each element that is expected at most once, the first
+ * occurrence is used and further occurrences are skipped.
+ * </p>
+ * <p>
+ * As with {@link ModulesXmlParser}, the elements within
+ * <code>apply-to-module</code> are recognized by their local name only and are
+ * moved to the namespace of JBoss modules, regardless of the namespace they
+ * are declared in. Names of properties and module dependencies are taken from
+ * attributes without namespace only.
+ * </p>
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class StaxModulesXmlParser
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The name space of the documents parsed by this parser.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String NS =
+      "http://smartics.de/ns/jboss-modules-descriptor/1";
+
+  /**
+   * The name space of the XML fragments read from the documents.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String MODULE_NS = "urn:jboss:module:1.1";
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The factory to create stream readers.
+   */
+  private final XMLInputFactory factory;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor.
+   */
+  public StaxModulesXmlParser()
+  {
+    this.factory = XmlFragment.createInputFactory();
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Parses the given document from the stream.
+   *
+   * @param systemId the identifier of the XML document for error handling and
+   *          link resolution.
+   * @param input the stream to parse the modules XML document.
+   * @return the descriptors found in a given document.
+   * @throws NullPointerException if {@code input} or {@code systemId} is
+   *           <code>null</code>.
+   * @throws IllegalArgumentException if {@code systemId} is blank.
+   * @throws IOException when the document cannot be read or is not
+   *           well-formed.
+   */
+  public ModulesDescriptor parse(final String systemId, final InputStream input)
+    throws NullPointerException, IllegalArgumentException, IOException
+  {
+    Arg.checkNotNull("input", input);
+    Arg.checkNotBlank("systemId", systemId);
+    try
+    {
+      final XMLStreamReader reader =
+          factory.createXMLStreamReader(systemId, input);
+      try
+      {
+        return parseModules(systemId, reader);
+      }
+      finally
+      {
+        reader.close();
+      }
+    }
+    catch (final XMLStreamException e)
+    {
+      throw new IOException("Cannot parse XML file: " + systemId, e);
+    }
+  }
+
+  private static ModulesDescriptor parseModules(final String systemId,
+      final XMLStreamReader reader) throws XMLStreamException
+  {
+    final ModulesDescriptor modulesDescriptor =
+        new ModulesDescriptor(systemId);
+    reader.nextTag();
+    while (nextChild(reader))
+    {
+      if (is(reader, "module"))
+      {
+        modulesDescriptor.addDescriptor(parseModule(reader));
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+    return modulesDescriptor;
+  }
+
+  private static ModuleDescriptor parseModule(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    final ModuleDescriptor.Builder builder = new ModuleDescriptor.Builder();
+    builder.withName(reader.getAttributeValue(null, "name"));
+    builder.withSlot(reader.getAttributeValue(null, "slot"));
+
+    boolean directives = false;
+    boolean match = false;
+    boolean applyToDependencies = false;
+    boolean applyToModule = false;
+    while (nextChild(reader))
+    {
+      if (!directives && is(reader, "directives"))
+      {
+        directives = true;
+        builder.with(parseDirectives(reader));
+      }
+      else if (!match && is(reader, "match"))
+      {
+        match = true;
+        builder.with(parseMatch(reader));
+      }
+      else if (!applyToDependencies && is(reader, "apply-to-dependencies"))
+      {
+        applyToDependencies = true;
+        builder.with(parseApplyToDependencies(reader));
+      }
+      else if (!applyToModule && is(reader, "apply-to-module"))
+      {
+        applyToModule = true;
+        builder.with(parseApplyToModule(reader));
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+    return builder.build();
+  }
+
+  private static Directives parseDirectives(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    String skip = null;
+    String inheritSlot = null;
+    while (nextChild(reader))
+    {
+      if (skip == null && is(reader, "skip"))
+      {
+        skip = readText(reader);
+      }
+      else if (inheritSlot == null && is(reader, "inherit-slot"))
+      {
+        inheritSlot = readText(reader);
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+
+    final Directives.Builder builder = new Directives.Builder();
+    builder.withSkip(skip);
+    builder.withInheritSlot(inheritSlot);
+    return builder.build();
+  }
+
+  private static ArtifactMatcher parseMatch(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    final ArtifactMatcher.Builder builder = new ArtifactMatcher.Builder();
+    boolean includes = false;
+    boolean excludes = false;
+    while (nextChild(reader))
+    {
+      if (!includes && is(reader, "includes"))
+      {
+        includes = true;
+        while (nextChild(reader))
+        {
+          if (is(reader, "include"))
+          {
+            builder.addInclude(parseArtifactClusion(reader));
+          }
+          else
+          {
+            skip(reader);
+          }
+        }
+      }
+      else if (!excludes && is(reader, "excludes"))
+      {
+        excludes = true;
+        while (nextChild(reader))
+        {
+          if (is(reader, "exclude"))
+          {
+            builder.addExclude(parseArtifactClusion(reader));
+          }
+          else
+          {
+            skip(reader);
+          }
+        }
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+    return builder.build();
+  }
+
+  private static ArtifactClusion parseArtifactClusion(
+      final XMLStreamReader reader) throws XMLStreamException
+  {
+    String groupId = null;
+    String artifactId = null;
+    while (nextChild(reader))
+    {
+      if (groupId == null && is(reader, "groupId"))
+      {
+        groupId = readText(reader);
+      }
+      else if (artifactId == null && is(reader, "artifactId"))
+      {
+        artifactId = readText(reader);
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+
+    final ArtifactClusion clusion = new ArtifactClusion();
+    clusion.setGroupId(groupId);
+    clusion.setArtifactId(artifactId);
+    return clusion;
+  }
+
+  private static ApplyToDependencies parseApplyToDependencies(
+      final XMLStreamReader reader) throws XMLStreamException
+  {
+    final ApplyToDependencies.Builder builder =
+        new ApplyToDependencies.Builder();
+    while (nextChild(reader))
+    {
+      if (is(reader, "dependencies"))
+      {
+        builder.add(parseDependencies(reader));
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+    return builder.build();
+  }
+
+  private static DependenciesDescriptor parseDependencies(
+      final XMLStreamReader reader) throws XMLStreamException
+  {
+    final DependenciesDescriptor.Builder builder =
+        new DependenciesDescriptor.Builder();
+    boolean match = false;
+    boolean apply = false;
+    while (nextChild(reader))
+    {
+      if (!match && is(reader, "match"))
+      {
+        match = true;
+        builder.with(parseModuleMatch(reader));
+      }
+      else if (!apply && is(reader, "apply"))
+      {
+        apply = true;
+        parseApply(builder, reader);
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+    return builder.build();
+  }
+
+  private static ModuleMatcher parseModuleMatch(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    final ModuleMatcher.Builder builder = new ModuleMatcher.Builder();
+    boolean includes = false;
+    boolean excludes = false;
+    while (nextChild(reader))
+    {
+      if (!includes && is(reader, "includes"))
+      {
+        includes = true;
+        while (nextChild(reader))
+        {
+          if (is(reader, "include"))
+          {
+            builder.addInclude(new ModuleClusion(readNormalizedText(reader)));
+          }
+          else
+          {
+            skip(reader);
+          }
+        }
+      }
+      else if (!excludes && is(reader, "excludes"))
+      {
+        excludes = true;
+        while (nextChild(reader))
+        {
+          if (is(reader, "exclude"))
+          {
+            builder.addExclude(new ModuleClusion(readNormalizedText(reader)));
+          }
+          else
+          {
+            skip(reader);
+          }
+        }
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+    return builder.build();
+  }
+
+  // CHECKSTYLE:OFF
+  private static void parseApply(final DependenciesDescriptor.Builder builder,
+      final XMLStreamReader reader) throws XMLStreamException
+  {
+    String slot = null;
+    String skip = null;
+    String export = null;
+    String services = null;
+    String optional = null;
+    String imports = null;
+    String exports = null;
+    while (nextChild(reader))
+    {
+      if (slot == null && is(reader, "slot"))
+      {
+        slot = readText(reader);
+      }
+      else if (skip == null && is(reader, "skip"))
+      {
+        skip = readText(reader);
+      }
+      else if (export == null && is(reader, "export"))
+      {
+        export = readText(reader);
+      }
+      else if (services == null && is(reader, "services"))
+      {
+        services = readText(reader);
+      }
+      else if (optional == null && is(reader, "optional"))
+      {
+        optional = readText(reader);
+      }
+      else if (imports == null && is(reader, "imports"))
+      {
+        imports = XmlFragment.read(reader, MODULE_NS).toXml();
+      }
+      else if (exports == null && is(reader, "exports"))
+      {
+        exports = XmlFragment.read(reader, MODULE_NS).toXml();
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+
+    builder.withSlot(slot);
+    builder.withSkip(skip);
+    builder.withExport(export);
+    builder.withServices(services);
+    builder.withOptional(optional);
+    if (imports != null)
+    {
+      builder.withImportsXml(imports);
+    }
+    if (exports != null)
+    {
+      builder.withExportsXml(exports);
+    }
+  }
+
+  // CHECKSTYLE:ON
+
+  private static ApplyToModule parseApplyToModule(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    final ApplyToModule.Builder builder = new ApplyToModule.Builder();
+    while (nextChild(reader))
+    {
+      if (isNamed(reader, "dependencies"))
+      {
+        parseModuleDependencies(builder, reader);
+      }
+      else if (isNamed(reader, "properties"))
+      {
+        while (nextChild(reader))
+        {
+          if (isNamed(reader, "property"))
+          {
+            final XmlFragment property = XmlFragment.read(reader, MODULE_NS);
+            builder.addProperty(property.getAttribute("name"), property);
+          }
+          else
+          {
+            skip(reader);
+          }
+        }
+      }
+      else if (isNamed(reader, "exports"))
+      {
+        builder.withExports(XmlFragment.read(reader, MODULE_NS));
+      }
+      else if (isNamed(reader, "main-class"))
+      {
+        builder.withMainClass(XmlFragment.read(reader, MODULE_NS));
+      }
+      else
+      {
+        skip(reader);
+      }
+    }
+    return builder.build();
+  }
+
+  private static void parseModuleDependencies(
+      final ApplyToModule.Builder builder, final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    int nonModuleCounter = 0;
+    while (nextChild(reader))
+    {
+      final XmlFragment dependency = XmlFragment.read(reader, MODULE_NS);
+      final String name;
+      if ("module".equals(dependency.getName()))
+      {
+        name = dependency.getAttribute("name");
+      }
+      else
+      {
+        // i.e. system, maybe others.
+        nonModuleCounter++;
+        name = "non-module@" + nonModuleCounter;
+      }
+      builder.addDependency(name, dependency);
+    }
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  /**
+   * Moves the reader to the start of the next child element of the current
+   * element.
+   *
+   * @param reader the reader positioned at the start of the parent element or
+   *          at the end of a child element.
+   * @return <code>true</code> if the reader is positioned at the start of a
+   *         child element, <code>false</code> if it is positioned at the end
+   *         of the parent element.
+   * @throws XMLStreamException on any problem reading the document.
+   */
+  private static boolean nextChild(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    while (true)
+    {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT)
+      {
+        return true;
+      }
+      else if (event == XMLStreamConstants.END_ELEMENT)
+      {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Moves the reader to the end of the current element.
+   */
+  private static void skip(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    int depth = 1;
+    while (depth > 0)
+    {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT)
+      {
+        depth++;
+      }
+      else if (event == XMLStreamConstants.END_ELEMENT)
+      {
+        depth--;
+      }
+    }
+  }
+
+  private static boolean is(final XMLStreamReader reader, final String name)
+  {
+    return name.equals(reader.getLocalName())
+           && NS.equals(reader.getNamespaceURI());
+  }
+
+  /**
+   * Checks the local name of the current element in any namespace.
+   */
+  private static boolean isNamed(final XMLStreamReader reader,
+      final String name)
+  {
+    return name.equals(reader.getLocalName());
+  }
+
+  /**
+   * Reads the text of the current element without the text of its child
+   * elements and moves the reader to the end of the element.
+   */
+  private static String readText(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    final StringBuilder buffer = new StringBuilder(32);
+    int depth = 1;
+    while (depth > 0)
+    {
+      final int event = reader.next();
+      switch (event)
+      {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          if (depth == 1)
+          {
+            buffer.append(reader.getText());
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return buffer.toString();
+  }
+
+  private static String readNormalizedText(final XMLStreamReader reader)
+    throws XMLStreamException
+  {
+    return XmlFragment.normalize(readText(reader));
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.perf;
+
+/**
+ * The events counted while creating modules.
+ */
+public enum Counter
+{
+  // ***************************** Enumeration ******************************
+
+  // ******************************** Fields ********************************
+
+  // --- constants ----------------------------------------------------------
+
+  /**
+   * The number of artifacts resolved for the root dependencies.
+   */
+  RESOLVED_ARTIFACTS("resolved-artifacts"),
+
+  /**
+   * The number of artifacts of skipped modules whose files have not been
+   * resolved.
+   *
+   * @since 1.1
+   */
+  SKIPPED_FILES("skipped-files"),
+
+  /**
+   * The number of dependency requests sent to the repository system.
+   */
+  AETHER_CALLS("aether-calls"),
+
+  /**
+   * The number of regular expressions evaluated to match artifacts and
+   * modules.
+   */
+  REGEX_EVALUATIONS("regex-evaluations"),
+
+  /**
+   * The number of bytes of resources copied into modules.
+   */
+  BYTES_COPIED("bytes-copied"),
+
+  /**
+   * The number of modules written.
+   */
+  MODULES_WRITTEN("modules-written");
+
+  // --- members ------------------------------------------------------------
+
+  /**
+   * The identifier of the counter in reports.
+   */
+  private final String id;
+
+  // ***************************** Constructors *****************************
+
+  private Counter(final String id)
+  {
+    this.id = id;
+  }
+
+  // ******************************** Methods *******************************
+
+  // --- get&set ------------------------------------------------------------
+
+  /**
+   * Returns the identifier of the counter in reports.
+   *
+   * @return the identifier of the counter in reports.
+   */
+  public String getId()
+  {
+    return id;
+  }
+
+  // --- object basics ------------------------------------------------------
+
+  /**
+   * Returns the identifier of the counter in reports.
+   *
+   * @return the identifier of the counter in reports.
+   */
+  @Override
+  public String toString()
+  {
+    return id;
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.perf;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An event emitted to the Java Flight Recorder (JFR).
+ * <p>
+ * The plugin is compiled for Java versions without JFR. Therefore the event
+ * types of {@link FlightEventType} are registered at runtime with the
+ * <code>jdk.jfr.EventFactory</code> accessed by reflection. If JFR is not
+ * available or an event type is not enabled in a running recording,
+ * {@link #begin(FlightEventType)} returns a shared instance that ignores all
+ * calls.
+ * </p>
+ * <p>
+ * Usage:
+ * </p>
+ *
+ * <pre>
+ * final FlightEvent event = FlightEvent.begin(FlightEventType.ARCHIVE);
+ * ...
+ * event.set(&quot;file&quot;, file.getPath()).set(&quot;bytes&quot;, file.length()).commit();
+ * </pre>
+ * <p>
+ * Values that are expensive to calculate should only be calculated if
+ * {@link #isEnabled()} returns <code>true</code>.
+ * </p>
+ */
+public final class FlightEvent
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The category of all events in the recording.
+   */
+  private static final String[] CATEGORY = { "smartics", "JBoss Modules" };
+
+  /**
+   * The access to JFR. <code>null</code> if JFR is not available.
+   */
+  private static final Recorder RECORDER = Recorder.create();
+
+  /**
+   * The event that ignores all calls.
+   */
+  private static final FlightEvent DISABLED = new FlightEvent(null, null);
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The type of the event.
+   */
+  private final FlightEventType type;
+
+  /**
+   * The JFR event. <code>null</code> if the event is not recorded.
+   */
+  private final Object event;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private FlightEvent(final FlightEventType type, final Object event)
+  {
+    this.type = type;
+    this.event = event;
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * Provides reflective access to the JFR API.
+   */
+  private static final class Recorder
+  {
+    /**
+     * The event factories, indexed by the ordinal of the event type.
+     */
+    private final Object[] factories;
+
+    /**
+     * The types of the events registered with JFR, indexed by the ordinal of
+     * the event type.
+     */
+    private final Object[] eventTypes;
+
+    /**
+     * The method <code>EventFactory.newEvent()</code>.
+     */
+    private final Method newEvent;
+
+    /**
+     * The method <code>EventType.isEnabled()</code>.
+     */
+    private final Method isEnabled;
+
+    /**
+     * The method <code>Event.begin()</code>.
+     */
+    private final Method beginEvent;
+
+    /**
+     * The method <code>Event.set(int, Object)</code>.
+     */
+    private final Method setField;
+
+    /**
+     * The method <code>Event.commit()</code>.
+     */
+    private final Method commitEvent;
+
+    private Recorder() throws Exception
+    {
+      final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+      final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+      final Method create =
+          factoryClass.getMethod("create", List.class, List.class);
+      final Method getEventType = factoryClass.getMethod("getEventType");
+      this.newEvent = factoryClass.getMethod("newEvent");
+      this.isEnabled =
+          Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+      this.beginEvent = eventClass.getMethod("begin");
+      this.setField = eventClass.getMethod("set", int.class, Object.class);
+      this.commitEvent = eventClass.getMethod("commit");
+
+      final Constructor<?> annotation =
+          Class.forName("jdk.jfr.AnnotationElement").getConstructor(
+              Class.class, Object.class);
+      final Constructor<?> valueDescriptor =
+          Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class,
+              String.class, List.class);
+
+      final FlightEventType[] types = FlightEventType.values();
+      this.factories = new Object[types.length];
+      this.eventTypes = new Object[types.length];
+      for (final FlightEventType type : types)
+      {
+        final List<Object> annotations = new ArrayList<Object>();
+        annotations.add(annotation.newInstance(
+            Class.forName("jdk.jfr.Name"), type.getName()));
+        annotations.add(annotation.newInstance(
+            Class.forName("jdk.jfr.Label"), type.getLabel()));
+        annotations.add(annotation.newInstance(
+            Class.forName("jdk.jfr.Description"), type.getDescription()));
+        annotations.add(annotation.newInstance(
+            Class.forName("jdk.jfr.Category"), CATEGORY));
+
+        final List<Object> fields = new ArrayList<Object>();
+        for (int i = 0; i < type.getFieldCount(); i++)
+        {
+          fields.add(valueDescriptor.newInstance(type.getFieldType(i),
+              type.getFieldName(i), Collections.emptyList()));
+        }
+
+        final Object factory = create.invoke(null, annotations, fields);
+        factories[type.ordinal()] = factory;
+        eventTypes[type.ordinal()] = getEventType.invoke(factory);
+      }
+    }
+
+    private static Recorder create()
+    {
+      try
+      {
+        return new Recorder();
+      }
+      catch (final Exception e)
+      {
+        return null;
+      }
+      catch (final LinkageError e)
+      {
+        return null;
+      }
+    }
+
+    private Object begin(final FlightEventType type) throws Exception
+    {
+      final int index = type.ordinal();
+      if (!(Boolean) isEnabled.invoke(eventTypes[index]))
+      {
+        return null;
+      }
+      final Object event = newEvent.invoke(factories[index]);
+      beginEvent.invoke(event);
+      return event;
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  /**
+   * Starts an event of the given type.
+   *
+   * @param type the type of the event.
+   * @return the started event. Ignores all calls if the event is not recorded.
+   */
+  public static FlightEvent begin(final FlightEventType type)
+  {
+    if (RECORDER == null)
+    {
+      return DISABLED;
+    }
+
+    try
+    {
+      final Object event = RECORDER.begin(type);
+      return event != null ? new FlightEvent(type, event) : DISABLED;
+    }
+    catch (final Exception e)
+    {
+      return DISABLED;
+    }
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Checks if JFR is available in the running virtual machine.
+   *
+   * @return <code>true</code> if events may be recorded, <code>false</code>
+   *         otherwise.
+   */
+  public static boolean isAvailable()
+  {
+    return RECORDER != null;
+  }
+
+  /**
+   * Checks if this event is recorded.
+   *
+   * @return <code>true</code> if this event is recorded, <code>false</code> if
+   *         all calls are ignored.
+   */
+  public boolean isEnabled()
+  {
+    return event != null;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Sets the value of a field of this event.
+   *
+   * @param field the name of the field as defined by the type of the event.
+   * @param value the value of the field.
+   * @return a reference to this event.
+   * @throws IllegalArgumentException if the type of the event has no field
+   *           with the given name.
+   */
+  public FlightEvent set(final String field, final Object value)
+    throws IllegalArgumentException
+  {
+    if (event != null)
+    {
+      final int index = type.indexOf(field);
+      try
+      {
+        RECORDER.setField.invoke(event, index, value);
+      }
+      catch (final Exception e)
+      {
+        // the event is recorded without the value
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Ends this event and writes it to the recording.
+   */
+  public void commit()
+  {
+    if (event != null)
+    {
+      try
+      {
+        RECORDER.commitEvent.invoke(event);
+      }
+      catch (final Exception e)
+      {
+        // the event is lost
+      }
+    }
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.perf;
+
+/**
+ * The types of events emitted to the Java Flight Recorder.
+ * <p>
+ * Each type defines the names and types of its fields. The index of a field
+ * in these arrays is the index of the field in the JFR event.
+ * </p>
+ */
+public enum FlightEventType
+{
+  // ***************************** Enumeration ******************************
+
+  // ******************************** Fields ********************************
+
+  // --- constants ----------------------------------------------------------
+
+  /**
+   * A dependency request sent to the repository system.
+   */
+  RESOLVE("Resolve", "A dependency request sent to the repository system.",
+      new String[] { "root", "nodes" },
+      new Class<?>[] { String.class, int.class }),
+
+  /**
+   * The calculation of the module of an artifact.
+   */
+  MODULE_MATCH("ModuleMatch", "The calculation of the module of an artifact.",
+      new String[] { "artifact", "module", "outcome" },
+      new Class<?>[] { String.class, String.class, String.class }),
+
+  /**
+   * The creation of a module folder with its descriptor and resources.
+   */
+  MODULE_WRITE("ModuleWrite",
+      "The creation of a module folder with its descriptor and resources.",
+      new String[] { "module", "bytes" },
+      new Class<?>[] { String.class, long.class }),
+
+  /**
+   * The indexing of a class file by Jandex.
+   */
+  INDEX("Index", "The indexing of a class file by Jandex.",
+      new String[] { "file", "annotations" },
+      new Class<?>[] { String.class, int.class }),
+
+  /**
+   * The creation of the archive of modules.
+   */
+  ARCHIVE("Archive", "The creation of the archive of modules.",
+      new String[] { "file", "bytes" },
+      new Class<?>[] { String.class, long.class });
+
+  /**
+   * The prefix of the names of all event types.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String NAME_PREFIX = "de.smartics.jbossmodules.";
+
+  // --- members ------------------------------------------------------------
+
+  /**
+   * The name of the event type as displayed by the recorder.
+   */
+  private final String name;
+
+  /**
+   * The description of the event type.
+   */
+  private final String description;
+
+  /**
+   * The names of the fields of the event.
+   */
+  private final String[] fieldNames;
+
+  /**
+   * The types of the fields of the event.
+   */
+  private final Class<?>[] fieldTypes;
+
+  // ***************************** Constructors *****************************
+
+  private FlightEventType(final String label, final String description,
+      final String[] fieldNames, final Class<?>[] fieldTypes)
+  {
+    this.name = NAME_PREFIX + label;
+    this.description = description;
+    this.fieldNames = fieldNames;
+    this.fieldTypes = fieldTypes;
+  }
+
+  // ******************************** Methods *******************************
+
+  // --- get&set ------------------------------------------------------------
+
+  /**
+   * Returns the fully qualified name of the event type.
+   *
+   * @return the fully qualified name of the event type.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Returns the label of the event type.
+   *
+   * @return the label of the event type.
+   */
+  public String getLabel()
+  {
+    return name.substring(NAME_PREFIX.length());
+  }
+
+  /**
+   * Returns the description of the event type.
+   *
+   * @return the description of the event type.
+   */
+  public String getDescription()
+  {
+    return description;
+  }
+
+  /**
+   * Returns the number of fields of the event.
+   *
+   * @return the number of fields of the event.
+   */
+  public int getFieldCount()
+  {
+    return fieldNames.length;
+  }
+
+  /**
+   * Returns the name of the field with the given index.
+   *
+   * @param index the index of the field.
+   * @return the name of the field.
+   */
+  public String getFieldName(final int index)
+  {
+    return fieldNames[index];
+  }
+
+  /**
+   * Returns the type of the field with the given index.
+   *
+   * @param index the index of the field.
+   * @return the type of the field.
+   */
+  public Class<?> getFieldType(final int index)
+  {
+    return fieldTypes[index];
+  }
+
+  // --- business -----------------------------------------------------------
+
+  /**
+   * Returns the index of the field with the given name.
+   *
+   * @param fieldName the name of the field.
+   * @return the index of the field.
+   * @throws IllegalArgumentException if the event has no field with the given
+   *           name.
+   */
+  public int indexOf(final String fieldName) throws IllegalArgumentException
+  {
+    for (int i = 0; i < fieldNames.length; i++)
+    {
+      if (fieldNames[i].equals(fieldName))
+      {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(String.format(
+        "Event '%s' has no field '%s'.", name, fieldName));
+  }
+
+  // --- object basics ------------------------------------------------------
+
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.io.FileUtils;
+
+import de.smartics.util.lang.Arg;
+
+/**
+ * Records the wall time of the phases of a plugin execution and counts events
+ * of interest.
+ * <p>
+ * Phases are run one after another: starting a phase stops the current one.
+ * Starting a phase a second time adds to the time already recorded for it.
+ * </p>
+ * <p>
+ * Counters are incremented via {@link #count(Counter, long)} by code that has
+ * no access to the recorder. The events are recorded by the recorder bound to
+ * the current thread by {@link #bind()} and are ignored if no recorder is
+ * bound.
+ * </p>
+ * <p>
+ * If recording is disabled, {@link #NONE} is used. It neither measures time
+ * nor counts events, and counting costs a single field read as long as no
+ * other recorder has been bound.
+ * </p>
+ */
+public final class PerformanceRecorder
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The number of nanoseconds per millisecond.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  /**
+   * The recorder bound to the current thread.
+   */
+  private static final ThreadLocal<PerformanceRecorder> CURRENT =
+      new ThreadLocal<PerformanceRecorder>();
+
+  /**
+   * The recorder that records nothing.
+   */
+  public static final PerformanceRecorder NONE = new PerformanceRecorder(
+      false);
+
+  /**
+   * The flag signals that a recording recorder has been bound to any thread.
+   * Until then counting events is skipped without looking up the recorder of
+   * the current thread.
+   */
+  private static volatile boolean recording;
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The flag signals that this recorder measures time and counts events.
+   */
+  private final boolean enabled;
+
+  /**
+   * The recorded nanoseconds per phase in the order the phases have been
+   * started first.
+   */
+  private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+
+  /**
+   * The values of the counters, indexed by the ordinal of {@link Counter}.
+   */
+  private final AtomicLongArray counters = new AtomicLongArray(
+      Counter.values().length);
+
+  /**
+   * The additional sections of the report.
+   */
+  private final List<ReportSection> sections = new ArrayList<ReportSection>();
+
+  /**
+   * The time the recording has been started.
+   */
+  private final long startTime;
+
+  /**
+   * The time the last phase has been stopped.
+   */
+  private long endTime;
+
+  /**
+   * The name of the current phase. May be <code>null</code>.
+   */
+  private String currentPhase;
+
+  /**
+   * The time the current phase has been started.
+   */
+  private long currentStartTime;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Default constructor. Starts the recording.
+   */
+  public PerformanceRecorder()
+  {
+    this(true);
+  }
+
+  private PerformanceRecorder(final boolean enabled)
+  {
+    this.enabled = enabled;
+    this.startTime = enabled ? System.nanoTime() : 0L;
+    this.endTime = startTime;
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  /**
+   * Binds this recorder to the current thread. Counted events of this thread
+   * are recorded by this instance until {@link #unbind()} is called. Binding
+   * {@link #NONE} removes any binding instead.
+   */
+  public void bind()
+  {
+    if (enabled)
+    {
+      recording = true;
+      CURRENT.set(this);
+    }
+    else
+    {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Removes the binding of any recorder to the current thread.
+   */
+  public static void unbind()
+  {
+    CURRENT.remove();
+  }
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the recorded nanoseconds per phase in the order the phases have
+   * been started first.
+   *
+   * @return the recorded nanoseconds per phase.
+   */
+  public Map<String, Long> getPhases()
+  {
+    return Collections.unmodifiableMap(phases);
+  }
+
+  /**
+   * Returns the nanoseconds from starting the recording to stopping the last
+   * phase.
+   *
+   * @return the total nanoseconds recorded.
+   */
+  public long getTotalNanos()
+  {
+    return endTime - startTime;
+  }
+
+  /**
+   * Returns the value of the given counter.
+   *
+   * @param counter the counter whose value is requested.
+   * @return the value of the counter.
+   */
+  public long getCount(final Counter counter)
+  {
+    return counters.get(counter.ordinal());
+  }
+
+  /**
+   * Adds a section to the report.
+   *
+   * @param section the section to add.
+   * @throws NullPointerException if {@code section} is <code>null</code>.
+   */
+  public void addSection(final ReportSection section)
+    throws NullPointerException
+  {
+    Arg.checkNotNull("section", section);
+    if (enabled)
+    {
+      sections.add(section);
+    }
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Stops the current phase, if any, and starts the given phase.
+   *
+   * @param phase the name of the phase to start.
+   * @throws NullPointerException if {@code phase} is <code>null</code>.
+   */
+  public void start(final String phase) throws NullPointerException
+  {
+    Arg.checkNotNull("phase", phase);
+    if (!enabled)
+    {
+      return;
+    }
+    stop();
+    currentPhase = phase;
+    currentStartTime = System.nanoTime();
+  }
+
+  /**
+   * Stops the current phase. Does nothing if no phase is running.
+   */
+  public void stop()
+  {
+    if (currentPhase != null)
+    {
+      endTime = System.nanoTime();
+      final Long recorded = phases.get(currentPhase);
+      final long nanos = endTime - currentStartTime;
+      phases.put(currentPhase, recorded != null ? recorded + nanos : nanos);
+      currentPhase = null;
+    }
+  }
+
+  /**
+   * Adds the given value to the counter of this recorder.
+   *
+   * @param counter the counter to increment.
+   * @param delta the value to add.
+   */
+  public void add(final Counter counter, final long delta)
+  {
+    if (enabled)
+    {
+      counters.addAndGet(counter.ordinal(), delta);
+    }
+  }
+
+  /**
+   * Increments the counter of the recorder bound to the current thread by one.
+   * Does nothing, if no recorder is bound.
+   *
+   * @param counter the counter to increment.
+   */
+  public static void count(final Counter counter)
+  {
+    count(counter, 1L);
+  }
+
+  /**
+   * Adds the given value to the counter of the recorder bound to the current
+   * thread. Does nothing, if no recorder is bound.
+   *
+   * @param counter the counter to increment.
+   * @param delta the value to add.
+   */
+  public static void count(final Counter counter, final long delta)
+  {
+    if (!recording)
+    {
+      return;
+    }
+    final PerformanceRecorder recorder = CURRENT.get();
+    if (recorder != null)
+    {
+      recorder.add(counter, delta);
+    }
+  }
+
+  /**
+   * Writes the recorded times, counters and additional sections as JSON to
+   * the given file.
+   *
+   * @param reportFile the file to write to.
+   * @throws IOException on any problem writing the file.
+   */
+  public void writeReport(final File reportFile) throws IOException
+  {
+    final long totalNanos = getTotalNanos();
+    final StringBuilder buffer = new StringBuilder(512);
+    buffer.append("{\n  \"totalNanos\": ").append(totalNanos)
+        .append(",\n  \"totalMillis\": ").append(toMillis(totalNanos))
+        .append(",\n  \"phases\": {");
+    boolean first = true;
+    for (final Entry<String, Long> entry : phases.entrySet())
+    {
+      final long nanos = entry.getValue();
+      buffer.append(first ? "\n" : ",\n");
+      first = false;
+      buffer.append("    \"").append(entry.getKey()).append("\": { \"nanos\": ")
+          .append(nanos).append(", \"millis\": ").append(toMillis(nanos))
+          .append(" }");
+    }
+    buffer.append(first ? "},\n" : "\n  },\n");
+
+    buffer.append("  \"counters\": {");
+    first = true;
+    for (final Counter counter : Counter.values())
+    {
+      buffer.append(first ? "\n" : ",\n");
+      first = false;
+      buffer.append("    \"").append(counter.getId()).append("\": ")
+          .append(getCount(counter));
+    }
+    buffer.append("\n  }");
+    for (final ReportSection section : sections)
+    {
+      buffer.append(",\n  \"").append(section.getName()).append("\": ");
+      section.appendJson(buffer, "  ");
+    }
+    buffer.append("\n}\n");
+    FileUtils.writeStringToFile(reportFile, buffer.toString(), "UTF-8");
+  }
+
+  /**
+   * Creates a table of the phases with their time and share of the total time,
+   * followed by the values of the counters and the additional sections.
+   *
+   * @return the summary table.
+   */
+  public String createSummary()
+  {
+    final long totalNanos = getTotalNanos();
+    final StringBuilder buffer = new StringBuilder(512);
+    buffer.append(String.format("%-24s %12s %8s%n", "Phase", "Time [ms]",
+        "Share"));
+    for (final Entry<String, Long> entry : phases.entrySet())
+    {
+      final long nanos = entry.getValue();
+      buffer.append(String.format("%-24s %12d %7.1f%%%n", entry.getKey(),
+          toMillis(nanos), totalNanos > 0 ? 100.0 * nanos / totalNanos : 0.0));
+    }
+    buffer.append(String.format("%-24s %12d %7.1f%%%n%n", "total",
+        toMillis(totalNanos), 100.0));
+
+    buffer.append(String.format("%-24s %12s%n", "Counter", "Value"));
+    for (final Counter counter : Counter.values())
+    {
+      buffer.append(String.format("%-24s %12d%n", counter.getId(),
+          getCount(counter)));
+    }
+    for (final ReportSection section : sections)
+    {
+      buffer.append(String.format("%n"));
+      section.appendSummary(buffer);
+    }
+    return buffer.toString();
+  }
+
+  private static long toMillis(final long nanos)
+  {
+    return nanos / NANOS_PER_MILLI;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+  /**
+   * Returns the string representation of the object.
+   *
+   * @return the string representation of the object.
+   */
+  @Override
+  public String toString()
+  {
+    return createSummary();
+  }
+}
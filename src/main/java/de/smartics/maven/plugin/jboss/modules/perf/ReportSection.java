@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.perf;
+
+/**
+ * Contributes additional data to the report of a {@link PerformanceRecorder}.
+ */
+public interface ReportSection
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Returns the name of the section. Used as the key of the section in the
+   * JSON report.
+   *
+   * @return the name of the section.
+   */
+  String getName();
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Appends the data of the section as a JSON value to the given buffer.
+   *
+   * @param buffer the buffer to append to.
+   * @param indent the indentation of the lines following the first line.
+   */
+  void appendJson(StringBuilder buffer, String indent);
+
+  /**
+   * Appends the data of the section as text table to the given buffer.
+   *
+   * @param buffer the buffer to append to.
+   */
+  void appendSummary(StringBuilder buffer);
+
+  // --- object basics --------------------------------------------------------
+
+}
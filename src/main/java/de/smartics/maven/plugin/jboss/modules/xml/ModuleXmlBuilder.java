@@ -19,23 +19,22 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.commons.lang.ObjectUtils;
-import org.apache.commons.lang.StringUtils;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.Namespace;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.graph.Dependency;
 
-import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToDependencies;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToModule;
-import de.smartics.maven.plugin.jboss.modules.descriptor.DependenciesDescriptor;
 import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.XmlFragment;
 import de.smartics.maven.plugin.jboss.modules.domain.ExecutionContext;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependencyCalculator;
 import de.smartics.maven.plugin.jboss.modules.domain.SlotStrategy;
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraph;
 import edu.emory.mathcs.backport.java.util.Collections;
 
 /**
@@ -81,9 +80,14 @@ public final class ModuleXmlBuilder
   private final Element root;
 
   /**
-   * A helper class to parse XML fragments.
+   * The calculator of the slot and the dependencies of the module.
    */
-  private final XmlFragmentParser xmlFragmentParser = new XmlFragmentParser();
+  private final ModuleDependencyCalculator calculator;
+
+  /**
+   * The slot of the module to build.
+   */
+  private final String slot;
 
   // ****************************** Initializer *******************************
 
@@ -106,7 +110,8 @@ public final class ModuleXmlBuilder
 
     root = new Element("module", NS);
     root.setAttribute("name", module.getName());
-    final String slot = calcSlot(context, module, dependencies);
+    this.calculator = new ModuleDependencyCalculator(context);
+    this.slot = calculator.calcSlot(module, dependencies);
     if (!SlotStrategy.MAIN_SLOT.equals(slot))
     {
       root.setAttribute("slot", slot);
@@ -191,28 +196,6 @@ public final class ModuleXmlBuilder
 
   // --- init -----------------------------------------------------------------
 
-  private static String calcSlot(final ExecutionContext context,
-      final ModuleDescriptor module, final Collection<Dependency> dependencies)
-  {
-    final SlotStrategy strategy = context.getSlotStrategy();
-    final String moduleSlot = module.getSlot();
-    final String defaultSlot = context.getDefaultSlot();
-    final Artifact artifact = calcArtifact(dependencies);
-    final String slot = strategy.calcSlot(defaultSlot, moduleSlot, artifact);
-    return slot;
-  }
-
-  private static Artifact calcArtifact(final Collection<Dependency> dependencies)
-  {
-    if (dependencies != null && !dependencies.isEmpty())
-    {
-      final Dependency dependency = dependencies.iterator().next();
-      final Artifact artifact = dependency.getArtifact();
-      return artifact;
-    }
-    return null;
-  }
-
   // --- get&set --------------------------------------------------------------
 
   // --- business -------------------------------------------------------------
@@ -235,26 +218,27 @@ public final class ModuleXmlBuilder
 
   private void addMainClass(final ModuleDescriptor module)
   {
-    final String xml = module.getApplyToModule().getMainClassXml();
-    if (xml != null)
+    final XmlFragment fragment = module.getApplyToModule().getMainClass();
+    if (fragment != null)
     {
-      final Element element = xmlFragmentParser.parse(xml);
+      final Element element = XmlFragments.toElement(fragment);
       root.addContent(element);
     }
   }
 
   private void addProperties(final ModuleDescriptor module)
   {
-    final List<String> xmls = module.getApplyToModule().getPropertiesXml();
-    if (xmls.isEmpty())
+    final List<XmlFragment> fragments =
+        module.getApplyToModule().getProperties();
+    if (fragments.isEmpty())
     {
       return;
     }
 
     final Element propertiesElement = new Element("properties", NS);
-    for (final String xml : xmls)
+    for (final XmlFragment fragment : fragments)
     {
-      final Element element = xmlFragmentParser.parse(xml);
+      final Element element = XmlFragments.toElement(fragment);
       propertiesElement.addContent(element);
     }
     root.addContent(propertiesElement);
@@ -302,7 +286,8 @@ public final class ModuleXmlBuilder
       final Collection<Dependency> dependencies)
   {
     final ApplyToModule applyToModule = module.getApplyToModule();
-    final List<String> staticDependencies = applyToModule.getDependenciesXml();
+    final List<XmlFragment> staticDependencies =
+        applyToModule.getDependencies();
     if (!(dependencies.isEmpty() && staticDependencies.isEmpty()))
     {
       final Element dependenciesElement = new Element("dependencies", NS);
@@ -318,118 +303,59 @@ public final class ModuleXmlBuilder
       final Collection<Dependency> dependencies,
       final Element dependenciesElement)
   {
-    final Set<SortElement> sorted =
-        createSortedDependencies(module, dependencies);
-
-    final ApplyToDependencies apply = module.getApplyToDependencies();
-
-    for (final SortElement element : sorted)
+    for (final ModuleDependency dependency : calcModuleDependencies(module,
+        dependencies))
     {
-      final String name = element.key;
       final Element moduleElement = new Element("module", NS);
-      moduleElement.setAttribute("name", name);
-
-      final DependenciesDescriptor dd = apply.getDescriptorThatMatches(name);
-      handleOptional(element, moduleElement, dd);
-      handleExport(moduleElement, dd);
-      handleServices(moduleElement, dd);
-      handleSlot(module, element, moduleElement);
-      if( dd.getSkip() == null || dd.getSkip()==false ) {
-          dependenciesElement.addContent(moduleElement);
+      moduleElement.setAttribute("name", dependency.getName());
+      if (dependency.isOptional())
+      {
+        moduleElement.setAttribute("optional", "true");
       }
+      if (dependency.isExport())
+      {
+        moduleElement.setAttribute("export", "true");
+      }
+      final String services = dependency.getServices();
+      if (services != null)
+      {
+        moduleElement.setAttribute("services", services);
+      }
+      final String slot = dependency.getSlot();
+      if (!SlotStrategy.MAIN_SLOT.equals(slot))
+      {
+        moduleElement.setAttribute("slot", slot);
+      }
+      dependenciesElement.addContent(moduleElement);
     }
   }
 
-  private void handleOptional(final SortElement element,
-      final Element moduleElement, final DependenciesDescriptor dd)
-  {
-    final Boolean ddOptional = dd.getOptional();
-    if ((ddOptional != null && ddOptional)
-        || (ddOptional == null || element.dependency.isOptional()))
-    {
-      moduleElement.setAttribute("optional", "true");
-    }
-  }
-
-  private void handleExport(final Element moduleElement,
-      final DependenciesDescriptor dd)
-  {
-    final Boolean ddExport = dd.getExport();
-    if (ddExport != null && ddExport)
-    {
-      moduleElement.setAttribute("export", "true");
-    }
-  }
-
-  private void handleServices(final Element moduleElement,
-      final DependenciesDescriptor dd)
-  {
-    final String services = dd.getServices();
-    if (services != null && !"none".equals(services))
-    {
-      moduleElement.setAttribute("services", services);
-    }
-  }
-
-  private void handleSlot(final ModuleDescriptor module,
-      final SortElement element, final Element moduleElement)
-  {
-    final SlotStrategy slotStrategy = context.getSlotStrategy();
-    final Dependency dependency = element.dependency;
-    final String defaultSlot = calcDefaultSlot(module, dependency);
-    final String slot =
-        slotStrategy.calcSlot(dependency.getArtifact(), defaultSlot);
-    if (!SlotStrategy.MAIN_SLOT.equals(slot))
-    {
-      moduleElement.setAttribute("slot", slot);
-    }
-  }
-
-  private Set<SortElement> createSortedDependencies(
+  private List<ModuleDependency> calcModuleDependencies(
       final ModuleDescriptor module, final Collection<Dependency> dependencies)
   {
-    final Set<SortElement> sorted = new TreeSet<SortElement>();
-    for (final Dependency dependency : dependencies)
-    {
-      final List<Dependency> resolvedDependencies = context.resolve(dependency);
-      addSortedDependencies(sorted, module, resolvedDependencies);
-    }
-    return sorted;
-  }
-
-  private String calcDefaultSlot(final ModuleDescriptor module,
-      final Dependency dependency)
-  {
-    final ModuleDescriptor depModule = context.getModule(dependency);
-    final String depModuleSlot = depModule.getSlot();
-    if (StringUtils.isNotBlank(depModuleSlot))
-    {
-      return depModuleSlot;
-    }
-
-    final boolean inheritSlot = module.getDirectives().getInheritSlot();
-    if (inheritSlot)
+    final ModuleGraph graph = context.getModuleGraph();
+    if (graph != null)
     {
-      final String moduleSlot = module.getSlot();
-      if (StringUtils.isNotBlank(moduleSlot))
+      final List<ModuleDependency> moduleDependencies =
+          graph.getDependencies(module.getName(), slot);
+      if (moduleDependencies != null)
       {
-        return moduleSlot;
+        return moduleDependencies;
       }
     }
-
-    final String defaultSlot = context.getDefaultSlot();
-    return defaultSlot;
+    return calculator.calcDependencies(module, dependencies);
   }
 
   // CHECKSTYLE:OFF
-  private void addStaticDependencies(final List<String> staticDependencies,
+  private void addStaticDependencies(
+      final List<XmlFragment> staticDependencies,
       final Element dependenciesElement)
   {
     if (!staticDependencies.isEmpty())
     {
-      for (final String xml : staticDependencies)
+      for (final XmlFragment fragment : staticDependencies)
       {
-        final Element element = xmlFragmentParser.parse(xml);
+        final Element element = XmlFragments.toElement(fragment);
         dependenciesElement.addContent(element);
       }
     }
@@ -437,36 +363,12 @@ public final class ModuleXmlBuilder
 
   // CHECKSTYLE:ON
 
-  private void addSortedDependencies(final Set<SortElement> sorted,
-      final ModuleDescriptor owningModule, final List<Dependency> dependencies)
-  {
-    for (final Dependency dependency : dependencies)
-    {
-      try
-      {
-        final ModuleDescriptor module = context.getModule(dependency);
-        final String name = module.getName();
-        if (!name.equals(owningModule.getName()))
-        {
-          sorted.add(new SortElement(name, dependency));
-        }
-      }
-      catch (final IllegalArgumentException e)
-      {
-        context.getLog().error(
-            String.format("Skipping '%s' referenced from module '%s'.",
-                dependency.getArtifact().getArtifactId(),
-                owningModule.getName()));
-      }
-    }
-  }
-
   private void addExports(final ModuleDescriptor module2)
   {
-    final String xml = module.getApplyToModule().getExportsXml();
-    if (xml != null)
+    final XmlFragment fragment = module.getApplyToModule().getExports();
+    if (fragment != null)
     {
-      final Element element = xmlFragmentParser.parse(xml);
+      final Element element = XmlFragments.toElement(fragment);
       root.addContent(element);
     }
   }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.xml;
+
+import java.util.Map.Entry;
+
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.XmlFragment;
+
+/**
+ * Helper to create the elements of XML fragments to be added to the main
+ * document.
+ */
+final class XmlFragments
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  /**
+   * Utility class pattern.
+   */
+  private XmlFragments()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Creates the element of the given XML fragment.
+   *
+   * @param fragment the fragment to create the element for.
+   * @return the new element with the fragment's attributes and content.
+   */
+  static Element toElement(final XmlFragment fragment)
+  {
+    final Namespace namespace = ModuleXmlBuilder.NS.getURI().equals(
+        fragment.getNamespace()) ? ModuleXmlBuilder.NS : Namespace
+        .getNamespace(fragment.getNamespace());
+    final Element element = new Element(fragment.getName(), namespace);
+    for (final Entry<String, String> attribute : fragment.getAttributes()
+        .entrySet())
+    {
+      final String name = attribute.getKey();
+      final int colon = name.indexOf(':');
+      if (colon < 0)
+      {
+        element.setAttribute(name, attribute.getValue());
+      }
+      else
+      {
+        final String prefix = name.substring(0, colon);
+        element.setAttribute(name.substring(colon + 1), attribute.getValue(),
+            Namespace.getNamespace(prefix, fragment.getAttributeNamespaces()
+                .get(prefix)));
+      }
+    }
+    for (final Object item : fragment.getContent())
+    {
+      if (item instanceof XmlFragment)
+      {
+        element.addContent(toElement((XmlFragment) item));
+      }
+      else
+      {
+        element.addContent((String) item);
+      }
+    }
+    return element;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
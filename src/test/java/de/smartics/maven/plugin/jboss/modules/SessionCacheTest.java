@@ -0,0 +1,221 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link SessionCache}.
+ */
+@Uut(type = SessionCache.class)
+public class SessionCacheTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The number of executions requesting a value in parallel.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final int THREADS = 8;
+
+  // --- members --------------------------------------------------------------
+
+  private SessionCache uut;
+
+  private final List<Dependency> dependencies = Arrays.asList(new Dependency(
+      new DefaultArtifact("g:a:1.0"), "compile"), new Dependency(
+      new DefaultArtifact("g:b:1.0"), "runtime"));
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp()
+  {
+    uut = SessionCache.of(createSession());
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private static MavenSession createSession()
+  {
+    return new MavenSession(null, null, new DefaultMavenExecutionRequest(),
+        new DefaultMavenExecutionResult());
+  }
+
+  private Callable<List<Dependency>> createTask(final AtomicInteger calls)
+  {
+    return new Callable<List<Dependency>>()
+    {
+      @Override
+      public List<Dependency> call()
+      {
+        calls.incrementAndGet();
+        return dependencies;
+      }
+    };
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void resolvesOnceForParallelRequests() throws Exception
+  {
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch requested = new CountDownLatch(THREADS);
+    final Callable<List<Dependency>> task = new Callable<List<Dependency>>()
+    {
+      @Override
+      public List<Dependency> call() throws InterruptedException
+      {
+        calls.incrementAndGet();
+        requested.await();
+        return dependencies;
+      }
+    };
+
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try
+    {
+      final List<Future<List<Dependency>>> futures =
+          new ArrayList<Future<List<Dependency>>>(THREADS);
+      for (int i = 0; i < THREADS; i++)
+      {
+        futures.add(executor.submit(new Callable<List<Dependency>>()
+        {
+          @Override
+          public List<Dependency> call() throws Exception
+          {
+            requested.countDown();
+            return uut.getResolution("request", task);
+          }
+        }));
+      }
+
+      for (final Future<List<Dependency>> future : futures)
+      {
+        assertThat(future.get(), is(equalTo(dependencies)));
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void returnsCopyOfResolution() throws Exception
+  {
+    final AtomicInteger calls = new AtomicInteger();
+    final List<Dependency> first =
+        uut.getResolution("request", createTask(calls));
+    first.clear();
+
+    final List<Dependency> second =
+        uut.getResolution("request", createTask(calls));
+
+    assertThat(second, is(equalTo(dependencies)));
+    assertThat(second, is(not(sameInstance(dependencies))));
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void resolvesAgainAfterFailure() throws Exception
+  {
+    try
+    {
+      uut.getResolution("request", new Callable<List<Dependency>>()
+      {
+        @Override
+        public List<Dependency> call() throws IOException
+        {
+          throw new IOException("Failed.");
+        }
+      });
+    }
+    catch (final IOException e)
+    {
+      // expected
+    }
+
+    final AtomicInteger calls = new AtomicInteger();
+    assertThat(uut.getResolution("request", createTask(calls)),
+        is(equalTo(dependencies)));
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void sharesCacheWithClonedSessions()
+  {
+    final MavenSession session = createSession();
+    assertThat(SessionCache.of(session.clone()),
+        is(sameInstance(SessionCache.of(session))));
+  }
+
+  @Test
+  public void releasesCacheWithSession() throws InterruptedException
+  {
+    MavenSession session = createSession();
+    final WeakReference<SessionCache> cache =
+        new WeakReference<SessionCache>(SessionCache.of(session));
+    assertThat(SessionCache.of(session), is(sameInstance(cache.get())));
+
+    session = null;
+    for (int i = 0; i < 100 && cache.get() != null; i++)
+    {
+      System.gc();
+      Thread.sleep(10L);
+      SessionCache.of(createSession());
+    }
+
+    assertThat(cache.get(), is(nullValue()));
+  }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.aether;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import help.de.smartics.maven.plugin.jboss.modules.ClusionBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.ModuleDescriptorBuilder;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryListener;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResult;
+import org.eclipse.aether.util.graph.traverser.StaticDependencyTraverser;
+import org.eclipse.aether.util.graph.visitor.PreorderNodeListGenerator;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.aether.filter.ExclusionFilter;
+import de.smartics.maven.plugin.jboss.modules.aether.filter.SkippedModuleFilter;
+import de.smartics.maven.plugin.jboss.modules.descriptor.Directives;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.PrunerGenerator;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link MavenRepository} against a repository system that resolves a
+ * fixed dependency graph.
+ */
+@Uut(type = MavenRepository.class)
+public class MavenRepositoryTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  private final File file = new File("artifact.jar");
+
+  private DependencyNode root;
+
+  private DependencyNode app;
+
+  private DependencyNode util;
+
+  private List<DependencyFilter> dependencyFilters;
+
+  private PrunerGenerator traverserGenerator;
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * Resolves the fixed graph as Aether does: Every node accepted by the
+   * filter of the request is resolved, the children of rejected nodes are
+   * still visited.
+   */
+  private final class GraphResolver implements InvocationHandler
+  {
+    @Override
+    public Object invoke(final Object proxy, final Method method,
+        final Object[] args)
+    {
+      if (!"resolveDependencies".equals(method.getName()))
+      {
+        throw new UnsupportedOperationException(method.getName());
+      }
+
+      final DependencyRequest request = (DependencyRequest) args[1];
+      resolve(root, new LinkedList<DependencyNode>(), request.getFilter());
+      final DependencyResult result = new DependencyResult(request);
+      result.setRoot(root);
+      return result;
+    }
+
+    private void resolve(final DependencyNode node,
+        final LinkedList<DependencyNode> parents,
+        final DependencyFilter filter)
+    {
+      if (node.getDependency() != null
+          && (filter == null || filter.accept(node, parents)))
+      {
+        node.setArtifact(node.getArtifact().setFile(file));
+      }
+
+      parents.addFirst(node);
+      for (final DependencyNode child : node.getChildren())
+      {
+        resolve(child, parents, filter);
+      }
+      parents.removeFirst();
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp()
+  {
+    root = new DefaultDependencyNode((Dependency) null);
+    final Dependency appDependency =
+        new Dependency(new DefaultArtifact("g:app:1.0"), "compile", false,
+            Collections.singletonList(new Exclusion("g", "excluded", "*",
+                "*")));
+    app = new DefaultDependencyNode(appDependency);
+    addChild(root, app);
+    final DependencyNode lib = createNode("g:lib:1.0");
+    addChild(app, lib);
+    util = createNode("g:util:1.0");
+    addChild(lib, util);
+    addChild(app, createNode("g:excluded:1.0"));
+
+    final ModuleDescriptorBuilder builder = ModuleDescriptorBuilder.a();
+    builder.withName("lib");
+    builder.with(new Directives.Builder().withSkip("true").build());
+    builder.withInclude(ClusionBuilder.a().withGroupId("g")
+        .withArtifactId("lib").build());
+    builder.withInclude(ClusionBuilder.a().withGroupId("g")
+        .withArtifactId("excluded").build());
+    final List<ModuleDescriptor> modules =
+        Collections.singletonList(builder.build());
+    traverserGenerator = new PrunerGenerator(null, modules, false);
+    dependencyFilters = new ArrayList<DependencyFilter>();
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private static DependencyNode createNode(final String coordinates)
+  {
+    return new DefaultDependencyNode(new Dependency(new DefaultArtifact(
+        coordinates), "compile"));
+  }
+
+  private static void addChild(final DependencyNode parent,
+      final DependencyNode child)
+  {
+    final List<DependencyNode> children =
+        new ArrayList<DependencyNode>(parent.getChildren());
+    children.add(child);
+    parent.setChildren(children);
+  }
+
+  private MavenRepository createRepository()
+  {
+    final RepositorySystem system =
+        (RepositorySystem) Proxy.newProxyInstance(
+            RepositorySystem.class.getClassLoader(),
+            new Class<?>[] {RepositorySystem.class}, new GraphResolver());
+    final DefaultRepositorySystemSession session =
+        new DefaultRepositorySystemSession();
+    session.setDependencyTraverser(new StaticDependencyTraverser(true));
+    return new MavenRepository(new RepositoryBuilder()
+    {
+      @Override
+      public RepositorySystem getRepositorySystem()
+      {
+        return system;
+      }
+
+      @Override
+      public List<DependencyFilter> getDependencyFilters()
+      {
+        return dependencyFilters;
+      }
+
+      @Override
+      public boolean isOffline()
+      {
+        return true;
+      }
+
+      @Override
+      public RepositorySystemSession getSession()
+      {
+        return session;
+      }
+
+      @Override
+      public List<RemoteRepository> getRemoteRepositories()
+      {
+        return new ArrayList<RemoteRepository>();
+      }
+
+      @Override
+      public List<Dependency> getManagedDependencies()
+      {
+        return new ArrayList<Dependency>();
+      }
+
+      @Override
+      public DependencyTraverserGenerator getTraverserGenerator()
+      {
+        return traverserGenerator;
+      }
+
+      @Override
+      public RepositoryListener getRepositoryListener()
+      {
+        return null;
+      }
+
+      @Override
+      public boolean isCollectOnly()
+      {
+        return false;
+      }
+    });
+  }
+
+  private static List<String> toArtifactIds(
+      final List<Dependency> dependencies)
+  {
+    final List<String> ids = new ArrayList<String>();
+    for (final Dependency dependency : dependencies)
+    {
+      ids.add(dependency.getArtifact().getArtifactId());
+    }
+    return ids;
+  }
+
+  private static Dependency find(final List<Dependency> dependencies,
+      final String artifactId)
+  {
+    for (final Dependency dependency : dependencies)
+    {
+      if (artifactId.equals(dependency.getArtifact().getArtifactId()))
+      {
+        return dependency;
+      }
+    }
+    throw new AssertionError("Missing dependency '" + artifactId + "'.");
+  }
+
+  /**
+   * Creates the list of dependencies as it has been created before the
+   * resolved graph has been streamed to a sink: All nodes are listed in
+   * preorder, and those without a file are dropped, unless they belong to a
+   * skipped module.
+   */
+  private List<Dependency> createNodeListDependencies()
+  {
+    final SkippedModuleFilter skippedModuleFilter =
+        traverserGenerator.getSkippedModuleFilter();
+    final PreorderNodeListGenerator generator =
+        new PreorderNodeListGenerator();
+    root.accept(generator);
+
+    final List<Dependency> dependencies = new ArrayList<Dependency>();
+    for (final DependencyNode node : generator.getNodes())
+    {
+      final Dependency dependency = node.getDependency();
+      if (dependency.getArtifact().getFile() != null
+          || skippedModuleFilter.isSkipped(dependency.getArtifact()))
+      {
+        dependencies.add(dependency);
+      }
+    }
+    return dependencies;
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void streamsDependenciesInOrderOfNodeList() throws Exception
+  {
+    final DependencyNode other = createNode("g:other:1.0");
+    addChild(app, other);
+    addChild(other, util);
+    addChild(other, createNode("g:dropped:1.0"));
+    dependencyFilters.add(new DependencyFilter()
+    {
+      @Override
+      public boolean accept(final DependencyNode node,
+          final List<DependencyNode> parents)
+      {
+        return !"dropped".equals(node.getArtifact().getArtifactId());
+      }
+    });
+    final List<Dependency> streamed = new ArrayList<Dependency>();
+
+    createRepository().resolve(
+        Collections.singletonList(app.getDependency()), new DependencySink()
+        {
+          @Override
+          public void accept(final Dependency dependency)
+          {
+            streamed.add(dependency);
+          }
+        });
+
+    assertThat(streamed, is(equalTo(createNodeListDependencies())));
+    assertThat(toArtifactIds(streamed),
+        is(equalTo(Arrays.asList("app", "lib", "util", "excluded", "other"))));
+  }
+
+  @Test
+  public void keepsSkippedModulesAndTheirDependenciesWithoutResolvingThem()
+    throws Exception
+  {
+    final List<Dependency> dependencies =
+        createRepository().resolve(
+            Collections.singletonList(app.getDependency())).getDependencies();
+
+    assertThat(toArtifactIds(dependencies),
+        is(equalTo(Arrays.asList("app", "lib", "util", "excluded"))));
+    assertThat(find(dependencies, "lib").getArtifact().getFile(),
+        is(nullValue()));
+    assertThat(find(dependencies, "util").getArtifact().getFile(),
+        is(notNullValue()));
+  }
+
+  @Test
+  public void dropsSkippedModulesRejectedByOtherFilters() throws Exception
+  {
+    dependencyFilters.add(ExclusionFilter.INSTANCE);
+
+    final List<Dependency> dependencies =
+        createRepository().resolve(
+            Collections.singletonList(app.getDependency())).getDependencies();
+
+    assertThat(toArtifactIds(dependencies),
+        is(equalTo(Arrays.asList("app", "lib", "util"))));
+    assertThat(find(dependencies, "lib").getArtifact().getFile(),
+        is(nullValue()));
+  }
+}
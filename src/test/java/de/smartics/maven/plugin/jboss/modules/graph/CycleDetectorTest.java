@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import static help.de.smartics.maven.plugin.jboss.modules.ModuleDescriptorBuilder.a;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link CycleDetector}.
+ */
+@Uut(type = CycleDetector.class, method = "findCycles()")
+public class CycleDetectorTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The slot of all modules in the test graph.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String SLOT = "main";
+
+  // --- members --------------------------------------------------------------
+
+  private ModuleGraph graph;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp()
+  {
+    graph = new ModuleGraph();
+    for (final String name : new String[] { "a", "b", "c", "d" })
+    {
+      graph.addNode(a().withName(name).build(), SLOT, true,
+          Collections.<File> emptyList());
+    }
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private ModuleGraph.Edge addEdge(final int source, final int target)
+  {
+    return ModuleGraph.addEdge(graph.getNode(source), new ModuleDependency(
+        graph.getNode(target).getName(), SLOT, false, false, null, null));
+  }
+
+  private List<int[]> findCycles()
+  {
+    graph.link();
+    return new CycleDetector(graph).findCycles();
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void findsNoCycleInAcyclicGraph()
+  {
+    addEdge(0, 1);
+    addEdge(1, 2);
+    addEdge(0, 2);
+
+    assertThat(findCycles().isEmpty(), is(true));
+  }
+
+  @Test
+  public void findsAllModulesOfCycle()
+  {
+    addEdge(0, 1);
+    addEdge(1, 2);
+    addEdge(2, 0);
+    addEdge(2, 3);
+
+    final List<int[]> cycles = findCycles();
+
+    assertThat(cycles.size(), is(1));
+    assertThat(cycles.get(0), is(equalTo(new int[] { 0, 1, 2 })));
+  }
+
+  @Test
+  public void findsSeparateCycles()
+  {
+    addEdge(0, 1);
+    addEdge(1, 0);
+    addEdge(1, 2);
+    addEdge(2, 3);
+    addEdge(3, 2);
+
+    assertThat(findCycles().size(), is(2));
+  }
+
+  @Test
+  public void ignoresRemovedEdges()
+  {
+    addEdge(0, 1);
+    addEdge(1, 0).remove();
+
+    assertThat(findCycles().isEmpty(), is(true));
+  }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import help.de.smartics.maven.plugin.jboss.modules.ArtifactBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.ModuleDescriptorBuilder;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.aether.graph.Dependency;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link GraphSnapshotWriter}.
+ */
+@Uut(type = GraphSnapshotWriter.class)
+public class GraphSnapshotWriterTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The slot of all modules in the test graph.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String SLOT = "main";
+
+  /**
+   * A name with all characters that have to be escaped in JSON strings.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String ESCAPED_NAME =
+      "q\"b\\s/\b\f\n\r\t\u0000\u001f\u00e4";
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private GraphSnapshotWriter uut;
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * Parses a JSON document strictly enough to detect characters that are not
+   * escaped. Objects are parsed to maps, arrays to lists and numbers to
+   * longs.
+   */
+  private static final class JsonParser
+  {
+    private final String text;
+
+    private int pos;
+
+    private JsonParser(final String text)
+    {
+      this.text = text;
+    }
+
+    private Object parse()
+    {
+      final Object value = parseValue();
+      skipWhitespace();
+      if (pos != text.length())
+      {
+        throw error("end of document");
+      }
+      return value;
+    }
+
+    private Object parseValue()
+    {
+      skipWhitespace();
+      if (pos >= text.length())
+      {
+        throw error("value");
+      }
+      final char c = text.charAt(pos);
+      switch (c)
+      {
+        case '{':
+          return parseObject();
+        case '[':
+          return parseArray();
+        case '"':
+          return parseString();
+        case 't':
+          return parseLiteral("true", Boolean.TRUE);
+        case 'f':
+          return parseLiteral("false", Boolean.FALSE);
+        case 'n':
+          return parseLiteral("null", null);
+        default:
+          return parseNumber();
+      }
+    }
+
+    private Map<String, Object> parseObject()
+    {
+      final Map<String, Object> object = new LinkedHashMap<String, Object>();
+      pos++;
+      skipWhitespace();
+      if (next('}'))
+      {
+        return object;
+      }
+      do
+      {
+        skipWhitespace();
+        if (pos >= text.length() || text.charAt(pos) != '"')
+        {
+          throw error("name");
+        }
+        final String name = parseString();
+        skipWhitespace();
+        expect(':');
+        object.put(name, parseValue());
+        skipWhitespace();
+      }
+      while (next(','));
+      expect('}');
+      return object;
+    }
+
+    private List<Object> parseArray()
+    {
+      final List<Object> array = new ArrayList<Object>();
+      pos++;
+      skipWhitespace();
+      if (next(']'))
+      {
+        return array;
+      }
+      do
+      {
+        array.add(parseValue());
+        skipWhitespace();
+      }
+      while (next(','));
+      expect(']');
+      return array;
+    }
+
+    private String parseString()
+    {
+      final StringBuilder buffer = new StringBuilder();
+      pos++;
+      while (true)
+      {
+        if (pos >= text.length())
+        {
+          throw error("end of string");
+        }
+        final char c = text.charAt(pos++);
+        if (c == '"')
+        {
+          return buffer.toString();
+        }
+        if (c < 0x20)
+        {
+          throw error("escaped control character");
+        }
+        if (c != '\\')
+        {
+          buffer.append(c);
+          continue;
+        }
+        final char escaped = text.charAt(pos++);
+        switch (escaped)
+        {
+          case '"':
+          case '\\':
+          case '/':
+            buffer.append(escaped);
+            break;
+          case 'b':
+            buffer.append('\b');
+            break;
+          case 'f':
+            buffer.append('\f');
+            break;
+          case 'n':
+            buffer.append('\n');
+            break;
+          case 'r':
+            buffer.append('\r');
+            break;
+          case 't':
+            buffer.append('\t');
+            break;
+          case 'u':
+            buffer.append((char) Integer.parseInt(
+                text.substring(pos, pos + 4), 16));
+            pos += 4;
+            break;
+          default:
+            throw error("escape sequence");
+        }
+      }
+    }
+
+    private Object parseLiteral(final String literal, final Object value)
+    {
+      if (!text.startsWith(literal, pos))
+      {
+        throw error(literal);
+      }
+      pos += literal.length();
+      return value;
+    }
+
+    private Long parseNumber()
+    {
+      final int start = pos;
+      next('-');
+      while (pos < text.length() && Character.isDigit(text.charAt(pos)))
+      {
+        pos++;
+      }
+      if (start == pos)
+      {
+        throw error("value");
+      }
+      return Long.valueOf(text.substring(start, pos));
+    }
+
+    private void skipWhitespace()
+    {
+      while (pos < text.length()
+             && " \t\r\n".indexOf(text.charAt(pos)) != -1)
+      {
+        pos++;
+      }
+    }
+
+    private boolean next(final char c)
+    {
+      if (pos < text.length() && text.charAt(pos) == c)
+      {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(final char c)
+    {
+      if (!next(c))
+      {
+        throw error("'" + c + "'");
+      }
+    }
+
+    private IllegalArgumentException error(final String expected)
+    {
+      return new IllegalArgumentException("Expected " + expected
+                                          + " at position " + pos + ".");
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp()
+  {
+    final ModuleDescriptor moduleA =
+        ModuleDescriptorBuilder.a().withName("a").build();
+    final ModuleDescriptor moduleB =
+        ModuleDescriptorBuilder.a().withName("b").build();
+    final Dependency artifactA =
+        new Dependency(ArtifactBuilder.a().withGroupId("g")
+            .withArtifactId("a").withVersion("1").build(), "compile");
+    final Dependency artifactB =
+        new Dependency(ArtifactBuilder.a().withGroupId("g")
+            .withArtifactId("b").withVersion("2").build(), "runtime");
+
+    final ModuleGraph graph = new ModuleGraph();
+    final ModuleGraph.Node nodeA =
+        graph.addNode(moduleA, SLOT, true, Collections.<File> emptyList());
+    graph.addNode(moduleB, SLOT, false, Collections.<File> emptyList());
+    ModuleGraph.addEdge(nodeA, new ModuleDependency("b", SLOT, false, true,
+        null, artifactB));
+    ModuleGraph.addEdge(nodeA, new ModuleDependency("c", SLOT, true, false,
+        null, null));
+    graph.link();
+
+    final Map<ModuleDescriptor, List<Dependency>> modules =
+        new LinkedHashMap<ModuleDescriptor, List<Dependency>>();
+    modules.put(moduleA, Collections.singletonList(artifactA));
+    modules.put(moduleB, Collections.singletonList(artifactB));
+    final List<Dependency> roots = new ArrayList<Dependency>();
+    roots.add(artifactA);
+
+    uut = new GraphSnapshotWriter(graph, modules, roots);
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private static int readVarInt(final DataInputStream input)
+    throws IOException
+  {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do
+    {
+      b = input.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    }
+    while ((b & 0x80) != 0);
+    return value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> get(final Map<String, Object> json,
+      final String section, final int index)
+  {
+    return ((List<Map<String, Object>>) json.get(section)).get(index);
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void escapesStringsInJson() throws IOException
+  {
+    final ModuleDescriptor module =
+        ModuleDescriptorBuilder.a().withName(ESCAPED_NAME).build();
+    final ModuleGraph graph = new ModuleGraph();
+    final ModuleGraph.Node node =
+        graph.addNode(module, ESCAPED_NAME, true,
+            Collections.<File> emptyList());
+    ModuleGraph.addEdge(node, new ModuleDependency(ESCAPED_NAME,
+        ESCAPED_NAME, false, false, null, null));
+    graph.link();
+    final File file = new File(folder.getRoot(), "escaped.json");
+
+    new GraphSnapshotWriter(graph,
+        Collections.<ModuleDescriptor, List<Dependency>> emptyMap(),
+        Collections.<Dependency> emptyList()).writeJson(file);
+
+    final Map<String, Object> json =
+        (Map<String, Object>) new JsonParser(FileUtils.readFileToString(
+            file, "UTF-8")).parse();
+    assertThat(get(json, "modules", 0).get("name"),
+        is(equalTo((Object) ESCAPED_NAME)));
+    assertThat(get(json, "modules", 0).get("slot"),
+        is(equalTo((Object) ESCAPED_NAME)));
+    assertThat(get(json, "edges", 0).get("name"),
+        is(equalTo((Object) ESCAPED_NAME)));
+    assertThat(get(json, "edges", 0).get("slot"),
+        is(equalTo((Object) ESCAPED_NAME)));
+    assertThat(get(json, "edges", 0).get("target"),
+        is(equalTo((Object) Long.valueOf(0L))));
+  }
+
+
+  @Test
+  public void writesModulesArtifactsAndEdgesAsJson() throws IOException
+  {
+    final File file = new File(folder.getRoot(), "graph.json");
+
+    uut.writeJson(file);
+
+    final String json = FileUtils.readFileToString(file, "UTF-8");
+    assertThat(json, containsString("{ \"id\": 1, \"name\": \"b\","
+                                    + " \"slot\": \"main\","
+                                    + " \"generated\": false }"));
+    assertThat(json, containsString("{ \"id\": \"g:a:jar:1\","
+                                    + " \"scope\": \"compile\","
+                                    + " \"module\": 0, \"root\": true,"
+                                    + " \"optional\": false }"));
+    assertThat(json, containsString("{ \"source\": 0, \"name\": \"b\","
+                                    + " \"slot\": \"main\", \"target\": 1,"
+                                    + " \"via\": \"g:b:jar:2\","
+                                    + " \"optional\": false,"
+                                    + " \"export\": true,"
+                                    + " \"removed\": false }"));
+    assertThat(json, containsString("\"target\": -1"));
+  }
+
+  @Test
+  public void writesInternedStringsInBinaryFormat() throws IOException
+  {
+    final File file = new File(folder.getRoot(), "graph.bin");
+
+    uut.writeBinary(file);
+
+    final DataInputStream input =
+        new DataInputStream(FileUtils.openInputStream(file));
+    try
+    {
+      assertThat(input.readInt(), is(GraphSnapshotWriter.MAGIC));
+      assertThat(input.readInt(), is(GraphSnapshotWriter.FORMAT_VERSION));
+      final List<String> strings = new ArrayList<String>();
+      int modules = 0;
+      int artifacts = 0;
+      int edges = 0;
+      int tag;
+      while ((tag = input.readUnsignedByte()) != GraphSnapshotWriter.TAG_END)
+      {
+        switch (tag)
+        {
+          case GraphSnapshotWriter.TAG_STRING:
+            strings.add(input.readUTF());
+            break;
+          case GraphSnapshotWriter.TAG_MODULE:
+            modules++;
+            readVarInt(input);
+            assertThat(strings.get(readVarInt(input)), is(SLOT));
+            input.readUnsignedByte();
+            break;
+          case GraphSnapshotWriter.TAG_ARTIFACT:
+            artifacts++;
+            readVarInt(input);
+            readVarInt(input);
+            readVarInt(input);
+            input.readUnsignedByte();
+            break;
+          default:
+            assertThat(tag, is(GraphSnapshotWriter.TAG_EDGE));
+            edges++;
+            for (int i = 0; i < 5; i++)
+            {
+              readVarInt(input);
+            }
+            input.readUnsignedByte();
+            break;
+        }
+      }
+      assertThat(modules, is(2));
+      assertThat(artifacts, is(2));
+      assertThat(edges, is(2));
+      assertThat(Collections.frequency(strings, SLOT), is(1));
+    }
+    finally
+    {
+      IOUtils.closeQuietly(input);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import help.de.smartics.maven.plugin.jboss.modules.ArtifactBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.ModuleDescriptorBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.aether.graph.Dependency;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link ModulePlan}.
+ */
+@Uut(type = ModulePlan.class, method = "createReport()")
+public class ModulePlanTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The slot of all modules in the test graph.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String SLOT = "main";
+
+  // --- members --------------------------------------------------------------
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  // --- helper ---------------------------------------------------------------
+
+  private static Dependency createDependency(final String artifactId)
+  {
+    return new Dependency(ArtifactBuilder.a().withGroupId("g")
+        .withArtifactId(artifactId).withVersion("1").build(), "compile");
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void listsModulesWithSortedArtifactsAndRemainingDependencies()
+  {
+    final ModuleDescriptor moduleA =
+        ModuleDescriptorBuilder.a().withName("a").build();
+    final ModuleDescriptor moduleB =
+        ModuleDescriptorBuilder.a().withName("b").build();
+    final ModuleGraph graph = new ModuleGraph();
+    final ModuleGraph.Node nodeA =
+        graph.addNode(moduleA, SLOT, true, Collections.<File> emptyList());
+    graph.addNode(moduleB, SLOT, false, Collections.<File> emptyList());
+    ModuleGraph.addEdge(nodeA, new ModuleDependency("b", SLOT, false, true,
+        null, null));
+    ModuleGraph.addEdge(nodeA, new ModuleDependency("c", SLOT, true, false,
+        null, null));
+    ModuleGraph.addEdge(nodeA, new ModuleDependency("d", SLOT, false, false,
+        null, null)).remove();
+    graph.link();
+
+    final Map<ModuleDescriptor, List<Dependency>> modules =
+        new LinkedHashMap<ModuleDescriptor, List<Dependency>>();
+    modules.put(moduleA,
+        Arrays.asList(createDependency("z"), createDependency("y")));
+    modules.put(moduleB, Collections.singletonList(createDependency("b")));
+
+    final String report = new ModulePlan(graph, modules).createReport();
+
+    assertThat(report, is(String.format("2 modules (1 generated),"
+                                        + " 3 artifacts, 2 dependencies\n")
+                          + "module a:main\n"
+                          + "  artifact g:y:jar:1 (compile)\n"
+                          + "  artifact g:z:jar:1 (compile)\n"
+                          + "  dependency b:main [export]\n"
+                          + "  dependency c:main [optional, external]\n"
+                          + "module b:main (skipped)\n"
+                          + "  artifact g:b:jar:1 (compile)\n"));
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.graph;
+
+import static help.de.smartics.maven.plugin.jboss.modules.ModuleDescriptorBuilder.a;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleDependency;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link TransitiveReducer}.
+ */
+@Uut(type = TransitiveReducer.class)
+public class TransitiveReducerTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The slot of all modules in the test graph.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String SLOT = "main";
+
+  // --- members --------------------------------------------------------------
+
+  private ModuleGraph graph;
+
+  private ModuleGraph.Node a;
+
+  private ModuleGraph.Node b;
+
+  private ModuleGraph.Node c;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp()
+  {
+    graph = new ModuleGraph();
+    a = addNode("a");
+    b = addNode("b");
+    c = addNode("c");
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private ModuleGraph.Node addNode(final String name)
+  {
+    return graph.addNode(a().withName(name).build(), SLOT, true,
+        Collections.<File> emptyList());
+  }
+
+  private static ModuleGraph.Edge addEdge(final ModuleGraph.Node source,
+      final ModuleGraph.Node target, final boolean export,
+      final String services)
+  {
+    return ModuleGraph.addEdge(source, new ModuleDependency(target.getName(),
+        SLOT, false, export, services, null));
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void removesDependencyImpliedByReExport()
+  {
+    addEdge(a, b, false, null);
+    addEdge(b, c, true, null);
+    final ModuleGraph.Edge implied = addEdge(a, c, false, null);
+    graph.link();
+
+    final int removed = new TransitiveReducer(graph).reduce();
+
+    assertThat(removed, is(1));
+    assertThat(implied.isRemoved(), is(true));
+    assertThat(graph.getEdgeCount(), is(2));
+  }
+
+  @Test
+  public void keepsDependencyNotReExported()
+  {
+    addEdge(a, b, false, null);
+    addEdge(b, c, false, null);
+    final ModuleGraph.Edge direct = addEdge(a, c, false, null);
+    graph.link();
+
+    new TransitiveReducer(graph).reduce();
+
+    assertThat(direct.isRemoved(), is(false));
+  }
+
+  @Test
+  public void keepsDependencyThatIsReExportedItself()
+  {
+    addEdge(a, b, false, null);
+    addEdge(b, c, true, null);
+    final ModuleGraph.Edge exported = addEdge(a, c, true, null);
+    graph.link();
+
+    new TransitiveReducer(graph).reduce();
+
+    assertThat(exported.isRemoved(), is(false));
+  }
+
+  @Test
+  public void keepsDependencyImportingServices()
+  {
+    addEdge(a, b, false, null);
+    addEdge(b, c, true, null);
+    final ModuleGraph.Edge services = addEdge(a, c, false, "import");
+    graph.link();
+
+    new TransitiveReducer(graph).reduce();
+
+    assertThat(services.isRemoved(), is(false));
+  }
+
+  @Test
+  public void keepsOneDependencyOfReExportCycle()
+  {
+    addEdge(b, c, true, null);
+    addEdge(c, b, true, null);
+    final ModuleGraph.Edge toB = addEdge(a, b, false, null);
+    final ModuleGraph.Edge toC = addEdge(a, c, false, null);
+    graph.link();
+
+    final int removed = new TransitiveReducer(graph).reduce();
+
+    assertThat(removed, is(1));
+    assertThat(toB.isRemoved() && toC.isRemoved(), is(false));
+  }
+}
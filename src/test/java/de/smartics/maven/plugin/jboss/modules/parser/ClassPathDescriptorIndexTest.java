@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.parser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link ClassPathDescriptorIndex}.
+ */
+@Uut(type = ClassPathDescriptorIndex.class,
+    method = "index(java.lang.ClassLoader)")
+public class ClassPathDescriptorIndexTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The folder on the class path to index.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String PATH = "jboss-modules";
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File directoryRoot;
+
+  private File firstJar;
+
+  private File secondJar;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp() throws IOException
+  {
+    directoryRoot = folder.newFolder("classes");
+    final File modules = new File(directoryRoot, PATH);
+    modules.mkdirs();
+    write(new File(modules, "b.xml"));
+    write(new File(modules, "a.xml"));
+    write(new File(modules, "notes.txt"));
+
+    firstJar = createJar("first.jar", PATH + '/', PATH + "/d.xml",
+        PATH + "/c.xml", PATH + "/nested/", PATH + "/nested/e.xml", "other/",
+        "other/f.xml");
+    secondJar = createJar("second.jar", PATH + '/', PATH + "/g.xml");
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private static void write(final File file) throws IOException
+  {
+    final OutputStream out = new FileOutputStream(file);
+    try
+    {
+      out.write("<modules/>".getBytes("UTF-8"));
+    }
+    finally
+    {
+      out.close();
+    }
+  }
+
+  private File createJar(final String name, final String... entries)
+    throws IOException
+  {
+    final File jar = new File(folder.getRoot(), name);
+    final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+    try
+    {
+      for (final String entry : entries)
+      {
+        out.putNextEntry(new ZipEntry(entry));
+        if (!entry.endsWith("/"))
+        {
+          out.write(("<modules id=\"" + entry + "\"/>").getBytes("UTF-8"));
+        }
+        out.closeEntry();
+      }
+    }
+    finally
+    {
+      out.close();
+    }
+    return jar;
+  }
+
+  private List<String> index(final File... roots) throws IOException
+  {
+    final URL[] urls = new URL[roots.length];
+    for (int i = 0; i < roots.length; i++)
+    {
+      urls[i] = roots[i].toURI().toURL();
+    }
+    final ClassLoader classLoader = new URLClassLoader(urls, null);
+
+    final List<String> names = new ArrayList<String>();
+    for (final DescriptorSource source : new ClassPathDescriptorIndex(PATH)
+        .index(classLoader))
+    {
+      final String systemId = source.getSystemId();
+      names.add(systemId.substring(systemId.lastIndexOf('/') + 1));
+    }
+    return names;
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void listsDescriptorsOfEachRootInOrder() throws IOException
+  {
+    final List<String> names = index(secondJar, directoryRoot, firstJar);
+
+    final List<String> expected = new ArrayList<String>();
+    expected.add("g.xml");
+    expected.add("a.xml");
+    expected.add("b.xml");
+    expected.add("c.xml");
+    expected.add("d.xml");
+    assertThat(names, is(equalTo(expected)));
+  }
+
+  @Test
+  public void mapsDescriptorsInJarsToTheirJar() throws IOException
+  {
+    final List<DescriptorSource> sources =
+        new ClassPathDescriptorIndex(PATH).index(new URLClassLoader(
+            new URL[] { firstJar.toURI().toURL() }, null));
+
+    assertThat(sources.size(), is(equalTo(2)));
+    final DescriptorSource source = sources.get(0);
+    assertThat(source.getSystemId(), is(equalTo("jar:"
+                                                + firstJar.toURI().toURL()
+                                                + "!/" + PATH + "/c.xml")));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.smartics.maven.plugin.jboss.modules.parser;
+
+import static help.de.smartics.maven.plugin.jboss.modules.ModuleDescriptorBuilder.a;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModulesDescriptor;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link DescriptorCache}.
+ */
+@Uut(type = DescriptorCache.class)
+public class DescriptorCacheTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The identifier of the cached document.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String SYSTEM_ID = "jboss-modules/test.xml";
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File cacheFile;
+
+  private String hash;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp() throws IOException
+  {
+    cacheFile = new File(folder.getRoot(), "cache/descriptors.cache");
+    hash = DescriptorCache.hash("<modules/>".getBytes("UTF-8"));
+
+    final ModulesDescriptor descriptor = new ModulesDescriptor(SYSTEM_ID);
+    descriptor.addDescriptor(a().withName("cached.module").build());
+    final DescriptorCache cache = DescriptorCache.load(cacheFile);
+    cache.put(hash, SYSTEM_ID, descriptor);
+    cache.store();
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void loadsStoredDescriptors()
+  {
+    final DescriptorCache cache = DescriptorCache.load(cacheFile);
+
+    final ModulesDescriptor descriptor = cache.get(hash, SYSTEM_ID);
+    assertThat(descriptor.getModulesId(), is(equalTo(SYSTEM_ID)));
+    assertThat(descriptor.getDescriptors().get(0).getName(),
+        is(equalTo("cached.module")));
+    assertThat(cache.getHits(), is(equalTo(1)));
+  }
+
+  @Test
+  public void missesChangedContent() throws IOException
+  {
+    final DescriptorCache cache = DescriptorCache.load(cacheFile);
+
+    final String changed =
+        DescriptorCache.hash("<modules />".getBytes("UTF-8"));
+    assertThat(cache.get(changed, SYSTEM_ID), is(nullValue()));
+  }
+
+  @Test
+  public void missesOtherDocument()
+  {
+    final DescriptorCache cache = DescriptorCache.load(cacheFile);
+
+    assertThat(cache.get(hash, "jboss-modules/other.xml"), is(nullValue()));
+  }
+
+  @Test
+  public void ignoresCorruptFile() throws IOException
+  {
+    FileUtils.writeStringToFile(cacheFile, "corrupt", "UTF-8");
+
+    final DescriptorCache cache = DescriptorCache.load(cacheFile);
+
+    assertThat(cache.get(hash, SYSTEM_ID), is(nullValue()));
+  }
+}
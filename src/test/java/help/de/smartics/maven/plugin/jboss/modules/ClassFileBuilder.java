@@ -0,0 +1,264 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package help.de.smartics.maven.plugin.jboss.modules;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Builds class files with a given constant pool. The class has no fields,
+ * methods, or attributes and refers to the first class constant as this
+ * class.
+ */
+public final class ClassFileBuilder
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The serialized entries of the constant pool.
+   */
+  private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+  /**
+   * The stream to write the entries of the constant pool to.
+   */
+  private final DataOutputStream pool = new DataOutputStream(bytes);
+
+  /**
+   * The index of the next entry in the constant pool.
+   */
+  private int next = 1;
+
+  /**
+   * The index of the first class constant.
+   */
+  private int thisClass;
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private ClassFileBuilder()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Adds a UTF-8 constant.
+   *
+   * @param value the value of the constant.
+   * @return the index of the constant.
+   * @throws IOException never.
+   */
+  public int addUtf8(final String value) throws IOException
+  {
+    pool.writeByte(1);
+    pool.writeUTF(value);
+    return next++;
+  }
+
+  /**
+   * Adds a class constant together with the UTF-8 constant of its name.
+   *
+   * @param internalName the name of the class with slashes as separators.
+   * @return the index of the class constant.
+   * @throws IOException never.
+   */
+  public int addClass(final String internalName) throws IOException
+  {
+    final int name = addUtf8(internalName);
+    pool.writeByte(7);
+    pool.writeShort(name);
+    if (thisClass == 0)
+    {
+      thisClass = next;
+    }
+    return next++;
+  }
+
+  /**
+   * Adds a long constant occupying two entries.
+   *
+   * @param value the value of the constant.
+   * @return the index of the constant.
+   * @throws IOException never.
+   */
+  public int addLong(final long value) throws IOException
+  {
+    pool.writeByte(5);
+    pool.writeLong(value);
+    final int index = next;
+    next += 2;
+    return index;
+  }
+
+  /**
+   * Adds a double constant occupying two entries.
+   *
+   * @param value the value of the constant.
+   * @return the index of the constant.
+   * @throws IOException never.
+   */
+  public int addDouble(final double value) throws IOException
+  {
+    pool.writeByte(6);
+    pool.writeDouble(value);
+    final int index = next;
+    next += 2;
+    return index;
+  }
+
+  /**
+   * Adds a name and type constant together with the UTF-8 constants of the
+   * name and the descriptor.
+   *
+   * @param name the name of the member.
+   * @param descriptor the descriptor of the member.
+   * @return the index of the constant.
+   * @throws IOException never.
+   */
+  public int addNameAndType(final String name, final String descriptor)
+    throws IOException
+  {
+    final int nameIndex = addUtf8(name);
+    final int descriptorIndex = addUtf8(descriptor);
+    pool.writeByte(12);
+    pool.writeShort(nameIndex);
+    pool.writeShort(descriptorIndex);
+    return next++;
+  }
+
+  /**
+   * Adds a method reference constant.
+   *
+   * @param classIndex the index of the class constant.
+   * @param nameAndTypeIndex the index of the name and type constant.
+   * @return the index of the constant.
+   * @throws IOException never.
+   */
+  public int addMethodRef(final int classIndex, final int nameAndTypeIndex)
+    throws IOException
+  {
+    pool.writeByte(10);
+    pool.writeShort(classIndex);
+    pool.writeShort(nameAndTypeIndex);
+    return next++;
+  }
+
+  /**
+   * Adds a method handle constant.
+   *
+   * @param kind the kind of the reference.
+   * @param referenceIndex the index of the referenced member.
+   * @return the index of the constant.
+   * @throws IOException never.
+   */
+  public int addMethodHandle(final int kind, final int referenceIndex)
+    throws IOException
+  {
+    pool.writeByte(15);
+    pool.writeByte(kind);
+    pool.writeShort(referenceIndex);
+    return next++;
+  }
+
+  /**
+   * Adds a method type constant together with the UTF-8 constant of its
+   * descriptor.
+   *
+   * @param descriptor the descriptor of the method.
+   * @return the index of the constant.
+   * @throws IOException never.
+   */
+  public int addMethodType(final String descriptor) throws IOException
+  {
+    final int descriptorIndex = addUtf8(descriptor);
+    pool.writeByte(16);
+    pool.writeShort(descriptorIndex);
+    return next++;
+  }
+
+  /**
+   * Adds an invoke dynamic constant.
+   *
+   * @param bootstrapIndex the index of the bootstrap method.
+   * @param nameAndTypeIndex the index of the name and type constant.
+   * @return the index of the constant.
+   * @throws IOException never.
+   */
+  public int addInvokeDynamic(final int bootstrapIndex,
+      final int nameAndTypeIndex) throws IOException
+  {
+    pool.writeByte(18);
+    pool.writeShort(bootstrapIndex);
+    pool.writeShort(nameAndTypeIndex);
+    return next++;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Creates a builder with an empty constant pool.
+   *
+   * @return the new builder.
+   */
+  public static ClassFileBuilder a()
+  {
+    return new ClassFileBuilder();
+  }
+
+  /**
+   * Returns the content of the class file.
+   *
+   * @return the content of the class file.
+   * @throws IOException never.
+   */
+  public byte[] build() throws IOException
+  {
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(content);
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0);
+    out.writeShort(52);
+    out.writeShort(next);
+    pool.flush();
+    bytes.writeTo(out);
+    out.writeShort(0x0021);
+    out.writeShort(thisClass);
+    out.writeShort(0);
+    out.writeShort(0);
+    out.writeShort(0);
+    out.writeShort(0);
+    out.writeShort(0);
+    out.flush();
+    return content.toByteArray();
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
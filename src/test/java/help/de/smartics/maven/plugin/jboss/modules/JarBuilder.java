@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package help.de.smartics.maven.plugin.jboss.modules;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Builds test archives with given entries.
+ */
+public final class JarBuilder
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The content of the entries by their names.
+   */
+  private final Map<String, byte[]> entries =
+      new LinkedHashMap<String, byte[]>();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private JarBuilder()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Adds an entry with empty content. Names ending with a slash are added as
+   * folders.
+   *
+   * @param name the name of the entry.
+   * @return a reference to this builder.
+   */
+  public JarBuilder withEntry(final String name)
+  {
+    return withEntry(name, new byte[0]);
+  }
+
+  /**
+   * Adds an entry with the given content.
+   *
+   * @param name the name of the entry.
+   * @param content the content of the entry.
+   * @return a reference to this builder.
+   */
+  public JarBuilder withEntry(final String name, final byte[] content)
+  {
+    entries.put(name, content);
+    return this;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Creates a builder without entries.
+   *
+   * @return the new builder.
+   */
+  public static JarBuilder a()
+  {
+    return new JarBuilder();
+  }
+
+  /**
+   * Writes the archive to the given file.
+   *
+   * @param file the file to write to.
+   * @return the written file.
+   * @throws IOException on any problem writing the file.
+   */
+  public File build(final File file) throws IOException
+  {
+    final ZipOutputStream out =
+        new ZipOutputStream(FileUtils.openOutputStream(file));
+    try
+    {
+      for (final Entry<String, byte[]> entry : entries.entrySet())
+      {
+        out.putNextEntry(new ZipEntry(entry.getKey()));
+        out.write(entry.getValue());
+        out.closeEntry();
+      }
+      out.close();
+    }
+    finally
+    {
+      IOUtils.closeQuietly(out);
+    }
+    return file;
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
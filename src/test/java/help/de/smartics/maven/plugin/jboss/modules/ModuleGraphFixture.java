@@ -0,0 +1,280 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package help.de.smartics.maven.plugin.jboss.modules;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+
+import de.smartics.maven.plugin.jboss.modules.aether.DependencySink;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToDependencies;
+import de.smartics.maven.plugin.jboss.modules.descriptor.DependenciesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleClusion;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleMatcher;
+import de.smartics.maven.plugin.jboss.modules.domain.ExecutionContext;
+import de.smartics.maven.plugin.jboss.modules.domain.ModuleMap;
+import de.smartics.maven.plugin.jboss.modules.domain.SlotStrategy;
+import de.smartics.maven.plugin.jboss.modules.domain.SlotTable;
+import de.smartics.maven.plugin.jboss.modules.domain.TransitiveDependencyResolver;
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraph;
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraphBuilder;
+
+/**
+ * Builds module graphs with the {@link ModuleGraphBuilder}. Each module
+ * contains a single artifact whose artifact ID is the name of the module. The
+ * dependencies between modules are resolved without accessing a repository.
+ */
+public final class ModuleGraphFixture
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The group ID of the artifacts of all modules.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String GROUP_ID = "de.smartics.test";
+
+  // --- members --------------------------------------------------------------
+
+  /**
+   * The artifacts of the modules by the name of their module.
+   */
+  private final Map<String, Dependency> artifacts =
+      new LinkedHashMap<String, Dependency>();
+
+  /**
+   * The direct dependencies of the artifacts by the name of their module.
+   */
+  private final Map<String, List<Dependency>> dependencies =
+      new HashMap<String, List<Dependency>>();
+
+  /**
+   * The information applied to dependencies by the name of the depending
+   * module.
+   */
+  private final Map<String, ApplyToDependencies.Builder> applyToDependencies =
+      new HashMap<String, ApplyToDependencies.Builder>();
+
+  // ****************************** Initializer *******************************
+
+  // ****************************** Constructors ******************************
+
+  private ModuleGraphFixture()
+  {
+  }
+
+  // ****************************** Inner Classes *****************************
+
+  /**
+   * Resolves the direct dependencies registered with the fixture.
+   */
+  private final class FixtureResolver implements TransitiveDependencyResolver
+  {
+    @Override
+    public List<Dependency> resolve(final Dependency dependency)
+    {
+      return resolveDirect(dependency);
+    }
+
+    @Override
+    public List<Dependency> resolveDirect(final Dependency dependency)
+    {
+      final List<Dependency> direct =
+          dependencies.get(dependency.getArtifact().getArtifactId());
+      return direct != null ? direct : new ArrayList<Dependency>();
+    }
+
+    @Override
+    public List<Dependency> resolve(final List<Dependency> roots)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void resolveDirect(final Dependency dependency,
+        final DependencySink sink)
+    {
+      for (final Dependency direct : resolveDirect(dependency))
+      {
+        sink.accept(direct);
+      }
+    }
+
+    @Override
+    public void resolve(final List<Dependency> roots,
+        final DependencySink sink)
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  // ********************************* Methods ********************************
+
+  // --- init -----------------------------------------------------------------
+
+  // --- get&set --------------------------------------------------------------
+
+  /**
+   * Adds a generated module.
+   *
+   * @param name the name of the module.
+   * @param resource the archive of the module.
+   * @return a reference to this builder.
+   */
+  public ModuleGraphFixture withModule(final String name, final File resource)
+  {
+    artifacts.put(name, new Dependency(new DefaultArtifact(GROUP_ID, name,
+        "jar", "1.0").setFile(resource), "compile"));
+    return this;
+  }
+
+  /**
+   * Adds a dependency between two modules.
+   *
+   * @param source the name of the depending module.
+   * @param target the name of the module depended upon.
+   * @param export the flag signals that the dependency is re-exported.
+   * @param services the services attribute of the dependency. May be
+   *          <code>null</code>.
+   * @return a reference to this builder.
+   */
+  public ModuleGraphFixture withDependency(final String source,
+      final String target, final boolean export, final String services)
+  {
+    List<Dependency> direct = dependencies.get(source);
+    if (direct == null)
+    {
+      direct = new ArrayList<Dependency>();
+      dependencies.put(source, direct);
+    }
+    direct.add(artifacts.get(target));
+
+    if (export || services != null)
+    {
+      ApplyToDependencies.Builder apply = applyToDependencies.get(source);
+      if (apply == null)
+      {
+        apply = new ApplyToDependencies.Builder();
+        applyToDependencies.put(source, apply);
+      }
+      final ModuleMatcher.Builder matcher = new ModuleMatcher.Builder();
+      matcher.addInclude(new ModuleClusion(target));
+      apply.add(new DependenciesDescriptor.Builder().with(matcher.build())
+          .withExport(String.valueOf(export)).withServices(services).build());
+    }
+    return this;
+  }
+
+  // --- business -------------------------------------------------------------
+
+  /**
+   * Creates a builder without modules.
+   *
+   * @return the new builder.
+   */
+  public static ModuleGraphFixture a()
+  {
+    return new ModuleGraphFixture();
+  }
+
+  /**
+   * Builds the graph of the modules.
+   *
+   * @return the linked graph.
+   */
+  public ModuleGraph build()
+  {
+    final List<ModuleDescriptor> modules = new ArrayList<ModuleDescriptor>();
+    for (final String name : artifacts.keySet())
+    {
+      final ModuleDescriptorBuilder builder =
+          ModuleDescriptorBuilder.a().withName(name);
+      builder.withInclude(ClusionBuilder.a().withGroupId(GROUP_ID)
+          .withArtifactId(name).build());
+      final ApplyToDependencies.Builder apply = applyToDependencies.get(name);
+      if (apply != null)
+      {
+        builder.with(apply.build());
+      }
+      modules.add(builder.build());
+    }
+
+    final SlotTable slotTable = new SlotTable(SlotStrategy.MAIN);
+    slotTable.addAll(artifacts.values());
+    final ExecutionContext context =
+        new ExecutionContext.Builder().with(new SystemStreamLog())
+            .withTargetFolder(new File("target/jboss-modules"))
+            .with(new FixtureResolver()).with(slotTable)
+            .withDefaultSlot(SlotStrategy.MAIN_SLOT)
+            .with(new ModuleMap(modules, artifacts.values())).build();
+    return new ModuleGraphBuilder(context).build();
+  }
+
+  /**
+   * Returns the node of the module with the given name.
+   *
+   * @param graph the graph to search.
+   * @param name the name of the module.
+   * @return the node of the module.
+   * @throws IllegalArgumentException if the graph has no such module.
+   */
+  public static ModuleGraph.Node getNode(final ModuleGraph graph,
+      final String name) throws IllegalArgumentException
+  {
+    final int id = graph.getNodeId(name, SlotStrategy.MAIN_SLOT);
+    if (id == ModuleGraph.UNKNOWN)
+    {
+      throw new IllegalArgumentException("Unknown module: " + name);
+    }
+    return graph.getNode(id);
+  }
+
+  /**
+   * Returns the dependency of a module on the module with the given name.
+   *
+   * @param source the depending module.
+   * @param target the name of the module depended upon.
+   * @return the edge of the dependency.
+   * @throws IllegalArgumentException if there is no such dependency.
+   */
+  public static ModuleGraph.Edge getEdge(final ModuleGraph.Node source,
+      final String target) throws IllegalArgumentException
+  {
+    for (final ModuleGraph.Edge edge : source.getEdges())
+    {
+      if (target.equals(edge.getDependency().getName()))
+      {
+        return edge;
+      }
+    }
+    throw new IllegalArgumentException("Unknown dependency: " + target);
+  }
+
+  // --- object basics --------------------------------------------------------
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.aether;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.io.File;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositoryEvent.EventType;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.aether.RepositoryLogListener;
+import de.smartics.maven.plugin.jboss.modules.aether.ResolutionMetrics;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link RepositoryLogListener}.
+ */
+public class RepositoryLogListenerTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  private final DefaultRepositorySystemSession session =
+      new DefaultRepositorySystemSession();
+
+  private final ResolutionMetrics metrics = new ResolutionMetrics(10);
+
+  @Uut
+  private final RepositoryLogListener uut = new RepositoryLogListener(metrics);
+
+  private final RemoteRepository central = new RemoteRepository.Builder(
+      "central", "default", "http://repo.example.org/maven2").build();
+
+  private final LocalRepository local = new LocalRepository(new File(
+      "target/local-repository"));
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  // --- helper ---------------------------------------------------------------
+
+  private RepositoryEvent createEvent(final EventType type,
+      final Artifact artifact, final ArtifactRepository repository)
+  {
+    return new RepositoryEvent.Builder(session, type).setArtifact(artifact)
+        .setRepository(repository).setFile(new File("test.jar")).build();
+  }
+
+  private void resolve(final Artifact artifact,
+      final ArtifactRepository repository)
+  {
+    uut.artifactResolving(createEvent(EventType.ARTIFACT_RESOLVING, artifact,
+        null));
+    uut.artifactResolved(createEvent(EventType.ARTIFACT_RESOLVED, artifact,
+        repository));
+  }
+
+  private String renderMetrics()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    metrics.appendJson(buffer, "");
+    return buffer.toString();
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void recordsResolvedArtifactsPerRepository()
+  {
+    resolve(new DefaultArtifact("g:a:jar:1.0"), central);
+    resolve(new DefaultArtifact("g:a:pom:1.0"), local);
+
+    final String json = renderMetrics();
+    assertThat(json, containsString("\"artifact@central\": { \"count\": 1"));
+    assertThat(json, containsString("\"descriptor@local\": { \"count\": 1"));
+    assertThat(json, not(containsString("@null")));
+  }
+
+  @Test
+  public void recordsResolvedArtifactsPerCoordinates()
+  {
+    resolve(new DefaultArtifact("g:a:jar:1.0"), central);
+    resolve(new DefaultArtifact("g:a:pom:1.0"), central);
+    resolve(new DefaultArtifact("g:b:jar:2.0"), local);
+
+    assertThat(metrics.getSlowestArtifacts().size(), is(2));
+    final String json = renderMetrics();
+    assertThat(json, containsString("\"artifact\": \"g:a:1.0\""));
+    assertThat(json, containsString("\"artifact\": \"g:b:2.0\""));
+  }
+
+  @Test
+  public void countsLocalAndRemoteHits()
+  {
+    resolve(new DefaultArtifact("g:a:jar:1.0"), central);
+    resolve(new DefaultArtifact("g:b:jar:1.0"), local);
+    resolve(new DefaultArtifact("g:c:jar:1.0"), local);
+
+    assertThat(metrics.getRemoteHits(), is(equalTo(1L)));
+    assertThat(metrics.getLocalHits(), is(equalTo(2L)));
+  }
+}
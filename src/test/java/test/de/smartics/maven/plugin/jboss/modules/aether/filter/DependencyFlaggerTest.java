@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.aether.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.junit.After;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.aether.filter.DependencyFlagger;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link DependencyFlagger}.
+ */
+@Uut(type = DependencyFlagger.class)
+public class DependencyFlaggerTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @After
+  public void tearDown()
+  {
+    DependencyFlagger.unbind();
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private static DependencyNode createNode(final String coordinates)
+  {
+    return new DefaultDependencyNode(new Dependency(new DefaultArtifact(
+        coordinates), "compile"));
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void doesNotLeakFlagsIntoNextResolutionOfThread()
+  {
+    final DependencyNode node = createNode("g:a:1.0");
+    final DependencyFlagger first = new DependencyFlagger();
+    first.bind();
+    DependencyFlagger.flagRejected(node);
+    DependencyFlagger.unbind();
+
+    final DependencyFlagger second = new DependencyFlagger();
+    second.bind();
+    final DependencyNode other = createNode("g:b:1.0");
+    DependencyFlagger.flagRejected(other);
+
+    assertThat(first.isFlagged(node), is(true));
+    assertThat(second.isFlagged(node), is(false));
+    assertThat(first.isFlagged(other), is(false));
+  }
+
+  @Test
+  public void flagsEqualNodesAtDifferentPositionsIndependently()
+  {
+    final DependencyNode viaA = createNode("g:shared:1.0");
+    final DependencyNode viaB = createNode("g:shared:1.0");
+    final DependencyFlagger flagger = new DependencyFlagger();
+    flagger.bind();
+
+    DependencyFlagger.flagRejected(viaA);
+
+    assertThat(viaA.getDependency().equals(viaB.getDependency()), is(true));
+    assertThat(flagger.isFlagged(viaA), is(true));
+    assertThat(flagger.isFlagged(viaB), is(false));
+  }
+
+  @Test
+  public void ignoresFlagsIfNoFlaggerIsBound()
+  {
+    final DependencyNode node = createNode("g:a:1.0");
+    final DependencyFlagger flagger = new DependencyFlagger();
+
+    DependencyFlagger.flagRejected(node);
+
+    assertThat(flagger.isFlagged(node), is(false));
+  }
+
+  @SuppressWarnings("deprecation")
+  @Test
+  public void sharedInstanceDelegatesToBoundFlagger()
+  {
+    final DependencyNode node = createNode("g:a:1.0");
+    final DependencyFlagger flagger = new DependencyFlagger();
+    flagger.bind();
+
+    DependencyFlagger.INSTANCE.flag(node);
+
+    assertThat(flagger.isFlagged(node), is(true));
+    assertThat(DependencyFlagger.INSTANCE.isFlagged(node), is(true));
+  }
+
+  @SuppressWarnings("deprecation")
+  @Test(expected = IllegalStateException.class)
+  public void sharedInstanceCannotBeBound()
+  {
+    DependencyFlagger.INSTANCE.bind();
+  }
+}
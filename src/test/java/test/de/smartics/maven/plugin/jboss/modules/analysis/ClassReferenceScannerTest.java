@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.analysis;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import help.de.smartics.maven.plugin.jboss.modules.ClassFileBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.JarBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.maven.plugin.jboss.modules.analysis.ClassReferenceScanner;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link ClassReferenceScanner}.
+ */
+public class ClassReferenceScannerTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Uut
+  private final ClassReferenceScanner uut = new ClassReferenceScanner();
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  // --- helper ---------------------------------------------------------------
+
+  private Set<String> scan(final ClassFileBuilder classFile)
+    throws IOException
+  {
+    final File jarFile =
+        JarBuilder.a().withEntry("org/example/Test.class", classFile.build())
+            .build(folder.newFile("test.jar"));
+    return uut.scan(jarFile);
+  }
+
+  private static Set<String> setOf(final String... packages)
+  {
+    return new HashSet<String>(Arrays.asList(packages));
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void readsClassesFollowingLongAndDoubleConstants()
+    throws IOException
+  {
+    final ClassFileBuilder classFile = ClassFileBuilder.a();
+    classFile.addClass("org/example/Test");
+    classFile.addLong(Long.MAX_VALUE);
+    classFile.addClass("org/example/afterlong/A");
+    classFile.addDouble(Math.PI);
+    classFile.addClass("org/example/afterdouble/B");
+
+    assertThat(scan(classFile), is(equalTo(setOf("org.example",
+        "org.example.afterlong", "org.example.afterdouble"))));
+  }
+
+  @Test
+  public void readsMethodHandleAndInvokeDynamicConstants()
+    throws IOException
+  {
+    final ClassFileBuilder classFile = ClassFileBuilder.a();
+    classFile.addClass("org/example/Test");
+    final int owner = classFile.addClass("org/example/handle/Factory");
+    final int create =
+        classFile.addNameAndType("create", "()Lorg/example/created/C;");
+    final int method = classFile.addMethodRef(owner, create);
+    classFile.addMethodHandle(6, method);
+    final int call =
+        classFile.addNameAndType("call", "()Lorg/example/indy/Result;");
+    classFile.addInvokeDynamic(0, call);
+    classFile.addMethodType("(Lorg/example/type/Arg;)V");
+    classFile.addClass("org/example/after/D");
+
+    assertThat(scan(classFile), is(equalTo(setOf("org.example",
+        "org.example.handle", "org.example.created", "org.example.indy",
+        "org.example.type", "org.example.after"))));
+  }
+
+  @Test
+  public void readsTypesOfArraysAndDescriptors() throws IOException
+  {
+    final ClassFileBuilder classFile = ClassFileBuilder.a();
+    classFile.addClass("org/example/Test");
+    classFile.addClass("[[Lorg/example/array/Element;");
+    classFile.addClass("[I");
+    classFile.addNameAndType("convert",
+        "(ILorg/example/param/In;[J)[Lorg/example/ret/Out;");
+    classFile.addUtf8("Ljava/util/List<Lorg/example/generic/Item;>;");
+
+    assertThat(scan(classFile), is(equalTo(setOf("org.example",
+        "org.example.array", "org.example.param", "org.example.ret",
+        "java.util", "org.example.generic"))));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.analysis;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.analysis.ModuleIndex;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link ModuleIndex}.
+ */
+public class ModuleIndexTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  @Uut
+  private final ModuleIndex uut = new ModuleIndex(4);
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  // --- helper ---------------------------------------------------------------
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void storesModulesAscendingWithoutDuplicates()
+  {
+    uut.add("org.example", 3);
+    uut.add("org.example", 1);
+    uut.add("org.example", 3);
+    uut.add("org.example", 2);
+
+    assertThat(uut.getModules("org.example"), is(equalTo(new int[] { 1, 2, 3 })));
+  }
+
+  @Test
+  public void reportsOnlyNamesContainedInSeveralModules()
+  {
+    uut.add("org.example.b", 1);
+    uut.add("org.example.b", 2);
+    uut.add("org.example.single", 1);
+    uut.add("org.example.a", 0);
+    uut.add("org.example.a", 2);
+
+    assertThat(uut.getSharedNames(),
+        is(equalTo(Arrays.asList("org.example.a", "org.example.b"))));
+    assertThat(uut.isShared("org.example.single"), is(false));
+  }
+}
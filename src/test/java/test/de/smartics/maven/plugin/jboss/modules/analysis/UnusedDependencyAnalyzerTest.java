@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.analysis;
+
+import static help.de.smartics.maven.plugin.jboss.modules.ModuleGraphFixture.getEdge;
+import static help.de.smartics.maven.plugin.jboss.modules.ModuleGraphFixture.getNode;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import help.de.smartics.maven.plugin.jboss.modules.ClassFileBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.JarBuilder;
+import help.de.smartics.maven.plugin.jboss.modules.ModuleGraphFixture;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.maven.plugin.jboss.modules.analysis.ModuleIndex;
+import de.smartics.maven.plugin.jboss.modules.analysis.UnusedDependencyAnalyzer;
+import de.smartics.maven.plugin.jboss.modules.graph.ModuleGraph;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link UnusedDependencyAnalyzer}.
+ */
+@Uut(type = UnusedDependencyAnalyzer.class)
+public class UnusedDependencyAnalyzerTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private ModuleGraph graph;
+
+  private ModuleIndex packageIndex;
+
+  private ModuleGraph.Edge toApi;
+
+  private ModuleGraph.Edge toServices;
+
+  private ModuleGraph.Edge toUnused;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  /**
+   * Creates module <code>app</code> whose classes only reference module
+   * <code>impl</code>, which is re-exported by its dependency
+   * <code>api</code>. The dependencies to <code>services</code> and
+   * <code>unused</code> are not referenced at all.
+   */
+  @Before
+  public void setUp() throws IOException
+  {
+    graph =
+        ModuleGraphFixture
+            .a()
+            .withModule(
+                "app",
+                createJar("app", "org/example/app/App",
+                    "org/example/impl/Impl"))
+            .withModule("api", createJar("api", "org/example/api/Api"))
+            .withModule("impl", createJar("impl", "org/example/impl/Impl"))
+            .withModule("services",
+                createJar("services", "org/example/services/Service"))
+            .withModule("unused",
+                createJar("unused", "org/example/unused/Unused"))
+            .withDependency("app", "api", false, null)
+            .withDependency("app", "services", false, "import")
+            .withDependency("app", "unused", false, null)
+            .withDependency("api", "impl", true, null).build();
+    final ModuleGraph.Node app = getNode(graph, "app");
+    final ModuleGraph.Node api = getNode(graph, "api");
+    final ModuleGraph.Node impl = getNode(graph, "impl");
+    final ModuleGraph.Node services = getNode(graph, "services");
+    final ModuleGraph.Node unused = getNode(graph, "unused");
+    toApi = getEdge(app, "api");
+    toServices = getEdge(app, "services");
+    toUnused = getEdge(app, "unused");
+
+    packageIndex = new ModuleIndex(8);
+    packageIndex.add("org.example.app", app.getId());
+    packageIndex.add("org.example.api", api.getId());
+    packageIndex.add("org.example.impl", impl.getId());
+    packageIndex.add("org.example.services", services.getId());
+    packageIndex.add("org.example.unused", unused.getId());
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private File createJar(final String name, final String className,
+      final String... references) throws IOException
+  {
+    final ClassFileBuilder classFile = ClassFileBuilder.a();
+    classFile.addClass(className);
+    for (final String reference : references)
+    {
+      classFile.addClass(reference);
+    }
+    return JarBuilder.a().withEntry(className + ".class", classFile.build())
+        .build(folder.newFile(name + ".jar"));
+  }
+
+  private List<ModuleGraph.Edge> analyze(final boolean prune)
+    throws MojoExecutionException
+  {
+    return new UnusedDependencyAnalyzer(graph, packageIndex, null, 1)
+        .analyze(prune);
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void pruneRemovesUnreferencedDependency()
+    throws MojoExecutionException
+  {
+    final List<ModuleGraph.Edge> unused = analyze(true);
+
+    assertThat(unused, is(equalTo(Collections.singletonList(toUnused))));
+    assertThat(toUnused.isRemoved(), is(true));
+  }
+
+  @Test
+  public void pruneKeepsDependencyReferencedOnlyThroughReExport()
+    throws MojoExecutionException
+  {
+    analyze(true);
+
+    assertThat(toApi.isRemoved(), is(false));
+  }
+
+  @Test
+  public void pruneKeepsDependencyImportingServices()
+    throws MojoExecutionException
+  {
+    analyze(true);
+
+    assertThat(toServices.isRemoved(), is(false));
+  }
+
+  @Test
+  public void reportDoesNotRemoveAnyDependency()
+    throws MojoExecutionException
+  {
+    final List<ModuleGraph.Edge> unused = analyze(false);
+
+    assertThat(unused, is(equalTo(Collections.singletonList(toUnused))));
+    assertThat(graph.getEdgeCount(), is(4));
+    for (final ModuleGraph.Node node : graph.getNodes())
+    {
+      for (final ModuleGraph.Edge edge : node.getEdges())
+      {
+        assertThat(edge.isRemoved(), is(false));
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.descriptor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToDependencies;
+import de.smartics.maven.plugin.jboss.modules.descriptor.DependenciesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleClusion;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleMatcher;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link ApplyToDependencies}.
+ */
+public class ApplyToDependenciesTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  @Uut
+  private ApplyToDependencies uut;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp()
+  {
+    final ApplyToDependencies.Builder builder =
+        new ApplyToDependencies.Builder();
+    builder.add(createDescriptor("org\\.slf4j", "slf4j"));
+    builder.add(createDescriptor("org\\.apache\\.commons\\..*", "commons"));
+    builder.add(createDescriptor("org.jboss.logging", "logging"));
+    uut = builder.build();
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private static DependenciesDescriptor createDescriptor(final String include,
+      final String slot)
+  {
+    final ModuleMatcher.Builder matcher = new ModuleMatcher.Builder();
+    matcher.addInclude(new ModuleClusion(include));
+    return new DependenciesDescriptor.Builder().with(matcher.build())
+        .withSlot(slot).build();
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void matchesEscapedLiteralNames()
+  {
+    assertThat(uut.getDescriptorThatMatches("org.slf4j").getSlot(),
+        is(equalTo("slf4j")));
+    assertThat(uut.getDescriptorThatMatches("orgXslf4j").getSlot(),
+        is(nullValue()));
+  }
+
+  @Test
+  public void matchesRegularExpressions()
+  {
+    assertThat(uut.getDescriptorThatMatches("org.apache.commons.io")
+        .getSlot(), is(equalTo("commons")));
+    assertThat(uut.getDescriptorThatMatches("orgXjbossXlogging").getSlot(),
+        is(equalTo("logging")));
+  }
+
+  @Test
+  public void returnsTheSameDescriptorForTheSameName()
+  {
+    final DependenciesDescriptor descriptor =
+        uut.getDescriptorThatMatches("org.slf4j");
+    assertThat(uut.getDescriptorThatMatches("org.slf4j"),
+        is(sameInstance(descriptor)));
+  }
+
+  @Test
+  public void dropsMatchesOnMerge()
+  {
+    assertThat(uut.getDescriptorThatMatches("org.example").getSlot(),
+        is(nullValue()));
+
+    final ApplyToDependencies.Builder builder =
+        new ApplyToDependencies.Builder();
+    builder.add(createDescriptor("org\\.example", "example"));
+    uut.merge(builder.build());
+
+    assertThat(uut.getDescriptorThatMatches("org.example").getSlot(),
+        is(equalTo("example")));
+  }
+}
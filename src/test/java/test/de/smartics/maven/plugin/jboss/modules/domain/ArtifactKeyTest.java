@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.domain;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import help.de.smartics.maven.plugin.jboss.modules.ArtifactBuilder;
+
+import java.util.Collections;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.domain.ArtifactKey;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link ArtifactKey}.
+ */
+@Uut(type = ArtifactKey.class)
+public class ArtifactKeyTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  // --- helper ---------------------------------------------------------------
+
+  private static Artifact createArtifact(final String artifactId)
+  {
+    final ArtifactBuilder builder = ArtifactBuilder.a();
+    builder.withGroupId("de.smartics.test");
+    builder.withArtifactId(artifactId);
+    builder.withVersion("1.0");
+    return builder.build();
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void returnsEqualKeysForEqualArtifacts()
+  {
+    final ArtifactKey key = ArtifactKey.of(createArtifact("test-artifact"));
+    final ArtifactKey other = ArtifactKey.of(createArtifact("test-artifact"));
+    assertThat(other, is(equalTo(key)));
+    assertThat(other.hashCode(), is(equalTo(key.hashCode())));
+  }
+
+  @Test
+  public void ignoresPropertiesOfArtifacts()
+  {
+    final Artifact artifact = createArtifact("test-artifact");
+    final Artifact flagged =
+        artifact.setProperties(Collections.singletonMap("flag", "true"));
+    assertThat(ArtifactKey.of(flagged),
+        is(equalTo(ArtifactKey.of(artifact))));
+  }
+
+  @Test
+  public void distinguishesArtifacts()
+  {
+    assertThat(ArtifactKey.of(createArtifact("one")),
+        is(not(equalTo(ArtifactKey.of(createArtifact("two"))))));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.domain;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import help.de.smartics.maven.plugin.jboss.modules.ArtifactBuilder;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.domain.SlotStrategy;
+import de.smartics.maven.plugin.jboss.modules.domain.SlotTable;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link SlotTable}.
+ */
+@Uut(type = SlotTable.class)
+public class SlotTableTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  // --- helper ---------------------------------------------------------------
+
+  private static Artifact createArtifact(final String version)
+  {
+    final ArtifactBuilder builder = ArtifactBuilder.a();
+    builder.withGroupId("de.smartics.test");
+    builder.withArtifactId("test-artifact");
+    builder.withVersion(version);
+    return builder.build();
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void usesTheDefaultSlotForTheMainStrategy()
+  {
+    final SlotTable uut = new SlotTable(SlotStrategy.MAIN);
+    assertThat(uut.calcSlot(createArtifact("1.2.3"), "prod"),
+        is(equalTo("prod")));
+    assertThat(uut.calcSlot(createArtifact("1.2.3"), null),
+        is(equalTo(SlotStrategy.MAIN_SLOT)));
+  }
+
+  @Test
+  public void appendsTheVersionToTheDefaultSlot()
+  {
+    final Artifact artifact = createArtifact("1.2.3");
+    assertThat(new SlotTable(SlotStrategy.VERSION_MAJOR).calcSlot(artifact,
+        "prod"), is(equalTo("prod1")));
+    assertThat(new SlotTable(SlotStrategy.VERSION_MINOR).calcSlot(artifact,
+        SlotStrategy.MAIN_SLOT), is(equalTo("1.2")));
+    assertThat(new SlotTable(SlotStrategy.VERSION_FULL).calcSlot(null,
+        "prod", artifact), is(equalTo("prod1.2.3")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownStrategies()
+  {
+    SlotTable.findStrategy("unknown", getClass().getClassLoader());
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.index;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import help.de.smartics.maven.plugin.jboss.modules.JarBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.maven.plugin.jboss.modules.index.JarPackageScanner;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link JarPackageScanner}.
+ */
+public class JarPackageScannerTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Uut
+  private final JarPackageScanner uut = new JarPackageScanner();
+
+  private File jarFile;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp() throws IOException
+  {
+    jarFile =
+        JarBuilder.a().withEntry("META-INF/MANIFEST.MF")
+            .withEntry("META-INF/maven/g/a/pom.xml").withEntry("org/")
+            .withEntry("org/example/b/B.class")
+            .withEntry("org/example/a/A.class")
+            .withEntry("org/example/a/A$Inner.class")
+            .withEntry("org/empty/").withEntry("root.properties")
+            .build(new File(folder.getRoot(), "test.jar"));
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void listsSortedFoldersContainingFiles() throws IOException
+  {
+    assertThat(uut.scan(jarFile), is(equalTo(Arrays.asList("org/example/a",
+        "org/example/b"))));
+  }
+
+  @Test
+  public void listsFilesOutsideOfMetaInfInDirectoryOrder() throws IOException
+  {
+    assertThat(uut.scanEntries(jarFile), is(equalTo(Arrays.asList(
+        "org/example/b/B.class", "org/example/a/A.class",
+        "org/example/a/A$Inner.class", "root.properties"))));
+  }
+}
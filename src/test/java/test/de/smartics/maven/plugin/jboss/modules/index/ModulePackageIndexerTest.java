@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.index;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import help.de.smartics.maven.plugin.jboss.modules.JarBuilder;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.maven.plugin.jboss.modules.index.ModulePackageIndexer;
+import de.smartics.maven.plugin.jboss.modules.index.PackageIndexCache;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link ModulePackageIndexer}.
+ */
+@Uut(type = ModulePackageIndexer.class, method = "index(File)")
+public class ModulePackageIndexerTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File moduleFolder;
+
+  private ModulePackageIndexer uut;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp() throws IOException
+  {
+    moduleFolder = new File(folder.getRoot(), "org/example/main");
+    JarBuilder.a().withEntry("org/example/a/A.class")
+        .withEntry("org/example/b/B.class")
+        .build(new File(moduleFolder, "a.jar"));
+    JarBuilder.a().withEntry("org/example/c/C.class")
+        .build(new File(moduleFolder, "c.jar"));
+    FileUtils.writeStringToFile(new File(moduleFolder, "module.xml"),
+        "<module xmlns=\"urn:jboss:module:1.1\" name=\"org.example\">\n"
+            + "  <resources>\n"
+            + "    <resource-root path=\"a.jar\"/>\n"
+            + "    <resource-root path=\"missing.jar\"/>\n"
+            + "    <resource-root path=\"c.jar\"/>\n"
+            + "  </resources>\n" + "</module>\n", "UTF-8");
+
+    uut = new ModulePackageIndexer(new PackageIndexCache(), 2);
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void writesPackagesOfExistingResourceRootsInDeclaredOrder()
+    throws MojoExecutionException, IOException
+  {
+    final int count = uut.index(folder.getRoot());
+
+    assertThat(count, is(1));
+    assertThat(FileUtils.readFileToString(new File(moduleFolder,
+        ModulePackageIndexer.INDEX_FILE_NAME), "UTF-8"),
+        is(equalTo("JarIndex-Version: 1.0\n\na.jar\norg/example/a\n"
+                   + "org/example/b\n\nc.jar\norg/example/c\n")));
+  }
+
+  @Test
+  public void writesNothingForTreeWithoutModules()
+    throws MojoExecutionException, IOException
+  {
+    final File empty = new File(folder.getRoot(), "empty");
+    FileUtils.forceMkdir(empty);
+
+    assertThat(uut.index(empty), is(0));
+  }
+}
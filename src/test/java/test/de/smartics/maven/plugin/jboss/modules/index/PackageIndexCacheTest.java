@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.index;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import help.de.smartics.maven.plugin.jboss.modules.JarBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.maven.plugin.jboss.modules.index.PackageIndexCache;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link PackageIndexCache}.
+ */
+@Uut(type = PackageIndexCache.class)
+public class PackageIndexCacheTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File jarFile;
+
+  private File cacheFile;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp() throws IOException
+  {
+    jarFile = createJar("test.jar", "org/example/a/A.class");
+    cacheFile = new File(folder.getRoot(), "cache/index.cache");
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private File createJar(final String fileName, final String entry)
+    throws IOException
+  {
+    return JarBuilder.a().withEntry(entry)
+        .build(new File(folder.getRoot(), fileName));
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void returnsCachedPackagesOfUnchangedArchive() throws IOException
+  {
+    final PackageIndexCache uut = new PackageIndexCache();
+
+    final List<String> packages = uut.getPackages(jarFile);
+
+    assertThat(packages, is(equalTo(Arrays.asList("org/example/a"))));
+    assertThat(uut.getPackages(jarFile), is(sameInstance(packages)));
+  }
+
+  @Test
+  public void rescansArchiveChangedAfterStore() throws IOException
+  {
+    final PackageIndexCache uut = new PackageIndexCache();
+    uut.getPackages(jarFile);
+    uut.store(cacheFile);
+
+    createJar("test.jar", "org/example/changed/C.class");
+    assertThat(jarFile.setLastModified(jarFile.lastModified() + 2000L),
+        is(true));
+    final PackageIndexCache loaded = new PackageIndexCache();
+    loaded.load(cacheFile);
+
+    assertThat(loaded.getPackages(jarFile),
+        is(equalTo(Arrays.asList("org/example/changed"))));
+  }
+
+  @Test
+  public void loadsStoredEntries() throws IOException
+  {
+    final PackageIndexCache uut = new PackageIndexCache();
+    uut.getPackages(jarFile);
+    uut.getPackages(createJar("other.jar", "org/example/b/B.class"));
+    uut.store(cacheFile);
+
+    final PackageIndexCache loaded = new PackageIndexCache();
+    loaded.load(cacheFile);
+
+    assertThat(loaded.size(), is(2));
+    assertThat(loaded.getPackages(jarFile),
+        is(equalTo(Arrays.asList("org/example/a"))));
+  }
+
+  @Test
+  public void ignoresFileOfUnknownFormat() throws IOException
+  {
+    FileUtils.writeByteArrayToFile(cacheFile, new byte[] { 0, 0, 0, 1, 0 });
+    final PackageIndexCache uut = new PackageIndexCache();
+
+    uut.load(cacheFile);
+
+    assertThat(uut.size(), is(0));
+  }
+
+  @Test
+  public void leavesNoTemporaryFilesAfterStore() throws IOException
+  {
+    final PackageIndexCache uut = new PackageIndexCache();
+    uut.getPackages(jarFile);
+
+    uut.store(cacheFile);
+    uut.store(cacheFile);
+
+    assertThat(cacheFile.getParentFile().list(),
+        is(equalTo(new String[] { "index.cache" })));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.parser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModulesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.parser.ModulesXmlLocator;
+
+/**
+ * Tests {@link ModulesXmlLocator}.
+ */
+public class ModulesXmlLocatorTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  private static final int DESCRIPTOR_COUNT = 24;
+
+  // --- members --------------------------------------------------------------
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File rootDirectory;
+
+  private ClassLoader classLoader;
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @Before
+  public void setUp() throws Exception
+  {
+    rootDirectory = folder.newFolder("jboss-modules");
+    for (int i = 0; i < DESCRIPTOR_COUNT; i++)
+    {
+      final String name = String.format("module%02d", i);
+      FileUtils.writeStringToFile(new File(rootDirectory, name + ".xml"),
+          "<modules xmlns=\"http://smartics.de/ns/jboss-modules-descriptor/1\">"
+              + "<module name=\"" + name + "\"/></modules>", "UTF-8");
+    }
+    FileUtils.writeStringToFile(new File(rootDirectory, "readme.txt"),
+        "not a descriptor", "UTF-8");
+    classLoader = new URLClassLoader(new URL[0], null);
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  private List<ModulesDescriptor> discover(final int threads) throws Exception
+  {
+    final ModulesXmlLocator uut = new ModulesXmlLocator(null, threads);
+    return uut.discover(classLoader, Collections.singletonList(rootDirectory));
+  }
+
+  private static void assertOrdered(final List<ModulesDescriptor> result)
+  {
+    assertThat(result.size(), is(equalTo(DESCRIPTOR_COUNT)));
+    for (int i = 0; i < DESCRIPTOR_COUNT; i++)
+    {
+      final ModulesDescriptor descriptor = result.get(i);
+      assertThat(descriptor.getDescriptors().get(0).getName(),
+          is(equalTo(String.format("module%02d", i))));
+    }
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void discoversDescriptorsSequentiallyInOrder() throws Exception
+  {
+    assertOrdered(discover(1));
+  }
+
+  @Test
+  public void discoversDescriptorsInParallelInOrder() throws Exception
+  {
+    assertOrdered(discover(4));
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.parser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.descriptor.ApplyToModule;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ArtifactClusion;
+import de.smartics.maven.plugin.jboss.modules.descriptor.DependenciesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModuleDescriptor;
+import de.smartics.maven.plugin.jboss.modules.descriptor.ModulesDescriptor;
+import de.smartics.maven.plugin.jboss.modules.parser.ModulesXmlParser;
+import de.smartics.maven.plugin.jboss.modules.parser.StaxModulesXmlParser;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link StaxModulesXmlParser}.
+ */
+@Uut(type = StaxModulesXmlParser.class)
+public class StaxModulesXmlParserTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  /**
+   * The folder of the test documents on the class path.
+   * <p>
+   * The value of this constant is {@value}.
+   * </p>
+   */
+  private static final String FOLDER =
+      "/test/de/smartics/maven/plugin/jboss/modules/parser/";
+
+  // --- members --------------------------------------------------------------
+
+  private final StaxModulesXmlParser uut = new StaxModulesXmlParser();
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  // --- helper ---------------------------------------------------------------
+
+  private ModulesDescriptor parse(final String id) throws IOException
+  {
+    final InputStream input = getClass().getResourceAsStream(FOLDER + id);
+    try
+    {
+      return uut.parse(id, input);
+    }
+    finally
+    {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  private ModulesDescriptor parseWithJdom(final String id) throws Exception
+  {
+    final InputStream input = getClass().getResourceAsStream(FOLDER + id);
+    try
+    {
+      return new ModulesXmlParser().parse(id, input);
+    }
+    finally
+    {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void parsesApplyToModule() throws IOException
+  {
+    final ModulesDescriptor result = parse("apply-to-module.xml");
+
+    final List<ModuleDescriptor> descriptors = result.getDescriptors();
+    assertThat(descriptors.size(), is(equalTo(1)));
+    final ModuleDescriptor descriptor = descriptors.get(0);
+    assertThat(descriptor.getName(), is(equalTo("apply-to-modules")));
+    assertThat(descriptor.getSlot(), is(nullValue()));
+    final ArtifactClusion include =
+        descriptor.getMatcher().getIncludes().get(0);
+    assertThat(include.getGroupId(), is(equalTo("de.smartics.test")));
+    assertThat(include.getArtifactId(), is(equalTo("service-test")));
+
+    final ApplyToModule apply = descriptor.getApplyToModule();
+    assertThat(apply.getMainClassXml(),
+        is(equalTo("<main-class xmlns=\"urn:jboss:module:1.1\""
+                   + " name=\"de.smartics.test.Main\" />")));
+    final List<String> dependenciesXmls = apply.getDependenciesXml();
+    assertThat(dependenciesXmls.size(), is(equalTo(2)));
+    assertThat(dependenciesXmls.get(0),
+        is(equalTo("<module xmlns=\"urn:jboss:module:1.1\""
+                   + " name=\"javax.api\" />")));
+    assertThat(dependenciesXmls.get(1),
+        is(equalTo("<module xmlns=\"urn:jboss:module:1.1\""
+                   + " name=\"javax.xml.stream.api\">"
+                   + "<imports><exclude-set>"
+                   + "<path name=\"org.jboss.example.tests\" />"
+                   + "</exclude-set></imports></module>")));
+    assertThat(apply.getExportsXml(),
+        is(equalTo("<exports xmlns=\"urn:jboss:module:1.1\">"
+                   + "<exclude path=\"**/impl/*\" /></exports>")));
+  }
+
+  @Test
+  public void namesNonModuleDependencies() throws IOException
+  {
+    final ModulesDescriptor result = parse("apply-to-module-with-system.xml");
+
+    final ApplyToModule apply =
+        result.getDescriptors().get(0).getApplyToModule();
+    final List<String> dependenciesXmls = apply.getDependenciesXml();
+    assertThat(dependenciesXmls.size(), is(equalTo(1)));
+    assertThat(dependenciesXmls.get(0),
+        is(equalTo("<system xmlns=\"urn:jboss:module:1.1\""
+                   + " export=\"true\"><paths>"
+                   + "<path name=\"org/example/one\" />"
+                   + "<path name=\"org/example/one/another\" />"
+                   + "</paths></system>")));
+  }
+
+  @Test
+  public void readsApplyToModuleElementsOfAnyNamespace() throws IOException
+  {
+    final ModulesDescriptor result = parse("apply-to-module-namespaces.xml");
+
+    final ApplyToModule apply =
+        result.getDescriptors().get(0).getApplyToModule();
+    assertThat(apply.getMainClassXml(),
+        is(equalTo("<main-class xmlns=\"urn:jboss:module:1.1\""
+                   + " name=\"de.smartics.test.Main\" />")));
+    final List<String> propertiesXmls = apply.getPropertiesXml();
+    assertThat(propertiesXmls.size(), is(equalTo(3)));
+    assertThat(propertiesXmls.get(1),
+        is(equalTo("<property xmlns=\"urn:jboss:module:1.1\""
+                   + " name=\"two\" value=\"2\" />")));
+    final List<String> dependenciesXmls = apply.getDependenciesXml();
+    assertThat(dependenciesXmls.size(), is(equalTo(2)));
+    assertThat(dependenciesXmls.get(1),
+        is(equalTo("<module xmlns=\"urn:jboss:module:1.1\""
+                   + " name=\"javax.xml.stream.api\" />")));
+  }
+
+  @Test
+  public void readsApplyToModuleElementsLikeJdomParser() throws Exception
+  {
+    final String id = "apply-to-module-namespaces.xml";
+
+    final ApplyToModule apply =
+        parse(id).getDescriptors().get(0).getApplyToModule();
+    final ApplyToModule expected =
+        parseWithJdom(id).getDescriptors().get(0).getApplyToModule();
+    assertThat(apply, is(equalTo(expected)));
+  }
+
+  @Test
+  public void keepsNamespacesOfAttributes() throws IOException
+  {
+    final ModulesDescriptor result = parse("apply-to-module-namespaces.xml");
+
+    final ApplyToModule apply =
+        result.getDescriptors().get(0).getApplyToModule();
+    assertThat(apply.getPropertiesXml().get(2),
+        is(equalTo("<property xmlns=\"urn:jboss:module:1.1\""
+                   + " xmlns:x=\"http://example.org/other\""
+                   + " x:name=\"four\" name=\"three\" value=\"3\" />")));
+    assertThat(apply.getDependenciesXml().get(0),
+        is(equalTo("<module xmlns=\"urn:jboss:module:1.1\""
+                   + " xmlns:x=\"http://example.org/other\""
+                   + " name=\"javax.api\" x:slot=\"other\" />")));
+  }
+
+  @Test
+  public void parsesApplyToDependencies() throws IOException
+  {
+    final ModulesDescriptor result = parse("dependencies-full.xml");
+
+    final ModuleDescriptor descriptor = result.getDescriptors().get(0);
+    assertThat(descriptor.getName(), is(equalTo("$g1.services")));
+    assertThat(descriptor.getSlot(), is(equalTo("services")));
+
+    final DependenciesDescriptor dependencies =
+        descriptor.getApplyToDependencies().getDescriptors().get(0);
+    assertThat(dependencies.getMatcher().getIncludes().get(0).getName(),
+        is(equalTo("org\\.apache\\.commons\\..*")));
+    assertThat(dependencies.getSlot(), is(equalTo("other")));
+    assertThat(dependencies.getExport(), is(equalTo(Boolean.TRUE)));
+    assertThat(dependencies.getServices(), is(equalTo("import")));
+    assertThat(dependencies.getOptional(), is(equalTo(Boolean.TRUE)));
+    assertThat(dependencies.getImportsXml(),
+        is(equalTo("<imports xmlns=\"urn:jboss:module:1.1\">"
+                   + "<include path=\"de/smartics/test/one\" />"
+                   + "<include-set><path name=\"de/smartics/sandbox/one\" />"
+                   + "<path name=\"de/smartics/sandbox/two\" /></include-set>"
+                   + "<exclude-set><path name=\"org/jboss/example/tests1\" />"
+                   + "<path name=\"org/jboss/example/tests2\" />"
+                   + "</exclude-set></imports>")));
+  }
+}
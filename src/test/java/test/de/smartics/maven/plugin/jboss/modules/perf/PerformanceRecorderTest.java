@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013-2014 smartics, Kronseder & Reiner GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package test.de.smartics.maven.plugin.jboss.modules.perf;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.smartics.maven.plugin.jboss.modules.perf.Counter;
+import de.smartics.maven.plugin.jboss.modules.perf.PerformanceRecorder;
+import de.smartics.testdoc.annotations.Uut;
+
+/**
+ * Tests {@link PerformanceRecorder}.
+ */
+@Uut(type = PerformanceRecorder.class)
+public class PerformanceRecorderTest
+{
+  // ********************************* Fields *********************************
+
+  // --- constants ------------------------------------------------------------
+
+  // --- members --------------------------------------------------------------
+
+  // ****************************** Inner Classes *****************************
+
+  // ********************************* Methods ********************************
+
+  // --- prepare --------------------------------------------------------------
+
+  @After
+  public void tearDown()
+  {
+    PerformanceRecorder.unbind();
+  }
+
+  // --- helper ---------------------------------------------------------------
+
+  // --- tests ----------------------------------------------------------------
+
+  @Test
+  public void countsEventsOfBoundRecorder()
+  {
+    final PerformanceRecorder recorder = new PerformanceRecorder();
+    recorder.bind();
+
+    PerformanceRecorder.count(Counter.REGEX_EVALUATIONS);
+    PerformanceRecorder.count(Counter.BYTES_COPIED, 42L);
+
+    assertThat(recorder.getCount(Counter.REGEX_EVALUATIONS), is(1L));
+    assertThat(recorder.getCount(Counter.BYTES_COPIED), is(42L));
+  }
+
+  @Test
+  public void bindingDisabledRecorderReplacesPreviousBinding()
+  {
+    final PerformanceRecorder recorder = new PerformanceRecorder();
+    recorder.bind();
+    PerformanceRecorder.NONE.bind();
+
+    PerformanceRecorder.count(Counter.REGEX_EVALUATIONS);
+
+    assertThat(recorder.getCount(Counter.REGEX_EVALUATIONS), is(0L));
+    assertThat(PerformanceRecorder.NONE.getCount(Counter.REGEX_EVALUATIONS),
+        is(0L));
+  }
+
+  @Test
+  public void disabledRecorderRecordsNothing()
+  {
+    final PerformanceRecorder recorder = PerformanceRecorder.NONE;
+
+    recorder.start("phase");
+    recorder.add(Counter.MODULES_WRITTEN, 3L);
+    recorder.stop();
+
+    assertThat(recorder.getPhases().isEmpty(), is(true));
+    assertThat(recorder.getCount(Counter.MODULES_WRITTEN), is(0L));
+    assertThat(recorder.getTotalNanos(), is(0L));
+  }
+}